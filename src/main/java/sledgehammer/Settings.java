@@ -103,6 +103,28 @@ public class Settings extends Printable {
 
   private boolean overrideLua;
   private boolean overrideLang;
+  /** Flag to record the latency of every EventHandler and CommandHandler. */
+  private boolean profilerEnabled = false;
+  /** The p99 latency budget in milliseconds for a single EventHandler or CommandHandler. */
+  private int profilerHandlerBudget = 5;
+  /** Flag to disable EventHandlers and CommandHandlers that exceed the latency budget. */
+  private boolean profilerDisableSlowHandlers = false;
+  /** The minimum amount of invocations before a handler is checked against the budget. */
+  private int profilerMinimumSamples = 100;
+  /** The interval in seconds to write the handler profile to the logs. Set to 0 to disable. */
+  private int profilerDumpInterval = 300;
+  /** Flag to reuse high-frequency Events from pools instead of allocating them. */
+  private boolean eventPooling = false;
+  /** The time in milliseconds TickTasks can run each tick. Set to 0 to disable. */
+  private int taskBudget = 20;
+  /** The duration in milliseconds of a tick to report as a lag-spike. Set to 0 to disable. */
+  private int lagThreshold = 250;
+  /** The amount of stack samples to take of the update thread during a lag-spike. */
+  private int lagSamples = 5;
+  /** The duration in seconds to suppress repeats of the same Throwable. Set to 0 to disable. */
+  private int throwableWindow = 30;
+  /** The amount of workers writing transactions to the database. */
+  private int databaseWorkers = 2;
 
   /** Main constructor. */
   private Settings() {
@@ -159,6 +181,7 @@ public class Settings extends Printable {
     parseGeneralConfig((Map) map.get("general"));
     parseSecurityConfig((Map) map.get("security"));
     parseDatabaseConfig((Map) map.get("mongo_db"));
+    parsePerformanceConfig((Map) map.get("performance"));
   }
 
   /**
@@ -248,6 +271,90 @@ public class Settings extends Printable {
     }
   }
 
+  /**
+   * (Private Method)
+   *
+   * <p>Parses and interprets the performance section.
+   *
+   * @param performance The Map definition.
+   */
+  private void parsePerformanceConfig(Map performance) {
+    if (performance == null) {
+      return;
+    }
+    // (Boolean) performance.event_pooling
+    Object oEventPooling = performance.get("event_pooling");
+    if (oEventPooling != null) {
+      eventPooling = getBoolean(oEventPooling);
+    }
+    // (Integer) performance.task_budget
+    taskBudget = getInteger(performance, "task_budget", "performance", taskBudget);
+    // (Integer) performance.lag_threshold
+    lagThreshold = getInteger(performance, "lag_threshold", "performance", lagThreshold);
+    // (Integer) performance.lag_samples
+    lagSamples = getInteger(performance, "lag_samples", "performance", lagSamples);
+    // (Integer) performance.throwable_window
+    throwableWindow =
+        getInteger(performance, "throwable_window", "performance", throwableWindow);
+    // (Integer) performance.database_workers
+    databaseWorkers =
+        Math.max(1, getInteger(performance, "database_workers", "performance", databaseWorkers));
+    Map profiler = (Map) performance.get("profiler");
+    if (profiler != null) {
+      // (Boolean) performance.profiler.enabled
+      Object oEnabled = profiler.get("enabled");
+      if (oEnabled != null) {
+        profilerEnabled = getBoolean(oEnabled);
+      }
+      // (Integer) performance.profiler.handler_budget
+      profilerHandlerBudget =
+          getInteger(profiler, "handler_budget", "performance.profiler", profilerHandlerBudget);
+      // (Boolean) performance.profiler.disable_slow_handlers
+      Object oDisableSlowHandlers = profiler.get("disable_slow_handlers");
+      if (oDisableSlowHandlers != null) {
+        profilerDisableSlowHandlers = getBoolean(oDisableSlowHandlers);
+      }
+      // (Integer) performance.profiler.minimum_samples
+      profilerMinimumSamples =
+          getInteger(profiler, "minimum_samples", "performance.profiler", profilerMinimumSamples);
+      // (Integer) performance.profiler.dump_interval
+      profilerDumpInterval =
+          getInteger(profiler, "dump_interval", "performance.profiler", profilerDumpInterval);
+    }
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Reads a non-negative Integer from a section. If the value is not valid, the default value
+   * is used.
+   *
+   * @param section The Map definition of the section.
+   * @param key The key of the value.
+   * @param path The path of the section, for error messages.
+   * @param defaultValue The value to use if the value is not defined or not valid.
+   * @return Returns the value read.
+   */
+  private int getInteger(Map section, String key, String path, int defaultValue) {
+    Object object = section.get(key);
+    if (object == null) {
+      return defaultValue;
+    }
+    try {
+      int value = Integer.parseInt(object.toString());
+      if (value >= 0) {
+        return value;
+      }
+    } catch (NumberFormatException e) {
+      // Handled below.
+    }
+    errln("Failed to set " + path + "." + key);
+    errln("Number not valid: " + object.toString());
+    errln("Number is supposed to be a non-negative integer.");
+    errln("Setting value to " + defaultValue + ".");
+    return defaultValue;
+  }
+
   /**
    * (Private Method)
    *
@@ -786,6 +893,79 @@ public class Settings extends Printable {
     write(file, fileConfigName, new File(fileConfigName));
   }
 
+  /** @return Returns true if high-frequency Events are reused from pools. */
+  public boolean isEventPoolingEnabled() {
+    return this.eventPooling;
+  }
+
+  /**
+   * @return Returns the time in milliseconds TickTasks can run each tick. If 0 is returned, the
+   *     TickTasks are not limited.
+   */
+  public int getTaskBudget() {
+    return this.taskBudget;
+  }
+
+  /**
+   * @return Returns the duration in milliseconds of a tick to report as a lag-spike. If 0 is
+   *     returned, lag-spikes are not reported.
+   */
+  public int getLagThreshold() {
+    return this.lagThreshold;
+  }
+
+  /** @return Returns the amount of stack samples to take of the update thread in a lag-spike. */
+  public int getLagSamples() {
+    return this.lagSamples;
+  }
+
+  /**
+   * @return Returns the duration in seconds to suppress repeats of the same Throwable. If 0 is
+   *     returned, every Throwable is handled.
+   */
+  public int getThrowableWindow() {
+    return this.throwableWindow;
+  }
+
+  /**
+   * @return Returns the amount of workers writing transactions to the database. Transactions are
+   *     spread across the workers by document.
+   */
+  public int getDatabaseWorkers() {
+    return this.databaseWorkers;
+  }
+
+  /** @return Returns true if the latency of every EventHandler and CommandHandler is recorded. */
+  public boolean isProfilerEnabled() {
+    return this.profilerEnabled;
+  }
+
+  /**
+   * @return Returns the p99 latency budget in milliseconds for a single EventHandler or
+   *     CommandHandler.
+   */
+  public int getProfilerHandlerBudget() {
+    return this.profilerHandlerBudget;
+  }
+
+  /** @return Returns true if handlers that exceed the latency budget are disabled. */
+  public boolean isProfilerDisablingSlowHandlers() {
+    return this.profilerDisableSlowHandlers;
+  }
+
+  /** @return Returns the minimum amount of invocations before a handler is checked. */
+  public int getProfilerMinimumSamples() {
+    return this.profilerMinimumSamples;
+  }
+
+  /**
+   * @return Returns the interval in seconds to write the handler profile to the logs. If 0 is
+   *     returned, the handler profile is not written periodically.
+   */
+  public int getProfilerDumpInterval() {
+    return this.profilerDumpInterval;
+  }
+
   /** @return Returns true if Sledgehammer is set in debug-mode. */
   public boolean isDebug() {
     return this.debug;
@@ -24,13 +24,17 @@ import java.io.*;
 import java.net.URISyntaxException;
 import java.util.Collection;
 import java.util.List;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import se.krka.kahlua.vm.KahluaTable;
 import sledgehammer.database.module.core.MongoPlayer;
 import sledgehammer.database.module.core.SledgehammerDatabase;
 import sledgehammer.event.CommandEvent;
 import sledgehammer.event.Event;
+import sledgehammer.event.EventJournal;
+import sledgehammer.event.ThrowableEvent;
 import sledgehammer.event.player.PlayerCreatedEvent;
 import sledgehammer.interfaces.*;
 import sledgehammer.lua.LuaObject;
@@ -83,10 +87,16 @@ public class SledgeHammer extends Printable {
   private PluginManager managerPlugin;
   /** Manager to handle Events. */
   private EventManager managerEvent;
+  /** Manager to run work on named thread pools off of the server's update thread. */
+  private ExecutorManager managerExecutor;
   /** Manager to handle logging of Players and Player data. */
   private PlayerManager managerPlayer;
   /** Manager to handle registered tasks for Modules. */
   private TaskManager managerTask;
+  /** Manager to profile the latency of EventHandlers and CommandHandlers. */
+  private ProfileManager managerProfile;
+  /** Manager to monitor the duration of update ticks, and to report lag-spikes. */
+  private HealthManager managerHealth;
   /**
    * UdpEngine pointer for the Project Zomboid GameServer UdpEngine instance, to communicate with
    * connections.
@@ -108,6 +118,9 @@ public class SledgeHammer extends Printable {
   /** Flag for whether or not the SledgeHammer instance has started. */
   private boolean started = false;
 
+  /** Tasks posted from other threads to run on the server's update thread. */
+  private final Queue<Runnable> queueMainThread = new ConcurrentLinkedQueue<>();
+
   private boolean stopNextTick = false;
 
   private boolean reloading = false;
@@ -142,7 +155,14 @@ public class SledgeHammer extends Printable {
       directoryLang = new File("lang/");
       directoryLua = new File("lua/");
       publicServerName = ServerOptions.instance.getOption("PublicName");
+      // The executors are used by the other managers, and are loaded first.
+      managerExecutor = new ExecutorManager();
+      managerExecutor.onLoad(testModule);
       managerTask = new TaskManager();
+      managerHealth = new HealthManager();
+      managerHealth.onLoad(testModule);
+      managerProfile = new ProfileManager();
+      managerProfile.onLoad(testModule);
       managerEvent = new EventManager();
       managerPlugin = new PluginManager();
       managerPlayer = new PlayerManager();
@@ -166,6 +186,8 @@ public class SledgeHammer extends Printable {
       SledgeHammer.instance.handle(event);
     }
     getEventManager().onStart();
+    getProfileManager().onStart();
+    getHealthManager().onStart();
     started = true;
   }
 
@@ -179,14 +201,62 @@ public class SledgeHammer extends Printable {
     }
     try {
       synchronized (this) {
-        managerTask.onUpdate();
-        managerPlugin.onUpdate();
+        managerHealth.onTickStarted();
+        try {
+          EventJournal journal = managerEvent.getJournal();
+          if (journal != null) {
+            journal.recordTick();
+          }
+          runMainThreadTasks();
+          long timeStarted = System.nanoTime();
+          managerTask.onUpdate();
+          long timeTasks = System.nanoTime();
+          managerHealth.recordTasks(timeTasks - timeStarted);
+          managerPlugin.onUpdate();
+          managerHealth.recordPlugins(System.nanoTime() - timeTasks);
+          managerProfile.onUpdate();
+          managerEvent.onUpdate();
+        } finally {
+          managerHealth.onTickEnded();
+        }
       }
     } catch (Exception e) {
       stackTrace(e);
     }
   }
 
+  /**
+   * Posts a task to run on the server's update thread during the next tick. This is the way for
+   * work done on other threads, (E.G: asynchronous EventHandlers), to hand back results that
+   * change the state of the server.
+   *
+   * @param runnable The task to run.
+   */
+  public void runOnMainThread(Runnable runnable) {
+    if (runnable == null) {
+      throw new IllegalArgumentException("Runnable given is null.");
+    }
+    queueMainThread.add(runnable);
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Runs the tasks posted with 'runOnMainThread(runnable)'. Only the tasks queued before this
+   * method is called are ran, so tasks that post more tasks run on the next tick.
+   */
+  private void runMainThreadTasks() {
+    int count = queueMainThread.size();
+    Runnable runnable;
+    while (count-- > 0 && (runnable = queueMainThread.poll()) != null) {
+      try {
+        runnable.run();
+      } catch (Exception e) {
+        stackTrace(e);
+      }
+    }
+  }
+
   public void reloadPlugins() {
     send(new SendReload());
     this.reloading = true;
@@ -203,7 +273,16 @@ public class SledgeHammer extends Printable {
         managerTask.onShutDown();
         managerPlugin.onShutDown();
         managerPlayer.onShutDown();
+        managerProfile.onShutDown();
+        managerHealth.onShutDown();
+        managerEvent.onShutDown();
+        // Let the work already submitted to the executors finish. This can still queue database
+        // transactions, and tasks for the main thread.
+        managerExecutor.onShutDown();
+        runMainThreadTasks();
+        // Write the queued transactions before stopping the executor of the database workers.
         getDatabase().shutDown();
+        managerExecutor.shutDown(ExecutorManager.DB);
       }
     } catch (Exception e) {
       stackTrace(e);
@@ -440,6 +519,20 @@ public class SledgeHammer extends Printable {
     return player;
   }
 
+  /**
+   * Creates a Player for a MongoPlayer queried off of the update thread, with
+   * 'SledgehammerDatabase.findMongoPlayer(username)'.
+   *
+   * <p>(Note: This is to be called on the server's update thread)
+   *
+   * @param mongoPlayer The MongoPlayer queried.
+   * @return Returns a Player object for the MongoPlayer. If a MongoPlayer with the same user-name
+   *     is already registered, that MongoPlayer is used.
+   */
+  public Player getOfflinePlayer(MongoPlayer mongoPlayer) {
+    return new Player(getDatabase().registerMongoPlayer(mongoPlayer));
+  }
+
   /** @return Returns the SledgehammerDatabase instance for the Sledgehammer engine. */
   public SledgehammerDatabase getDatabase() {
     if (this.database == null) {
@@ -479,7 +572,6 @@ public class SledgeHammer extends Printable {
       tableFile.rawset("data", tableData);
     } catch (IOException e) {
       stackTrace(e);
-      getEventManager().handleThrown(e);
     }
   }
 
@@ -563,6 +655,21 @@ public class SledgeHammer extends Printable {
     return managerEvent;
   }
 
+  /** @return Returns the ExecutorManager instance. */
+  public ExecutorManager getExecutorManager() {
+    return managerExecutor;
+  }
+
+  /** @return Returns the ProfileManager instance. */
+  public ProfileManager getProfileManager() {
+    return managerProfile;
+  }
+
+  /** @return Returns the HealthManager instance. */
+  public HealthManager getHealthManager() {
+    return managerHealth;
+  }
+
   /** @return Returns the PlayerManager instance. */
   public PlayerManager getPlayerManager() {
     return managerPlayer;
@@ -647,7 +754,8 @@ public class SledgeHammer extends Printable {
    *
    * <p>This method is a simplified version of: <code> handleEvent(event, true); </code>,
    *
-   * <p>The Event is logged.
+   * <p>The Event is logged. A pooled Event is still referenced by the caller once handled, and
+   * must be released. (See EventPool)
    *
    * @param event The Event to handle.
    * @return Returns the Event handled.
@@ -656,16 +764,44 @@ public class SledgeHammer extends Printable {
     return getEventManager().handleEvent(event, true);
   }
 
+  /**
+   * Executes EventListeners from a given pooled Event instance, and releases the Event once
+   * handled. The Event is logged.
+   *
+   * <p>The Event must not be used after this method returns.
+   *
+   * @param event The Event to handle.
+   */
+  public void handleAndRelease(Event event) {
+    getEventManager().handleEventAndRelease(event, true);
+  }
+
+  /**
+   * Handles a thrown Throwable as a ThrowableEvent.
+   *
+   * @param throwable The Throwable to handle.
+   */
   public void handle(Throwable throwable) {
     getEventManager().handleThrown(throwable);
   }
 
+  /**
+   * Handles a thrown Throwable as a ThrowableEvent, and returns the result.
+   *
+   * @param throwable The Throwable to handle.
+   * @return Returns the ThrowableEvent handled. Returns null if the Throwable is a suppressed
+   *     repeat.
+   */
+  public ThrowableEvent handleThrown(Throwable throwable) {
+    return getEventManager().handleThrown(throwable);
+  }
+
   /**
    * Executes EventListeners from a given Event instance. Logging is optional.
    *
    * @param event The Event to handle.
    * @param log Flag to issue a LogEvent after handling the Event.
-   * @return Returns the Event handled.
+   * @return Returns the Event handled. A pooled Event must be released by the caller.
    */
   public Event handle(Event event, boolean log) {
     return getEventManager().handleEvent(event, log);
@@ -117,4 +117,24 @@ public @interface CommandHandler {
    * @return Returns false by default.
    */
   boolean ignoreHandled() default false;
+
+  /**
+   * Set this to true if the command handler should run off of the server's update thread, (E.G:
+   * commands that query the database). Permissions are still checked on the update thread before
+   * the command handler runs.
+   *
+   * <p>The CommandEvent returned by 'handleCommand()' is deferred, and its Response is empty until
+   * the command handler is done. Code that reads the Response must wait with
+   * 'CommandEvent.whenComplete(callback)'. Commands handled through 'handleCommand(connection,
+   * input)' deliver the Response themselves once complete: to the console for the administrator,
+   * or as a chat message to the commanding player.
+   *
+   * <p>The command handler must not touch state owned by the update thread, (E.G: online Players,
+   * or cached documents). That work should be posted with
+   * 'SledgeHammer.instance.runOnMainThread(runnable)'. Runnables posted by the command handler run
+   * before the Response is completed, so they can still write to it.
+   *
+   * @return Returns false by default.
+   */
+  boolean async() default false;
 }
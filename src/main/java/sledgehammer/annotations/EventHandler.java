@@ -99,4 +99,36 @@ public @interface EventHandler {
    * @return Returns an empty String by default.
    */
   String id() default "";
+
+  /**
+   * Set this to true if the EventHandler should run on a worker lane instead of the server's update
+   * thread. Asynchronous EventHandlers are invoked after all other EventHandlers for the Event have
+   * finished, and should only read the Event. Events for the same Player are handled in the order
+   * they are fired.
+   *
+   * <p>Anything that must happen on the server's update thread should be posted with
+   * 'SledgeHammer.instance.runOnMainThread(runnable)'.
+   *
+   * @return Returns false by default.
+   */
+  boolean async() default false;
+
+  /**
+   * Set this to true if the EventHandler only observes the Event, (E.G: logging, or statistics),
+   * and never modifies it or cancels it. Monitor EventHandlers are invoked after all other
+   * EventHandlers for the Event have finished, and the monitor EventHandlers for the same Event
+   * run at the same time on a shared pool. They must not rely on the order of other monitors.
+   *
+   * @return Returns false by default.
+   */
+  boolean monitor() default false;
+
+  /**
+   * Only used by monitor EventHandlers. If true, the Event is not considered handled until the
+   * monitor EventHandler has finished. If false, the monitor EventHandler is fire-and-forget, and
+   * may still be running after the Event is handled.
+   *
+   * @return Returns true by default.
+   */
+  boolean join() default true;
 }
@@ -41,7 +41,6 @@
 package sledgehammer.command;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.UUID;
 
@@ -58,8 +57,11 @@ import sledgehammer.lua.core.Player;
  */
 public class Command extends LuaTable {
   private String command;
-  private String[] args = new String[0];
+  /** The arguments. This is created from the tokens when first requested. */
+  private String[] args;
   private String raw = null;
+  /** The single parse result of the raw command. */
+  private CommandTokens tokens;
   private Player player;
   private UUID channelId;
 
@@ -71,9 +73,7 @@ public class Command extends LuaTable {
   public Command(String command, String[] args) {
     super("Command");
     this.command = command;
-    if (args != null) {
-      this.args = args;
-    }
+    this.args = args != null ? args : new String[0];
   }
 
   /**
@@ -117,9 +117,10 @@ public class Command extends LuaTable {
       StringBuilder rawBuilder = new StringBuilder("/");
       rawBuilder.append(command);
       for (String arg : args) {
-        if (arg.contains(" ")) {
+        if (arg.contains(" ") || arg.contains("\"") || arg.contains("\\")) {
+          // Escape the argument so that it is tokenized back into the same argument.
           rawBuilder.append(" \"");
-          rawBuilder.append(arg.trim());
+          rawBuilder.append(arg.trim().replace("\\", "\\\\").replace("\"", "\\\""));
           rawBuilder.append("\"");
         } else {
           rawBuilder.append(" ");
@@ -131,20 +132,42 @@ public class Command extends LuaTable {
     return raw;
   }
 
+  /**
+   * Parses a raw command. The arguments are not created until requested.
+   *
+   * @param raw The raw command to parse.
+   */
   public void parse(String raw) {
-    command = raw.replace("/", "").replace("!", "").trim().split(" ")[0].toLowerCase();
-    args = tryAgain(raw);
+    tokens = CommandTokens.tokenize(raw);
+    command = tokens.size() > 0 ? tokens.get(0).toLowerCase() : "";
+    args = null;
     this.raw = raw;
   }
 
+  /**
+   * @return Returns the single parse result of the raw command. If the Command is not created from
+   *     a raw command, the tokens are parsed from the assembled raw command.
+   */
+  public CommandTokens getTokens() {
+    if (tokens == null) {
+      tokens = CommandTokens.tokenize(getRaw());
+    }
+    return tokens;
+  }
+
+  /**
+   * @return Returns the raw text after the command name, starting at the first argument. If the
+   *     Command has no arguments, null is returned.
+   */
   public String getArgumentsAsString() {
-    if (getArguments().length == 0) return null;
-    String raw = getRaw();
-    return raw.substring(command.length() + 2, raw.length());
+    CommandTokens tokens = getTokens();
+    if (tokens.size() < 2) return null;
+    return tokens.getSource().substring(tokens.getOffset(1));
   }
 
   public void debugPrint() {
     println("Command: " + getCommand());
+    String[] args = getArguments();
     println("Arguments: " + args.length);
     for (int index = 0; index < args.length; index++) {
       String arg = args[index];
@@ -155,7 +178,7 @@ public class Command extends LuaTable {
   }
 
   public boolean hasArguments() {
-    return this.args != null && this.args.length > 0;
+    return getArgumentCount() > 0;
   }
 
   public String getCommand() {
@@ -163,9 +186,28 @@ public class Command extends LuaTable {
   }
 
   public String[] getArguments() {
+    if (args == null) {
+      args = getTokens().toArray(1);
+    }
     return args;
   }
 
+  /** @return Returns the amount of arguments, without creating them. */
+  public int getArgumentCount() {
+    return args != null ? args.length : Math.max(0, getTokens().size() - 1);
+  }
+
+  /**
+   * @param index The index of the argument.
+   * @return Returns the argument at the index given. Only this argument is created.
+   */
+  public String getArgument(int index) {
+    if (args != null) {
+      return args[index];
+    }
+    return getTokens().get(index + 1);
+  }
+
   public Player getPlayer() {
     return this.player;
   }
@@ -182,37 +224,12 @@ public class Command extends LuaTable {
     this.channelId = channelId;
   }
 
+  /**
+   * @param input The raw command.
+   * @return Returns the arguments of the raw command, without the command name.
+   */
   public static String[] tryAgain(String input) {
-    char[] chars = input.toCharArray();
-    List<String> args = new LinkedList<>();
-    StringBuilder arg = new StringBuilder();
-    boolean in = false;
-    for (char c : chars) {
-      switch (c) {
-        case ' ':
-          if (!in) {
-            args.add(arg.toString());
-            arg = new StringBuilder();
-          } else {
-            arg.append(c);
-          }
-          break;
-        case '\"':
-          in = !in;
-          break;
-        default:
-          arg.append(c);
-          break;
-      }
-    }
-    if (arg.length() > 0) {
-      args.add(arg.toString());
-    }
-    String[] ret = new String[args.size() - 1];
-    for (int index = 1; index < args.size(); index++) {
-      ret[index - 1] = args.get(index);
-    }
-    return ret;
+    return CommandTokens.tokenize(input).toArray(1);
   }
 
   public static String[] getArguments(String command, String input) {
@@ -45,6 +45,7 @@ import sledgehammer.annotations.CommandHandler;
 import sledgehammer.event.Event;
 import sledgehammer.interfaces.Listener;
 import sledgehammer.util.ClassUtil;
+import sledgehammer.util.HandlerProfile;
 import sledgehammer.command.Command;
 import sledgehammer.util.Response;
 
@@ -87,11 +88,17 @@ public class CommandHandlerContainer {
   private Method method;
   private MethodHandle methodHandle;
   private MethodType methodType;
+  /**
+   * The method handle adapted to the exact type '(Command, Response)void', with the container
+   * bound for non-static methods. This is invoked with 'invokeExact', and holds no per-call state.
+   */
+  private final MethodHandle invoker;
   private Listener container;
-  private Object[] methodArgumentsCache;
   private String methodName;
   private boolean isStatic;
-  private boolean isEnabled;
+  private volatile boolean isEnabled;
+  /** The profile to record invocations to. This is null while profiling is disabled. */
+  private volatile HandlerProfile profile;
   private Class<? extends Event> classEvent;
   private long timeCreated;
 
@@ -110,7 +117,7 @@ public class CommandHandlerContainer {
     setMethod(method);
     setAnnotation(annotation);
     // Setup the MethodHandle.
-    createMethodHandler();
+    invoker = createMethodHandler();
   }
 
   @Override
@@ -135,8 +142,13 @@ public class CommandHandlerContainer {
     return stringBuilder.toString();
   }
 
-  /** Handles setting up the method handle cache to invoke when executing a command handler. */
-  private void createMethodHandler() {
+  /**
+   * Handles setting up the method handle cache to invoke when executing a command handler.
+   *
+   * @return Returns the invoker of the command handler. Returns null if the command handler is not
+   *     valid.
+   */
+  private MethodHandle createMethodHandler() {
     // In order to invoke the Method, the Method must be accessible, otherwise an
     // IllegalAccessException is thrown.
     method.setAccessible(true);
@@ -149,21 +161,21 @@ public class CommandHandlerContainer {
       if (Settings.getInstance().isDebug()) {
         System.err.println("Invalid parameter count for CommandHandler:\n" + toString());
       }
-      return;
+      return null;
     }
     // Make sure that the first parameter given is a Command Object.
     if (!methodParameters[0].equals(Command.class)) {
       if (Settings.getInstance().isDebug()) {
         System.err.println("Invalid parameter 0 for CommandHandler:\n" + toString());
       }
-      return;
+      return null;
     }
     // Make sure that the second parameter given is a Response Object.
     if (!methodParameters[1].equals(Response.class)) {
       if (Settings.getInstance().isDebug()) {
         System.err.println("Invalid parameter 1 for CommandHandler:\n" + toString());
       }
-      return;
+      return null;
     }
     // Make note if the handler is static.
     isStatic = Modifier.isStatic(method.getModifiers());
@@ -176,28 +188,21 @@ public class CommandHandlerContainer {
       methodHandle = lookup.unreflect(method);
     } catch (IllegalAccessException e) {
       e.printStackTrace();
+      return null;
     }
-    // If the handler method is static, the parameter cache does not require an instance
-    // of the declaring class or anonymous class to invoke.
-    if (isStatic) {
-      // In this case, the handler will require 2 parameter:
-      // [0] -> Command
-      // [1] -> Response
-      methodArgumentsCache = new Object[2];
-    }
-    // We will setup the parameter cache for a non-static (invokeVirtual) method. These
-    // methods are what is expected to be used as handlers.
-    else {
-      // In this case, the handler will require 3 parameters:
-      // [0] -> self
-      // [1] -> Command
-      // [2] -> Response
-      methodArgumentsCache = new Object[3];
-      // Set the self instance as the Container.
-      methodArgumentsCache[0] = getContainer();
+    MethodHandle handle = methodHandle;
+    // If the handler method is non-static (invokeVirtual), bind the declaring class instance so
+    // that the handler only requires the command and the response to invoke.
+    if (!isStatic) {
+      handle = handle.bindTo(getContainer());
     }
+    // Adapt the handle to the exact type used by the call site in 'handleCommand()'. Any returned
+    // value is dropped.
+    MethodHandle invoker =
+        handle.asType(MethodType.methodType(void.class, Command.class, Response.class));
     // We are now good to start invoking the handler. Let the EventManager know this.
     setEnabled(true);
+    return invoker;
   }
 
   /**
@@ -219,30 +224,25 @@ public class CommandHandlerContainer {
     if (response.isHandled() && !this.ignoreHandled()) {
       return;
     }
-    // Grab the parameter cache for the EventHandler.
-    Object[] parameters = getMethodParameters();
-    // If the method is static, we do not need to reference the instance of the declaring class.
-    if (isStatic()) {
-      // The method is static, so we need to only pass the Event instance being handled.
-      methodArgumentsCache[0] = command;
-      methodArgumentsCache[1] = response;
-      // Finally, invoke the method.
-      methodHandle.invokeWithArguments(methodArgumentsCache);
-      // Clear the cache of references to the arguments given.
-      methodArgumentsCache[0] = null;
-      methodArgumentsCache[1] = null;
+    HandlerProfile profile = this.profile;
+    // The invoker already has the declaring class instance bound if the method is not static.
+    // The call site type must match '(Command, Response)void' exactly.
+    if (profile == null) {
+      invoker.invokeExact(command, response);
+      return;
+    }
+    boolean handledBefore = response.isHandled();
+    long timeStarted = System.nanoTime();
+    try {
+      invoker.invokeExact(command, response);
+    } catch (Throwable throwable) {
+      profile.recordException();
+      throw throwable;
+    } finally {
+      profile.record(System.nanoTime() - timeStarted);
     }
-    // The method is dynamic, so we need to pass the instance of the declaring class.
-    else {
-      // The declaring class instance is already defined in the first index of the
-      // parameter array. All we need to do is assign the Event instance being handled.
-      methodArgumentsCache[1] = command;
-      methodArgumentsCache[2] = response;
-      // Finally, invoke the method.
-      methodHandle.invokeWithArguments(methodArgumentsCache);
-      // Clear the cache of references to the arguments given.
-      methodArgumentsCache[1] = null;
-      methodArgumentsCache[2] = null;
+    if (!handledBefore && response.isHandled()) {
+      profile.recordCancellation();
     }
   }
 
@@ -312,6 +312,11 @@ public class CommandHandlerContainer {
     return getAnnotation().ignoreHandled();
   }
 
+  /** @return Returns true if the command handler runs off of the server's update thread. */
+  public boolean isAsync() {
+    return getAnnotation().async();
+  }
+
   /** @return Returns the string ID (if defined), for the command handler. */
   public String getId() {
     return getAnnotation().id();
@@ -363,6 +368,23 @@ public class CommandHandlerContainer {
     this.timeCreated = timeCreated;
   }
 
+  /**
+   * @return Returns the profile that invocations are recorded to. If profiling is disabled, null is
+   *     returned.
+   */
+  public HandlerProfile getProfile() {
+    return this.profile;
+  }
+
+  /**
+   * Sets the profile that invocations are recorded to.
+   *
+   * @param profile The profile to set. Set to null to stop recording.
+   */
+  public void setProfile(HandlerProfile profile) {
+    this.profile = profile;
+  }
+
   public String[] getCommands() {
     return getAnnotation().command();
   }
@@ -0,0 +1,248 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+
+package sledgehammer.command;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import sledgehammer.Settings;
+import sledgehammer.language.Language;
+import sledgehammer.language.LanguagePackage;
+import sledgehammer.lua.core.Player;
+import sledgehammer.util.Response;
+
+/**
+ * CommandHelpIndex assembles the '/help' response from the CommandHandlers registered by
+ * CommandListeners.
+ *
+ * <p>The commands are partitioned into segments by the permission nodes they require. The lines
+ * of each segment are rendered and sorted once per Language, and a player's help response is
+ * merged from the sorted segments of the permission nodes the player holds. The merged response is
+ * cached for each combination of Language and granted segments, so it is only assembled again
+ * when CommandHandlers are registered, or a player holds a new combination of permissions.
+ *
+ * <p>tooltips are looked up in the LanguagePackage of the CommandListener as
+ * "tooltip_command_[command]", using the first command defined for the command handler.
+ *
+ * @author Jab
+ */
+public class CommandHelpIndex {
+
+  private static final String HEADER = "Commands: <LINE> ";
+
+  /** The registered CommandHandlerContainers with help entries. */
+  private final List<CommandHandlerContainer> listContainers = new ArrayList<>();
+  /** The segments of help entries, partitioned by required permission nodes. */
+  private Segment[] segments;
+  /** The assembled responses, by Language and the granted segments. */
+  private final Map<Language, Map<BitSet, String>> mapResponses = new HashMap<>();
+
+  /**
+   * Adds the help entry of a CommandHandlerContainer, if it is registered by a CommandListener.
+   *
+   * @param container The CommandHandlerContainer to add.
+   */
+  public synchronized void add(CommandHandlerContainer container) {
+    if (!(container.getContainer() instanceof CommandListener)) {
+      return;
+    }
+    String[] commands = container.getCommands();
+    if (commands.length == 0) {
+      return;
+    }
+    for (String command : commands) {
+      if (command.equalsIgnoreCase("help")) {
+        return;
+      }
+    }
+    if (!listContainers.contains(container)) {
+      listContainers.add(container);
+      invalidate();
+    }
+  }
+
+  /**
+   * Removes the help entry of a CommandHandlerContainer.
+   *
+   * @param container The CommandHandlerContainer to remove.
+   */
+  public synchronized void remove(CommandHandlerContainer container) {
+    if (listContainers.remove(container)) {
+      invalidate();
+    }
+  }
+
+  /**
+   * Discards the segments and assembled responses, so that they are built again on the next
+   * request.
+   */
+  public synchronized void invalidate() {
+    segments = null;
+    mapResponses.clear();
+  }
+
+  /**
+   * @param commander The commanding player.
+   * @return Returns the help response for the commands that the player has permission to use.
+   */
+  public synchronized String getHelp(Player commander) {
+    Segment[] segments = getSegments();
+    Language language = commander.getLanguage();
+    // Only the permission check is done per request. Players holding the same combination of
+    // permissions share the assembled response.
+    BitSet granted = new BitSet(segments.length);
+    for (int index = 0; index < segments.length; index++) {
+      if (commander.hasPermission(segments[index].permissionNodes)) {
+        granted.set(index);
+      }
+    }
+    Map<BitSet, String> mapLanguage = mapResponses.get(language);
+    if (mapLanguage == null) {
+      mapLanguage = new HashMap<>();
+      mapResponses.put(language, mapLanguage);
+    }
+    String help = mapLanguage.get(granted);
+    if (help == null) {
+      help = assemble(segments, granted, language);
+      mapLanguage.put(granted, help);
+    }
+    return help;
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @return Returns the segments of help entries, building them if they are invalidated.
+   */
+  private Segment[] getSegments() {
+    if (segments == null) {
+      Map<String, Segment> mapSegments = new LinkedHashMap<>();
+      for (CommandHandlerContainer container : listContainers) {
+        String[] permissionNodes = container.getPermissionNodes();
+        String[] permissionNodesSorted = permissionNodes.clone();
+        Arrays.sort(permissionNodesSorted);
+        String key = Arrays.toString(permissionNodesSorted);
+        Segment segment = mapSegments.get(key);
+        if (segment == null) {
+          segment = new Segment(permissionNodes);
+          mapSegments.put(key, segment);
+        }
+        segment.listContainers.add(container);
+      }
+      segments = mapSegments.values().toArray(new Segment[mapSegments.size()]);
+    }
+    return segments;
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Merges the sorted lines of the granted segments into a response.
+   *
+   * @param segments The segments of help entries.
+   * @param granted The indexes of the granted segments.
+   * @param language The Language of the commanding player.
+   * @return Returns the assembled response.
+   */
+  private static String assemble(Segment[] segments, BitSet granted, Language language) {
+    List<String[]> listLines = new ArrayList<>();
+    for (int index = granted.nextSetBit(0); index >= 0; index = granted.nextSetBit(index + 1)) {
+      listLines.add(segments[index].getLines(language));
+    }
+    int[] positions = new int[listLines.size()];
+    Response response = new Response();
+    response.setResponse(HEADER);
+    while (true) {
+      // Take the smallest next line of all segments.
+      int next = -1;
+      String line = null;
+      for (int index = 0; index < positions.length; index++) {
+        String[] lines = listLines.get(index);
+        if (positions[index] < lines.length) {
+          String candidate = lines[positions[index]];
+          if (line == null || candidate.compareTo(line) < 0) {
+            line = candidate;
+            next = index;
+          }
+        }
+      }
+      if (next == -1) {
+        break;
+      }
+      positions[next]++;
+      response.appendLine(line);
+    }
+    return response.getResponse();
+  }
+
+  /** A group of help entries that require the same permission nodes. */
+  private static class Segment {
+
+    /** The permission nodes required by the entries. */
+    final String[] permissionNodes;
+    /** The CommandHandlerContainers of the entries. */
+    final List<CommandHandlerContainer> listContainers = new ArrayList<>();
+    /** The rendered and sorted lines, by Language. */
+    final Map<Language, String[]> mapLines = new HashMap<>();
+
+    Segment(String[] permissionNodes) {
+      this.permissionNodes = permissionNodes;
+    }
+
+    /**
+     * @param language The Language to render.
+     * @return Returns the sorted lines of the entries, rendered for the Language.
+     */
+    String[] getLines(Language language) {
+      String[] lines = mapLines.get(language);
+      if (lines == null) {
+        lines = new String[listContainers.size()];
+        for (int index = 0; index < lines.length; index++) {
+          lines[index] = render(listContainers.get(index), language);
+        }
+        Arrays.sort(lines);
+        mapLines.put(language, lines);
+      }
+      return lines;
+    }
+
+    /**
+     * @param container The CommandHandlerContainer of the entry.
+     * @param language The Language to render.
+     * @return Returns the help line of the entry.
+     */
+    private static String render(CommandHandlerContainer container, Language language) {
+      LanguagePackage lang = ((CommandListener) container.getContainer()).getLanguagePackage();
+      String command = container.getCommands()[0];
+      String langQuery = "tooltip_command_" + command.replaceAll(" ", "_").toLowerCase();
+      if (Settings.getInstance().isDebug()) {
+        System.out.println("help: looking up command: " + command + " : " + langQuery);
+      }
+      String langResult = lang.getString(langQuery, language);
+      return "[" + command + "]" + (langResult != null ? " : " + langResult : "");
+    }
+  }
+}
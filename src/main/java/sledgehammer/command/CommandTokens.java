@@ -0,0 +1,286 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+
+package sledgehammer.command;
+
+import java.util.Arrays;
+
+/**
+ * CommandTokens is the single parse result of a raw command. The raw String is tokenized in one
+ * pass into offset / length slices, and no String is created for a token until it is requested.
+ *
+ * <p>Tokens are separated by whitespace. Double-quotes group whitespace into a token, and are
+ * removed from the token. (E.g: <code>/msg "Jab Doe" hello</code> has the tokens "msg", "Jab Doe",
+ * and "hello") A backslash escapes a following double-quote or backslash. Any leading '/' or '!'
+ * characters are removed from the first token, which is the command name.
+ *
+ * @author Jab
+ */
+public class CommandTokens {
+
+  /** Flag for a token that contains double-quotes, which are removed from the token. */
+  private static final int FLAG_QUOTED = 1;
+  /** Flag for a token that contains escaped characters. */
+  private static final int FLAG_ESCAPED = 2;
+
+  private static final String[] EMPTY = new String[0];
+
+  /** The raw String that the tokens are slices of. */
+  private final String source;
+  /** The offset of each token in the raw String, including any opening double-quote. */
+  private int[] offsets;
+  /** The length of each token in the raw String, including any double-quotes. */
+  private int[] lengths;
+  /** The FLAG_* bits of each token. */
+  private int[] flags;
+  /** The Strings of the tokens that are requested. */
+  private String[] cache;
+  /** The amount of tokens. */
+  private int count;
+
+  /**
+   * (Private Constructor)
+   *
+   * @param source The raw String to tokenize.
+   */
+  private CommandTokens(String source) {
+    this.source = source;
+    this.offsets = new int[4];
+    this.lengths = new int[4];
+    this.flags = new int[4];
+    tokenize();
+    this.cache = new String[count];
+  }
+
+  /**
+   * Tokenizes a raw command.
+   *
+   * @param raw The raw command to tokenize.
+   * @return Returns the tokens of the raw command.
+   */
+  public static CommandTokens tokenize(String raw) {
+    if (raw == null) {
+      throw new IllegalArgumentException("Raw command given is null.");
+    }
+    return new CommandTokens(raw);
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Reads the raw String once, recording the slice of each token.
+   */
+  private void tokenize() {
+    String source = this.source;
+    int length = source.length();
+    int offset = 0;
+    while (offset < length) {
+      char c = source.charAt(offset);
+      if (c <= ' ') {
+        offset++;
+        continue;
+      }
+      // The command name is the first token. Skip its '/' or '!' prefix.
+      if (count == 0 && (c == '/' || c == '!')) {
+        offset++;
+        continue;
+      }
+      int start = offset;
+      int flag = 0;
+      boolean inQuotes = false;
+      for (; offset < length; offset++) {
+        c = source.charAt(offset);
+        if (c == '\\' && offset + 1 < length) {
+          char next = source.charAt(offset + 1);
+          if (next == '"' || next == '\\') {
+            flag |= FLAG_ESCAPED;
+            offset++;
+          }
+        } else if (c == '"') {
+          flag |= FLAG_QUOTED;
+          inQuotes = !inQuotes;
+        } else if (c <= ' ' && !inQuotes) {
+          break;
+        }
+      }
+      add(start, offset - start, flag);
+    }
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Records the slice of a token.
+   *
+   * @param offset The offset of the token in the raw String.
+   * @param length The length of the token in the raw String.
+   * @param flag The FLAG_* bits of the token.
+   */
+  private void add(int offset, int length, int flag) {
+    if (count == offsets.length) {
+      int capacity = count * 2;
+      offsets = Arrays.copyOf(offsets, capacity);
+      lengths = Arrays.copyOf(lengths, capacity);
+      flags = Arrays.copyOf(flags, capacity);
+    }
+    offsets[count] = offset;
+    lengths[count] = length;
+    flags[count] = flag;
+    count++;
+  }
+
+  /** @return Returns the raw String that the tokens are slices of. */
+  public String getSource() {
+    return this.source;
+  }
+
+  /** @return Returns the amount of tokens, including the command name. */
+  public int size() {
+    return this.count;
+  }
+
+  /**
+   * @param index The index of the token.
+   * @return Returns the offset of the token in the raw String, including any opening double-quote.
+   */
+  public int getOffset(int index) {
+    checkIndex(index);
+    return offsets[index];
+  }
+
+  /**
+   * @param index The index of the token.
+   * @return Returns the String of the token, without double-quotes or escapes. The String is
+   *     created on the first request.
+   */
+  public String get(int index) {
+    checkIndex(index);
+    String token = cache[index];
+    if (token == null) {
+      int offset = offsets[index];
+      int length = lengths[index];
+      if (flags[index] == 0) {
+        token = source.substring(offset, offset + length);
+      } else {
+        token = decode(offset, offset + length);
+      }
+      cache[index] = token;
+    }
+    return token;
+  }
+
+  /**
+   * @param offset The index of the first token to copy.
+   * @return Returns a new array of the Strings of the tokens, starting with the index given.
+   */
+  public String[] toArray(int offset) {
+    if (offset >= count) {
+      return EMPTY;
+    }
+    String[] array = new String[count - offset];
+    for (int index = offset; index < count; index++) {
+      array[index - offset] = get(index);
+    }
+    return array;
+  }
+
+  /**
+   * Compares a token to a lower-case String without creating the String of the token.
+   *
+   * @param index The index of the token.
+   * @param lowerCase The lower-case String to compare.
+   * @return Returns true if the token, ignoring case, is equal to the String given.
+   */
+  public boolean equalsLowerCase(int index, String lowerCase) {
+    checkIndex(index);
+    if (flags[index] != 0) {
+      return get(index).toLowerCase().equals(lowerCase);
+    }
+    int length = lengths[index];
+    if (length != lowerCase.length()) {
+      return false;
+    }
+    int offset = offsets[index];
+    for (int i = 0; i < length; i++) {
+      if (Character.toLowerCase(source.charAt(offset + i)) != lowerCase.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Computes the hash code of the lower-case String of a token, without creating the String of the
+   * token. The hash code is equal to the one of the String used with 'equalsLowerCase()'.
+   *
+   * @param index The index of the token.
+   * @return Returns the hash code of the token, ignoring case.
+   */
+  public int hashLowerCase(int index) {
+    checkIndex(index);
+    if (flags[index] != 0) {
+      return get(index).toLowerCase().hashCode();
+    }
+    int hash = 0;
+    int offset = offsets[index];
+    int length = lengths[index];
+    for (int i = 0; i < length; i++) {
+      hash = 31 * hash + Character.toLowerCase(source.charAt(offset + i));
+    }
+    return hash;
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param start The index of the first character of the token.
+   * @param end The index after the last character of the token.
+   * @return Returns the token with double-quotes and escapes removed.
+   */
+  private String decode(int start, int end) {
+    StringBuilder builder = new StringBuilder(end - start);
+    for (int offset = start; offset < end; offset++) {
+      char c = source.charAt(offset);
+      if (c == '\\' && offset + 1 < end) {
+        char next = source.charAt(offset + 1);
+        if (next == '"' || next == '\\') {
+          builder.append(next);
+          offset++;
+          continue;
+        }
+      } else if (c == '"') {
+        continue;
+      }
+      builder.append(c);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param index The index to check.
+   */
+  private void checkIndex(int index) {
+    if (index < 0 || index >= count) {
+      throw new IndexOutOfBoundsException("Token index: " + index + ", size: " + count);
+    }
+  }
+}
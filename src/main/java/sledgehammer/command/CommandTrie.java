@@ -0,0 +1,350 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+
+package sledgehammer.command;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * CommandTrie is a registry for CommandHandlerContainers, keyed on the case-folded tokens of the
+ * command paths they handle. (E.g: "faction create" is registered as "faction" -> "create")
+ *
+ * <p>Dispatching a command walks the trie once, comparing the tokens of the parsed command in-place,
+ * and finds the longest registered path with enabled handlers. No intermediate Strings are created
+ * while matching.
+ *
+ * <p>The children and handlers of each node are stored as copy-on-write arrays, so a match in
+ * progress is never affected by a registration. The children of each node are also stored in a
+ * open-addressed hash table, so matching a token is a hash lookup instead of a scan of every
+ * registered command.
+ *
+ * @author Jab
+ */
+public class CommandTrie {
+
+  private static final CommandHandlerContainer[] EMPTY_CONTAINERS = new CommandHandlerContainer[0];
+  private static final Node[] EMPTY_NODES = new Node[0];
+
+  /** The comparator used to sort the handlers of each path by priority. */
+  private final Comparator<CommandHandlerContainer> comparator;
+  /** The root node. This represents the empty path, and never has handlers. */
+  private final Node root = new Node(null, null, null);
+
+  /**
+   * Main constructor.
+   *
+   * @param comparator The comparator used to sort the handlers of each path by priority.
+   */
+  public CommandTrie(Comparator<CommandHandlerContainer> comparator) {
+    this.comparator = comparator;
+  }
+
+  /**
+   * Registers a CommandHandlerContainer for a command path.
+   *
+   * @param command The command path. (E.g: "faction create")
+   * @param container The CommandHandlerContainer to register.
+   * @return Returns true if the container is registered. If the container is already registered
+   *     for the path, false is returned.
+   */
+  public synchronized boolean register(String command, CommandHandlerContainer container) {
+    String path = normalize(command);
+    if (path.isEmpty()) {
+      throw new IllegalArgumentException("Command given is empty.");
+    }
+    Node node = root;
+    for (String token : path.split(" ")) {
+      node = node.getOrCreateChild(token);
+    }
+    CommandHandlerContainer[] containers = node.containers;
+    for (CommandHandlerContainer next : containers) {
+      if (next == container) {
+        return false;
+      }
+    }
+    // The previous array is never modified, as it may be in use by a dispatch in progress.
+    CommandHandlerContainer[] containersNew = Arrays.copyOf(containers, containers.length + 1);
+    containersNew[containers.length] = container;
+    // In order to maintain priority of command handlers, each addition must follow with a sort.
+    Arrays.sort(containersNew, comparator);
+    node.containers = containersNew;
+    return true;
+  }
+
+  /**
+   * Matches the longest registered command path at the start of the tokens, that has at least one
+   * enabled handler. Tokens are compared without case.
+   *
+   * @param tokens The tokens of the command. (E.g: "/faction create myFaction")
+   * @return Returns the handlers for the matched path, sorted by priority. If no path matches, null
+   *     is returned.
+   */
+  public CommandHandlerContainer[] match(CommandTokens tokens) {
+    Node node = root;
+    int size = tokens.size();
+    for (int index = 0; index < size; index++) {
+      Node child = node.getChild(tokens, index);
+      if (child == null) {
+        break;
+      }
+      node = child;
+    }
+    // Walk back towards the root until a path with an enabled handler is found.
+    for (; node != root; node = node.parent) {
+      CommandHandlerContainer[] containers = node.containers;
+      for (CommandHandlerContainer container : containers) {
+        if (container.isEnabled()) {
+          return containers;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @param command The command path. (E.g: "faction create")
+   * @return Returns the handlers registered for the exact command path given. If none are
+   *     registered, an empty array is returned.
+   */
+  public CommandHandlerContainer[] getContainers(String command) {
+    Node node = root;
+    for (String token : normalize(command).split(" ")) {
+      node = node.getChild(token);
+      if (node == null) {
+        return EMPTY_CONTAINERS;
+      }
+    }
+    return node.containers;
+  }
+
+  /**
+   * @return Returns a map of every registered command path to the handlers registered for it,
+   *     sorted by command path.
+   */
+  public Map<String, CommandHandlerContainer[]> getCommandHandlers() {
+    Map<String, CommandHandlerContainer[]> map = new TreeMap<>();
+    collect(root, map);
+    return map;
+  }
+
+  /**
+   * Unregisters every CommandHandlerContainer of a Listener, from all command paths.
+   *
+   * @param listener The Listener that the handlers are declared in.
+   * @return Returns the containers that are removed. Each container is listed once.
+   */
+  public synchronized List<CommandHandlerContainer> unregister(Object listener) {
+    List<CommandHandlerContainer> listRemoved = new ArrayList<>();
+    unregister(root, listener, listRemoved);
+    return listRemoved;
+  }
+
+  /** Removes all registered command paths and handlers. */
+  public synchronized void clear() {
+    root.table = EMPTY_NODES;
+    root.children = EMPTY_NODES;
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Removes the handlers of a Listener from the node and its descendants.
+   *
+   * @param node The node to remove from.
+   * @param listener The Listener that the handlers are declared in.
+   * @param listRemoved The List to add the removed containers to.
+   */
+  private static void unregister(
+      Node node, Object listener, List<CommandHandlerContainer> listRemoved) {
+    CommandHandlerContainer[] containers = node.containers;
+    List<CommandHandlerContainer> listKept = new ArrayList<>(containers.length);
+    for (CommandHandlerContainer container : containers) {
+      if (container.getContainer().equals(listener)) {
+        if (!listRemoved.contains(container)) {
+          listRemoved.add(container);
+        }
+      } else {
+        listKept.add(container);
+      }
+    }
+    // The previous array is never modified, as it may be in use by a dispatch in progress.
+    if (listKept.size() != containers.length) {
+      node.containers = listKept.toArray(new CommandHandlerContainer[listKept.size()]);
+    }
+    for (Node child : node.children) {
+      unregister(child, listener, listRemoved);
+    }
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Adds the paths with handlers of the node and its descendants to the map.
+   *
+   * @param node The node to collect.
+   * @param map The map to add to.
+   */
+  private static void collect(Node node, Map<String, CommandHandlerContainer[]> map) {
+    if (node.containers.length > 0) {
+      map.put(node.path, node.containers);
+    }
+    for (Node child : node.children) {
+      collect(child, map);
+    }
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param command The command path to normalize.
+   * @return Returns the command path lower-cased, without quotes, and with single spaces between
+   *     tokens.
+   */
+  private static String normalize(String command) {
+    return command.replace("\"", "").trim().toLowerCase().replaceAll("\\s+", " ");
+  }
+
+  /** A token in a registered command path. */
+  private static class Node {
+
+    /** The parent node. This is null for the root. */
+    final Node parent;
+    /** The case-folded token. This is null for the root. */
+    final String token;
+    /** The hash code of the token. */
+    final int hash;
+    /** The full command path to this node. This is null for the root. */
+    final String path;
+    /** The child nodes, in the order they are registered. Replaced on write. */
+    volatile Node[] children = EMPTY_NODES;
+    /**
+     * The child nodes by the hash code of their token, with linear probing. The length is a power
+     * of 2, and at least twice the amount of children. Replaced on write.
+     */
+    volatile Node[] table = EMPTY_NODES;
+    /** The handlers for the path to this node, sorted by priority. Replaced on write. */
+    volatile CommandHandlerContainer[] containers = EMPTY_CONTAINERS;
+
+    Node(Node parent, String token, String path) {
+      this.parent = parent;
+      this.token = token;
+      this.hash = token != null ? token.hashCode() : 0;
+      this.path = path;
+    }
+
+    /**
+     * @param tokens The tokens of the command.
+     * @param index The index of the token to match.
+     * @return Returns the child matching the token, ignoring case. If no child matches, null is
+     *     returned.
+     */
+    Node getChild(CommandTokens tokens, int index) {
+      Node[] table = this.table;
+      if (table.length == 0) {
+        return null;
+      }
+      int hash = tokens.hashLowerCase(index);
+      int mask = table.length - 1;
+      for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+        Node child = table[slot];
+        if (child == null) {
+          return null;
+        }
+        if (child.hash == hash && tokens.equalsLowerCase(index, child.token)) {
+          return child;
+        }
+      }
+    }
+
+    /**
+     * @param token The case-folded token.
+     * @return Returns the child for the token. If no child matches, null is returned.
+     */
+    Node getChild(String token) {
+      Node[] table = this.table;
+      if (table.length == 0) {
+        return null;
+      }
+      int hash = token.hashCode();
+      int mask = table.length - 1;
+      for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+        Node child = table[slot];
+        if (child == null) {
+          return null;
+        }
+        if (child.hash == hash && child.token.equals(token)) {
+          return child;
+        }
+      }
+    }
+
+    /**
+     * @param token The case-folded token.
+     * @return Returns the child for the token, creating it if it does not exist.
+     */
+    Node getOrCreateChild(String token) {
+      Node child = getChild(token);
+      if (child == null) {
+        String pathChild = this.path == null ? token : this.path + " " + token;
+        child = new Node(this, token, pathChild);
+        Node[] childrenNew = Arrays.copyOf(children, children.length + 1);
+        childrenNew[children.length] = child;
+        // The table is written first, as it is the one read by matches.
+        table = createTable(childrenNew);
+        children = childrenNew;
+      }
+      return child;
+    }
+
+    /**
+     * (Private Method)
+     *
+     * @param children The child nodes.
+     * @return Returns a new hash table of the child nodes.
+     */
+    private static Node[] createTable(Node[] children) {
+      Node[] table = new Node[Integer.highestOneBit(children.length) << 2];
+      int mask = table.length - 1;
+      for (Node child : children) {
+        int slot = spread(child.hash) & mask;
+        while (table[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        table[slot] = child;
+      }
+      return table;
+    }
+
+    /**
+     * (Private Method)
+     *
+     * @param hash The hash code to spread.
+     * @return Returns the hash code with the high bits mixed into the low bits.
+     */
+    private static int spread(int hash) {
+      return hash ^ (hash >>> 16);
+    }
+  }
+}
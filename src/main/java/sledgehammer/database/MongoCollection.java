@@ -51,8 +51,20 @@ public class MongoCollection {
   }
 
   public void upsert(DBObject object, String field, Object lock) {
+    upsert(object, null, field, lock);
+  }
+
+  /**
+   * Upserts a document, setting and unsetting the given fields.
+   *
+   * @param object The fields to set, including the identifying field.
+   * @param unset The fields to unset. Null if no fields are unset.
+   * @param field The identifying field of the document.
+   * @param lock The Object that owns the write.
+   */
+  public void upsert(DBObject object, DBObject unset, String field, Object lock) {
     MongoDocumentTransactionUpsert upsert =
-        new MongoDocumentTransactionUpsert(this, object, field, lock);
+        new MongoDocumentTransactionUpsert(this, object, unset, field, lock);
     getDatabase().addTransaction(upsert);
   }
 
@@ -21,7 +21,9 @@
 package sledgehammer.database;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -46,12 +48,20 @@ import com.mongodb.DB;
 import com.mongodb.MongoClient;
 import com.mongodb.MongoClientURI;
 
+import sledgehammer.Settings;
+import sledgehammer.SledgeHammer;
+import sledgehammer.database.transaction.MongoBulkWriter;
 import sledgehammer.database.transaction.MongoDatabaseTransactionWorker;
 import sledgehammer.database.transaction.MongoDocumentTransaction;
+import sledgehammer.manager.ExecutorManager;
 import sledgehammer.util.Printable;
 
 /**
- * TODO: Document
+ * Handles the connection to a MongoDB database, and the writing of MongoDocumentTransactions.
+ *
+ * <p>Transactions are written by one or more workers. Each transaction is routed by the hash of
+ * its collection and document, so the writes to a document stay in order on one worker, while the
+ * writes to other documents are made in parallel.
  *
  * @author Jab
  */
@@ -59,17 +69,35 @@ public abstract class MongoDatabase extends Printable {
 
   public static boolean DEBUG = true;
 
+  /** The maximum time in milliseconds to wait for the workers to drain when shutting down. */
+  private static final long DRAIN_TIMEOUT = 30000L;
+
   private volatile boolean shutdown = false;
 
   private DB db;
   private MongoClient client = null;
-  private List<MongoDocumentTransaction> listTransactions;
 
-  private MongoDatabaseTransactionWorker worker;
+  /** The workers writing transactions, by shard. */
+  private final MongoDatabaseTransactionWorker[] workers;
 
+  /** Main constructor. The amount of workers is read from the Settings. */
   public MongoDatabase() {
-    listTransactions = new ArrayList<>();
-    worker = new MongoDatabaseTransactionWorker(this);
+    this(Settings.getInstance().getDatabaseWorkers());
+  }
+
+  /**
+   * Constructor with a given amount of workers.
+   *
+   * @param workerCount The amount of workers writing transactions.
+   */
+  public MongoDatabase(int workerCount) {
+    if (workerCount < 1) {
+      throw new IllegalArgumentException("Worker count must be at least 1: " + workerCount);
+    }
+    workers = new MongoDatabaseTransactionWorker[workerCount];
+    for (int index = 0; index < workerCount; index++) {
+      workers[index] = new MongoDatabaseTransactionWorker(this, index);
+    }
   }
 
   public DB getDatabase() {
@@ -81,13 +109,26 @@ public abstract class MongoDatabase extends Printable {
   }
 
   public void connect(String url) {
+    // Start the workers on the database executor.
+    connect(url, SledgeHammer.instance.getExecutorManager().getExecutor(ExecutorManager.DB));
+  }
+
+  /**
+   * Connects to the database, and starts the workers.
+   *
+   * @param url The URL of the database.
+   * @param executor The Executor to run the workers on. Each worker holds a thread until the
+   *     database is shut down.
+   */
+  public void connect(String url, Executor executor) {
     Logger mongoLogger = Logger.getLogger("org.mongodb.driver");
     mongoLogger.setLevel(Level.SEVERE);
     if (client == null) {
       client = new MongoClient(new MongoClientURI(url));
       onConnection(client);
-      // Start the worker thread.
-      (new Thread(worker)).start();
+      for (MongoDatabaseTransactionWorker worker : workers) {
+        executor.execute(worker);
+      }
     }
   }
 
@@ -95,33 +136,97 @@ public abstract class MongoDatabase extends Printable {
     return this.client;
   }
 
-  public void addTransaction(final MongoDocumentTransaction transaction) {
-    // Run this operation outside of the main thread.
-    (new Thread(
-            new Runnable() {
-              @Override
-              public void run() {
-                synchronized (listTransactions) {
-                  listTransactions.add(transaction);
-                }
-              }
-            }))
-        .start();
+  /**
+   * Queues a transaction for the worker of its document. This does not lock, and wakes the worker
+   * if it is idle.
+   *
+   * <p>If the database is shut down, the transaction is rejected and reported on the error stream,
+   * and the MongoDocument of a rejected upsert is marked dirty.
+   *
+   * @param transaction The transaction to queue.
+   */
+  public void addTransaction(MongoDocumentTransaction transaction) {
+    // Once shut down, the workers may have stopped taking transactions.
+    if (isShutDown() || !workers[getShard(transaction)].getQueue().add(transaction)) {
+      MongoBulkWriter.markFailed(transaction);
+      errln("The database is shut down. Rejected " + transaction);
+    }
   }
 
+  /**
+   * (Private Method)
+   *
+   * @param transaction The transaction to route.
+   * @return Returns the index of the worker for the collection and document of the transaction.
+   *     Transactions without a document are routed by collection.
+   */
+  private int getShard(MongoDocumentTransaction transaction) {
+    if (workers.length == 1) {
+      return 0;
+    }
+    int hash = transaction.getMongoCollection().getDBCollection().getFullName().hashCode();
+    Object documentKey = transaction.getDocumentKey();
+    if (documentKey != null) {
+      hash = 31 * hash + documentKey.hashCode();
+    }
+    // Spread the high bits, as the hashes of similar IDs differ mostly in the low bits.
+    hash ^= hash >>> 16;
+    return (hash & Integer.MAX_VALUE) % workers.length;
+  }
+
+  /** @return Returns the amount of transactions queued across all workers. */
   public int getTransactionQueueSize() {
-    synchronized (listTransactions) {
-      return listTransactions.size();
+    int size = 0;
+    for (MongoDatabaseTransactionWorker worker : workers) {
+      size += worker.getQueue().size();
     }
+    return size;
+  }
+
+  /** @return Returns the workers writing transactions, by shard. */
+  public List<MongoDatabaseTransactionWorker> getWorkers() {
+    List<MongoDatabaseTransactionWorker> listWorkers = new ArrayList<>(workers.length);
+    Collections.addAll(listWorkers, workers);
+    return listWorkers;
   }
 
   public MongoCollection createMongoCollection(String name) {
     return new MongoCollection(this, getDatabase().getCollection(name));
   }
 
+  /**
+   * Shuts down the database. This waits for every worker to write the transactions queued before
+   * returning.
+   */
   public void shutDown() {
     reset();
     setShutDown(true);
+    // Wake the workers so that they drain their queues and exit.
+    for (MongoDatabaseTransactionWorker worker : workers) {
+      worker.getQueue().wake();
+    }
+    // The workers only run once connected.
+    if (client == null) {
+      for (MongoDatabaseTransactionWorker worker : workers) {
+        worker.getQueue().close();
+      }
+      return;
+    }
+    long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT;
+    try {
+      for (MongoDatabaseTransactionWorker worker : workers) {
+        long remaining = Math.max(0L, deadline - System.currentTimeMillis());
+        if (!worker.awaitFinished(remaining)) {
+          errln(
+              "Database worker "
+                  + worker.getShard()
+                  + " did not finish in time. Transactions left: "
+                  + worker.getQueue().size());
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
   }
 
   public boolean isShutDown() {
@@ -132,10 +237,6 @@ public abstract class MongoDatabase extends Printable {
     this.shutdown = flag;
   }
 
-  public List<MongoDocumentTransaction> getTransactions() {
-    return this.listTransactions;
-  }
-
   public abstract void reset();
 
   public abstract void onConnection(MongoClient client);
@@ -20,8 +20,12 @@
 
 package sledgehammer.database.document;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBObject;
@@ -32,6 +36,11 @@ import sledgehammer.database.MongoCollection;
  * A class designed to handle common operations of Mongo DBObjects that act as documents in a
  * DBCollection.
  *
+ * <p>Saves are partial. The document keeps a copy of the fields last written, and a save only sets
+ * the fields that changed since. Sub-documents are compared field by field, so that changing one
+ * key of a sub-document sets only that key. Removed entries are unset. Until the document is saved
+ * (or marked as saved when loaded), the whole document is written.
+ *
  * @author Jab
  */
 public abstract class MongoDocument {
@@ -45,6 +54,12 @@ public abstract class MongoDocument {
   /** The String identifier for the document. */
   private String fieldId;
 
+  /** The fields as they were last written. Null if the stored document is not known. */
+  private BasicDBObject objectSaved;
+
+  /** The names of the entries removed since the last save. */
+  private Set<String> setRemovedEntries;
+
   /**
    * Main constructor.
    *
@@ -55,6 +70,7 @@ public abstract class MongoDocument {
     setCollection(collection);
     setFieldId(fieldId);
     mapDocumentEntries = new HashMap<>();
+    setRemovedEntries = new HashSet<>();
   }
 
   /**
@@ -90,31 +106,11 @@ public abstract class MongoDocument {
     boolean result = this.mapDocumentEntries.remove(entryName) != null;
     // If the entry is contained, then process a save.
     if (result) {
-      // Create a new DBObject with the document's identifier.
-      DBObject object = new BasicDBObject(getFieldId(), getFieldValue());
-      // Populate the main document.
-      onSave(object);
-      // Go through each entry.
-      for (String key : mapDocumentEntries.keySet()) {
-        // Grab the next entry with the provided key.
-        MongoDocumentElement entry = mapDocumentEntries.get(key);
-        // If the entry is the one we are removing.
-        if (entry.getEntryName().equals(entryName)) {
-          // Set the field explicitly to null.
-          object.put(entryName, null);
-        }
-        // Else, Save it as normal.
-        else {
-          // Create a new DBObject to populate with the entry data.
-          DBObject objectEntry = new BasicDBObject();
-          // Populate the DBObject.
-          entry.onSave(objectEntry);
-          // Set the DBObject with the key into the main object.
-          object.put(key, objectEntry);
-        }
+      // Unset the entry with the next save.
+      synchronized (this) {
+        setRemovedEntries.add(entryName);
       }
-      // Upsert the document.
-      getCollection().upsert(object, getFieldId(), this);
+      save();
     }
     // If the entry is not in the document at the time of attempting to remove it,
     // then this is an illegal situation. Throw the error.
@@ -173,8 +169,90 @@ public abstract class MongoDocument {
     onSave(object);
     // Save the entries.
     saveEntries(object);
-    // Upsert the document.
-    getCollection().upsert(object, getFieldId(), this);
+    // Upsert the changes.
+    saveChanges(object);
+  }
+
+  /**
+   * Upserts the fields of a fully populated document that changed since the last save. If nothing
+   * changed, nothing is written.
+   *
+   * @param object The DBObject containing the whole document, including the identifier.
+   */
+  public synchronized void saveChanges(DBObject object) {
+    String fieldId = getFieldId();
+    Object fieldValue = object.get(fieldId);
+    // If the identifier changed, the stored document is not the one known.
+    if (objectSaved != null && !equals(objectSaved.get(fieldId), fieldValue)) {
+      objectSaved = null;
+    }
+    BasicDBObject set = new BasicDBObject(fieldId, fieldValue);
+    BasicDBObject unset = new BasicDBObject();
+    if (objectSaved == null) {
+      for (String key : object.keySet()) {
+        set.put(key, object.get(key));
+      }
+    } else {
+      diff("", object, objectSaved, set, unset, true);
+    }
+    // Unset the removed entries, unless they were added again. A path inside of a field is not
+    // unset if the field is present, as the field is then written whole.
+    for (String entryName : setRemovedEntries) {
+      int index = entryName.indexOf('.');
+      if (!object.containsField(index == -1 ? entryName : entryName.substring(0, index))) {
+        unset.put(entryName, "");
+      }
+    }
+    setRemovedEntries.clear();
+    boolean changed = objectSaved == null || set.size() > 1 || !unset.isEmpty();
+    objectSaved = (BasicDBObject) copy(object);
+    if (changed) {
+      getCollection().upsert(set, unset.isEmpty() ? null : unset, fieldId, this);
+    }
+  }
+
+  /**
+   * Marks the given DBObject as the document as stored in the collection. Fields of the next save
+   * that are equal to the ones given are not written. This is to be called with the DBObject the
+   * document is loaded from.
+   *
+   * @param object The DBObject as stored in the collection.
+   */
+  public synchronized void markSaved(DBObject object) {
+    objectSaved = (BasicDBObject) copy(object);
+  }
+
+  /**
+   * Marks a field as changed, so that the next save writes it, whether or not the value differs
+   * from the last one written.
+   *
+   * @param field The name of the field.
+   */
+  public synchronized void markDirty(String field) {
+    if (objectSaved != null) {
+      objectSaved.removeField(field);
+    }
+  }
+
+  /**
+   * Marks the whole document as changed, so that the next save writes every field. This is to be
+   * used when the stored document is changed or deleted outside of the MongoDocument.
+   */
+  public synchronized void markDirty() {
+    objectSaved = null;
+  }
+
+  /**
+   * Marks the whole document as changed after a upsert of it failed, so that the next save writes
+   * every field, and unsets the fields the failed upsert was to unset.
+   *
+   * @param unset The fields the failed upsert was to unset. Null if there are none.
+   */
+  public synchronized void markWriteFailed(DBObject unset) {
+    objectSaved = null;
+    if (unset != null) {
+      setRemovedEntries.addAll(unset.keySet());
+    }
   }
 
   public void saveEntries(DBObject object) {
@@ -194,6 +272,120 @@ public abstract class MongoDocument {
   /** Deletes the document from the assigned DBCollection. */
   public void delete() {
     getCollection().delete(getFieldId(), getFieldValue());
+    // The next save creates the document again.
+    markDirty();
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Adds the differences between the current fields and the saved fields of a document, or of a
+   * sub-document. Sub-documents present in both are compared field by field. Fields that are absent
+   * from the current document are only unset inside of sub-documents, as a whole sub-document
+   * would have replaced them.
+   *
+   * @param path The path of the (sub-)document, ending with a '.'. Empty for the document.
+   * @param object The current fields.
+   * @param objectSaved The fields as last written.
+   * @param set The DBObject to add the fields to set to.
+   * @param unset The DBObject to add the fields to unset to.
+   * @param root Flag for the document itself, rather than a sub-document.
+   */
+  private void diff(
+      String path,
+      DBObject object,
+      DBObject objectSaved,
+      DBObject set,
+      DBObject unset,
+      boolean root) {
+    for (String key : object.keySet()) {
+      if (root && key.equals(getFieldId())) {
+        continue;
+      }
+      Object value = object.get(key);
+      if (!objectSaved.containsField(key)) {
+        set.put(path + key, value);
+        continue;
+      }
+      Object valueSaved = objectSaved.get(key);
+      if (isComparable(value) && isComparable(valueSaved)) {
+        diff(path + key + ".", (DBObject) value, (DBObject) valueSaved, set, unset, false);
+      } else if (!equals(value, valueSaved)) {
+        set.put(path + key, value);
+      }
+    }
+    if (!root) {
+      for (String key : objectSaved.keySet()) {
+        if (!object.containsField(key)) {
+          unset.put(path + key, "");
+        }
+      }
+    }
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param value The value to test.
+   * @return Returns true if the value is a sub-document that can be compared field by field. Arrays
+   *     are written whole, as are sub-documents with keys that cannot be used in a path.
+   */
+  private static boolean isComparable(Object value) {
+    if (!(value instanceof DBObject) || value instanceof List) {
+      return false;
+    }
+    for (String key : ((DBObject) value).keySet()) {
+      if (key.isEmpty() || key.indexOf('.') != -1 || key.startsWith("$")) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param value The first value.
+   * @param other The second value.
+   * @return Returns true if both values are null, or are equal.
+   */
+  private static boolean equals(Object value, Object other) {
+    return value == null ? other == null : value.equals(other);
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Copies sub-documents and arrays, so that changes made to them after a save are detected.
+   *
+   * @param value The value to copy.
+   * @return Returns the copy. Other values are returned as they are.
+   */
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private static Object copy(Object value) {
+    if (value instanceof List) {
+      List list = (List) value;
+      List copy = new ArrayList(list.size());
+      for (Object element : list) {
+        copy.add(copy(element));
+      }
+      return copy;
+    } else if (value instanceof DBObject) {
+      DBObject object = (DBObject) value;
+      BasicDBObject copy = new BasicDBObject();
+      for (String key : object.keySet()) {
+        copy.put(key, copy(object.get(key)));
+      }
+      return copy;
+    } else if (value instanceof Map) {
+      Map map = (Map) value;
+      BasicDBObject copy = new BasicDBObject();
+      for (Object key : map.keySet()) {
+        copy.put(String.valueOf(key), copy(map.get(key)));
+      }
+      return copy;
+    }
+    return value;
   }
 
   /**
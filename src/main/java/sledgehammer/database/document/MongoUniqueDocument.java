@@ -86,6 +86,8 @@ public abstract class MongoUniqueDocument extends MongoDocument {
       uniqueId = UUID.fromString(oUniqueId.toString());
     }
     setUniqueId(uniqueId, false);
+    // Only the fields that differ from the stored document are written when saved.
+    markSaved(object);
   }
 
   /** @return Returns the Unique ID that represents the MongoDocument. */
@@ -127,8 +127,8 @@ public abstract class MongoUniqueNodeDocument extends MongoUniqueDocument {
     saveEntries(object);
     // Save the nodes.
     saveNodes(object);
-    // Upsert the document.
-    getCollection().upsert(object, getFieldId(), this);
+    // Upsert the changes.
+    saveChanges(object);
   }
 
   /**
@@ -79,7 +79,9 @@ public class MongoPlayer extends MongoUniqueDocument {
     // Check if the player exists. If the player exists, load.
     DBCursor cursor = collection.getDBCollection().find(new BasicDBObject("username", username));
     if (cursor.hasNext()) {
-      onLoad(cursor.next());
+      DBObject object = cursor.next();
+      onLoad(object);
+      markSaved(object);
     }
     cursor.close();
   }
@@ -88,6 +90,7 @@ public class MongoPlayer extends MongoUniqueDocument {
     super(collection, (UUID) object.get("id"));
     reset();
     onLoad(object);
+    markSaved(object);
   }
 
   public MongoPlayer(MongoCollection collection, UUID uuid) {
@@ -96,7 +99,9 @@ public class MongoPlayer extends MongoUniqueDocument {
     DBCursor cursor =
         collection.getDBCollection().find(new BasicDBObject(getFieldId(), getFieldValue()));
     if (cursor.hasNext()) {
-      onLoad(cursor.next());
+      DBObject object = cursor.next();
+      onLoad(object);
+      markSaved(object);
     }
     cursor.close();
   }
@@ -241,12 +246,6 @@ public class MongoPlayer extends MongoUniqueDocument {
     setMetadata(mapMetadata);
   }
 
-  private void saveMetadata() {
-    DBObject object = new BasicDBObject(getFieldId(), getFieldValue());
-    object.put("metadata", createMetadataDocument());
-    getCollection().upsert(object, getFieldId(), this);
-  }
-
   private String getNickname() {
     return this.nickname;
   }
@@ -303,7 +302,8 @@ public class MongoPlayer extends MongoUniqueDocument {
   public void setMetaData(String field, String value, boolean save) {
     this.mapMetadata.put(field, value);
     if (save) {
-      saveMetadata();
+      // Only the changed keys of the metadata are written.
+      save();
     }
   }
 
@@ -142,16 +142,52 @@ public class SledgehammerDatabase extends MongoDatabase {
     MongoPlayer player;
     player = mapPlayersByUsername.get(username);
     if (player == null) {
-      DBCursor cursor = collectionPlayers.find(new BasicDBObject("username", username));
-      if (cursor.hasNext()) {
-        player = new MongoPlayer(collectionPlayers, cursor.next());
+      player = findMongoPlayer(username);
+      if (player != null) {
         registerPlayer(player);
       }
-      cursor.close();
     }
     return player;
   }
 
+  /**
+   * Queries the database for a MongoPlayer with the user-name given. The registered MongoPlayers
+   * are neither used nor changed, so this can be called off of the server's update thread.
+   *
+   * @param username The user-name of the MongoPlayer.
+   * @return Returns the MongoPlayer stored with the user-name. If none is stored, null is returned.
+   */
+  public MongoPlayer findMongoPlayer(String username) {
+    if (username == null || username.isEmpty()) {
+      throw new IllegalArgumentException("SledgehammerDatabase: Username given is null or empty!");
+    }
+    MongoPlayer player = null;
+    DBCursor cursor = collectionPlayers.find(new BasicDBObject("username", username));
+    if (cursor.hasNext()) {
+      player = new MongoPlayer(collectionPlayers, cursor.next());
+    }
+    cursor.close();
+    return player;
+  }
+
+  /**
+   * Registers a MongoPlayer returned by 'findMongoPlayer(username)'. If a MongoPlayer with the same
+   * user-name is already registered, that MongoPlayer is kept.
+   *
+   * <p>(Note: This is to be called on the server's update thread)
+   *
+   * @param player The MongoPlayer to register.
+   * @return Returns the registered MongoPlayer for the user-name.
+   */
+  public MongoPlayer registerMongoPlayer(MongoPlayer player) {
+    MongoPlayer registered = mapPlayersByUsername.get(player.getUsername());
+    if (registered == null) {
+      registerPlayer(player);
+      registered = player;
+    }
+    return registered;
+  }
+
   public MongoPlayer getMongoPlayer(String username, String password) {
     if (username == null || username.isEmpty()) {
       throw new IllegalArgumentException("SledgehammerDatabase: Username given is null or empty!");
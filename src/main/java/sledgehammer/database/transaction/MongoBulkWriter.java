@@ -0,0 +1,287 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+
+package sledgehammer.database.transaction;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.mongodb.BulkWriteError;
+import com.mongodb.BulkWriteException;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.DBCollection;
+
+import sledgehammer.Settings;
+import sledgehammer.database.MongoCollection;
+import sledgehammer.database.MongoDatabase;
+import sledgehammer.database.document.MongoDocument;
+
+/**
+ * MongoBulkWriter writes a batch of transactions with one unordered bulk write per collection,
+ * instead of one round trip per transaction.
+ *
+ * <p>Operations in a unordered bulk write can run in any order. If a document is written more than
+ * once in a batch, (E.G: a delete, then a upsert), the bulk write of its collection is executed
+ * before the second operation is added, so the operations on the document stay in order.
+ * Transactions that cannot be part of a bulk write are ran on their own, after every bulk write
+ * before them is executed.
+ *
+ * <p>If operations fail, each error is reported with the transaction it belongs to. The other
+ * operations of the bulk write are still applied. The MongoDocument of a failed upsert is marked
+ * dirty, so that its next save writes the whole document again.
+ *
+ * <p>(Note: This is only used by the worker thread. The metrics can be read from any thread)
+ *
+ * @author Jab
+ */
+public class MongoBulkWriter {
+
+  /** The MongoDatabase to report errors to. */
+  private final MongoDatabase database;
+  /** The pending bulk writes, by the name of their collection. */
+  private final Map<String, Group> mapGroups = new LinkedHashMap<>();
+  /** The amount of round trips made to the database. */
+  private final AtomicLong roundTrips = new AtomicLong();
+  /** The amount of operations written. */
+  private final AtomicLong operations = new AtomicLong();
+  /** The amount of operations that failed. */
+  private final AtomicLong failures = new AtomicLong();
+
+  /**
+   * Main constructor.
+   *
+   * @param database The MongoDatabase to report errors to.
+   */
+  public MongoBulkWriter(MongoDatabase database) {
+    this.database = database;
+  }
+
+  /**
+   * Writes a batch of transactions.
+   *
+   * @param listTransactions The transactions to write, in order.
+   */
+  public void write(List<MongoDocumentTransaction> listTransactions) {
+    for (MongoDocumentTransaction transaction : listTransactions) {
+      Object key = transaction.getDocumentKey();
+      if (key == null) {
+        // Keep the order of everything before the transaction.
+        flush();
+        runSingle(transaction);
+        continue;
+      }
+      MongoCollection collection = transaction.getMongoCollection();
+      String name = collection.getDBCollection().getFullName();
+      Group group = mapGroups.get(name);
+      if (group == null) {
+        group = new Group(collection);
+        mapGroups.put(name, group);
+      }
+      // The document is already written in this bulk write. Execute it first to keep the order.
+      if (!group.setKeys.add(key)) {
+        execute(group);
+        group.setKeys.add(key);
+      }
+      group.listTransactions.add(transaction);
+    }
+    flush();
+  }
+
+  /** @return Returns the amount of round trips made to the database. */
+  public long getRoundTrips() {
+    return this.roundTrips.get();
+  }
+
+  /** @return Returns the amount of operations written. */
+  public long getOperations() {
+    return this.operations.get();
+  }
+
+  /** @return Returns the amount of operations that failed. */
+  public long getFailures() {
+    return this.failures.get();
+  }
+
+  /** Clears the metrics. */
+  public void resetMetrics() {
+    roundTrips.set(0L);
+    operations.set(0L);
+    failures.set(0L);
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Executes every pending bulk write.
+   */
+  private void flush() {
+    for (Group group : mapGroups.values()) {
+      execute(group);
+    }
+    mapGroups.clear();
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Executes the pending bulk write of a collection, and clears it.
+   *
+   * @param group The pending bulk write.
+   */
+  private void execute(Group group) {
+    List<MongoDocumentTransaction> listTransactions = group.listTransactions;
+    if (listTransactions.isEmpty()) {
+      return;
+    }
+    // A single operation does not need a bulk write.
+    if (listTransactions.size() == 1) {
+      runSingle(listTransactions.get(0));
+      group.clear();
+      return;
+    }
+    DBCollection dbCollection = group.collection.getDBCollection();
+    if (Settings.getInstance().isDebug()) {
+      System.out.println(
+          "("
+              + dbCollection.getName()
+              + "): Bulk writing "
+              + listTransactions.size()
+              + " operations.");
+    }
+    BulkWriteOperation bulk = dbCollection.initializeUnorderedBulkOperation();
+    for (MongoDocumentTransaction transaction : listTransactions) {
+      transaction.addTo(bulk);
+    }
+    roundTrips.incrementAndGet();
+    operations.addAndGet(listTransactions.size());
+    try {
+      bulk.execute();
+    } catch (BulkWriteException e) {
+      // The index of each error is the index of the operation in the bulk write.
+      for (BulkWriteError error : e.getWriteErrors()) {
+        MongoDocumentTransaction transaction = listTransactions.get(error.getIndex());
+        reportFailure(dbCollection, transaction, error.getCode() + ": " + error.getMessage());
+      }
+      if (e.getWriteConcernError() != null) {
+        database.errln(
+            "("
+                + dbCollection.getName()
+                + "): Bulk write concern error: "
+                + e.getWriteConcernError().getMessage());
+      }
+    } catch (Exception e) {
+      failures.addAndGet(listTransactions.size());
+      for (MongoDocumentTransaction transaction : listTransactions) {
+        markFailed(transaction);
+      }
+      database.errln(
+          "("
+              + dbCollection.getName()
+              + "): Bulk write of "
+              + listTransactions.size()
+              + " operations failed.");
+      database.stackTrace(e);
+    }
+    group.clear();
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Runs a transaction on its own.
+   *
+   * @param transaction The transaction to run.
+   */
+  private void runSingle(MongoDocumentTransaction transaction) {
+    roundTrips.incrementAndGet();
+    operations.incrementAndGet();
+    try {
+      transaction.run();
+    } catch (Exception e) {
+      failures.incrementAndGet();
+      markFailed(transaction);
+      // A failed transaction should not stop the ones queued after it.
+      database.stackTrace(e);
+    }
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Reports a failed operation of a bulk write.
+   *
+   * @param dbCollection The collection of the bulk write.
+   * @param transaction The transaction of the failed operation.
+   * @param message The error message.
+   */
+  private void reportFailure(
+      DBCollection dbCollection, MongoDocumentTransaction transaction, String message) {
+    failures.incrementAndGet();
+    markFailed(transaction);
+    database.errln("(" + dbCollection.getName() + "): Failed " + transaction + ": " + message);
+  }
+
+  /**
+   * Marks the MongoDocument of a failed upsert dirty. The document advances its saved state when
+   * the upsert is queued, so without this the fields of the upsert are never written again.
+   * Coalesced upserts carry the lock of the last upsert merged into them.
+   *
+   * @param transaction The transaction that failed.
+   */
+  public static void markFailed(MongoDocumentTransaction transaction) {
+    if (!(transaction instanceof MongoDocumentTransactionUpsert)) {
+      return;
+    }
+    MongoDocumentTransactionUpsert upsert = (MongoDocumentTransactionUpsert) transaction;
+    Object lock = upsert.getLock();
+    if (lock instanceof MongoDocument) {
+      ((MongoDocument) lock).markWriteFailed(upsert.getUnset());
+    }
+  }
+
+  /** The pending bulk write of a collection. */
+  private static class Group {
+
+    private final MongoCollection collection;
+    private final List<MongoDocumentTransaction> listTransactions = new ArrayList<>();
+    /** The keys of the documents written in the bulk write. */
+    private final Set<Object> setKeys = new HashSet<>();
+
+    /**
+     * Main constructor.
+     *
+     * @param collection The collection of the bulk write.
+     */
+    Group(MongoCollection collection) {
+      this.collection = collection;
+    }
+
+    /** Clears the pending operations. */
+    void clear() {
+      listTransactions.clear();
+      setKeys.clear();
+    }
+  }
+}
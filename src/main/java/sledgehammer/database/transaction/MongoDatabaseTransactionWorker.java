@@ -22,71 +22,130 @@ package sledgehammer.database.transaction;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import sledgehammer.database.MongoDatabase;
 
 /**
  * Runnable interface that handles ordered transactions for MongoDocuments.
  *
+ * <p>Each worker is a shard of the MongoDatabase, with its own queue. The MongoDatabase routes
+ * every transaction for a document to the same worker, so those are written in order.
+ *
  * @author Jab
  */
 public class MongoDatabaseTransactionWorker implements Runnable {
 
-  /** The amount of time to sleep when idle. */
-  private long sleepTimer = 10L;
+  /** The maximum amount of transactions taken from the queue at once. */
+  private static final int BATCH_SIZE = 256;
+  /** The maximum time in nanoseconds to park without being woken up. */
+  private static final long PARK_NANOS = 100000000L;
+
   /** The MongoDatabase using the worker to execute transactions. */
   private MongoDatabase database;
+  /** The index of the worker in the MongoDatabase. */
+  private final int shard;
+  /** The transactions routed to the worker. */
+  private final MongoTransactionQueue queue;
+  /** Released when the worker has drained the queue after the MongoDatabase is shut down. */
+  private final CountDownLatch latchFinished = new CountDownLatch(1);
+  /** Merges the transactions of each batch that target the same document. */
+  private final MongoTransactionCoalescer coalescer = new MongoTransactionCoalescer();
+  /** Writes the merged transactions of each batch. */
+  private final MongoBulkWriter writer;
 
   /**
    * Main constructor.
    *
    * @param database The MongoDatabase containing MongoDocumentTransactions.
+   * @param shard The index of the worker in the MongoDatabase.
    */
-  public MongoDatabaseTransactionWorker(MongoDatabase database) {
+  public MongoDatabaseTransactionWorker(MongoDatabase database, int shard) {
     // Set the database using the worker.
     setMongoDatabase(database);
+    this.shard = shard;
+    queue = new MongoTransactionQueue(MongoTransactionQueue.DEFAULT_CAPACITY);
+    writer = new MongoBulkWriter(database);
   }
 
   @Override
   public void run() {
+    try {
+      work();
+    } finally {
+      // Reject the transactions added from now on, even if the worker failed.
+      queue.close();
+      latchFinished.countDown();
+    }
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Writes the queued transactions until the MongoDatabase is shut down and the queue is empty.
+   */
+  private void work() {
     // The database to work with.
     MongoDatabase database = getMongoDatabase();
-    // The list to work with outside of the main list from the database.
-    List<MongoDocumentTransaction> listToTransact = new ArrayList<>();
+    // The list to work with outside of the queue.
+    List<MongoDocumentTransaction> listToTransact = new ArrayList<>(BATCH_SIZE);
+    // The transactions to run, after the ones for the same document are merged.
+    List<MongoDocumentTransaction> listMerged = new ArrayList<>(BATCH_SIZE);
     // Loop through until the database is flagged to shut down. If there are queued
     // transactions waiting to be processed during a shutdown, those will be ran
-    // first before exiting the loop.
-    while (!database.isShutDown()
-        || (database.isShutDown() && database.getTransactionQueueSize() > 0)) {
-      // Clear the local list.
+    // first before exiting the loop. Once empty, the queue is closed and drained once more for
+    // the transactions added before the adding threads saw it closed.
+    while (!database.isShutDown() || !queue.isEmpty() || queue.close()) {
       listToTransact.clear();
-      // Grab the current list of transactions.
-      List<MongoDocumentTransaction> listTransactions = database.getTransactions();
-      // Ensure that no transactions are added during the transfer of transactions to
-      // the local list.
-      synchronized (listTransactions) {
-        // Add every transaction currently on the database list to the local list.
-        listToTransact.addAll(listTransactions);
-        // Clear the database list.
-        listTransactions.clear();
-      }
-      // Make sure we have transactions to process.
-      if (listToTransact.size() > 0) {
-        // Go through each transaction.
-        for (MongoDocumentTransaction transaction : listToTransact) {
-          // Dispatch the transaction method to handle the operation.
-          transaction.run();
+      listMerged.clear();
+      // If nothing is queued, park until a transaction is added.
+      if (queue.drainTo(listToTransact, BATCH_SIZE) == 0) {
+        if (!database.isShutDown()) {
+          queue.await(PARK_NANOS);
         }
+        continue;
       }
-      // Sleep to ensure not to start process resources.
-      try {
-        Thread.sleep(sleepTimer);
-      } catch (InterruptedException e) {
-        e.printStackTrace();
-      }
+      // Each batch taken is a flush window. Transactions queued while the previous batch was
+      // written are merged together.
+      coalescer.coalesce(listToTransact, listMerged);
+      // Write the merged transactions with one bulk write per collection.
+      writer.write(listMerged);
     }
   }
 
+  /**
+   * Waits for the worker to write the remaining transactions and exit, after the MongoDatabase is
+   * shut down.
+   *
+   * @param millis The maximum time in milliseconds to wait.
+   * @return Returns true if the worker has exited.
+   * @throws InterruptedException Thrown if the calling thread is interrupted while waiting.
+   */
+  public boolean awaitFinished(long millis) throws InterruptedException {
+    return latchFinished.await(millis, TimeUnit.MILLISECONDS);
+  }
+
+  /** @return Returns the index of the worker in the MongoDatabase. */
+  public int getShard() {
+    return this.shard;
+  }
+
+  /** @return Returns the queue of the transactions routed to the worker. */
+  public MongoTransactionQueue getQueue() {
+    return this.queue;
+  }
+
+  /** @return Returns the coalescer merging the transactions of each batch. */
+  public MongoTransactionCoalescer getCoalescer() {
+    return this.coalescer;
+  }
+
+  /** @return Returns the writer running the merged transactions of each batch. */
+  public MongoBulkWriter getWriter() {
+    return this.writer;
+  }
+
   /** @return Returns the MongoDatabase using the worker. */
   public MongoDatabase getMongoDatabase() {
     return this.database;
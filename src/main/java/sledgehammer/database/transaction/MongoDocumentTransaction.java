@@ -20,6 +20,8 @@
 
 package sledgehammer.database.transaction;
 
+import com.mongodb.BulkWriteOperation;
+
 import sledgehammer.database.MongoCollection;
 
 public abstract class MongoDocumentTransaction {
@@ -39,4 +41,23 @@ public abstract class MongoDocumentTransaction {
   }
 
   public abstract void run();
+
+  /**
+   * Adds the operation of the transaction to a bulk write of its collection. Transactions that
+   * cannot be part of a bulk write are ran on their own, in order.
+   *
+   * @param bulk The bulk write to add to.
+   * @return Returns true if the operation is added. Returns false by default.
+   */
+  public boolean addTo(BulkWriteOperation bulk) {
+    return false;
+  }
+
+  /**
+   * @return Returns a key identifying the document written by the transaction within its
+   *     collection. Returns null if the transaction cannot be part of a bulk write.
+   */
+  public Object getDocumentKey() {
+    return null;
+  }
 }
@@ -20,8 +20,10 @@
 
 package sledgehammer.database.transaction;
 
-import com.mongodb.BasicDBObject;
+import java.util.Arrays;
 
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteOperation;
 import com.mongodb.DBCollection;
 import sledgehammer.Settings;
 import sledgehammer.database.MongoCollection;
@@ -41,19 +43,26 @@ public class MongoDocumentTransactionDelete extends MongoDocumentTransaction {
   public void run() {
     MongoCollection collection = getMongoCollection();
     DBCollection dbCollection = collection.getDBCollection();
-    String field = getField();
-    Object value = getValue();
     if (Settings.getInstance().isDebug()) {
-      System.out.println(
-          "("
-              + dbCollection.getName()
-              + "): Deleting Document (Field:"
-              + field
-              + " Value:"
-              + value
-              + ")");
+      System.out.println("(" + dbCollection.getName() + "): " + toString());
     }
-    dbCollection.remove(new BasicDBObject(field, value));
+    dbCollection.remove(new BasicDBObject(getField(), getValue()));
+  }
+
+  @Override
+  public boolean addTo(BulkWriteOperation bulk) {
+    bulk.find(new BasicDBObject(getField(), getValue())).remove();
+    return true;
+  }
+
+  @Override
+  public Object getDocumentKey() {
+    return Arrays.asList(getField(), getValue());
+  }
+
+  @Override
+  public String toString() {
+    return "Deleting Document (Field:" + getField() + " Value:" + getValue() + ")";
   }
 
   public String getField() {
@@ -20,7 +20,10 @@
 
 package sledgehammer.database.transaction;
 
+import java.util.Arrays;
+
 import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteOperation;
 import com.mongodb.DBCollection;
 import com.mongodb.DBObject;
 
@@ -30,13 +33,20 @@ import sledgehammer.database.MongoCollection;
 public class MongoDocumentTransactionUpsert extends MongoDocumentTransaction {
 
   private DBObject object;
+  private DBObject unset;
   private String field;
   private Object lock;
 
   public MongoDocumentTransactionUpsert(
       MongoCollection collection, DBObject object, String field, Object lock) {
+    this(collection, object, null, field, lock);
+  }
+
+  public MongoDocumentTransactionUpsert(
+      MongoCollection collection, DBObject object, DBObject unset, String field, Object lock) {
     super(collection);
     setObject(object);
+    setUnset(unset);
     setField(field);
     setLock(lock);
   }
@@ -45,22 +55,49 @@ public class MongoDocumentTransactionUpsert extends MongoDocumentTransaction {
   public void run() {
     MongoCollection collection = getMongoCollection();
     DBCollection dbCollection = collection.getDBCollection();
-    String field = getField();
-    DBObject object = getObject();
-    BasicDBObject append = new BasicDBObject();
-    append.append("$set", object);
-    Object id = object.get(field);
     if (Settings.getInstance().isDebug()) {
-      System.out.println(
-          "("
-              + dbCollection.getName()
-              + "): Upserting document: (field:"
-              + field
-              + " id:"
-              + id
-              + ")");
+      System.out.println("(" + dbCollection.getName() + "): " + toString());
+    }
+    dbCollection.update(createQuery(), createUpdate(), true, false);
+  }
+
+  @Override
+  public boolean addTo(BulkWriteOperation bulk) {
+    bulk.find(createQuery()).upsert().updateOne(createUpdate());
+    return true;
+  }
+
+  @Override
+  public Object getDocumentKey() {
+    return Arrays.asList(getField(), getObject().get(getField()));
+  }
+
+  @Override
+  public String toString() {
+    return "Upserting document: (field:" + getField() + " id:" + getObject().get(getField()) + ")";
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @return Returns the query matching the document.
+   */
+  private DBObject createQuery() {
+    return new BasicDBObject(getField(), getObject().get(getField()));
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @return Returns the update setting, and unsetting, the fields of the document.
+   */
+  private DBObject createUpdate() {
+    DBObject update = new BasicDBObject("$set", getObject());
+    DBObject unset = getUnset();
+    if (unset != null && !unset.keySet().isEmpty()) {
+      update.put("$unset", unset);
     }
-    dbCollection.update(new BasicDBObject(field, object.get(field)), append, true, false);
+    return update;
   }
 
   public Object getLock() {
@@ -79,6 +116,15 @@ public class MongoDocumentTransactionUpsert extends MongoDocumentTransaction {
     this.object = object;
   }
 
+  /** @return Returns the fields to unset. Null if no fields are unset. */
+  public DBObject getUnset() {
+    return this.unset;
+  }
+
+  private void setUnset(DBObject unset) {
+    this.unset = unset;
+  }
+
   public String getField() {
     return this.field;
   }
@@ -0,0 +1,305 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+
+package sledgehammer.database.transaction;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+import sledgehammer.database.MongoCollection;
+
+/**
+ * MongoTransactionCoalescer merges the transactions of a flush window that target the same
+ * document, so that each document is written once per window.
+ *
+ * <p>Transactions are keyed by their collection, the identifying field, and the value of that
+ * field. Upserts of the same document merge into one upsert, with the last write of each field
+ * winning, whether the field is set or unset. Upserts that write a field and a path inside of it
+ * (such as "metadata" and "metadata.name") are not merged, as Mongo rejects such an update. A
+ * delete supersedes the upserts before it. An upsert after a delete is written after the delete,
+ * with only the fields set since the delete.
+ *
+ * <p>Documents are written in the order they are first seen in the window. Transactions of unknown
+ * types are not merged, and are written in place, after everything before them.
+ *
+ * <p>(Note: This is only used by the worker thread. The metrics can be read from any thread)
+ *
+ * @author Jab
+ */
+public class MongoTransactionCoalescer {
+
+  /** The pending writes of the current window, in the order the documents were first seen. */
+  private final Map<Key, Pending> mapPending = new LinkedHashMap<>();
+  /** The amount of transactions received. */
+  private final AtomicLong received = new AtomicLong();
+  /** The amount of transactions written after merging. */
+  private final AtomicLong written = new AtomicLong();
+
+  /**
+   * Merges a window of transactions.
+   *
+   * @param listTransactions The transactions of the window, in the order they were added.
+   * @param listMerged The List to add the merged transactions to, in the order to run them.
+   */
+  public void coalesce(
+      List<MongoDocumentTransaction> listTransactions, List<MongoDocumentTransaction> listMerged) {
+    int sizeBefore = listMerged.size();
+    for (MongoDocumentTransaction transaction : listTransactions) {
+      if (transaction instanceof MongoDocumentTransactionUpsert) {
+        MongoDocumentTransactionUpsert upsert = (MongoDocumentTransactionUpsert) transaction;
+        String field = upsert.getField();
+        Key key = new Key(upsert.getMongoCollection(), field, upsert.getObject().get(field));
+        Pending pending = getPending(key);
+        DBObject unset = upsert.getUnset();
+        if (conflicts(pending, upsert.getObject()) || conflicts(pending, unset)) {
+          // Write what is pending first, and start over with the upsert.
+          write(key, pending, listMerged);
+          pending = new Pending();
+          mapPending.put(key, pending);
+        }
+        if (pending.set == null) {
+          pending.set = new BasicDBObject();
+        }
+        // The last write of each field wins.
+        for (String fieldNext : upsert.getObject().keySet()) {
+          pending.set.put(fieldNext, upsert.getObject().get(fieldNext));
+          if (pending.unset != null) {
+            pending.unset.removeField(fieldNext);
+          }
+        }
+        if (unset != null) {
+          if (pending.unset == null) {
+            pending.unset = new BasicDBObject();
+          }
+          for (String fieldNext : unset.keySet()) {
+            pending.unset.put(fieldNext, "");
+            pending.set.removeField(fieldNext);
+          }
+        }
+        pending.lock = upsert.getLock();
+      } else if (transaction instanceof MongoDocumentTransactionDelete) {
+        MongoDocumentTransactionDelete delete = (MongoDocumentTransactionDelete) transaction;
+        Key key = new Key(delete.getMongoCollection(), delete.getField(), delete.getValue());
+        Pending pending = getPending(key);
+        // The delete supersedes the upserts before it.
+        pending.delete = true;
+        pending.set = null;
+        pending.unset = null;
+      } else {
+        // Unknown transactions are a barrier. Everything before it is written first.
+        flush(listMerged);
+        listMerged.add(transaction);
+      }
+    }
+    flush(listMerged);
+    received.addAndGet(listTransactions.size());
+    written.addAndGet(listMerged.size() - sizeBefore);
+  }
+
+  /** @return Returns the amount of transactions received. */
+  public long getReceivedCount() {
+    return this.received.get();
+  }
+
+  /** @return Returns the amount of transactions written after merging. */
+  public long getWrittenCount() {
+    return this.written.get();
+  }
+
+  /**
+   * @return Returns the amount of transactions received for each transaction written. 1.0 means
+   *     that nothing was merged. If nothing is written, 1.0 is returned.
+   */
+  public double getCoalescingRatio() {
+    long written = getWrittenCount();
+    return written == 0L ? 1.0 : (double) getReceivedCount() / written;
+  }
+
+  /** Clears the metrics. */
+  public void resetMetrics() {
+    received.set(0L);
+    written.set(0L);
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param key The key of the document.
+   * @return Returns the pending writes of the document. If none are pending, they are created.
+   */
+  private Pending getPending(Key key) {
+    Pending pending = mapPending.get(key);
+    if (pending == null) {
+      pending = new Pending();
+      mapPending.put(key, pending);
+    }
+    return pending;
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Adds the pending writes as transactions, and clears them.
+   *
+   * @param listMerged The List to add the transactions to.
+   */
+  private void flush(List<MongoDocumentTransaction> listMerged) {
+    for (Map.Entry<Key, Pending> entry : mapPending.entrySet()) {
+      write(entry.getKey(), entry.getValue(), listMerged);
+    }
+    mapPending.clear();
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Adds the pending writes of a document as transactions.
+   *
+   * @param key The key of the document.
+   * @param pending The pending writes of the document.
+   * @param listMerged The List to add the transactions to.
+   */
+  private void write(Key key, Pending pending, List<MongoDocumentTransaction> listMerged) {
+    if (pending.delete) {
+      listMerged.add(new MongoDocumentTransactionDelete(key.collection, key.field, key.value));
+    }
+    if (pending.set != null) {
+      DBObject unset = pending.unset == null || pending.unset.isEmpty() ? null : pending.unset;
+      listMerged.add(
+          new MongoDocumentTransactionUpsert(
+              key.collection, pending.set, unset, key.field, pending.lock));
+    }
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param pending The pending writes of a document.
+   * @param object The fields of an upsert to merge. Null if there are none.
+   * @return Returns true if a field is a path inside of a pending field, or the other way around.
+   */
+  private static boolean conflicts(Pending pending, DBObject object) {
+    if (object == null) {
+      return false;
+    }
+    for (String field : object.keySet()) {
+      if (conflicts(pending.set, field) || conflicts(pending.unset, field)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param object The pending fields. Null if there are none.
+   * @param field The field to test.
+   * @return Returns true if the field is a path inside of a pending field, or the other way around.
+   */
+  private static boolean conflicts(BasicDBObject object, String field) {
+    if (object == null) {
+      return false;
+    }
+    Set<String> keys = object.keySet();
+    // Test each parent of the field.
+    for (int index = field.indexOf('.'); index != -1; index = field.indexOf('.', index + 1)) {
+      if (keys.contains(field.substring(0, index))) {
+        return true;
+      }
+    }
+    String prefix = field + ".";
+    for (String key : keys) {
+      if (key.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Identifies a document by its collection, identifying field, and the value of the field.
+   * Collections are compared by name, as more than one MongoCollection can wrap the same
+   * collection.
+   */
+  private static class Key {
+
+    private final MongoCollection collection;
+    private final String collectionName;
+    private final String field;
+    private final Object value;
+    private final int hash;
+
+    /**
+     * Main constructor.
+     *
+     * @param collection The collection of the document.
+     * @param field The identifying field.
+     * @param value The value of the identifying field.
+     */
+    Key(MongoCollection collection, String field, Object value) {
+      this.collection = collection;
+      this.collectionName = collection.getDBCollection().getFullName();
+      this.field = field;
+      this.value = value;
+      int hash = collectionName.hashCode();
+      hash = 31 * hash + (field == null ? 0 : field.hashCode());
+      hash = 31 * hash + (value == null ? 0 : value.hashCode());
+      this.hash = hash;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) other;
+      return collectionName.equals(key.collectionName)
+          && (field == null ? key.field == null : field.equals(key.field))
+          && (value == null ? key.value == null : value.equals(key.value));
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  /** The merged writes pending for a document. */
+  private static class Pending {
+    /** Flag for deleting the document before setting the fields. */
+    boolean delete;
+    /** The merged fields to set. Null if no fields are set. */
+    BasicDBObject set;
+    /** The merged fields to unset. Null if no fields are unset. */
+    BasicDBObject unset;
+    /** The lock of the last upsert. */
+    Object lock;
+  }
+}
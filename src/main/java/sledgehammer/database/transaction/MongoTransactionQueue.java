@@ -0,0 +1,207 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+
+package sledgehammer.database.transaction;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * MongoTransactionQueue is a bounded, lock-free queue of MongoDocumentTransactions. Any thread can
+ * add transactions, and a single worker takes them in the order they were added.
+ *
+ * <p>Transactions are written into a pre-allocated ring buffer. Adding a transaction claims a slot
+ * with a single atomic increment, and never takes a lock. When the queue is empty, the worker parks
+ * until a transaction is added, so persisted changes are picked up immediately instead of on the
+ * next poll.
+ *
+ * <p>If the ring buffer is full, the adding thread waits for the worker to free a slot.
+ *
+ * <p>The worker closes the queue once it stops taking transactions. Transactions added after that
+ * are rejected, so that adding threads do not wait on a worker that is gone.
+ *
+ * @author Jab
+ */
+public class MongoTransactionQueue {
+
+  /** The default amount of slots in the ring buffer. (Must be a power of 2) */
+  public static final int DEFAULT_CAPACITY = 16384;
+
+  /** The pre-allocated slots of the ring buffer. */
+  private final Slot[] slots;
+  /** The mask used to map a sequence to a slot index. */
+  private final int mask;
+  /** The next sequence to claim for adding. */
+  private final AtomicLong sequenceClaimed = new AtomicLong(0L);
+  /** The next sequence for the worker to take. Every slot before this is free. */
+  private volatile long sequenceConsumed = 0L;
+  /** Flag for when the worker is about to park, so that adding threads know to wake it up. */
+  private volatile boolean waiting = false;
+  /** The thread of the worker taking transactions. */
+  private volatile Thread consumer;
+  /** Flag for when the worker no longer takes transactions. */
+  private volatile boolean closed = false;
+
+  /**
+   * Main constructor.
+   *
+   * @param capacity The amount of slots in the ring buffer. This must be a power of 2.
+   */
+  public MongoTransactionQueue(int capacity) {
+    if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("Capacity must be a power of 2: " + capacity);
+    }
+    this.slots = new Slot[capacity];
+    this.mask = capacity - 1;
+    for (int index = 0; index < capacity; index++) {
+      slots[index] = new Slot();
+    }
+  }
+
+  /**
+   * Adds a transaction to the queue. If the queue is full, this waits for the worker to free a
+   * slot.
+   *
+   * @param transaction The transaction to add.
+   * @return Returns true if the transaction is added. Returns false if the queue is closed, and the
+   *     transaction will not be taken.
+   */
+  public boolean add(MongoDocumentTransaction transaction) {
+    if (transaction == null) {
+      throw new IllegalArgumentException("Transaction given is null.");
+    }
+    if (closed) {
+      return false;
+    }
+    long sequence = sequenceClaimed.getAndIncrement();
+    // Wait for the slot to be freed by the worker.
+    while (sequence - sequenceConsumed >= slots.length) {
+      if (closed) {
+        return false;
+      }
+      wake();
+      Thread.yield();
+    }
+    Slot slot = slots[(int) (sequence & mask)];
+    slot.transaction = transaction;
+    // Writing the sequence publishes the slot to the worker.
+    slot.sequence = sequence;
+    if (waiting) {
+      wake();
+    }
+    // The worker may have closed the queue after this checked it, and before the slot was claimed.
+    return !closed || sequenceConsumed > sequence;
+  }
+
+  /**
+   * Closes the queue, so that transactions added after this are rejected. The worker must take the
+   * transactions left in the queue once more after closing it, as they may have been added before
+   * the adding threads saw the queue closed.
+   *
+   * <p>(Note: This is only to be called by the worker)
+   *
+   * @return Returns true if the queue is closed by this call. Returns false if it was already
+   *     closed.
+   */
+  public boolean close() {
+    if (closed) {
+      return false;
+    }
+    closed = true;
+    return true;
+  }
+
+  /** @return Returns true if the worker no longer takes transactions. */
+  public boolean isClosed() {
+    return this.closed;
+  }
+
+  /**
+   * Takes the published transactions, in order, until one is not yet published or the maximum is
+   * reached.
+   *
+   * <p>(Note: This is only to be called by the worker)
+   *
+   * @param list The List to add the transactions to.
+   * @param max The maximum amount of transactions to take.
+   * @return Returns the amount of transactions taken.
+   */
+  public int drainTo(List<MongoDocumentTransaction> list, int max) {
+    long sequence = sequenceConsumed;
+    int count = 0;
+    while (count < max) {
+      Slot slot = slots[(int) (sequence & mask)];
+      if (slot.sequence != sequence) {
+        break;
+      }
+      list.add(slot.transaction);
+      slot.transaction = null;
+      sequenceConsumed = ++sequence;
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Parks the worker until a transaction is added, the worker is woken up, or the time given has
+   * passed.
+   *
+   * <p>(Note: This is only to be called by the worker)
+   *
+   * @param nanos The maximum time in nanoseconds to park.
+   */
+  public void await(long nanos) {
+    consumer = Thread.currentThread();
+    waiting = true;
+    // Check again after flagging, so that a transaction added in between is not missed.
+    if (isEmpty()) {
+      LockSupport.parkNanos(this, nanos);
+    }
+    waiting = false;
+  }
+
+  /** Wakes up the worker if it is parked. */
+  public void wake() {
+    Thread consumer = this.consumer;
+    if (consumer != null) {
+      LockSupport.unpark(consumer);
+    }
+  }
+
+  /** @return Returns true if no published transactions are waiting to be taken. */
+  public boolean isEmpty() {
+    long sequence = sequenceConsumed;
+    return slots[(int) (sequence & mask)].sequence != sequence && sequenceClaimed.get() == sequence;
+  }
+
+  /** @return Returns the amount of transactions added and not yet taken. */
+  public int size() {
+    return (int) (sequenceClaimed.get() - sequenceConsumed);
+  }
+
+  /** A pre-allocated record in the ring buffer. */
+  private static class Slot {
+    /** The sequence of the record. The record is published when this is written. */
+    volatile long sequence = -1L;
+    /** The transaction. */
+    MongoDocumentTransaction transaction;
+  }
+}
@@ -60,7 +60,11 @@
 
 package sledgehammer.event;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import sledgehammer.command.Command;
+import sledgehammer.enums.LogType;
 import sledgehammer.util.Response;
 
 /**
@@ -74,6 +78,10 @@ public class CommandEvent extends Event {
   private Command command;
   /** The Response to send back. */
   private Response response;
+  /** The callbacks to run once the Response is complete. */
+  private List<Runnable> listCallbacks;
+  /** Flag for whether or not asynchronous CommandHandlers are still writing the Response. */
+  private boolean deferred;
 
   /**
    * Main constructor.
@@ -90,6 +98,11 @@ public class CommandEvent extends Event {
     return getResponse().getLogMessage();
   }
 
+  @Override
+  public LogType getLogType() {
+    return getResponse().getLogType();
+  }
+
   @Override
   public String toString() {
     return "CommandEvent: \n"
@@ -115,4 +128,55 @@ public class CommandEvent extends Event {
   public boolean isHandled() {
     return getResponse().isHandled();
   }
+
+  /**
+   * @return Returns true if asynchronous CommandHandlers are still writing the Response. The
+   *     Response should not be read until the CommandEvent is complete.
+   */
+  public boolean isDeferred() {
+    return this.deferred;
+  }
+
+  /**
+   * Marks the Response as deferred until {@link #complete()} is called.
+   *
+   * <p>(Note: This is only to be called by the EventManager)
+   */
+  public void defer() {
+    this.deferred = true;
+  }
+
+  /**
+   * Runs a callback once the Response is complete. If the Response is already complete, the
+   * callback is ran immediately. Callbacks are ran on the server's update thread.
+   *
+   * @param callback The callback to run.
+   */
+  public void whenComplete(Runnable callback) {
+    if (!deferred) {
+      callback.run();
+      return;
+    }
+    if (listCallbacks == null) {
+      listCallbacks = new ArrayList<>();
+    }
+    listCallbacks.add(callback);
+  }
+
+  /**
+   * Completes a deferred Response, and runs the callbacks waiting for it.
+   *
+   * <p>(Note: This is only to be called by the EventManager, on the server's update thread)
+   */
+  public void complete() {
+    this.deferred = false;
+    if (listCallbacks == null) {
+      return;
+    }
+    List<Runnable> listCallbacks = this.listCallbacks;
+    this.listCallbacks = null;
+    for (Runnable callback : listCallbacks) {
+      callback.run();
+    }
+  }
 }
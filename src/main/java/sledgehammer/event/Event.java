@@ -20,6 +20,10 @@
 
 package sledgehammer.event;
 
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import sledgehammer.enums.LogType;
+
 /**
  * Class designed to handle common event operations and utilities for Sledgehammer's
  * EventManagerOld.
@@ -28,6 +32,9 @@ package sledgehammer.event;
  */
 public abstract class Event {
 
+  private static final AtomicIntegerFieldUpdater<Event> REFERENCES =
+      AtomicIntegerFieldUpdater.newUpdater(Event.class, "references");
+
   /** The <Long> time-stamp for when the Event is created. */
   private long timeStamp;
   /** Flag for if the Event has been handled by an EventListener. */
@@ -36,6 +43,12 @@ public abstract class Event {
   private boolean announce = false;
   /** Flag for whether or not to ignore the Core plug-in's EventListeners. */
   private boolean ignoreCore = false;
+  /** The pool to return the Event to once handled. This is null if the Event is not pooled. */
+  private EventPool<?> pool;
+  /** The amount of references held on the pooled Event. */
+  private volatile int references;
+  /** Flag for whether or not a EventHandler keeps the pooled Event from being reused. */
+  private volatile boolean retained;
 
   /** Main constructor. */
   public Event() {
@@ -75,6 +88,59 @@ public abstract class Event {
     return this.timeStamp;
   }
 
+  /**
+   * Keeps the Event from being returned to its pool once handled. EventHandlers that store a
+   * pooled Event beyond handling it must call this. This does nothing for Events that are not
+   * pooled.
+   */
+  public void retain() {
+    this.retained = true;
+  }
+
+  /** @return Returns true if a EventHandler keeps the Event from being reused. */
+  public boolean isRetained() {
+    return this.retained;
+  }
+
+  /** @return Returns true if the Event is returned to a EventPool once handled. */
+  public boolean isPooled() {
+    return this.pool != null;
+  }
+
+  /**
+   * Prepares the Event to be handled again, after it is taken from the pool. The code that obtains
+   * the Event holds the first reference.
+   *
+   * @param pool The pool the Event is taken from.
+   */
+  void recycle(EventPool<?> pool) {
+    this.pool = pool;
+    this.timeStamp = System.currentTimeMillis();
+    this.handled = false;
+    this.announce = false;
+    this.ignoreCore = false;
+    this.retained = false;
+    this.references = 1;
+  }
+
+  /**
+   * Adds a reference to the pooled Event.
+   */
+  void acquire() {
+    if (pool != null) {
+      REFERENCES.incrementAndGet(this);
+    }
+  }
+
+  /**
+   * Releases a reference to the pooled Event, and returns it to the pool if it is the last one.
+   */
+  void release() {
+    if (pool != null && REFERENCES.decrementAndGet(this) == 0 && !retained) {
+      pool.recycle(this);
+    }
+  }
+
   /**
    * @return Returns the String logged message for the Event. If null is returned, the Event is not
    *     logged.
@@ -82,4 +148,9 @@ public abstract class Event {
   public String getLogMessage() {
     return null;
   }
+
+  /** @return Returns the LogType of the logged message. Returns LogType.INFO by default. */
+  public LogType getLogType() {
+    return LogType.INFO;
+  }
 }
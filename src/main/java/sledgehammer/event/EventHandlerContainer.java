@@ -25,6 +25,7 @@ import sledgehammer.annotations.EventHandler;
 import sledgehammer.interfaces.Cancellable;
 import sledgehammer.interfaces.Listener;
 import sledgehammer.util.ClassUtil;
+import sledgehammer.util.HandlerProfile;
 
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
@@ -64,11 +65,20 @@ public class EventHandlerContainer {
   private Method method;
   private MethodHandle methodHandle;
   private MethodType methodType;
+  /**
+   * The MethodHandle adapted to the exact type '(Event)void', with the container bound for
+   * non-static methods. This is invoked with 'invokeExact', and holds no per-call state.
+   */
+  private final MethodHandle invoker;
   private Listener container;
-  private Object[] methodArgumentsCache;
   private String methodName;
   private boolean isStatic;
-  private boolean isEnabled;
+  private volatile boolean isEnabled;
+  private boolean isAsync;
+  private boolean isMonitor;
+  private boolean isJoin;
+  /** The profile to record invocations to. This is null while profiling is disabled. */
+  private volatile HandlerProfile profile;
   private Class<? extends Event> classEvent;
   private long timeCreated;
 
@@ -86,8 +96,12 @@ public class EventHandlerContainer {
     setContainer(container);
     setMethod(method);
     setAnnotation(annotation);
+    isAsync = annotation.async();
+    // Asynchronous EventHandlers already run off of the dispatching thread.
+    isMonitor = annotation.monitor() && !isAsync;
+    isJoin = annotation.join();
     // Setup the MethodHandle.
-    createMethodHandler();
+    invoker = createMethodHandler();
   }
 
   @Override
@@ -112,8 +126,13 @@ public class EventHandlerContainer {
     return stringBuilder.toString();
   }
 
-  /** Handles setting up the MethodHandle cache to invoke when executing an event handler. */
-  private void createMethodHandler() {
+  /**
+   * Handles setting up the MethodHandle cache to invoke when executing an event handler.
+   *
+   * @return Returns the invoker of the event handler. Returns null if the event handler is not
+   *     valid.
+   */
+  private MethodHandle createMethodHandler() {
     // In order to invoke the Method, the Method must be accessible, otherwise an
     // IllegalAccessException is thrown.
     method.setAccessible(true);
@@ -123,14 +142,15 @@ public class EventHandlerContainer {
     methodParameters = method.getParameterTypes();
     // If there's no parameters or excess parameters, we cannot enable the event handler.
     if (methodParameters.length != 1) {
-      return;
+      return null;
     }
-    // Make sure that the first parameter given is an Event Object.
-    if (!ClassUtil.isSubClass(methodParameters[0], Event.class)) {
+    // Make sure that the first parameter given is an Event Object. Super-classes of Events are
+    // allowed, and receive all Events that extend them.
+    if (!Event.class.isAssignableFrom(methodParameters[0])) {
       if (Settings.getInstance().isDebug()) {
         System.err.println("The EventHandler parameters are invalid: " + toString());
       }
-      return;
+      return null;
     }
     // Grab the identifying Event to pass to the event handler.
     classEvent = (Class<? extends Event>) methodParameters[0];
@@ -145,26 +165,20 @@ public class EventHandlerContainer {
       methodHandle = lookup.unreflect(method);
     } catch (IllegalAccessException e) {
       e.printStackTrace();
+      return null;
     }
-    // If the event handler method is static, the parameter cache does not require an instance
-    // of the declaring class or anonymous class to invoke.
-    if (isStatic) {
-      // In this case, the event handler will require only 1 parameter:
-      // [1] -> Event
-      methodArgumentsCache = new Object[1];
-    }
-    // We will setup the parameter cache for a non-static (invokeVirtual) method. These
-    // methods are what is expected to be used as event handlers.
-    else {
-      // In this case, the event handler will require 2 parameters:
-      // [0] -> self
-      // [1] -> Event
-      methodArgumentsCache = new Object[2];
-      // Set the self instance as the Container.
-      methodArgumentsCache[0] = getContainer();
+    MethodHandle handle = methodHandle;
+    // If the event handler method is non-static (invokeVirtual), bind the declaring class
+    // instance so that the handler only requires the Event to invoke.
+    if (!isStatic) {
+      handle = handle.bindTo(getContainer());
     }
-    // We are now good to start invoking the event handler. Let the EventManagerOld know this.
+    // Adapt the handle to the exact type used by the call site in 'handleEvent()'. The Event
+    // parameter is cast to the handler's Event class, and any returned value is dropped.
+    MethodHandle invoker = handle.asType(MethodType.methodType(void.class, Event.class));
+    // We are now good to start invoking the event handler. Let the EventManager know this.
     setEnabled(true);
+    return invoker;
   }
 
   /**
@@ -187,24 +201,25 @@ public class EventHandlerContainer {
         && ((Cancellable) event).isCancelled()) {
       return;
     }
-    // If the method is static, we do not need to reference the instance of the declaring class.
-    if (isStatic()) {
-      // The method is static, so we need to only pass the Event instance being handled.
-      methodArgumentsCache[0] = event;
-      // Finally, invoke the method.
-      methodHandle.invokeWithArguments(methodArgumentsCache);
-      // Clear the cache of references to the arguments given.
-      methodArgumentsCache[0] = null;
+    HandlerProfile profile = this.profile;
+    // The invoker already has the declaring class instance bound if the method is not static,
+    // so only the Event is passed. The call site type must match '(Event)void' exactly.
+    if (profile == null) {
+      invoker.invokeExact(event);
+      return;
+    }
+    boolean cancelledBefore = event instanceof Cancellable && ((Cancellable) event).isCancelled();
+    long timeStarted = System.nanoTime();
+    try {
+      invoker.invokeExact(event);
+    } catch (Throwable throwable) {
+      profile.recordException();
+      throw throwable;
+    } finally {
+      profile.record(System.nanoTime() - timeStarted);
     }
-    // The method is dynamic, so we need to pass the instance of the declaring class.
-    else {
-      // The declaring class instance is already defined in the first index of the
-      // parameter array. All we need to do is assign the Event instance being handled.
-      methodArgumentsCache[1] = event;
-      // Finally, invoke the method.
-      methodHandle.invokeWithArguments(methodArgumentsCache);
-      // Clear the cache of references to the arguments given.
-      methodArgumentsCache[1] = null;
+    if (!cancelledBefore && event instanceof Cancellable && ((Cancellable) event).isCancelled()) {
+      profile.recordCancellation();
     }
   }
 
@@ -272,6 +287,47 @@ public class EventHandlerContainer {
     return getAnnotation().ignoreCancelled();
   }
 
+  /**
+   * @return Returns the profile that invocations are recorded to. If profiling is disabled, null is
+   *     returned.
+   */
+  public HandlerProfile getProfile() {
+    return this.profile;
+  }
+
+  /**
+   * Sets the profile that invocations are recorded to.
+   *
+   * @param profile The profile to set. Set to null to stop recording.
+   */
+  public void setProfile(HandlerProfile profile) {
+    this.profile = profile;
+  }
+
+  /**
+   * @return Returns true if the event handler runs on a worker lane instead of the server's update
+   *     thread.
+   */
+  public boolean isAsync() {
+    return this.isAsync;
+  }
+
+  /**
+   * @return Returns true if the event handler only observes Events, and is invoked concurrently
+   *     with other monitor event handlers after the Event is final.
+   */
+  public boolean isMonitor() {
+    return this.isMonitor;
+  }
+
+  /**
+   * @return Returns true if handling the Event waits for the monitor event handler to finish.
+   *     Returns false if the monitor event handler is fire-and-forget.
+   */
+  public boolean isJoin() {
+    return this.isJoin;
+  }
+
   /** @return Returns the String ID (if defined), for the event handler. */
   public String getId() {
     return getAnnotation().id();
@@ -0,0 +1,836 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+
+package sledgehammer.event;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import sledgehammer.SledgeHammer;
+import sledgehammer.command.Command;
+import sledgehammer.event.chat.ChatMessageEvent;
+import sledgehammer.lua.chat.ChatChannel;
+import sledgehammer.lua.chat.ChatMessage;
+import sledgehammer.lua.core.Player;
+import sledgehammer.module.chat.ModuleChat;
+import sledgehammer.plugin.Module;
+import sledgehammer.util.Printable;
+
+/**
+ * EventJournal records the stream of Events, Commands, and update ticks entering the EventManager
+ * into a compact binary file, so that the traffic can be replayed later against a headless
+ * SledgeHammer instance, (See: 'sledgehammer.test.JournalReplay').
+ *
+ * <p>Every record starts with a type byte and the nanoseconds since the previous record, as a
+ * variable-length integer. Event class names are written once, and referred to by index after.
+ * Event state is written by the JournalCodec registered for the Event's class. Events without a
+ * JournalCodec are recorded by name only. Strings are written as a variable-length byte count
+ * followed by UTF-8 bytes, so that they are not limited in length.
+ *
+ * <p>Recording is thread-safe. Records are encoded by the recording thread, as Events can change
+ * once handled, and are written to the file by a writer thread, so that the update thread does not
+ * wait on the disk. If the writer thread falls behind by more than 8192 records, records are
+ * dropped and counted.
+ *
+ * @author Jab
+ */
+public class EventJournal extends Printable implements Closeable {
+
+  /** The first 4 bytes of a journal file. ("SHJ1") */
+  public static final int MAGIC = 0x53484A31;
+  /** The version of the journal format. */
+  public static final int VERSION = 2;
+  /** Record of a update tick. */
+  public static final byte TYPE_TICK = 0;
+  /** Record defining the index of a Event class name. */
+  public static final byte TYPE_DEFINE = 1;
+  /** Record of a Event, with its state. */
+  public static final byte TYPE_EVENT = 2;
+  /** Record of a Event without a JournalCodec. */
+  public static final byte TYPE_UNSUPPORTED = 3;
+  /** Record of a Command. */
+  public static final byte TYPE_COMMAND = 4;
+
+  /** The amount of encoded records that can wait for the writer thread. */
+  private static final int QUEUE_CAPACITY = 8192;
+  /** The maximum time in milliseconds to wait for the writer thread when closing. */
+  private static final long CLOSE_TIMEOUT = 5000L;
+  /** Passed to the writer thread to close the journal file after the records before it. */
+  private static final byte[] END = new byte[0];
+
+  /** The JournalCodecs registered, identified by the name of the Event class. */
+  private static final Map<String, JournalCodec<?>> mapCodecs = new ConcurrentHashMap<>();
+  /** The Players created on replay for usernames that are not online, identified by username. */
+  private static final Map<String, Player> mapPlayers = new ConcurrentHashMap<>();
+
+  static {
+    registerCodec(GenericEvent.class, new GenericEventCodec());
+    registerCodec(ScriptEvent.class, new ScriptEventCodec());
+    registerCodec(ChatMessageEvent.class, new ChatMessageEventCodec());
+  }
+
+  private final File file;
+  /** The output of the journal file. Only written by the writer thread once constructed. */
+  private final DataOutputStream output;
+  /** The encoded records waiting for the writer thread. */
+  private final BlockingQueue<byte[]> queueRecords = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+  /** The thread writing the encoded records to the journal file. */
+  private final Thread writer;
+  /** The buffer a record is encoded into before it is passed to the writer thread. */
+  private final ByteArrayOutputStream bufferRecord = new ByteArrayOutputStream(256);
+  private final DataOutputStream outputRecord = new DataOutputStream(bufferRecord);
+  /** The buffer used to write the state of Events, so that the length can be written first. */
+  private final ByteArrayOutputStream bufferEvent = new ByteArrayOutputStream(256);
+  private final DataOutputStream outputEvent = new DataOutputStream(bufferEvent);
+  /** The indices of the Event class names defined in the journal. */
+  private final Map<Class<?>, Integer> mapClassIndices = new HashMap<>();
+  private long timeLast;
+  private long records;
+  /** The amount of records encoded in the buffer, and not yet passed to the writer thread. */
+  private int recordsEncoded;
+  private long unsupported;
+  private long dropped;
+  private volatile boolean closed;
+
+  /**
+   * Main constructor. Creates the journal file, writes the header, and starts the writer thread.
+   *
+   * @param file The File to write the journal to.
+   * @throws IOException Thrown if the File fails to open.
+   */
+  public EventJournal(File file) throws IOException {
+    this.file = file;
+    File directory = file.getParentFile();
+    if (directory != null && !directory.exists() && !directory.mkdirs()) {
+      throw new IOException("Failed to create directory: " + directory.getPath());
+    }
+    output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 65536));
+    output.writeInt(MAGIC);
+    output.writeInt(VERSION);
+    output.writeLong(System.currentTimeMillis());
+    timeLast = System.nanoTime();
+    writer = new Thread(new Writer(), "SledgeHammer-EventJournal");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  @Override
+  public String getName() {
+    return "EventJournal";
+  }
+
+  /** Records the start of a update tick. */
+  public synchronized void recordTick() {
+    if (closed) {
+      return;
+    }
+    long timeLast = this.timeLast;
+    try {
+      bufferRecord.reset();
+      writeHeader(TYPE_TICK);
+      queue(timeLast, null);
+    } catch (IOException e) {
+      fail(e);
+    }
+  }
+
+  /**
+   * Records a Event.
+   *
+   * @param event The Event to record.
+   */
+  public synchronized void recordEvent(Event event) {
+    if (closed) {
+      return;
+    }
+    long timeLast = this.timeLast;
+    Class<?> classDefined = null;
+    try {
+      bufferRecord.reset();
+      Class<?> clazz = event.getClass();
+      Integer index = mapClassIndices.get(clazz);
+      if (index == null) {
+        index = mapClassIndices.size();
+        mapClassIndices.put(clazz, index);
+        classDefined = clazz;
+        writeHeader(TYPE_DEFINE);
+        writeVarLong(outputRecord, index);
+        writeUTF8(outputRecord, clazz.getName());
+      }
+      @SuppressWarnings("unchecked")
+      JournalCodec<Event> codec = (JournalCodec<Event>) mapCodecs.get(clazz.getName());
+      if (codec == null) {
+        unsupported++;
+        writeHeader(TYPE_UNSUPPORTED);
+        writeVarLong(outputRecord, index);
+      } else {
+        // The state is written now, as the Event can change once handled.
+        bufferEvent.reset();
+        codec.write(event, outputEvent);
+        outputEvent.flush();
+        writeHeader(TYPE_EVENT);
+        writeVarLong(outputRecord, index);
+        writeVarLong(outputRecord, bufferEvent.size());
+        bufferEvent.writeTo(outputRecord);
+      }
+      queue(timeLast, classDefined);
+    } catch (IOException e) {
+      fail(e);
+    }
+  }
+
+  /**
+   * Records a Command.
+   *
+   * @param command The Command to record.
+   */
+  public synchronized void recordCommand(Command command) {
+    if (closed) {
+      return;
+    }
+    long timeLast = this.timeLast;
+    try {
+      bufferRecord.reset();
+      Player player = command.getPlayer();
+      writeHeader(TYPE_COMMAND);
+      writeUTF8(outputRecord, player != null ? player.getUsername() : "");
+      writeUTF8(outputRecord, command.getRaw());
+      queue(timeLast, null);
+    } catch (IOException e) {
+      fail(e);
+    }
+  }
+
+  /**
+   * Stops recording, and waits for the writer thread to write the records already recorded and to
+   * close the journal file.
+   */
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+    }
+    try {
+      if (!queueRecords.offer(END, CLOSE_TIMEOUT, TimeUnit.MILLISECONDS)) {
+        writer.interrupt();
+      }
+      writer.join(CLOSE_TIMEOUT);
+    } catch (InterruptedException e) {
+      writer.interrupt();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** @return Returns the File the journal is written to. */
+  public File getFile() {
+    return this.file;
+  }
+
+  /** @return Returns the amount of records written. */
+  public synchronized long getRecordCount() {
+    return this.records;
+  }
+
+  /** @return Returns the amount of Events recorded without a JournalCodec. */
+  public synchronized long getUnsupportedCount() {
+    return this.unsupported;
+  }
+
+  /**
+   * @return Returns the amount of records dropped because the writer thread fell behind by more
+   *     than the capacity of its queue.
+   */
+  public synchronized long getDroppedCount() {
+    return this.dropped;
+  }
+
+  /** @return Returns true if the journal is closed. */
+  public boolean isClosed() {
+    return this.closed;
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Encodes the type and the time of a record.
+   *
+   * @param type The type of the record.
+   * @throws IOException Thrown if the record fails to encode.
+   */
+  private void writeHeader(byte type) throws IOException {
+    long timeNow = System.nanoTime();
+    outputRecord.writeByte(type);
+    writeVarLong(outputRecord, Math.max(0L, timeNow - timeLast));
+    timeLast = timeNow;
+    recordsEncoded++;
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Passes the records encoded in the buffer to the writer thread. If the queue of the writer
+   * thread is full, the records are dropped and counted, so that the recording thread never waits
+   * on the disk. The time and the Event class defined by dropped records are rolled back, so that
+   * the journal stays readable.
+   *
+   * @param timeLast The time of the last record before the ones encoded.
+   * @param classDefined The Event class defined by the records encoded. Null if none is defined.
+   * @throws IOException Thrown if the records fail to encode.
+   */
+  private void queue(long timeLast, Class<?> classDefined) throws IOException {
+    outputRecord.flush();
+    int count = recordsEncoded;
+    recordsEncoded = 0;
+    if (queueRecords.offer(bufferRecord.toByteArray())) {
+      records += count;
+      return;
+    }
+    dropped += count;
+    this.timeLast = timeLast;
+    if (classDefined != null) {
+      mapClassIndices.remove(classDefined);
+    }
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Stops recording after a record fails to encode.
+   *
+   * @param e The IOException thrown.
+   */
+  private void fail(IOException e) {
+    errln("Failed to record to the journal: " + file.getPath() + ". Recording is stopped.");
+    e.printStackTrace();
+    close();
+  }
+
+  /**
+   * Registers a JournalCodec for a type of Event. Only Events of the exact class given use the
+   * JournalCodec.
+   *
+   * @param clazz The class of the Event.
+   * @param codec The JournalCodec to register.
+   * @param <E> The type of Event.
+   */
+  public static <E extends Event> void registerCodec(Class<E> clazz, JournalCodec<E> codec) {
+    if (clazz == null) {
+      throw new IllegalArgumentException("Class given is null.");
+    }
+    if (codec == null) {
+      throw new IllegalArgumentException("JournalCodec given is null.");
+    }
+    mapCodecs.put(clazz.getName(), codec);
+  }
+
+  /**
+   * @param className The name of the Event class.
+   * @return Returns the JournalCodec registered for the Event class. If none is registered, null
+   *     is returned.
+   */
+  public static JournalCodec<?> getCodec(String className) {
+    return mapCodecs.get(className);
+  }
+
+  /**
+   * Resolves a Player recorded by username, when replaying. JournalCodecs use this to rebuild the
+   * Players of Events.
+   *
+   * @param username The username recorded.
+   * @return Returns the administrator for an empty username or 'admin', the online Player with the
+   *     username, or else a Player created for the username. The created Players are reused for the
+   *     rest of the replay.
+   */
+  public static Player getPlayer(String username) {
+    if (username.isEmpty() || username.equalsIgnoreCase("admin")) {
+      return SledgeHammer.getAdministrator();
+    }
+    Player player = SledgeHammer.instance.getPlayer(username);
+    if (player == null) {
+      player = mapPlayers.get(username);
+      if (player == null) {
+        player = new Player(username);
+        mapPlayers.put(username, player);
+      }
+    }
+    return player;
+  }
+
+  /**
+   * Writes a non-negative long using 7 bits per byte.
+   *
+   * @param output The output to write to.
+   * @param value The value to write.
+   * @throws IOException Thrown if the value fails to write.
+   */
+  public static void writeVarLong(DataOutput output, long value) throws IOException {
+    while ((value & ~0x7FL) != 0L) {
+      output.writeByte((int) ((value & 0x7FL) | 0x80L));
+      value >>>= 7;
+    }
+    output.writeByte((int) value);
+  }
+
+  /**
+   * Writes a String as a variable-length byte count followed by its UTF-8 bytes. Unlike
+   * 'DataOutput.writeUTF(string)', this is not limited to 65535 bytes.
+   *
+   * @param output The output to write to.
+   * @param string The String to write.
+   * @throws IOException Thrown if the String fails to write.
+   */
+  public static void writeUTF8(DataOutput output, String string) throws IOException {
+    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+    writeVarLong(output, bytes.length);
+    output.write(bytes);
+  }
+
+  /**
+   * Reads a String written with 'writeUTF8(output, string)'.
+   *
+   * @param input The input to read from.
+   * @return Returns the String read.
+   * @throws IOException Thrown if the String fails to read.
+   */
+  public static String readUTF8(DataInput input) throws IOException {
+    long length = readVarLong(input);
+    if (length > Integer.MAX_VALUE) {
+      throw new IOException("String is too long: " + length + " bytes.");
+    }
+    byte[] bytes = new byte[(int) length];
+    input.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Reads a long written with 'writeVarLong(output, value)'.
+   *
+   * @param input The input to read from.
+   * @return Returns the value read.
+   * @throws IOException Thrown if the value fails to read.
+   */
+  public static long readVarLong(DataInput input) throws IOException {
+    long value = 0L;
+    int shift = 0;
+    byte b;
+    do {
+      if (shift > 63) {
+        throw new IOException("Variable-length integer is too long.");
+      }
+      b = input.readByte();
+      value |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+
+  /** Writes the encoded records to the journal file, in order, until the journal is closed. */
+  private class Writer implements Runnable {
+
+    @Override
+    public void run() {
+      try {
+        while (true) {
+          byte[] record = queueRecords.poll();
+          if (record == null) {
+            // Flush while idle, so that the file holds everything recorded so far.
+            output.flush();
+            record = queueRecords.take();
+          }
+          if (record == END) {
+            break;
+          }
+          output.write(record);
+        }
+      } catch (IOException e) {
+        closed = true;
+        queueRecords.clear();
+        errln("Failed to write to the journal: " + file.getPath() + ". Recording is stopped.");
+        e.printStackTrace();
+      } catch (InterruptedException e) {
+        closed = true;
+        queueRecords.clear();
+      } finally {
+        try {
+          output.close();
+        } catch (IOException e) {
+          errln("Failed to close the journal: " + file.getPath());
+          e.printStackTrace();
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads the records of a journal file. Records of defined Event class names are consumed by the
+   * Reader, and are not returned.
+   */
+  public static class Reader implements Closeable {
+
+    private final DataInputStream input;
+    /** The Event class names defined in the journal, by index. */
+    private final List<String> listClassNames = new ArrayList<>();
+    /** The time in milliseconds since the epoch the journal was created. */
+    private final long timeCreated;
+    /** The nanoseconds since the start of the journal of the last record read. */
+    private long time;
+
+    /**
+     * Main constructor. Opens the journal file, and reads the header.
+     *
+     * @param file The journal File to read.
+     * @throws IOException Thrown if the File fails to open, or is not a journal.
+     */
+    public Reader(File file) throws IOException {
+      input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 65536));
+      if (input.readInt() != MAGIC) {
+        input.close();
+        throw new IOException("File is not a journal: " + file.getPath());
+      }
+      int version = input.readInt();
+      if (version != VERSION) {
+        input.close();
+        throw new IOException("Journal version not supported: " + version);
+      }
+      timeCreated = input.readLong();
+    }
+
+    /**
+     * @return Returns the next record of the journal. If the end of the journal is reached, null is
+     *     returned.
+     * @throws IOException Thrown if the journal fails to read.
+     */
+    public Record next() throws IOException {
+      while (true) {
+        int type = input.read();
+        if (type == -1) {
+          return null;
+        }
+        time += readVarLong(input);
+        switch (type) {
+          case TYPE_TICK:
+            return new Record(TYPE_TICK, time, null, null, null, null);
+          case TYPE_DEFINE:
+            int indexDefined = (int) readVarLong(input);
+            if (indexDefined != listClassNames.size()) {
+              throw new IOException("Journal defines Event classes out of order.");
+            }
+            listClassNames.add(readUTF8(input));
+            break;
+          case TYPE_EVENT:
+            {
+              String className = getClassName((int) readVarLong(input));
+              byte[] state = new byte[(int) readVarLong(input)];
+              input.readFully(state);
+              JournalCodec<?> codec = getCodec(className);
+              Event event = null;
+              if (codec != null) {
+                event = codec.read(new DataInputStream(new ByteArrayInputStream(state)));
+              }
+              return new Record(TYPE_EVENT, time, className, event, null, null);
+            }
+          case TYPE_UNSUPPORTED:
+            {
+              String className = getClassName((int) readVarLong(input));
+              return new Record(TYPE_UNSUPPORTED, time, className, null, null, null);
+            }
+          case TYPE_COMMAND:
+            String username = readUTF8(input);
+            String raw = readUTF8(input);
+            return new Record(TYPE_COMMAND, time, null, null, username, raw);
+          default:
+            throw new IOException("Unknown journal record type: " + type);
+        }
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      input.close();
+    }
+
+    /** @return Returns the time in milliseconds since the epoch the journal was created. */
+    public long getTimeCreated() {
+      return this.timeCreated;
+    }
+
+    /**
+     * (Private Method)
+     *
+     * @param index The index of the Event class name.
+     * @return Returns the Event class name defined at the index.
+     * @throws IOException Thrown if the index is not defined.
+     */
+    private String getClassName(int index) throws IOException {
+      if (index < 0 || index >= listClassNames.size()) {
+        throw new EOFException("Journal refers to a undefined Event class: " + index);
+      }
+      return listClassNames.get(index);
+    }
+  }
+
+  /** A record read from a journal. */
+  public static class Record {
+
+    private final byte type;
+    private final long time;
+    private final String className;
+    private final Event event;
+    private final String username;
+    private final String raw;
+
+    Record(byte type, long time, String className, Event event, String username, String raw) {
+      this.type = type;
+      this.time = time;
+      this.className = className;
+      this.event = event;
+      this.username = username;
+      this.raw = raw;
+    }
+
+    /** @return Returns the type of the record. */
+    public byte getType() {
+      return this.type;
+    }
+
+    /** @return Returns the nanoseconds since the start of the journal. */
+    public long getTime() {
+      return this.time;
+    }
+
+    /** @return Returns the name of the Event class, for Event records. */
+    public String getClassName() {
+      return this.className;
+    }
+
+    /**
+     * @return Returns the Event rebuilt by its JournalCodec. If no JournalCodec is registered for
+     *     the Event, null is returned.
+     */
+    public Event getEvent() {
+      return this.event;
+    }
+
+    /**
+     * @return Returns the username of the Player that issued the Command. If the Command has no
+     *     Player, a empty String is returned.
+     */
+    public String getUsername() {
+      return this.username;
+    }
+
+    /** @return Returns the raw input of the Command. */
+    public String getRaw() {
+      return this.raw;
+    }
+  }
+
+  /** JournalCodec for GenericEvents. */
+  private static class GenericEventCodec implements JournalCodec<GenericEvent> {
+
+    @Override
+    public void write(GenericEvent event, DataOutput output) throws IOException {
+      Module module = event.getModule();
+      writeString(output, module != null ? module.getModuleName() : null);
+      writeString(output, event.getType());
+      writeString(output, event.getContext());
+      Map<String, String> mapVariables = event.getVariables();
+      writeVarLong(output, mapVariables.size());
+      for (Map.Entry<String, String> entry : mapVariables.entrySet()) {
+        writeString(output, entry.getKey());
+        writeString(output, entry.getValue());
+      }
+    }
+
+    @Override
+    public GenericEvent read(DataInput input) throws IOException {
+      String moduleName = readString(input);
+      Module module = null;
+      if (moduleName != null) {
+        module = SledgeHammer.instance.getPluginManager().getModule(moduleName);
+      }
+      GenericEvent event = new GenericEvent(module, readString(input), readString(input));
+      long size = readVarLong(input);
+      for (long index = 0; index < size; index++) {
+        event.setVariable(readString(input), readString(input));
+      }
+      return event;
+    }
+  }
+
+  /**
+   * JournalCodec for ScriptEvents. Arguments that are not Strings, Numbers, or Booleans are written
+   * as Strings.
+   */
+  private static class ScriptEventCodec implements JournalCodec<ScriptEvent> {
+
+    private static final byte ARGUMENT_NULL = 0;
+    private static final byte ARGUMENT_STRING = 1;
+    private static final byte ARGUMENT_NUMBER = 2;
+    private static final byte ARGUMENT_BOOLEAN = 3;
+
+    @Override
+    public void write(ScriptEvent event, DataOutput output) throws IOException {
+      writeString(output, event.getContext());
+      Object[] arguments = event.getArguments();
+      int length = arguments != null ? arguments.length : 0;
+      writeVarLong(output, length);
+      for (int index = 0; index < length; index++) {
+        Object argument = arguments[index];
+        if (argument == null) {
+          output.writeByte(ARGUMENT_NULL);
+        } else if (argument instanceof Number) {
+          output.writeByte(ARGUMENT_NUMBER);
+          output.writeDouble(((Number) argument).doubleValue());
+        } else if (argument instanceof Boolean) {
+          output.writeByte(ARGUMENT_BOOLEAN);
+          output.writeBoolean((Boolean) argument);
+        } else {
+          output.writeByte(ARGUMENT_STRING);
+          writeUTF8(output, argument.toString());
+        }
+      }
+    }
+
+    @Override
+    public ScriptEvent read(DataInput input) throws IOException {
+      String context = readString(input);
+      Object[] arguments = new Object[(int) readVarLong(input)];
+      for (int index = 0; index < arguments.length; index++) {
+        byte type = input.readByte();
+        switch (type) {
+          case ARGUMENT_NULL:
+            break;
+          case ARGUMENT_NUMBER:
+            // Lua numbers are doubles.
+            arguments[index] = input.readDouble();
+            break;
+          case ARGUMENT_BOOLEAN:
+            arguments[index] = input.readBoolean();
+            break;
+          case ARGUMENT_STRING:
+            arguments[index] = readUTF8(input);
+            break;
+          default:
+            throw new IOException("Unknown ScriptEvent argument type: " + type);
+        }
+      }
+      return new ScriptEvent(context, arguments);
+    }
+  }
+
+  /**
+   * JournalCodec for ChatMessageEvents. The ChatChannel is written by name, as the IDs of
+   * ChatChannels differ between databases, and the Player is written by username.
+   */
+  private static class ChatMessageEventCodec implements JournalCodec<ChatMessageEvent> {
+
+    @Override
+    public void write(ChatMessageEvent event, DataOutput output) throws IOException {
+      ChatMessage message = event.getMessage();
+      ChatChannel channel = event.getChatChannel();
+      UUID channelId = message.getChannelId();
+      Player player = message.getPlayer();
+      writeString(output, channel != null ? channel.getChannelName() : null);
+      writeString(output, channelId != null ? channelId.toString() : null);
+      writeString(output, player != null ? player.getUsername() : null);
+      writeString(output, message.getOrigin());
+      writeString(output, message.getMessage());
+      writeString(output, message.getOriginalMessage());
+      output.writeInt(message.getType());
+      output.writeLong(message.getTimestamp());
+    }
+
+    @Override
+    public ChatMessageEvent read(DataInput input) throws IOException {
+      String channelName = readString(input);
+      String channelId = readString(input);
+      String username = readString(input);
+      String origin = readString(input);
+      String text = readString(input);
+      String textOriginal = readString(input);
+      int type = input.readInt();
+      long timestamp = input.readLong();
+      ModuleChat module = SledgeHammer.instance.getPluginManager().getChatModule();
+      ChatMessage message = module.createChatMessage(text);
+      message.setOriginalMessage(textOriginal, false);
+      message.setOrigin(origin, false);
+      message.setType(type, false);
+      message.setTimestamp(timestamp, false);
+      // Find the ChatChannel by name first, and fall back to the recorded ID.
+      ChatChannel channel = channelName != null ? module.getChatChannel(channelName) : null;
+      if (channel != null) {
+        message.setChannelId(channel.getUniqueId(), false);
+      } else if (channelId != null) {
+        message.setChannelId(UUID.fromString(channelId), false);
+      }
+      if (username != null) {
+        message.setPlayer(getPlayer(username), false);
+      }
+      return new ChatMessageEvent(message);
+    }
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Writes a String that can be null.
+   */
+  private static void writeString(DataOutput output, String string) throws IOException {
+    output.writeBoolean(string != null);
+    if (string != null) {
+      writeUTF8(output, string);
+    }
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Reads a String written with 'writeString(output, string)'.
+   */
+  private static String readString(DataInput input) throws IOException {
+    return input.readBoolean() ? readUTF8(input) : null;
+  }
+}
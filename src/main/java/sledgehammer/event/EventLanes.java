@@ -0,0 +1,197 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+
+package sledgehammer.event;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * EventLanes is a bounded set of ordered lanes used to run asynchronous EventHandlers off of the
+ * server's update thread. Each task is submitted with a key, and all tasks with the same key run in
+ * the order they are submitted. The EventManager uses the Player of an Event as the key, so that
+ * Events for the same Player are handled in order.
+ *
+ * <p>Lanes do not own threads. A lane with queued tasks runs them on the shared executor given, one
+ * at a time, so that no two tasks of the same lane run at once.
+ *
+ * <p>Each lane has a bounded queue. If a lane's queue is full, the submitting thread waits for
+ * space rather than dropping the task or running it out of order.
+ *
+ * @author Jab
+ */
+public class EventLanes {
+
+  /** The default amount of lanes to create. */
+  public static final int DEFAULT_LANE_COUNT =
+      Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+  /** The default amount of tasks each lane can queue. */
+  public static final int DEFAULT_LANE_CAPACITY = 8192;
+  /** The maximum amount of tasks a lane runs before giving its thread to other lanes. */
+  private static final int BATCH_SIZE = 64;
+
+  /** The lanes. */
+  private final Lane[] lanes;
+
+  /**
+   * Main constructor.
+   *
+   * @param executor The shared executor to run the lanes on.
+   * @param laneCount The amount of lanes to create.
+   * @param laneCapacity The amount of tasks each lane can queue before submitting blocks.
+   */
+  public EventLanes(Executor executor, int laneCount, int laneCapacity) {
+    if (laneCount <= 0) {
+      throw new IllegalArgumentException("Lane count must be greater than 0.");
+    }
+    if (laneCapacity <= 0) {
+      throw new IllegalArgumentException("Lane capacity must be greater than 0.");
+    }
+    lanes = new Lane[laneCount];
+    for (int index = 0; index < laneCount; index++) {
+      lanes[index] = new Lane(executor, laneCapacity);
+    }
+  }
+
+  /**
+   * Submits a task to the lane assigned to the given key.
+   *
+   * @param key The Object used to select the lane. Tasks with equal keys run in order.
+   * @param runnable The task to run.
+   */
+  public void submit(Object key, Runnable runnable) {
+    int hash = key == null ? 0 : key.hashCode();
+    // Spread the bits of the hash so that similar keys do not cluster on one lane.
+    hash ^= (hash >>> 16);
+    lanes[(hash & 0x7fffffff) % lanes.length].submit(runnable);
+  }
+
+  /** @return Returns the total amount of tasks waiting in all lanes. */
+  public int getQueueSize() {
+    int size = 0;
+    for (Lane lane : lanes) {
+      size += lane.queue.size();
+    }
+    return size;
+  }
+
+  /** @return Returns the amount of lanes. */
+  public int getLaneCount() {
+    return lanes.length;
+  }
+
+  /**
+   * Waits for the queued tasks to finish. The shared executor is shut down by its owner.
+   *
+   * @param timeout The maximum time in milliseconds to wait.
+   */
+  public void shutDown(long timeout) {
+    long timeEnd = System.currentTimeMillis() + timeout;
+    for (Lane lane : lanes) {
+      while (lane.scheduled.get() && System.currentTimeMillis() < timeEnd) {
+        try {
+          Thread.sleep(1L);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * A ordered queue of tasks, ran on a shared executor.
+   *
+   * @author Jab
+   */
+  private static class Lane implements Runnable {
+
+    private final Executor executor;
+    private final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    /** The free slots in the queue. */
+    private final Semaphore permits;
+    /** Flag for whether or not the lane is queued on, or running on the executor. */
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    /**
+     * Main constructor.
+     *
+     * @param executor The shared executor to run the lane on.
+     * @param capacity The amount of tasks the lane can queue.
+     */
+    Lane(Executor executor, int capacity) {
+      this.executor = executor;
+      this.permits = new Semaphore(capacity);
+    }
+
+    /**
+     * Queues a task, waiting for space if the lane is full.
+     *
+     * @param runnable The task to queue.
+     */
+    void submit(Runnable runnable) {
+      permits.acquireUninterruptibly();
+      queue.add(runnable);
+      schedule();
+    }
+
+    /**
+     * (Private Method)
+     *
+     * <p>Queues the lane on the executor if it is not already queued or running. If the executor
+     * rejects it, (E.G: it is full or shut down), the lane runs on the calling thread, so that its
+     * tasks are not left queued with the lane flagged as scheduled.
+     */
+    private void schedule() {
+      if (!scheduled.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        executor.execute(this);
+      } catch (RejectedExecutionException e) {
+        // The lane is still flagged as scheduled, and is not queued. Running it here releases the
+        // permits of its tasks, and clears the flag once done.
+        run();
+      }
+    }
+
+    @Override
+    public void run() {
+      Runnable runnable;
+      int count = 0;
+      while (count++ < BATCH_SIZE && (runnable = queue.poll()) != null) {
+        permits.release();
+        try {
+          runnable.run();
+        } catch (RuntimeException e) {
+          e.printStackTrace();
+        }
+      }
+      scheduled.set(false);
+      // Tasks may have been queued after the last poll, or the batch may be full.
+      if (!queue.isEmpty()) {
+        schedule();
+      }
+    }
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+
+package sledgehammer.event;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import sledgehammer.Settings;
+import sledgehammer.interfaces.Recyclable;
+
+/**
+ * EventPool holds reusable instances of a single Recyclable Event type.
+ *
+ * <p>Pooled Events are counted by references. The code that obtains the Event holds the first
+ * reference, and asynchronous EventHandlers and the LogEventPipeline hold their own references
+ * while they use the Event. When the last reference is released, the Event is reset and returned
+ * to the pool, unless a EventHandler retained it with 'Event.retain()'.
+ *
+ * <p>Pooling is opt-in with 'performance.event_pooling' in config.yml. If pooling is disabled, a
+ * new Event is created every time, and the Event is left to the garbage collector.
+ *
+ * <p>A pooled Event is obtained, handled, and then released by the code firing it. The Event
+ * returned by 'SledgeHammer.handle(event)' can be read until it is released:
+ *
+ * <pre>
+ * ScriptEvent event = ScriptEvent.obtain(context, arguments);
+ * try {
+ *   SledgeHammer.instance.handle(event);
+ *   // Read the result of the Event here.
+ * } finally {
+ *   EventPool.release(event);
+ * }
+ * </pre>
+ *
+ * <p>Code that only fires the Event can use 'SledgeHammer.handleAndRelease(event)' instead. The
+ * Event must not be used after it is released.
+ *
+ * @author Jab
+ * @param <E> The type of Event pooled.
+ */
+public class EventPool<E extends Event & Recyclable> {
+
+  /** The default amount of idle Events kept in a pool. */
+  public static final int DEFAULT_CAPACITY = 256;
+
+  /** The factory that creates new Events when the pool is empty. */
+  private final Factory<E> factory;
+  /** The idle Events. Events released while this is full are left to the garbage collector. */
+  private final BlockingQueue<E> queue;
+
+  /**
+   * Main constructor.
+   *
+   * @param factory The factory that creates new Events when the pool is empty.
+   */
+  public EventPool(Factory<E> factory) {
+    this(factory, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Full constructor.
+   *
+   * @param factory The factory that creates new Events when the pool is empty.
+   * @param capacity The maximum amount of idle Events kept in the pool.
+   */
+  public EventPool(Factory<E> factory, int capacity) {
+    if (factory == null) {
+      throw new IllegalArgumentException("Factory given is null.");
+    }
+    this.factory = factory;
+    this.queue = new ArrayBlockingQueue<>(capacity);
+  }
+
+  /**
+   * @return Returns a idle Event from the pool, or a new Event if the pool is empty. If pooling is
+   *     disabled, a new Event that is not pooled is returned.
+   */
+  public E obtain() {
+    if (!Settings.getInstance().isEventPoolingEnabled()) {
+      return factory.create();
+    }
+    E event = queue.poll();
+    if (event == null) {
+      event = factory.create();
+    }
+    event.recycle(this);
+    return event;
+  }
+
+  /** @return Returns the amount of idle Events in the pool. */
+  public int size() {
+    return queue.size();
+  }
+
+  /**
+   * Resets the Event and returns it to the pool.
+   *
+   * @param event The Event to return.
+   */
+  @SuppressWarnings("unchecked")
+  void recycle(Event event) {
+    E eventPooled = (E) event;
+    eventPooled.reset();
+    queue.offer(eventPooled);
+  }
+
+  /**
+   * Adds a reference to a pooled Event, so that it is not returned to its pool until the reference
+   * is released. This does nothing for Events that are not pooled.
+   *
+   * @param event The Event to reference.
+   */
+  public static void acquire(Event event) {
+    event.acquire();
+  }
+
+  /**
+   * Releases a reference to a pooled Event. If this is the last reference, and the Event is not
+   * retained, the Event is returned to its pool. This does nothing for Events that are not pooled.
+   *
+   * @param event The Event to release.
+   */
+  public static void release(Event event) {
+    event.release();
+  }
+
+  /**
+   * Factory that creates new Events for a EventPool.
+   *
+   * @param <E> The type of Event created.
+   */
+  public interface Factory<E> {
+
+    /** @return Returns a new Event. */
+    E create();
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+
+package sledgehammer.event;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A JournalCodec writes a type of Event to a EventJournal, and reads it back for replay. Events
+ * without a registered JournalCodec are journaled by name only, and are not replayed.
+ *
+ * <p>Codecs should only write the state needed to rebuild the Event headless, (E.G: a Player's
+ * username instead of the Player). Strings should be written with 'EventJournal.writeUTF8()', as
+ * 'DataOutput.writeUTF()' fails for Strings longer than 65535 bytes.
+ *
+ * @param <E> The type of Event.
+ * @author Jab
+ */
+public interface JournalCodec<E extends Event> {
+
+  /**
+   * Writes the state of a Event.
+   *
+   * @param event The Event to write.
+   * @param output The output to write to.
+   * @throws IOException Thrown if the state fails to write.
+   */
+  void write(E event, DataOutput output) throws IOException;
+
+  /**
+   * Reads a Event written with 'write(event, output)'.
+   *
+   * @param input The input to read from.
+   * @return Returns the rebuilt Event.
+   * @throws IOException Thrown if the state fails to read.
+   */
+  E read(DataInput input) throws IOException;
+}
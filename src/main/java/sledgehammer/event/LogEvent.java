@@ -20,22 +20,43 @@
 
 package sledgehammer.event;
 
+import sledgehammer.enums.LogType;
+import sledgehammer.interfaces.Recyclable;
 import sledgehammer.lua.core.Player;
 
 /**
  * Event to store and manage logging data for other Events, as well as any additional logging pushed
  * from registered Modules in the Sledgehammer engine.
  *
+ * <p>LogEvents published by the LogEventPipeline carry the message and the LogType of the logged
+ * Event as they were when the Event was handled. LogEvent handlers run off of the server's update
+ * thread, and should only read these, the Player, and the class of the logged Event. The fields of
+ * the logged Event and the Player may be changed by the update thread at any time.
+ *
  * @author Jab
  */
-public class LogEvent extends Event {
+public class LogEvent extends Event implements Recyclable {
+
+  /** The pool of LogEvents. */
+  private static final EventPool<LogEvent> POOL =
+      new EventPool<>(
+          new EventPool.Factory<LogEvent>() {
+            @Override
+            public LogEvent create() {
+              return new LogEvent();
+            }
+          });
 
   /** The Player being logged. (Optional) */
   private Player player;
   /** The Event being logged. */
   private Event event;
-  /** The String message being logged. */
+  /** The String message being logged. This is rendered from the Event when first requested. */
   private String message;
+  /** Flag for whether or not the message has been rendered from the Event. */
+  private boolean messageRendered;
+  /** The LogType of the message. This is read from the Event when first requested. */
+  private LogType logType;
   /** Flag to signify the importance of the LogEvent. */
   private boolean importance;
 
@@ -47,15 +68,75 @@ public class LogEvent extends Event {
   public LogEvent(Event event) {
     super();
     setEvent(event);
-    this.message = event.getLogMessage();
+    this.importance = false;
+  }
+
+  /**
+   * (Private Constructor)
+   *
+   * <p>Used by the pool of LogEvents.
+   */
+  private LogEvent() {
+    super();
+  }
+
+  /**
+   * Obtains a LogEvent. The caller releases the LogEvent once handled. (See EventPool)
+   *
+   * @param event The Event being logged.
+   * @param player The Player being logged. (Optional)
+   * @return Returns a LogEvent from the pool of LogEvents, if pooling is enabled. Otherwise a new
+   *     LogEvent is returned.
+   */
+  public static LogEvent obtain(Event event, Player player) {
+    LogEvent logEvent = POOL.obtain();
+    logEvent.setEvent(event);
+    logEvent.setPlayer(player);
+    return logEvent;
+  }
+
+  /**
+   * Obtains a LogEvent. The caller releases the LogEvent once handled. (See EventPool)
+   *
+   * @param event The Event being logged.
+   * @param player The Player being logged. (Optional)
+   * @param message The message of the Event, already rendered.
+   * @param logType The LogType of the message.
+   * @return Returns a LogEvent from the pool of LogEvents, if pooling is enabled. Otherwise a new
+   *     LogEvent is returned.
+   */
+  public static LogEvent obtain(Event event, Player player, String message, LogType logType) {
+    LogEvent logEvent = obtain(event, player);
+    logEvent.message = message;
+    logEvent.messageRendered = true;
+    logEvent.logType = logType;
+    return logEvent;
+  }
+
+  @Override
+  public void reset() {
+    setEvent(null);
+    this.player = null;
     this.importance = false;
   }
 
   @Override
   public String getLogMessage() {
+    if (!messageRendered) {
+      this.message = event.getLogMessage();
+      this.messageRendered = true;
+    }
     return this.message;
   }
 
+  @Override
+  public LogType getLogType() {
+    if (logType == null) {
+      this.logType = event.getLogType();
+    }
+    return this.logType;
+  }
+
   /** @return Returns the Player of the LogEvent, if set. Otherwise returns null. */
   public Player getPlayer() {
     return this.player;
@@ -81,7 +162,17 @@ public class LogEvent extends Event {
    * @param event The Event to set.
    */
   public void setEvent(Event event) {
+    // The LogEvent holds a reference to the logged Event, in case the logged Event is pooled.
+    if (this.event != null) {
+      EventPool.release(this.event);
+    }
+    if (event != null) {
+      EventPool.acquire(event);
+    }
     this.event = event;
+    this.message = null;
+    this.messageRendered = false;
+    this.logType = null;
   }
 
   /** @return Returns true if the LogEvent is important. */
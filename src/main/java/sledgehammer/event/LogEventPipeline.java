@@ -0,0 +1,281 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+
+package sledgehammer.event;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import sledgehammer.command.Command;
+import sledgehammer.enums.LogType;
+import sledgehammer.event.player.PlayerEvent;
+import sledgehammer.lua.core.Player;
+import sledgehammer.manager.EventManager;
+import sledgehammer.util.Printable;
+
+/**
+ * LogEventPipeline moves the handling of LogEvents off of the thread that fires the logged Event.
+ *
+ * <p>Logged Events are written as small records into a pre-allocated ring buffer. A single consumer
+ * thread reads the records in order, creates the LogEvents, and passes them to the registered
+ * LogEvent handlers in batches. The log message and the LogType of the Event are captured by the
+ * publishing thread, so that the LogEvent shows the Event as it was when it was handled. Nothing is
+ * rendered if no LogEvent handlers are registered.
+ *
+ * <p>If the ring buffer is full, the record is dropped and counted, so that the publishing thread
+ * never waits on the consumer. The consumer reports the dropped records. If the pipeline is not
+ * running, or a LogEvent handler logs an Event itself, the LogEvent is handled on the calling
+ * thread.
+ *
+ * @author Jab
+ */
+public class LogEventPipeline extends Printable implements Runnable {
+
+  /** The default amount of slots in the ring buffer. (Must be a power of 2) */
+  public static final int DEFAULT_CAPACITY = 8192;
+  /** The maximum amount of records handled in one batch. */
+  private static final int BATCH_SIZE = 256;
+  /** The maximum time in nanoseconds the consumer sleeps without being woken up. */
+  private static final long PARK_NANOS = 100000000L;
+
+  /** The EventManager to pass LogEvents to. */
+  private final EventManager eventManager;
+  /** The pre-allocated slots of the ring buffer. */
+  private final Slot[] slots;
+  /** The mask used to map a sequence to a slot index. */
+  private final int mask;
+  /** The next sequence to claim for publishing. */
+  private final AtomicLong sequenceClaimed = new AtomicLong(0L);
+  /** The amount of records dropped because the ring buffer was full. */
+  private final AtomicLong dropped = new AtomicLong(0L);
+  /** The next sequence for the consumer to read. Every slot before this is free. */
+  private volatile long sequenceConsumed = 0L;
+  /** Flag for when the consumer is about to sleep, so that publishers know to wake it up. */
+  private volatile boolean waiting = false;
+  /** Flag for whether or not the consumer thread accepts records. */
+  private volatile boolean running = false;
+  /** The consumer thread. */
+  private Thread thread;
+
+  /**
+   * Main constructor.
+   *
+   * @param eventManager The EventManager to pass LogEvents to.
+   * @param capacity The amount of slots in the ring buffer. This must be a power of 2.
+   */
+  public LogEventPipeline(EventManager eventManager, int capacity) {
+    if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("Capacity must be a power of 2: " + capacity);
+    }
+    this.eventManager = eventManager;
+    this.slots = new Slot[capacity];
+    this.mask = capacity - 1;
+    for (int index = 0; index < capacity; index++) {
+      slots[index] = new Slot();
+    }
+  }
+
+  @Override
+  public String getName() {
+    return "LogEventPipeline";
+  }
+
+  /** Starts the consumer thread. */
+  public void start() {
+    if (running) {
+      return;
+    }
+    running = true;
+    thread = new Thread(this, "Sledgehammer-LogEventPipeline");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Stops accepting records, and waits for the consumer thread to handle the records already
+   * published.
+   *
+   * @param timeout The maximum time in milliseconds to wait.
+   */
+  public void shutDown(long timeout) {
+    if (!running) {
+      return;
+    }
+    running = false;
+    LockSupport.unpark(thread);
+    try {
+      thread.join(timeout);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Publishes a Event to be logged. If no LogEvent handlers are registered, or the Event has no log
+   * message, nothing is done. If the ring buffer is full, the Event is not logged.
+   *
+   * @param event The Event to log.
+   */
+  public void publish(Event event) {
+    // Nothing consumes the record, so there is no reason to create it.
+    if (eventManager.getResolvedEventHandlers(LogEvent.class).length == 0) {
+      return;
+    }
+    // Render the message here, while the Event and the Player are in the state they were handled
+    // in. The update thread may change them before the consumer reads the record.
+    String message = event.getLogMessage();
+    if (message == null) {
+      return;
+    }
+    LogType logType = event.getLogType();
+    Player player = getPlayer(event);
+    // The consumer cannot wait on itself, so LogEvents caused by LogEvent handlers, and LogEvents
+    // published while the pipeline is stopped, are handled directly.
+    if (!running || Thread.currentThread() == thread) {
+      handle(LogEvent.obtain(event, player, message, logType));
+      return;
+    }
+    // Claim a slot, unless the ring buffer is full.
+    long sequence;
+    do {
+      sequence = sequenceClaimed.get();
+      if (sequence - sequenceConsumed >= slots.length) {
+        dropped.incrementAndGet();
+        if (waiting) {
+          LockSupport.unpark(thread);
+        }
+        return;
+      }
+    } while (!sequenceClaimed.compareAndSet(sequence, sequence + 1));
+    // Keep a pooled Event from being reused until the record is read.
+    EventPool.acquire(event);
+    Slot slot = slots[(int) (sequence & mask)];
+    slot.event = event;
+    slot.player = player;
+    slot.message = message;
+    slot.logType = logType;
+    // Writing the sequence publishes the slot to the consumer.
+    slot.sequence = sequence;
+    if (waiting) {
+      LockSupport.unpark(thread);
+    }
+  }
+
+  /** @return Returns the amount of records dropped because the ring buffer was full. */
+  public long getDroppedCount() {
+    return this.dropped.get();
+  }
+
+  @Override
+  public void run() {
+    LogEvent[] batch = new LogEvent[BATCH_SIZE];
+    long sequence = sequenceConsumed;
+    long droppedReported = 0L;
+    while (running || sequence < sequenceClaimed.get()) {
+      long droppedTotal = dropped.get();
+      if (droppedTotal != droppedReported) {
+        errln(
+            "The ring buffer is full. Dropped "
+                + (droppedTotal - droppedReported)
+                + " LogEvent(s). ("
+                + droppedTotal
+                + " total)");
+        droppedReported = droppedTotal;
+      }
+      int size = 0;
+      // Read the published records in order, until one is not yet published.
+      while (size < BATCH_SIZE) {
+        Slot slot = slots[(int) (sequence & mask)];
+        if (slot.sequence != sequence) {
+          break;
+        }
+        batch[size++] = LogEvent.obtain(slot.event, slot.player, slot.message, slot.logType);
+        // The LogEvent holds its own reference to the logged Event.
+        EventPool.release(slot.event);
+        slot.event = null;
+        slot.player = null;
+        slot.message = null;
+        slot.logType = null;
+        sequenceConsumed = ++sequence;
+      }
+      if (size > 0) {
+        for (int index = 0; index < size; index++) {
+          handle(batch[index]);
+          batch[index] = null;
+        }
+        continue;
+      }
+      // Nothing is published. Sleep until a publisher wakes the consumer up.
+      waiting = true;
+      if (running && slots[(int) (sequence & mask)].sequence != sequence) {
+        LockSupport.parkNanos(this, PARK_NANOS);
+      }
+      waiting = false;
+    }
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Handles a LogEvent.
+   *
+   * @param logEvent The LogEvent to handle.
+   */
+  private void handle(LogEvent logEvent) {
+    try {
+      // The LogEvent is obtained by the pipeline, and released once handled.
+      eventManager.handleEventAndRelease(logEvent, false);
+    } catch (Exception e) {
+      errln("Failed to handle LogEvent for: " + logEvent.getEvent().getClass().getName());
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param event The logged Event.
+   * @return Returns the Player of the logged Event, if it is a PlayerEvent, or the commanding
+   *     Player if it is a CommandEvent. Otherwise null is returned.
+   */
+  private static Player getPlayer(Event event) {
+    if (event instanceof PlayerEvent) {
+      return ((PlayerEvent) event).getPlayer();
+    } else if (event instanceof CommandEvent) {
+      Command command = ((CommandEvent) event).getCommand();
+      return command != null ? command.getPlayer() : null;
+    }
+    return null;
+  }
+
+  /** A pre-allocated record in the ring buffer. */
+  private static class Slot {
+    /** The sequence of the record. The record is published when this is written. */
+    volatile long sequence = -1L;
+    /** The logged Event. */
+    Event event;
+    /** The Player of the logged Event. (Optional) */
+    Player player;
+    /** The log message of the Event, rendered when the Event was published. */
+    String message;
+    /** The LogType of the Event, read when the Event was published. */
+    LogType logType;
+  }
+}
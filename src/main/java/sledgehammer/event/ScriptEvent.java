@@ -20,16 +20,28 @@
 
 package sledgehammer.event;
 
+import sledgehammer.interfaces.Recyclable;
+
 /**
  * Event to dispatch when a native LuaEvent is fired on the PZ Server.
  *
  * @author Jab
  */
-public class ScriptEvent extends Event {
+public class ScriptEvent extends Event implements Recyclable {
 
   /** The String ID of the Event. */
   public static final String ID = "ScriptEvent";
 
+  /** The pool of ScriptEvents. */
+  private static final EventPool<ScriptEvent> POOL =
+      new EventPool<>(
+          new EventPool.Factory<ScriptEvent>() {
+            @Override
+            public ScriptEvent create() {
+              return new ScriptEvent();
+            }
+          });
+
   /** The String context for the ScriptEvent. */
   private String context = null;
 
@@ -48,6 +60,36 @@ public class ScriptEvent extends Event {
     setArguments(arguments);
   }
 
+  /**
+   * (Private Constructor)
+   *
+   * <p>Used by the pool of ScriptEvents.
+   */
+  private ScriptEvent() {
+    super();
+  }
+
+  /**
+   * Obtains a ScriptEvent. The caller releases the ScriptEvent once handled. (See EventPool)
+   *
+   * @param context The String context for the ScriptEvent.
+   * @param arguments The Generic Object Array arguments for the ScriptEvent.
+   * @return Returns a ScriptEvent from the pool of ScriptEvents, if pooling is enabled. Otherwise a
+   *     new ScriptEvent is returned.
+   */
+  public static ScriptEvent obtain(String context, Object... arguments) {
+    ScriptEvent event = POOL.obtain();
+    event.setContext(context);
+    event.setArguments(arguments);
+    return event;
+  }
+
+  @Override
+  public void reset() {
+    this.context = null;
+    this.arguments = null;
+  }
+
   /** @return Returns the String context of the ScriptEvent. */
   public String getContext() {
     return context;
@@ -55,6 +55,14 @@ import java.io.Writer;
 public class ThrowableEvent extends Event {
 
   private Throwable throwable;
+  /** The fingerprint of the Throwable. This is only set for summaries. */
+  private ThrowableFingerprint fingerprint;
+  /** The render of the Throwable. This is rendered once, when first requested. */
+  private String stackTrace;
+  /** The amount of repeats summarized. This is 0 if the Event is not a summary. */
+  private int repeats;
+  /** The duration in milliseconds of the window summarized. */
+  private long duration;
 
   /**
    * Main constructor.
@@ -65,9 +73,59 @@ public class ThrowableEvent extends Event {
     setThrowable(throwable);
   }
 
+  /**
+   * Summary constructor.
+   *
+   * @param throwable The last Throwable thrown in the window.
+   * @param fingerprint The fingerprint of the repeated Throwables.
+   * @param repeats The amount of repeats suppressed in the window.
+   * @param duration The duration in milliseconds of the window.
+   */
+  public ThrowableEvent(
+      Throwable throwable, ThrowableFingerprint fingerprint, int repeats, long duration) {
+    setThrowable(throwable);
+    this.fingerprint = fingerprint;
+    this.repeats = repeats;
+    this.duration = duration;
+  }
+
   /** @return Returns a PrintWriter render of the Throwable. */
   public String printStackTrace() {
-    return getStackTrace(getThrowable());
+    String stackTrace = this.stackTrace;
+    if (stackTrace == null) {
+      stackTrace = getStackTrace(getThrowable());
+      this.stackTrace = stackTrace;
+    }
+    return stackTrace;
+  }
+
+  /**
+   * @return Returns true if the Event summarizes repeats of a Throwable that were suppressed, instead
+   *     of a single Throwable.
+   */
+  public boolean isSummary() {
+    return this.repeats > 0;
+  }
+
+  /** @return Returns the amount of repeats summarized. Returns 0 if the Event is not a summary. */
+  public int getRepeats() {
+    return this.repeats;
+  }
+
+  /** @return Returns the duration in milliseconds of the window summarized. */
+  public long getDuration() {
+    return this.duration;
+  }
+
+  /**
+   * @return Returns the fingerprint of the Throwable. The fingerprint is created when first
+   *     requested if the Event is not a summary.
+   */
+  public ThrowableFingerprint getFingerprint() {
+    if (this.fingerprint == null) {
+      this.fingerprint = new ThrowableFingerprint(getThrowable());
+    }
+    return this.fingerprint;
   }
 
   /** @return Returns the Throwable Object that was thrown. */
@@ -0,0 +1,86 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+
+package sledgehammer.event;
+
+import java.util.Arrays;
+
+/**
+ * ThrowableFingerprint identifies repeated failures. Two Throwables share a fingerprint if they are
+ * the same type, and were thrown from the same top frames of the stack.
+ *
+ * <p>The fingerprint only reads the StackTraceElements of the Throwable. The stack trace is not
+ * rendered.
+ *
+ * @author Jab
+ */
+public class ThrowableFingerprint {
+
+  /** The amount of frames from the top of the stack that are compared. */
+  public static final int FRAME_COUNT = 5;
+
+  private final Class<?> type;
+  private final StackTraceElement[] frames;
+  private final int hash;
+
+  /**
+   * Main constructor.
+   *
+   * @param throwable The Throwable to fingerprint.
+   */
+  public ThrowableFingerprint(Throwable throwable) {
+    this.type = throwable.getClass();
+    StackTraceElement[] stackTrace = throwable.getStackTrace();
+    this.frames = Arrays.copyOf(stackTrace, Math.min(FRAME_COUNT, stackTrace.length));
+    this.hash = 31 * type.hashCode() + Arrays.hashCode(frames);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof ThrowableFingerprint)) {
+      return false;
+    }
+    ThrowableFingerprint fingerprint = (ThrowableFingerprint) other;
+    return hash == fingerprint.hash
+        && type == fingerprint.type
+        && Arrays.equals(frames, fingerprint.frames);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    if (frames.length == 0) {
+      return type.getName();
+    }
+    return type.getName() + " at " + frames[0];
+  }
+
+  /** @return Returns the Class of the Throwable. */
+  public Class<?> getType() {
+    return this.type;
+  }
+}
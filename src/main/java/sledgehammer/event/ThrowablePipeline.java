@@ -0,0 +1,189 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+
+package sledgehammer.event;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+import sledgehammer.Settings;
+import sledgehammer.manager.EventManager;
+import sledgehammer.util.Printable;
+
+/**
+ * ThrowablePipeline suppresses storms of repeated Throwables.
+ *
+ * <p>Every Throwable handled is fingerprinted by its type and the top frames of its stack. The first
+ * Throwable of a fingerprint is handled as usual, and opens a window. Throwables with the same
+ * fingerprint thrown while the window is open are only counted. Once the window closes, a single
+ * summary ThrowableEvent is handled for the repeats, and a new window is opened. Fingerprints that
+ * did not repeat are dropped when their window closes.
+ *
+ * <p>Throwables can be recorded from any thread. Windows are closed by {@link #flush()}, which is
+ * called on the server's update thread.
+ *
+ * @author Jab
+ */
+public class ThrowablePipeline extends Printable {
+
+  /** The EventManager to pass the summary ThrowableEvents to. */
+  private final EventManager eventManager;
+  /** The open windows, by fingerprint. */
+  private final ConcurrentHashMap<ThrowableFingerprint, Window> mapWindows =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Main constructor.
+   *
+   * @param eventManager The EventManager to pass the summary ThrowableEvents to.
+   */
+  public ThrowablePipeline(EventManager eventManager) {
+    this.eventManager = eventManager;
+  }
+
+  @Override
+  public String getName() {
+    return "ThrowablePipeline";
+  }
+
+  /**
+   * Records a thrown Throwable.
+   *
+   * <p>Recording the same Throwable instance more than once, (E.G: printed, then handled), counts as
+   * one occurrence.
+   *
+   * @param throwable The Throwable thrown.
+   * @return Returns true if the Throwable should be handled. Returns false if it is a repeat, and is
+   *     part of the summary of its window.
+   */
+  public boolean record(Throwable throwable) {
+    long windowMillis = Settings.getInstance().getThrowableWindow() * 1000L;
+    if (windowMillis <= 0L) {
+      return true;
+    }
+    ThrowableFingerprint fingerprint = new ThrowableFingerprint(throwable);
+    while (true) {
+      Window window = mapWindows.get(fingerprint);
+      if (window == null) {
+        window = new Window(fingerprint, throwable);
+        if (mapWindows.putIfAbsent(fingerprint, window) == null) {
+          return true;
+        }
+        continue;
+      }
+      synchronized (window) {
+        // The window was closed while looking it up. Open a new one.
+        if (window.closed) {
+          continue;
+        }
+        if (window.throwableLast == throwable) {
+          return window.reportedLast;
+        }
+        window.throwableLast = throwable;
+        window.reportedLast = false;
+        window.repeats++;
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Closes the windows that are past the configured duration. A summary ThrowableEvent is handled
+   * for each closed window with repeats.
+   */
+  public void flush() {
+    if (mapWindows.isEmpty()) {
+      return;
+    }
+    long windowMillis = Settings.getInstance().getThrowableWindow() * 1000L;
+    long timeNow = System.currentTimeMillis();
+    Iterator<Window> iterator = mapWindows.values().iterator();
+    while (iterator.hasNext()) {
+      Window window = iterator.next();
+      Throwable throwable;
+      int repeats;
+      long duration;
+      synchronized (window) {
+        duration = timeNow - window.timeStarted;
+        if (duration < windowMillis) {
+          continue;
+        }
+        repeats = window.repeats;
+        throwable = window.throwableLast;
+        if (repeats == 0) {
+          window.closed = true;
+          iterator.remove();
+          continue;
+        }
+        // Keep suppressing the fingerprint while it repeats.
+        window.repeats = 0;
+        window.timeStarted = timeNow;
+      }
+      errln(
+          "Suppressed "
+              + repeats
+              + " repeat(s) of "
+              + window.fingerprint
+              + " in the last "
+              + (duration / 1000L)
+              + " second(s).");
+      ThrowableEvent event = new ThrowableEvent(throwable, window.fingerprint, repeats, duration);
+      eventManager.handleEvent(event, false);
+    }
+  }
+
+  /** Drops all open windows without handling their summaries. */
+  public void clear() {
+    mapWindows.clear();
+  }
+
+  /**
+   * A open window for a fingerprint.
+   *
+   * @author Jab
+   */
+  private static class Window {
+
+    private final ThrowableFingerprint fingerprint;
+    /** The last Throwable recorded for the fingerprint. */
+    private Throwable throwableLast;
+    /** Flag for whether or not the last Throwable recorded was handled. */
+    private boolean reportedLast;
+    /** The amount of repeats suppressed in the window. */
+    private int repeats;
+    /** The time in milliseconds the window opened. */
+    private long timeStarted;
+    /** Flag for whether or not the window is closed and removed. */
+    private boolean closed;
+
+    /**
+     * Main constructor.
+     *
+     * @param fingerprint The fingerprint of the window.
+     * @param throwable The first Throwable recorded, that is handled.
+     */
+    Window(ThrowableFingerprint fingerprint, Throwable throwable) {
+      this.fingerprint = fingerprint;
+      this.throwableLast = throwable;
+      this.reportedLast = true;
+      this.timeStarted = System.currentTimeMillis();
+    }
+  }
+}
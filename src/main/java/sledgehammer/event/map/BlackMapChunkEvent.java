@@ -20,12 +20,42 @@
 
 package sledgehammer.event.map;
 
+import sledgehammer.event.EventPool;
 import zombie.iso.IsoChunk;
 
 public class BlackMapChunkEvent extends MapChunkEvent {
 
+    /** The pool of BlackMapChunkEvents. */
+    private static final EventPool<BlackMapChunkEvent> POOL =
+            new EventPool<>(
+                    new EventPool.Factory<BlackMapChunkEvent>() {
+                        @Override
+                        public BlackMapChunkEvent create() {
+                            return new BlackMapChunkEvent();
+                        }
+                    });
+
     public BlackMapChunkEvent(IsoChunk isoChunk) {
         super(isoChunk);
     }
 
+    /** Used by the pool of BlackMapChunkEvents. */
+    private BlackMapChunkEvent() {
+        super();
+    }
+
+    /**
+     * Obtains a BlackMapChunkEvent. The caller releases the BlackMapChunkEvent once handled.
+     * (See EventPool)
+     *
+     * @param isoChunk The IsoChunk of the Event.
+     * @return Returns a BlackMapChunkEvent from the pool of BlackMapChunkEvents, if pooling is enabled.
+     *     Otherwise a new BlackMapChunkEvent is returned.
+     */
+    public static BlackMapChunkEvent obtain(IsoChunk isoChunk) {
+        BlackMapChunkEvent event = POOL.obtain();
+        event.setIso(isoChunk);
+        return event;
+    }
+
 }
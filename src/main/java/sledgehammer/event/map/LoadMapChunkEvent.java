@@ -20,11 +20,41 @@
 
 package sledgehammer.event.map;
 
+import sledgehammer.event.EventPool;
 import zombie.iso.IsoChunk;
 
 public class LoadMapChunkEvent extends MapChunkEvent {
 
+    /** The pool of LoadMapChunkEvents. */
+    private static final EventPool<LoadMapChunkEvent> POOL =
+            new EventPool<>(
+                    new EventPool.Factory<LoadMapChunkEvent>() {
+                        @Override
+                        public LoadMapChunkEvent create() {
+                            return new LoadMapChunkEvent();
+                        }
+                    });
+
     public LoadMapChunkEvent(IsoChunk isoChunk) {
         super(isoChunk);
     }
+
+    /** Used by the pool of LoadMapChunkEvents. */
+    private LoadMapChunkEvent() {
+        super();
+    }
+
+    /**
+     * Obtains a LoadMapChunkEvent. The caller releases the LoadMapChunkEvent once handled.
+     * (See EventPool)
+     *
+     * @param isoChunk The IsoChunk of the Event.
+     * @return Returns a LoadMapChunkEvent from the pool of LoadMapChunkEvents, if pooling is enabled.
+     *     Otherwise a new LoadMapChunkEvent is returned.
+     */
+    public static LoadMapChunkEvent obtain(IsoChunk isoChunk) {
+        LoadMapChunkEvent event = POOL.obtain();
+        event.setIso(isoChunk);
+        return event;
+    }
 }
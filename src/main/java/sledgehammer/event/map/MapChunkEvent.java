@@ -21,16 +21,27 @@
 package sledgehammer.event.map;
 
 import sledgehammer.event.Event;
+import sledgehammer.interfaces.Recyclable;
 import zombie.iso.IsoChunk;
 
-public class MapChunkEvent extends Event {
+public class MapChunkEvent extends Event implements Recyclable {
 
-    private final IsoChunk isoChunk;
+    private IsoChunk isoChunk;
 
     public MapChunkEvent(IsoChunk isoChunk) {
         this.isoChunk = isoChunk;
     }
 
+    /** Constructor for pooled MapChunkEvents. The IsoChunk is set when the Event is obtained. */
+    protected MapChunkEvent() {
+        super();
+    }
+
+    @Override
+    public void reset() {
+        this.isoChunk = null;
+    }
+
     public int getWorldX() {
         return getIso().wx;
     }
@@ -42,4 +53,13 @@ public class MapChunkEvent extends Event {
     public IsoChunk getIso() {
         return this.isoChunk;
     }
+
+    /**
+     * Sets the IsoChunk of the Event.
+     *
+     * @param isoChunk The IsoChunk to set.
+     */
+    protected void setIso(IsoChunk isoChunk) {
+        this.isoChunk = isoChunk;
+    }
 }
\ No newline at end of file
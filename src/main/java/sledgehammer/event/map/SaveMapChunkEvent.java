@@ -20,11 +20,41 @@
 
 package sledgehammer.event.map;
 
+import sledgehammer.event.EventPool;
 import zombie.iso.IsoChunk;
 
 public class SaveMapChunkEvent extends MapChunkEvent {
 
+  /** The pool of SaveMapChunkEvents. */
+  private static final EventPool<SaveMapChunkEvent> POOL =
+      new EventPool<>(
+          new EventPool.Factory<SaveMapChunkEvent>() {
+            @Override
+            public SaveMapChunkEvent create() {
+              return new SaveMapChunkEvent();
+            }
+          });
+
   public SaveMapChunkEvent(IsoChunk isoChunk) {
     super(isoChunk);
   }
+
+  /** Used by the pool of SaveMapChunkEvents. */
+  private SaveMapChunkEvent() {
+    super();
+  }
+
+  /**
+   * Obtains a SaveMapChunkEvent. The caller releases the SaveMapChunkEvent once handled.
+   * (See EventPool)
+   *
+   * @param isoChunk The IsoChunk of the Event.
+   * @return Returns a SaveMapChunkEvent from the pool of SaveMapChunkEvents, if pooling is enabled.
+   *     Otherwise a new SaveMapChunkEvent is returned.
+   */
+  public static SaveMapChunkEvent obtain(IsoChunk isoChunk) {
+    SaveMapChunkEvent event = POOL.obtain();
+    event.setIso(isoChunk);
+    return event;
+  }
 }
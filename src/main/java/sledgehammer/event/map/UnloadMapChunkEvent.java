@@ -20,11 +20,41 @@
 
 package sledgehammer.event.map;
 
+import sledgehammer.event.EventPool;
 import zombie.iso.IsoChunk;
 
 public class UnloadMapChunkEvent extends MapChunkEvent {
 
+  /** The pool of UnloadMapChunkEvents. */
+  private static final EventPool<UnloadMapChunkEvent> POOL =
+      new EventPool<>(
+          new EventPool.Factory<UnloadMapChunkEvent>() {
+            @Override
+            public UnloadMapChunkEvent create() {
+              return new UnloadMapChunkEvent();
+            }
+          });
+
   public UnloadMapChunkEvent(IsoChunk isoChunk) {
     super(isoChunk);
   }
+
+  /** Used by the pool of UnloadMapChunkEvents. */
+  private UnloadMapChunkEvent() {
+    super();
+  }
+
+  /**
+   * Obtains a UnloadMapChunkEvent. The caller releases the UnloadMapChunkEvent once handled.
+   * (See EventPool)
+   *
+   * @param isoChunk The IsoChunk of the Event.
+   * @return Returns a UnloadMapChunkEvent from the pool of UnloadMapChunkEvents, if pooling is enabled.
+   *     Otherwise a new UnloadMapChunkEvent is returned.
+   */
+  public static UnloadMapChunkEvent obtain(IsoChunk isoChunk) {
+    UnloadMapChunkEvent event = POOL.obtain();
+    event.setIso(isoChunk);
+    return event;
+  }
 }
@@ -60,6 +60,7 @@
 
 package sledgehammer.event.player;
 
+import sledgehammer.enums.LogType;
 import sledgehammer.lua.core.Player;
 
 /**
@@ -87,4 +88,9 @@ public class CheaterEvent extends PlayerEvent {
   public String getLogMessage() {
     return "CHEATER: " + logMessage;
   }
+
+  @Override
+  public LogType getLogType() {
+    return LogType.CHEAT;
+  }
 }
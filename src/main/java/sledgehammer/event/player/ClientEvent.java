@@ -61,6 +61,8 @@
 package sledgehammer.event.player;
 
 import se.krka.kahlua.vm.KahluaTable;
+import sledgehammer.event.EventPool;
+import sledgehammer.interfaces.Recyclable;
 import sledgehammer.lua.LuaTable;
 import sledgehammer.lua.core.Player;
 import zombie.network.GameServer;
@@ -70,7 +72,17 @@ import zombie.network.GameServer;
  *
  * @author Jab
  */
-public class ClientEvent extends PlayerEvent {
+public class ClientEvent extends PlayerEvent implements Recyclable {
+
+  /** The pool of ClientEvents. */
+  private static final EventPool<ClientEvent> POOL =
+      new EventPool<>(
+          new EventPool.Factory<ClientEvent>() {
+            @Override
+            public ClientEvent create() {
+              return new ClientEvent();
+            }
+          });
 
   /** The String client ID of the Module. */
   private String moduleName;
@@ -93,6 +105,59 @@ public class ClientEvent extends PlayerEvent {
    */
   public ClientEvent(Player player, String module, String command, KahluaTable table) {
     super(player);
+    set(module, command, table);
+  }
+
+  /**
+   * (Private Constructor)
+   *
+   * <p>Used by the pool of ClientEvents.
+   */
+  private ClientEvent() {
+    super();
+  }
+
+  /**
+   * Obtains a ClientEvent. The caller releases the ClientEvent once handled. (See EventPool)
+   *
+   * @param player The Player authoring the Event.
+   * @param module The String client ID of the Module.
+   * @param command The String command of the ClientEvent.
+   * @param table The LuaTable Object passed as arguments.
+   * @return Returns a ClientEvent from the pool of ClientEvents, if pooling is enabled. Otherwise a
+   *     new ClientEvent is returned.
+   */
+  public static ClientEvent obtain(
+      Player player, String module, String command, KahluaTable table) {
+    if (player == null) {
+      throw new IllegalArgumentException("Player is null!");
+    }
+    ClientEvent event = POOL.obtain();
+    event.setPlayer(player);
+    event.set(module, command, table);
+    return event;
+  }
+
+  @Override
+  public void reset() {
+    setPlayer(null);
+    this.moduleRaw = null;
+    this.moduleName = null;
+    this.command = null;
+    this.request = false;
+    this.table = null;
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Sets the fields of the ClientEvent.
+   *
+   * @param module The String client ID of the Module.
+   * @param command The String command of the ClientEvent.
+   * @param table The LuaTable Object passed as arguments.
+   */
+  private void set(String module, String command, KahluaTable table) {
     this.moduleRaw = module;
     if (moduleRaw.startsWith("request:")) {
       request = true;
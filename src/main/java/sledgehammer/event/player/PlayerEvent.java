@@ -86,19 +86,22 @@ public abstract class PlayerEvent extends Event {
     setPlayer(player);
   }
 
+  /** Constructor for pooled PlayerEvents. The Player is set when the PlayerEvent is obtained. */
+  protected PlayerEvent() {
+    super();
+  }
+
   /** @return Returns the Player associated with the PlayerEvent. */
   public Player getPlayer() {
     return this.player;
   }
 
   /**
-   * (Private Method)
-   *
-   * <p>Sets the Player associated with the PlayerEvent.
+   * Sets the Player associated with the PlayerEvent.
    *
    * @param player The Player to set.
    */
-  private void setPlayer(Player player) {
+  protected void setPlayer(Player player) {
     this.player = player;
   }
 }
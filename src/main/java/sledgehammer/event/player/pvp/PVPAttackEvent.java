@@ -61,6 +61,8 @@
 package sledgehammer.event.player.pvp;
 
 import sledgehammer.event.Event;
+import sledgehammer.event.EventPool;
+import sledgehammer.interfaces.Recyclable;
 import sledgehammer.lua.core.Player;
 
 /**
@@ -68,7 +70,17 @@ import sledgehammer.lua.core.Player;
  *
  * @author Jab
  */
-public class PVPAttackEvent extends Event {
+public class PVPAttackEvent extends Event implements Recyclable {
+
+  /** The pool of PVPAttackEvents. */
+  private static final EventPool<PVPAttackEvent> POOL =
+      new EventPool<>(
+          new EventPool.Factory<PVPAttackEvent>() {
+            @Override
+            public PVPAttackEvent create() {
+              return new PVPAttackEvent();
+            }
+          });
 
   /** The Player attacking the other Player. */
   private Player playerAttacking;
@@ -91,6 +103,40 @@ public class PVPAttackEvent extends Event {
     setWeaponName(weaponName);
   }
 
+  /**
+   * (Private Constructor)
+   *
+   * <p>Used by the pool of PVPAttackEvents.
+   */
+  private PVPAttackEvent() {
+    super();
+  }
+
+  /**
+   * Obtains a PVPAttackEvent. The caller releases the PVPAttackEvent once handled. (See EventPool)
+   *
+   * @param playerAttacking The Player attacking.
+   * @param playerAttacked The Player being attacked.
+   * @param weaponName The String name of the weapon used.
+   * @return Returns a PVPAttackEvent from the pool of PVPAttackEvents, if pooling is enabled.
+   *     Otherwise a new PVPAttackEvent is returned.
+   */
+  public static PVPAttackEvent obtain(
+      Player playerAttacking, Player playerAttacked, String weaponName) {
+    PVPAttackEvent event = POOL.obtain();
+    event.setPlayerAttacking(playerAttacking);
+    event.setPlayerAttacked(playerAttacked);
+    event.setWeaponName(weaponName);
+    return event;
+  }
+
+  @Override
+  public void reset() {
+    this.playerAttacking = null;
+    this.playerAttacked = null;
+    this.weaponName = null;
+  }
+
   @Override
   public String getLogMessage() {
     return playerAttacking.getUsername() + " is attacking " + playerAttacked.getUsername() + ".";
@@ -27,8 +27,12 @@ import sledgehammer.annotations.EventHandler;
 import sledgehammer.event.*;
 import sledgehammer.event.CommandEvent;
 import sledgehammer.event.ThrowableEvent;
+import sledgehammer.event.player.PlayerEvent;
 import sledgehammer.command.CommandHandlerComparator;
 import sledgehammer.command.CommandHandlerContainer;
+import sledgehammer.command.CommandHelpIndex;
+import sledgehammer.command.CommandTrie;
+import sledgehammer.enums.Result;
 import sledgehammer.interfaces.Cancellable;
 import sledgehammer.lua.core.Player;
 import sledgehammer.util.ClassUtil;
@@ -37,8 +41,15 @@ import sledgehammer.interfaces.Listener;
 import sledgehammer.util.Response;
 import zombie.core.raknet.UdpConnection;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This manager handles the Events fired in the Sledgehammer Engine, and Craftboid.
@@ -47,20 +58,78 @@ import java.util.*;
  */
 public class EventManager extends Manager {
 
+  /** The array resolved for Event classes without any EventHandlers. */
+  private static final EventHandlerContainer[] EMPTY_HANDLERS = new EventHandlerContainer[0];
+
+  /**
+   * The depth of Events and Commands being handled on each thread. Events and Commands fired from
+   * inside of a handler are fired again when the outer one is replayed, so only the top-level ones
+   * are journaled.
+   */
+  private static final ThreadLocal<int[]> DEPTH_HANDLING =
+      new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+          return new int[1];
+        }
+      };
+
   private EventHandlerComparator comparatorEventHandlers;
   private CommandHandlerComparator comparatorCommandHandlers;
 
-  private Map<Class<? extends Event>, LinkedList<EventHandlerContainer>> mapEventHandlers;
-  private Map<String, LinkedList<CommandHandlerContainer>> mapCommandHandlers;
+  /**
+   * The Map of registered EventHandlers for each Event class. The arrays are immutable snapshots
+   * sorted by priority, and are replaced (copy-on-write) when handlers are registered or
+   * unregistered. This allows dispatching to walk the array without copying it first.
+   *
+   * <p>(Note: The Map is concurrent, as the resolved EventHandlers are computed from it on the
+   * threads that dispatch Events, while EventHandlers are registered on the update thread)
+   */
+  private Map<Class<? extends Event>, EventHandlerContainer[]> mapEventHandlers;
+  /**
+   * The resolved EventHandlers for each concrete Event class. This merges the EventHandlers
+   * registered for the class and all of its super-classes, ordered by priority. The table is
+   * replaced when EventHandlers are registered or unregistered.
+   */
+  private volatile ClassValue<EventHandlerContainer[]> cacheEventHandlers;
+  /**
+   * The CommandHandlers, registered by the tokens of their command paths. Dispatching a Command
+   * walks the trie once to find the longest matching command path.
+   */
+  private CommandTrie trieCommandHandlers;
+  /** The '/help' entries of the registered CommandHandlers, partitioned by permission nodes. */
+  private CommandHelpIndex indexCommandHelp;
+  /** The ordered lanes that run asynchronous EventHandlers. */
+  private EventLanes eventLanes;
+  /** The pipeline that handles LogEvents off of the thread that fires the logged Event. */
+  private LogEventPipeline logEventPipeline;
+  /** The pipeline that suppresses repeated Throwables. */
+  private ThrowablePipeline throwablePipeline;
+  /** The pool that runs the monitor EventHandlers of a Event concurrently. */
+  private ForkJoinPool poolMonitor;
+  /** The journal recording the Events and Commands handled. Null if not recording. */
+  private volatile EventJournal journal;
 
   @Override
   public void onLoad(boolean debug) {
     comparatorEventHandlers = new EventHandlerComparator();
     comparatorCommandHandlers = new CommandHandlerComparator();
     // Create Handler Maps. @formatter:off
-    mapEventHandlers = new HashMap<>();
-    mapCommandHandlers = new HashMap<>();
+    mapEventHandlers = new ConcurrentHashMap<>();
+    trieCommandHandlers = new CommandTrie(comparatorCommandHandlers);
+    indexCommandHelp = new CommandHelpIndex();
     // @formatter:on
+    invalidateEventHandlers();
+    eventLanes =
+        new EventLanes(
+            SledgeHammer.instance.getExecutorManager().getExecutor(ExecutorManager.ASYNC_EVENTS),
+            EventLanes.DEFAULT_LANE_COUNT,
+            EventLanes.DEFAULT_LANE_CAPACITY);
+    logEventPipeline = new LogEventPipeline(this, LogEventPipeline.DEFAULT_CAPACITY);
+    logEventPipeline.start();
+    throwablePipeline = new ThrowablePipeline(this);
+    int parallelism = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+    poolMonitor = new ForkJoinPool(parallelism);
   }
 
   @Override
@@ -70,9 +139,25 @@ public class EventManager extends Manager {
     }
   }
 
+  @Override
+  public void onUpdate() {
+    throwablePipeline.flush();
+  }
+
   @Override
   public void onShutDown() {
+    stopJournal();
+    throwablePipeline.clear();
+    // Let the LogEvents and asynchronous EventHandlers finish what is already queued.
+    logEventPipeline.shutDown(5000L);
     reset();
+    eventLanes.shutDown(5000L);
+    poolMonitor.shutdown();
+    try {
+      poolMonitor.awaitTermination(5000L, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
   }
 
   @Override
@@ -83,24 +168,91 @@ public class EventManager extends Manager {
   /**
    * Handles a Event by sending the Event to all registered EventHandlers for the Event type.
    *
+   * <p>EventHandlers registered for a super-class of the Event, (E.G: PlayerEvent, or Event), are
+   * invoked as well, in order of priority with the EventHandlers of the Event's class.
+   *
+   * <p>Monitor EventHandlers are invoked concurrently after all mutating EventHandlers are
+   * invoked. Asynchronous EventHandlers are passed the Event after all other EventHandlers are
+   * invoked.
+   *
    * <p>If the event given is null, a IllegalArgumentException is thrown.
    *
+   * <p>A pooled Event is not released by this method. The code that obtained the Event still holds
+   * its reference, and releases it once done with the result. (See 'handleEventAndRelease()')
+   *
    * @param event The Event to handle.
    * @param log Flag to issue a LogEvent after handling the Event.
+   * @return Returns the Event handled.
    */
   public Event handleEvent(Event event, boolean log) {
     if (event == null) {
       throw new IllegalArgumentException("Event given is null.");
     }
-    LinkedList<EventHandlerContainer> listContainers = getEventHandlers(event);
-    if (listContainers != null) {
-      // Copy the array to prevent ConcurrentModificationExceptions.
-      listContainers = new LinkedList<>(listContainers);
-      for (EventHandlerContainer container : listContainers) {
+    // ThrowableEvents and LogEvents are results of handling other Events, and are not journaled.
+    EventJournal journal = this.journal;
+    if (journal != null
+        && !isHandling()
+        && !(event instanceof LogEvent)
+        && !(event instanceof ThrowableEvent)) {
+      journal.recordEvent(event);
+    }
+    beginHandling();
+    try {
+      dispatchEvent(event, log);
+    } finally {
+      endHandling();
+    }
+    return event;
+  }
+
+  /**
+   * Handles a Event, and releases the reference held by the caller once handled. This is for
+   * pooled Events that are obtained only to be fired, and whose result is not used.
+   *
+   * <p>The Event must not be used after this method returns, as it may be returned to its pool.
+   *
+   * @param event The Event to handle.
+   * @param log Flag to issue a LogEvent after handling the Event.
+   */
+  public void handleEventAndRelease(Event event, boolean log) {
+    try {
+      handleEvent(event, log);
+    } finally {
+      if (event != null) {
+        EventPool.release(event);
+      }
+    }
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Invokes the EventHandlers for a Event, and publishes it to be logged.
+   *
+   * @param event The Event to handle.
+   * @param log Flag to issue a LogEvent after handling the Event.
+   */
+  private void dispatchEvent(Event event, boolean log) {
+    // The array is a snapshot. Registrations made while dispatching will not affect it.
+    EventHandlerContainer[] containers = getResolvedEventHandlers(event.getClass());
+    if (containers.length > 0) {
+      boolean hasAsync = false;
+      boolean hasMonitor = false;
+      for (EventHandlerContainer container : containers) {
         // Make sure the EventHandler is enabled to handle events.
         if (!container.isEnabled()) {
           continue;
         }
+        // Asynchronous EventHandlers are passed the Event once the Event is final.
+        if (container.isAsync()) {
+          hasAsync = true;
+          continue;
+        }
+        // Monitor EventHandlers only read the Event, and run once the Event is final.
+        if (container.isMonitor()) {
+          hasMonitor = true;
+          continue;
+        }
         // If the Event is cancelled and the EventHandler does not handle cancelled
         // events, do
         // not invoke it.
@@ -125,19 +277,183 @@ public class EventManager extends Manager {
           handleThrown(throwable);
         }
       }
+      if (hasMonitor) {
+        handleEventMonitors(containers, event);
+      }
+      if (hasAsync) {
+        for (EventHandlerContainer container : containers) {
+          if (container.isAsync() && container.isEnabled()) {
+            handleEventAsync(container, event);
+          }
+        }
+      }
     }
     // Make sure that we do not try to Log a ThrowableEvent or Log a LogEvent. Make sure that
-    // a logged message is present, and that the event is not cancelled.
+    // the event is not cancelled. The logged message is rendered by the LogEventPipeline, and the
+    // LogEvent is only handled if a message is present.
     if (log
         && !(event instanceof LogEvent)
         && !(event instanceof ThrowableEvent)
-        && (!(event instanceof Cancellable) || !((Cancellable) event).isCancelled())
-        && event.getLogMessage() != null) {
-      // Create a LogEvent, and handle it.
-      LogEvent logEvent = new LogEvent(event);
-      handleEvent(logEvent, false);
+        && (!(event instanceof Cancellable) || !((Cancellable) event).isCancelled())) {
+      logEventPipeline.publish(event);
     }
-    return event;
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Invokes the monitor EventHandlers for a Event on the monitor pool. The joined monitors are
+   * invoked concurrently, with the last one invoked on the calling thread, and this method returns
+   * once all of them are done. Fire-and-forget monitors are only submitted.
+   *
+   * <p>Throwables from joined monitors are handled on the calling thread. Throwables from
+   * fire-and-forget monitors are handled on the server's update thread.
+   *
+   * @param containers The resolved EventHandlers for the Event.
+   * @param event The final Event to pass to the monitors.
+   */
+  private void handleEventMonitors(EventHandlerContainer[] containers, final Event event) {
+    boolean cancelled = (event instanceof Cancellable) && ((Cancellable) event).isCancelled();
+    List<MonitorTask> listJoined = null;
+    for (final EventHandlerContainer container : containers) {
+      if (!container.isMonitor() || !container.isEnabled()) {
+        continue;
+      }
+      if (cancelled && !container.ignoreCancelled()) {
+        continue;
+      }
+      if (!container.isJoin()) {
+        handleEventMonitorDetached(container, event);
+        continue;
+      }
+      if (listJoined == null) {
+        listJoined = new ArrayList<>();
+      }
+      listJoined.add(new MonitorTask(container, event));
+    }
+    if (listJoined == null) {
+      return;
+    }
+    int last = listJoined.size() - 1;
+    // Fork all but the last monitor. 'ForkJoinTask.invokeAll()' cannot be used here, as the
+    // calling thread is not a worker of the pool.
+    for (int index = 0; index < last; index++) {
+      poolMonitor.execute(listJoined.get(index));
+    }
+    listJoined.get(last).invoke();
+    for (int index = 0; index < last; index++) {
+      listJoined.get(index).join();
+    }
+    for (MonitorTask task : listJoined) {
+      Throwable throwable = task.throwable;
+      if (throwable != null) {
+        if (Settings.getInstance().isDebug()) {
+          errln("The EventHandler failed to execute: " + task.container.toString());
+          errln("The EventHandler is now disabled.");
+        }
+        task.container.setEnabled(false);
+        handleThrown(throwable);
+      }
+    }
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Submits a fire-and-forget monitor EventHandler to the monitor pool.
+   *
+   * @param container The monitor EventHandler.
+   * @param event The Event to handle.
+   */
+  private void handleEventMonitorDetached(
+      final EventHandlerContainer container, final Event event) {
+    // Keep a pooled Event from being reused until the monitor EventHandler is done with it.
+    EventPool.acquire(event);
+    poolMonitor.execute(
+        new Runnable() {
+          @Override
+          public void run() {
+            beginHandling();
+            try {
+              if (container.isEnabled()) {
+                container.handleEvent(event);
+              }
+            } catch (final Throwable throwable) {
+              if (Settings.getInstance().isDebug()) {
+                errln("The EventHandler failed to execute: " + container.toString());
+                errln("The EventHandler is now disabled.");
+              }
+              container.setEnabled(false);
+              // ThrowableEvents are handled on the server's update thread.
+              SledgeHammer.instance.runOnMainThread(
+                  new Runnable() {
+                    @Override
+                    public void run() {
+                      handleThrown(throwable);
+                    }
+                  });
+            } finally {
+              endHandling();
+              EventPool.release(event);
+            }
+          }
+        });
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Passes a Event to a asynchronous EventHandler on a worker lane. Events for the same Player
+   * use the same lane, so they are handled in order. Other Events are ordered per EventHandler.
+   *
+   * @param container The asynchronous EventHandler.
+   * @param event The Event to handle.
+   */
+  private void handleEventAsync(final EventHandlerContainer container, final Event event) {
+    Object key = container;
+    Player player = null;
+    if (event instanceof PlayerEvent) {
+      player = ((PlayerEvent) event).getPlayer();
+    } else if (event instanceof LogEvent) {
+      player = ((LogEvent) event).getPlayer();
+    }
+    if (player != null && player.getUniqueId() != null) {
+      key = player.getUniqueId();
+    }
+    // Keep a pooled Event from being reused until the asynchronous EventHandler is done with it.
+    EventPool.acquire(event);
+    eventLanes.submit(
+        key,
+        new Runnable() {
+          @Override
+          public void run() {
+            if (!container.isEnabled()) {
+              EventPool.release(event);
+              return;
+            }
+            beginHandling();
+            try {
+              container.handleEvent(event);
+            } catch (final Throwable throwable) {
+              if (Settings.getInstance().isDebug()) {
+                errln("The EventHandler failed to execute: " + container.toString());
+                errln("The EventHandler is now disabled.");
+              }
+              container.setEnabled(false);
+              // ThrowableEvents are handled on the server's update thread.
+              SledgeHammer.instance.runOnMainThread(
+                  new Runnable() {
+                    @Override
+                    public void run() {
+                      handleThrown(throwable);
+                    }
+                  });
+            } finally {
+              endHandling();
+              EventPool.release(event);
+            }
+          }
+        });
   }
 
   /**
@@ -165,6 +481,27 @@ public class EventManager extends Manager {
     if (command == null) {
       throw new IllegalArgumentException("Command given is null.");
     }
+    EventJournal journal = this.journal;
+    if (journal != null && !isHandling()) {
+      journal.recordCommand(command);
+    }
+    beginHandling();
+    try {
+      return dispatchCommand(command);
+    } finally {
+      endHandling();
+    }
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Invokes the CommandHandlers for a Command.
+   *
+   * @param command The Command to handle.
+   * @return Returns the CommandEvent result.
+   */
+  private CommandEvent dispatchCommand(Command command) {
     boolean isHelp = command.getCommand().equalsIgnoreCase("help");
     CommandEvent event = new CommandEvent(command);
     Player commander = command.getPlayer();
@@ -177,82 +514,130 @@ public class EventManager extends Manager {
       return event;
     }
     Response response = event.getResponse();
+    // The help response is assembled from the help index. Any CommandHandlers for 'help' still
+    // run, and append to it.
     if (isHelp) {
-      response.appendLine();
+      response.setResponse(indexCommandHelp.getHelp(commander));
     }
     boolean deniedOnce = false;
     boolean handledOnce = false;
-    String raw = command.getRaw().toLowerCase().trim();
-    String[] split = raw.split(" ");
-    for (int index = split.length - 1; index >= 0; index--) {
-      StringBuilder stringBuilder = new StringBuilder();
-      int subIndex = 0;
-      do {
-        stringBuilder.append(" ").append(split[subIndex++]);
-      } while (subIndex <= index);
-      String commandSearch = stringBuilder.toString().trim().replace("\"", "");
-      LinkedList<CommandHandlerContainer> listContainers = mapCommandHandlers.get(commandSearch);
-      boolean found = false;
-      if (listContainers != null) {
-        // Copy the array to prevent ConcurrentModificationExceptions.
-        listContainers = new LinkedList<>(listContainers);
-        for (CommandHandlerContainer container : listContainers) {
-          if (!container.isEnabled()) {
+    List<CommandHandlerContainer> listAsync = null;
+    // Find the handlers for the longest command path matching the command. The array returned
+    // is never modified, so it is safe to walk without copying it first.
+    CommandHandlerContainer[] containers = trieCommandHandlers.match(command.getTokens());
+    if (containers != null) {
+      for (CommandHandlerContainer container : containers) {
+        if (!container.isEnabled()) {
+          continue;
+        }
+        String[] permissionNodes = container.getPermissionNodes();
+        // If the commanding player has permission to the handler, invoke it.
+        if (commander.hasPermission(permissionNodes)) {
+          // Asynchronous CommandHandlers run after the others, off of the update thread.
+          if (container.isAsync()) {
+            handledOnce = true;
+            if (listAsync == null) {
+              listAsync = new ArrayList<>();
+            }
+            listAsync.add(container);
             continue;
           }
-          found = true;
-          String[] permissionNodes = container.getPermissionNodes();
-          // If the commanding player has permission to the handler, invoke it.
-          if (commander.hasPermission(permissionNodes)) {
-            try {
-              handledOnce = true;
-              container.handleCommand(command, response);
-            } catch (Throwable throwable) {
-              if (Settings.getInstance().isDebug()) {
-                errln("The CommandHandler failed to execute: " + container.toString());
-                errln("The CommandHandler is now disabled.");
-              }
-              container.setEnabled(false);
-              handleThrown(throwable);
+          try {
+            handledOnce = true;
+            container.handleCommand(command, response);
+          } catch (Throwable throwable) {
+            if (Settings.getInstance().isDebug()) {
+              errln("The CommandHandler failed to execute: " + container.toString());
+              errln("The CommandHandler is now disabled.");
             }
-          } else {
-            deniedOnce = true;
-          }
-          // If the command is denied and not handled, then this is due to permission nodes not
-          // being granted. Set the response message to the permission denied message.
-          if (deniedOnce && !handledOnce) {
-            response.deny();
+            container.setEnabled(false);
+            handleThrown(throwable);
           }
+        } else {
+          deniedOnce = true;
         }
-        if(found) {
-          break;
+        // If the command is denied and not handled, then this is due to permission nodes not
+        // being granted. Set the response message to the permission denied message.
+        if (deniedOnce && !handledOnce) {
+          response.deny();
         }
       }
     }
     if (isHelp) {
-      String responseText = response.getResponse();
-      String[] lines = response.getResponse().split("<LINE>");
-      ArrayList<String> listLines = new ArrayList<>(Arrays.asList(lines));
-      Collections.sort(
-          listLines,
-          new Comparator<String>() {
-            @Override
-            public int compare(String o1, String o2) {
-              return o1.compareTo(o2);
-            }
-          });
-      response.setResponse("Commands: <LINE> ");
-      for (String line : listLines) {
-        line = line.trim();
-        if (!line.isEmpty()) {
-          response.appendLine(line);
-        }
-      }
       response.setHandled(true);
     }
+    if (listAsync != null) {
+      handleCommandAsync(event, listAsync);
+    }
     return event;
   }
 
+  /**
+   * (Private Method)
+   *
+   * <p>Defers the Response of a CommandEvent, and runs the asynchronous CommandHandlers for it on
+   * the TaskManager's worker pool. The CommandEvent is completed on the server's update thread
+   * once all of them are done. If the worker pool rejects them, the CommandEvent is completed
+   * without them.
+   *
+   * @param event The CommandEvent handled.
+   * @param listAsync The asynchronous CommandHandlers that the commander has permission to.
+   */
+  private void handleCommandAsync(
+      final CommandEvent event, final List<CommandHandlerContainer> listAsync) {
+    event.defer();
+    try {
+      SledgeHammer.instance
+          .getTaskManager()
+          .executeAsync(
+              new Runnable() {
+                @Override
+                public void run() {
+                  Command command = event.getCommand();
+                  Response response = event.getResponse();
+                  final List<Throwable> listThrown = new ArrayList<>();
+                  beginHandling();
+                  try {
+                    for (CommandHandlerContainer container : listAsync) {
+                      try {
+                        container.handleCommand(command, response);
+                      } catch (Throwable throwable) {
+                        if (Settings.getInstance().isDebug()) {
+                          errln("The CommandHandler failed to execute: " + container.toString());
+                          errln("The CommandHandler is now disabled.");
+                        }
+                        container.setEnabled(false);
+                        listThrown.add(throwable);
+                      }
+                    }
+                  } finally {
+                    endHandling();
+                  }
+                  // Posted after anything the CommandHandlers posted, so that their work on the
+                  // update thread is done before the Response is completed.
+                  SledgeHammer.instance.runOnMainThread(
+                      new Runnable() {
+                        @Override
+                        public void run() {
+                          for (Throwable throwable : listThrown) {
+                            handleThrown(throwable);
+                          }
+                          event.complete();
+                        }
+                      });
+                }
+              });
+    } catch (RejectedExecutionException e) {
+      errln("Failed to run the asynchronous CommandHandlers: " + e.getMessage());
+      Response response = event.getResponse();
+      if (!response.isHandled()) {
+        response.set(Result.FAILURE, "The command could not be handled. Try again later.");
+      }
+      // This is ran on the server's update thread.
+      event.complete();
+    }
+  }
+
   /**
    * Handles a command, and logs it.
    *
@@ -267,13 +652,16 @@ public class EventManager extends Manager {
   /**
    * Handles a command.
    *
+   * <p>If asynchronous CommandHandlers defer the Response, it is delivered once complete: printed
+   * to the console for the administrator, or sent as a chat message to the commanding Player.
+   *
    * @param connection The native UdpConnection representing the origin of the sender.
    * @param input The String input given. This is a pre-Command as a raw input.
    * @param logEvent Flag to log the CommandEvent.
    * @return Returns the result CommandEvent.
    */
   public CommandEvent handleCommand(UdpConnection connection, String input, boolean logEvent) {
-    Player p =
+    final Player p =
         connection == null
             ? SledgeHammer.getAdministrator()
             : SledgeHammer.instance.getPlayer(connection.username);
@@ -281,7 +669,26 @@ public class EventManager extends Manager {
     Command command = new Command(input);
     command.setPlayer(p);
     // Fire the CommandEvent handle method, and return its result.
-    return handleCommand(command, logEvent);
+    final CommandEvent event = handleCommand(command, logEvent);
+    if (event.isDeferred()) {
+      final boolean console = connection == null;
+      event.whenComplete(
+          new Runnable() {
+            @Override
+            public void run() {
+              String message = event.getResponse().getResponse();
+              if (message == null || message.isEmpty()) {
+                return;
+              }
+              if (console) {
+                println(message);
+              } else if (p.isConnected()) {
+                p.sendChatMessage(message);
+              }
+            }
+          });
+    }
+    return event;
   }
 
   /**
@@ -289,10 +696,16 @@ public class EventManager extends Manager {
    *
    * <p>All Throwable listeners must use a EventHandler method for the event.
    *
+   * <p>Repeats of a Throwable, (same type and top frames), are suppressed for the configured window,
+   * and handled as one summary ThrowableEvent when the window closes.
+   *
    * @param throwable The Throwable to handle as a ThrowableEvent.
-   * @return Returns the ThrowableEvent result.
+   * @return Returns the ThrowableEvent result. Returns null if the Throwable is a suppressed repeat.
    */
   public ThrowableEvent handleThrown(Throwable throwable) {
+    if (throwablePipeline != null && !throwablePipeline.record(throwable)) {
+      return null;
+    }
     ThrowableEvent event = new ThrowableEvent(throwable);
     handleEvent(event, false);
     return event;
@@ -350,15 +763,14 @@ public class EventManager extends Manager {
     }
     // Grab the class for the event being handled. This is how we identify the event handler.
     Class<? extends Event> classEvent = container.getEventClass();
-    LinkedList<EventHandlerContainer> listContainers = mapEventHandlers.get(classEvent);
-    // If the event has no list of handlers, then create one.
-    if (listContainers == null) {
-      listContainers = new LinkedList<>();
-      mapEventHandlers.put(classEvent, listContainers);
-    }
-    // The list already exists for the event, so a check is needed to make sure that the handler
-    // does not register more than once in the list.
-    else if (listContainers.contains(container)) {
+    EventHandlerContainer[] containers = mapEventHandlers.get(classEvent);
+    // If the event has no handlers, then start with an empty array.
+    if (containers == null) {
+      containers = new EventHandlerContainer[0];
+    }
+    // The array already exists for the event, so a check is needed to make sure that the handler
+    // does not register more than once in the array.
+    else if (contains(containers, container)) {
       if (Settings.getInstance().isDebug()) {
         errln("EventHandler is already registered: " + container.toString());
       }
@@ -367,11 +779,16 @@ public class EventManager extends Manager {
     if (Settings.getInstance().isDebug()) {
       println("Registered EventHandler: " + container.toString());
     }
-    // At this point we know that the handler is valid, and is not already in the list for the
-    // event, so we add it to the list.
-    listContainers.add(container);
+    // At this point we know that the handler is valid, and is not already in the array for the
+    // event, so we create a new array with the handler added. The previous array is never
+    // modified, as it may be in use by a dispatch in progress.
+    EventHandlerContainer[] containersNew = Arrays.copyOf(containers, containers.length + 1);
+    containersNew[containers.length] = container;
     // In order to maintain priority of event handlers, each addition must follow with a sort.
-    Collections.sort(listContainers, comparatorEventHandlers);
+    Arrays.sort(containersNew, comparatorEventHandlers);
+    mapEventHandlers.put(classEvent, containersNew);
+    invalidateEventHandlers();
+    profile(container);
   }
 
   private void register(CommandHandlerContainer container) {
@@ -383,16 +800,9 @@ public class EventManager extends Manager {
     // Grab the command for the container.
     String[] commands = container.getCommands();
     for (String command : commands) {
-      String commandLower = command.toLowerCase();
-      LinkedList<CommandHandlerContainer> listContainers = mapCommandHandlers.get(commandLower);
-      // If the event has no list of handlers, then create one.
-      if (listContainers == null) {
-        listContainers = new LinkedList<>();
-        mapCommandHandlers.put(commandLower, listContainers);
-      }
-      // The list already exists for the event, so a check is needed to make sure that the handler
-      // does not register more than once in the list.
-      else if (listContainers.contains(container)) {
+      // The trie makes sure that the handler does not register more than once for the command,
+      // and keeps the handlers for the command sorted by priority.
+      if (!trieCommandHandlers.register(command, container)) {
         if (Settings.getInstance().isDebug()) {
           errln("CommandHandler is already registered: " + container.toString());
         }
@@ -401,43 +811,59 @@ public class EventManager extends Manager {
       if (Settings.getInstance().isDebug()) {
         println("Registered CommandHandler: " + container.toString());
       }
-      // At this point we know that the handler is valid, and is not already in the list for the
-      // event, so we add it to the list.
-      listContainers.add(container);
-      // In order to maintain priority of event handlers, each addition must follow with a sort.
-      Collections.sort(listContainers, comparatorCommandHandlers);
     }
+    indexCommandHelp.add(container);
+    profile(container);
   }
 
   /**
-   * Unregisters all handlers registered with the given listener instance.
+   * Unregisters all handlers registered with the given listener instance. This includes the
+   * CommandHandlers, and their '/help' entries.
    *
    * @param Listener The listener instance to unregister all handlers registered that identify with
    *     the listener instance.
    */
   public void unregister(Listener Listener) {
+    boolean changed = false;
     // Go through all registered Event Classes.
     for (Class<? extends Event> classEvent : new ArrayList<>(mapEventHandlers.keySet())) {
       // Grab the EventHandlers that handle the current Event.
-      List<EventHandlerContainer> listContainers = getEventHandlers(classEvent);
-      // Make sure that the list is defined to check EventHandlers.
-      if (listContainers == null) {
+      EventHandlerContainer[] containers = getEventHandlers(classEvent);
+      // Make sure that the array is defined to check EventHandlers.
+      if (containers == null) {
         continue;
       }
-      // Iterate through all entries for the Event.
-      Iterator<EventHandlerContainer> iterator = listContainers.iterator();
-      while (iterator.hasNext()) {
-        EventHandlerContainer container = iterator.next();
-        // If the container identifies with the Listener, then we remove it. It will
-        // be unregistered from the EventManager.
-        if (container.getContainer().equals(Listener)) {
-          iterator.remove();
+      // Collect all entries for the Event that do not identify with the Listener.
+      List<EventHandlerContainer> listContainers = new ArrayList<>(containers.length);
+      for (EventHandlerContainer container : containers) {
+        if (!container.getContainer().equals(Listener)) {
+          listContainers.add(container);
         }
       }
-      // If the list no longer contains any EventHandlers, then unregister the list.
-      if (listContainers.size() == 0) {
+      // If nothing is removed, the current array is kept.
+      if (listContainers.size() == containers.length) {
+        continue;
+      }
+      changed = true;
+      // If the array no longer contains any EventHandlers, then unregister the array.
+      if (listContainers.isEmpty()) {
         mapEventHandlers.remove(classEvent);
       }
+      // Replace the array with the remaining EventHandlers. The order is preserved.
+      else {
+        mapEventHandlers.put(
+            classEvent, listContainers.toArray(new EventHandlerContainer[listContainers.size()]));
+      }
+    }
+    if (changed) {
+      invalidateEventHandlers();
+    }
+    // Remove the CommandHandlers, so that unloaded plug-ins are no longer listed in '/help'.
+    for (CommandHandlerContainer container : trieCommandHandlers.unregister(Listener)) {
+      indexCommandHelp.remove(container);
+      if (Settings.getInstance().isDebug()) {
+        println("Unregistered CommandHandler: " + container.toString());
+      }
     }
   }
 
@@ -510,9 +936,9 @@ public class EventManager extends Manager {
       throw new IllegalArgumentException("EventHandler ID given is null or empty.");
     }
     EventHandlerContainer returned = null;
-    LinkedList<EventHandlerContainer> listContainers = mapEventHandlers.get(classEvent);
-    if (listContainers != null && listContainers.size() > 0) {
-      for (EventHandlerContainer container : listContainers) {
+    EventHandlerContainer[] containers = mapEventHandlers.get(classEvent);
+    if (containers != null) {
+      for (EventHandlerContainer container : containers) {
         if (container.getId().equals(id)) {
           returned = container;
           break;
@@ -522,20 +948,107 @@ public class EventManager extends Manager {
     return returned;
   }
 
+  /**
+   * (Private Method)
+   *
+   * <p>Attaches a profile to the EventHandlerContainer if the ProfileManager is enabled.
+   *
+   * @param container The EventHandlerContainer to profile.
+   */
+  private void profile(EventHandlerContainer container) {
+    ProfileManager managerProfile = SledgeHammer.instance.getProfileManager();
+    if (managerProfile != null) {
+      managerProfile.attach(container);
+    }
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Attaches a profile to the CommandHandlerContainer if the ProfileManager is enabled.
+   *
+   * @param container The CommandHandlerContainer to profile.
+   */
+  private void profile(CommandHandlerContainer container) {
+    ProfileManager managerProfile = SledgeHammer.instance.getProfileManager();
+    if (managerProfile != null) {
+      managerProfile.attach(container);
+    }
+  }
+
+  /** @return Returns a List of every registered EventHandlerContainer. */
+  public List<EventHandlerContainer> getAllEventHandlers() {
+    List<EventHandlerContainer> listContainers = new ArrayList<>();
+    for (EventHandlerContainer[] containers : mapEventHandlers.values()) {
+      Collections.addAll(listContainers, containers);
+    }
+    return listContainers;
+  }
+
+  /**
+   * Starts recording the Events and Commands handled to a EventJournal. If a EventJournal is
+   * already recording, it is stopped first.
+   *
+   * @param file The File to write the EventJournal to.
+   * @return Returns true if the EventJournal is recording.
+   */
+  public synchronized boolean startJournal(File file) {
+    stopJournal();
+    try {
+      journal = new EventJournal(file);
+      println("Recording Events to journal: " + file.getPath());
+      return true;
+    } catch (IOException e) {
+      errln("Failed to create the journal: " + file.getPath());
+      e.printStackTrace();
+      return false;
+    }
+  }
+
+  /** Stops recording the Events and Commands handled, if a EventJournal is recording. */
+  public synchronized void stopJournal() {
+    EventJournal journal = this.journal;
+    if (journal == null) {
+      return;
+    }
+    this.journal = null;
+    journal.close();
+    println(
+        "Stopped recording Events to journal: "
+            + journal.getFile().getPath()
+            + " ("
+            + journal.getRecordCount()
+            + " records)");
+  }
+
+  /** @return Returns the EventJournal recording. If none is recording, null is returned. */
+  public EventJournal getJournal() {
+    return this.journal;
+  }
+
+  /**
+   * @return Returns a List of every registered CommandHandlerContainer. Containers registered for
+   *     multiple commands are listed once.
+   */
+  public List<CommandHandlerContainer> getAllCommandHandlers() {
+    Set<CommandHandlerContainer> setContainers =
+        Collections.newSetFromMap(new IdentityHashMap<CommandHandlerContainer, Boolean>());
+    for (CommandHandlerContainer[] containers :
+        trieCommandHandlers.getCommandHandlers().values()) {
+      Collections.addAll(setContainers, containers);
+    }
+    return new ArrayList<>(setContainers);
+  }
+
   /** Resets the EventManager by removing all EventHandlers from the registry. */
   public void reset() {
-    for (Class<? extends Event> classEvent : mapEventHandlers.keySet()) {
-      LinkedList<EventHandlerContainer> listContainers = mapEventHandlers.get(classEvent);
-      if (listContainers != null) {
-        Iterator<EventHandlerContainer> iterator = listContainers.iterator();
-        while (iterator.hasNext()) {
-          EventHandlerContainer container = iterator.next();
-          container.setEnabled(false);
-          iterator.remove();
-        }
+    for (EventHandlerContainer[] containers : mapEventHandlers.values()) {
+      for (EventHandlerContainer container : containers) {
+        container.setEnabled(false);
       }
     }
     mapEventHandlers.clear();
+    invalidateEventHandlers();
   }
 
   public String printRegisteredHandlers() {
@@ -572,10 +1085,10 @@ public class EventManager extends Manager {
     for (Class<? extends Event> classEvent : listEvents) {
       String eventName = ClassUtil.getClassName(classEvent);
       StringBuilder stringBuilderEvent = new StringBuilder();
-      LinkedList<EventHandlerContainer> listContainers = mapEventHandlers.get(classEvent);
+      EventHandlerContainer[] containers = mapEventHandlers.get(classEvent);
       stringBuilderEvent.append(prefix).append("[").append(eventName).append("]");
       stringBuilderEvent.append(createBar('=', 165 - eventName.length())).append("[");
-      stringBuilderEvent.append(listContainers.size()).append("]\n");
+      stringBuilderEvent.append(containers.length).append("]\n");
       stringBuilderEvent.append(prefix).append("| ").append("\n");
       stringBuilderEvent.append(prefix).append("| ");
       stringBuilderEvent.append(sPriority).append(space(sPriority, 16));
@@ -583,7 +1096,7 @@ public class EventManager extends Manager {
       stringBuilderEvent.append(sMethod).append(space(sMethod, 40));
       stringBuilderEvent.append(sId).append(space(sId, 32)).append("\n");
       ;
-      for (EventHandlerContainer container : listContainers) {
+      for (EventHandlerContainer container : containers) {
         stringBuilderEvent.append(printEventHandler(container, prefix));
       }
       stringBuilder.append(stringBuilderEvent);
@@ -617,26 +1130,19 @@ public class EventManager extends Manager {
     stringBuilder.append(prefix).append("#").append(createBar(' ', 168)).append("#\n");
     stringBuilder.append(prefix).append(createBar('#', 170)).append('\n');
     // Go through each Event and print the diagnostic for it.
-    List<String> listCommands = new ArrayList<>(mapCommandHandlers.keySet());
-    Collections.sort(
-        listCommands,
-        new Comparator<String>() {
-          @Override
-          public int compare(String o1, String o2) {
-            return o1.compareTo(o2);
-          }
-        });
+    // The command paths are sorted by the trie.
+    Map<String, CommandHandlerContainer[]> mapCommands = trieCommandHandlers.getCommandHandlers();
     String sPriority = "Priority";
     String sListener = "Listener";
     String sMethod = "Method";
     String sId = "ID";
     String sPermission = "Permission";
-    for (String command : listCommands) {
+    for (String command : mapCommands.keySet()) {
       StringBuilder stringBuilderEvent = new StringBuilder();
-      LinkedList<CommandHandlerContainer> listContainers = mapCommandHandlers.get(command);
+      CommandHandlerContainer[] containers = mapCommands.get(command);
       stringBuilderEvent.append(prefix).append("[").append(command).append("]");
       stringBuilderEvent.append(createBar('=', 165 - command.length())).append("[");
-      stringBuilderEvent.append(listContainers.size()).append("]\n");
+      stringBuilderEvent.append(containers.length).append("]\n");
       stringBuilderEvent.append(prefix).append("| ").append("\n");
       stringBuilderEvent.append(prefix).append("| ");
       stringBuilderEvent.append(sPriority).append(space(sPriority, 16));
@@ -644,7 +1150,7 @@ public class EventManager extends Manager {
       stringBuilderEvent.append(sMethod).append(space(sMethod, 40));
       stringBuilderEvent.append(sId).append(space(sId, 32));
       stringBuilderEvent.append(sPermission).append("\n");
-      for (CommandHandlerContainer container : listContainers) {
+      for (CommandHandlerContainer container : containers) {
         stringBuilderEvent.append(printCommandHandler(container, prefix));
       }
       stringBuilder.append(stringBuilderEvent);
@@ -698,24 +1204,171 @@ public class EventManager extends Manager {
   }
 
   /**
-   * This returns the List of registered EventHandlers for a given Event to handle.
+   * (Private Method)
+   *
+   * @param containers The array of EventHandlerContainers to check.
+   * @param container The EventHandlerContainer to look for.
+   * @return Returns true if the array contains the EventHandlerContainer.
+   */
+  private static boolean contains(
+      EventHandlerContainer[] containers, EventHandlerContainer container) {
+    for (EventHandlerContainer next : containers) {
+      if (next.equals(container)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @return Returns true if the calling thread is handling a Event or Command.
+   */
+  private static boolean isHandling() {
+    return DEPTH_HANDLING.get()[0] > 0;
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Marks the calling thread as handling a Event or Command. Every call must be followed by a
+   * call to 'endHandling()'.
+   */
+  private static void beginHandling() {
+    DEPTH_HANDLING.get()[0]++;
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Marks the calling thread as done handling a Event or Command.
+   */
+  private static void endHandling() {
+    DEPTH_HANDLING.get()[0]--;
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Discards all resolved EventHandler arrays. They are resolved again the next time an Event
+   * of each class is handled.
+   */
+  private void invalidateEventHandlers() {
+    cacheEventHandlers =
+        new ClassValue<EventHandlerContainer[]>() {
+          @Override
+          protected EventHandlerContainer[] computeValue(Class<?> classEvent) {
+            return resolveEventHandlers(classEvent);
+          }
+        };
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Merges the EventHandlers registered for the given class and all of its super-classes that
+   * are Events into one array, ordered by priority.
+   *
+   * @param classEvent The Class of the Event to resolve.
+   * @return Returns the merged array of EventHandlers.
+   */
+  private EventHandlerContainer[] resolveEventHandlers(Class<?> classEvent) {
+    List<EventHandlerContainer> listContainers = new ArrayList<>();
+    Class<?> classNext = classEvent;
+    while (classNext != null && Event.class.isAssignableFrom(classNext)) {
+      EventHandlerContainer[] containers = mapEventHandlers.get(classNext);
+      if (containers != null) {
+        Collections.addAll(listContainers, containers);
+      }
+      classNext = classNext.getSuperclass();
+    }
+    if (listContainers.isEmpty()) {
+      return EMPTY_HANDLERS;
+    }
+    EventHandlerContainer[] containers =
+        listContainers.toArray(new EventHandlerContainer[listContainers.size()]);
+    // The sort is stable, so handlers of the same priority run from the most specific class.
+    Arrays.sort(containers, comparatorEventHandlers);
+    return containers;
+  }
+
+  /**
+   * This returns the array of EventHandlers invoked for a given Event class, including the
+   * EventHandlers registered for its super-classes. The result is cached until EventHandlers are
+   * registered or unregistered.
+   *
+   * <p>(Note: The array returned is shared and must not be modified)
+   *
+   * @param classEvent The Class of the Event that is handled.
+   * @return Returns an array of ordered EventHandlers that handle the Event given. If no listeners
+   *     are assigned to the event, an empty array is returned.
+   */
+  public EventHandlerContainer[] getResolvedEventHandlers(Class<? extends Event> classEvent) {
+    return cacheEventHandlers.get(classEvent);
+  }
+
+  /**
+   * This returns the array of registered EventHandlers for a given Event to handle.
+   *
+   * <p>(Note: The array returned is shared and must not be modified)
    *
    * @param event The Event that is handled.
-   * @return Returns a LinkedList of ordered EventHandlers that handle the Event given. If no
-   *     listeners are assigned to the event, null is returned.
+   * @return Returns an array of ordered EventHandlers that handle the Event given. If no listeners
+   *     are assigned to the event, null is returned.
    */
-  public LinkedList<EventHandlerContainer> getEventHandlers(Event event) {
+  public EventHandlerContainer[] getEventHandlers(Event event) {
     return getEventHandlers(event.getClass());
   }
 
   /**
-   * This returns the List of registered EventHandlers for a given Event to handle.
+   * This returns the array of registered EventHandlers for a given Event to handle.
+   *
+   * <p>(Note: The array returned is shared and must not be modified)
    *
    * @param classEvent The Class of the Event that is handled.
-   * @return Returns a LinkedList of ordered EventHandlers that handle the Event given. If no
-   *     listeners are assigned to the event, null is returned.
+   * @return Returns an array of ordered EventHandlers that handle the Event given. If no listeners
+   *     are assigned to the event, null is returned.
    */
-  public LinkedList<EventHandlerContainer> getEventHandlers(Class<? extends Event> classEvent) {
+  public EventHandlerContainer[] getEventHandlers(Class<? extends Event> classEvent) {
     return mapEventHandlers.get(classEvent);
   }
+
+  /**
+   * A joined monitor EventHandler invocation. The Throwable thrown by the EventHandler is kept, so
+   * that it can be handled on the thread that dispatched the Event.
+   *
+   * @author Jab
+   */
+  private static class MonitorTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final EventHandlerContainer container;
+    private final Event event;
+    private Throwable throwable;
+
+    /**
+     * Main constructor.
+     *
+     * @param container The monitor EventHandler to invoke.
+     * @param event The Event to handle.
+     */
+    MonitorTask(EventHandlerContainer container, Event event) {
+      this.container = container;
+      this.event = event;
+    }
+
+    @Override
+    protected void compute() {
+      beginHandling();
+      try {
+        container.handleEvent(event);
+      } catch (Throwable throwable) {
+        this.throwable = throwable;
+      } finally {
+        endHandling();
+      }
+    }
+  }
 }
@@ -0,0 +1,233 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+
+package sledgehammer.manager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import sledgehammer.Settings;
+import sledgehammer.util.LatencyHistogram;
+import sledgehammer.util.ManagedExecutor;
+
+/**
+ * This manager owns the thread pools used by Sledgehammer and its Plug-ins. Work that should not
+ * run on the server's update thread is submitted to one of the named executors, instead of creating
+ * new threads.
+ *
+ * <p>The default executors are:
+ *
+ * <p>- 'db': Database transactions.
+ *
+ * <p>- 'io': Blocking work, (E.G: files, AsyncTickTasks, asynchronous CommandHandlers).
+ *
+ * <p>- 'async-events': Asynchronous EventHandlers.
+ *
+ * <p>- 'discord': Messages sent to Discord.
+ *
+ * <p>- 'compute': CPU-bound work.
+ *
+ * <p>The usage of each executor can be viewed with '/sledgehammer executors'.
+ *
+ * @author Jab
+ */
+public class ExecutorManager extends Manager {
+
+  public static final String NAME = "ExecutorManager";
+
+  /** The executor for database transactions. */
+  public static final String DB = "db";
+  /** The executor for blocking work. */
+  public static final String IO = "io";
+  /** The executor for asynchronous EventHandlers. */
+  public static final String ASYNC_EVENTS = "async-events";
+  /** The executor for messages sent to Discord. */
+  public static final String DISCORD = "discord";
+  /** The executor for CPU-bound work. */
+  public static final String COMPUTE = "compute";
+
+  /** The default amount of tasks each executor can queue. */
+  public static final int DEFAULT_CAPACITY = 8192;
+  /** The maximum time in milliseconds to wait for each executor to finish when shutting down. */
+  private static final long SHUTDOWN_TIMEOUT = 5000L;
+
+  /** The registered executors, by name. */
+  private final Map<String, ManagedExecutor> mapExecutors = new LinkedHashMap<>();
+
+  @Override
+  public void onLoad(boolean debug) {
+    int processors = Runtime.getRuntime().availableProcessors();
+    // Each database worker holds a thread for as long as the database is connected.
+    create(DB, Settings.getInstance().getDatabaseWorkers() + 1, DEFAULT_CAPACITY);
+    create(IO, Math.max(2, Math.min(4, processors)), DEFAULT_CAPACITY);
+    create(ASYNC_EVENTS, Math.max(2, Math.min(4, processors / 2)), DEFAULT_CAPACITY);
+    create(DISCORD, 2, DEFAULT_CAPACITY);
+    create(COMPUTE, Math.max(1, processors - 1), DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Shuts down every executor except for the 'db' executor, and waits for the tasks already
+   * submitted to finish. The 'db' executor runs the database workers, and is shut down with
+   * 'shutDown(DB)' after the database has written what the other executors queued.
+   */
+  @Override
+  public void onShutDown() {
+    List<ManagedExecutor> listExecutors = getExecutors();
+    for (int index = listExecutors.size() - 1; index >= 0; index--) {
+      if (listExecutors.get(index).getName().equals(DB)) {
+        listExecutors.remove(index);
+      }
+    }
+    shutDown(listExecutors);
+  }
+
+  /**
+   * Shuts down a executor, and waits for the tasks already submitted to finish.
+   *
+   * @param name The name of the executor.
+   */
+  public void shutDown(String name) {
+    shutDown(Collections.singletonList(getExecutor(name)));
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Shuts down executors, and waits for the tasks already submitted to finish.
+   *
+   * @param listExecutors The executors to shut down.
+   */
+  private void shutDown(List<ManagedExecutor> listExecutors) {
+    // The executors stay registered. Tasks submitted after this are rejected with a
+    // RejectedExecutionException, and counted.
+    for (ManagedExecutor executor : listExecutors) {
+      executor.shutdown();
+    }
+    for (ManagedExecutor executor : listExecutors) {
+      try {
+        if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+          errln("The executor '" + executor.getName() + "' did not finish in time.");
+          executor.shutdownNow();
+        }
+      } catch (InterruptedException e) {
+        executor.shutdownNow();
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  /**
+   * Creates and registers a executor.
+   *
+   * <p>If the name given is null or empty, or a executor is already registered with the name, a
+   * IllegalArgumentException is thrown.
+   *
+   * @param name The name of the executor.
+   * @param threadCount The amount of threads in the executor.
+   * @param capacity The amount of tasks the executor can queue.
+   * @return Returns the executor created.
+   */
+  public ManagedExecutor create(String name, int threadCount, int capacity) {
+    if (name == null || name.isEmpty()) {
+      throw new IllegalArgumentException("Executor name given is null or empty.");
+    }
+    synchronized (mapExecutors) {
+      if (mapExecutors.containsKey(name)) {
+        throw new IllegalArgumentException("Executor is already registered: " + name);
+      }
+      ManagedExecutor executor = new ManagedExecutor(name, threadCount, capacity);
+      mapExecutors.put(name, executor);
+      return executor;
+    }
+  }
+
+  /**
+   * @param name The name of the executor.
+   * @return Returns the executor registered with the name given. If no executor is registered with
+   *     the name, a IllegalArgumentException is thrown.
+   */
+  public ManagedExecutor getExecutor(String name) {
+    ManagedExecutor executor;
+    synchronized (mapExecutors) {
+      executor = mapExecutors.get(name);
+    }
+    if (executor == null) {
+      throw new IllegalArgumentException("Executor is not registered: " + name);
+    }
+    return executor;
+  }
+
+  /** @return Returns a List of the registered executors. */
+  public List<ManagedExecutor> getExecutors() {
+    synchronized (mapExecutors) {
+      return new ArrayList<>(mapExecutors.values());
+    }
+  }
+
+  /** Clears the recorded metrics of every executor. */
+  public void reset() {
+    for (ManagedExecutor executor : getExecutors()) {
+      executor.resetMetrics();
+    }
+  }
+
+  /**
+   * @param separator The String to place between lines.
+   * @return Returns a readable report of the usage of every executor.
+   */
+  public String getReport(String separator) {
+    StringBuilder builder = new StringBuilder();
+    builder.append(
+        "Executors [active/threads, queued, overflowed, rejected, wait p99, run p50 / p99 / max]");
+    for (ManagedExecutor executor : getExecutors()) {
+      LatencyHistogram histogramRun = executor.getRunHistogram();
+      builder.append(separator).append(executor.getName()).append(": ");
+      builder.append(executor.getActiveCount()).append("/");
+      builder.append(executor.getMaximumPoolSize()).append(", ");
+      builder.append(executor.getQueueDepth()).append(", ");
+      builder.append(executor.getOverflowCount()).append(", ");
+      builder.append(executor.getRejectedCount()).append(", ");
+      builder.append(toMillis(executor.getWaitHistogram().getPercentile(99.0))).append(", ");
+      builder.append(toMillis(histogramRun.getPercentile(50.0))).append(" / ");
+      builder.append(toMillis(histogramRun.getPercentile(99.0))).append(" / ");
+      builder.append(toMillis(histogramRun.getMax()));
+    }
+    return builder.toString();
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param nanos The nanoseconds to convert.
+   * @return Returns the milliseconds, with 2 decimal places.
+   */
+  private static String toMillis(long nanos) {
+    return String.format("%.2f", nanos / 1000000.0);
+  }
+}
@@ -0,0 +1,474 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+
+package sledgehammer.manager;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import sledgehammer.Settings;
+import sledgehammer.plugin.Module;
+import sledgehammer.plugin.Plugin;
+import sledgehammer.util.LatencyHistogram;
+
+/**
+ * This manager monitors the health of the server's update tick.
+ *
+ * <p>The duration of every tick is recorded into latency histograms, broken down by the
+ * TaskManager, the PluginManager, each Plugin, and each Module. The histograms can be viewed with
+ * '/sledgehammer health'.
+ *
+ * <p>A watchdog thread watches the tick while it runs. When a tick takes longer than the configured
+ * threshold, the watchdog samples the stack of the update thread a few times while it is stalled.
+ * Once the tick ends, a lag-spike report with the breakdown of the tick and the stack samples is
+ * written to 'logs/'.
+ *
+ * @author Jab
+ */
+public class HealthManager extends Manager {
+
+  public static final String NAME = "HealthManager";
+  /** The directory lag-spike reports are written to. */
+  private static final File DIRECTORY_REPORTS = new File("logs");
+  /** The minimum time in milliseconds between two lag-spike reports. */
+  private static final long REPORT_INTERVAL = 10000L;
+  /** The time in milliseconds between two stack samples of the same tick. */
+  private static final long SAMPLE_INTERVAL = 20L;
+
+  private final LatencyHistogram histogramTick = new LatencyHistogram();
+  private final LatencyHistogram histogramTasks = new LatencyHistogram();
+  private final LatencyHistogram histogramPlugins = new LatencyHistogram();
+  /** The tick durations of each Plugin, by name. */
+  private final Map<String, Section> mapPluginSections = new ConcurrentHashMap<>();
+  /** The tick durations of each Module, by name. */
+  private final Map<String, Section> mapModuleSections = new ConcurrentHashMap<>();
+  /** The lag-spikes waiting for the watchdog to write their report. */
+  private final ConcurrentLinkedQueue<LagSpike> queueLagSpikes = new ConcurrentLinkedQueue<>();
+  /** The names of the sections of the current tick. Only used by the update thread. */
+  private final List<String> listSectionNames = new ArrayList<>();
+  /** The durations of the sections of the current tick. Only used by the update thread. */
+  private long[] sectionNanos = new long[16];
+  /** The thread running the server's update tick. */
+  private volatile Thread threadTick;
+  /** The time in nanoseconds the current tick started. 0 if the server is between ticks. */
+  private volatile long timeTickStarted;
+  /** Incremented at the start of every tick. */
+  private volatile long tickSequence;
+  private volatile boolean running;
+  private Thread threadWatchdog;
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public void onStart() {
+    if (running) {
+      return;
+    }
+    running = true;
+    threadWatchdog = new Thread(new Watchdog(), "SledgeHammer-Watchdog");
+    threadWatchdog.setDaemon(true);
+    threadWatchdog.start();
+  }
+
+  @Override
+  public void onShutDown() {
+    running = false;
+    if (threadWatchdog != null) {
+      LockSupport.unpark(threadWatchdog);
+      try {
+        threadWatchdog.join(1000L);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      threadWatchdog = null;
+    }
+  }
+
+  /** Marks the start of a tick. This is called from the update thread. */
+  public void onTickStarted() {
+    threadTick = Thread.currentThread();
+    listSectionNames.clear();
+    tickSequence++;
+    timeTickStarted = System.nanoTime();
+  }
+
+  /** Marks the end of a tick. This is called from the update thread. */
+  public void onTickEnded() {
+    long timeStarted = timeTickStarted;
+    if (timeStarted == 0L) {
+      return;
+    }
+    long nanos = System.nanoTime() - timeStarted;
+    timeTickStarted = 0L;
+    histogramTick.record(nanos);
+    long threshold = Settings.getInstance().getLagThreshold() * 1000000L;
+    if (threshold > 0L && nanos >= threshold) {
+      int size = listSectionNames.size();
+      queueLagSpikes.add(
+          new LagSpike(
+              tickSequence,
+              nanos,
+              listSectionNames.toArray(new String[size]),
+              Arrays.copyOf(sectionNanos, size)));
+      if (threadWatchdog != null) {
+        LockSupport.unpark(threadWatchdog);
+      }
+    }
+  }
+
+  /**
+   * Records the time the TaskManager took to update during the current tick.
+   *
+   * @param nanos The duration in nanoseconds.
+   */
+  public void recordTasks(long nanos) {
+    histogramTasks.record(nanos);
+    addSection(TaskManager.class.getSimpleName(), nanos);
+  }
+
+  /**
+   * Records the time the PluginManager took to update during the current tick.
+   *
+   * @param nanos The duration in nanoseconds.
+   */
+  public void recordPlugins(long nanos) {
+    histogramPlugins.record(nanos);
+    addSection(PluginManager.class.getSimpleName(), nanos);
+  }
+
+  /**
+   * Records the time a Plugin took to update its Modules during the current tick.
+   *
+   * @param plugin The Plugin updated.
+   * @param nanos The duration in nanoseconds.
+   */
+  public void recordPlugin(Plugin plugin, long nanos) {
+    Section section = getSection(mapPluginSections, "Plugin: ", plugin.getPluginName());
+    section.histogram.record(nanos);
+    addSection(section.name, nanos);
+  }
+
+  /**
+   * Records the time a Module took to update during the current tick.
+   *
+   * @param module The Module updated.
+   * @param nanos The duration in nanoseconds.
+   */
+  public void recordModule(Module module, long nanos) {
+    Section section = getSection(mapModuleSections, "Module: ", module.getModuleName());
+    section.histogram.record(nanos);
+    addSection(section.name, nanos);
+  }
+
+  /** Clears all recorded tick durations. */
+  public void reset() {
+    histogramTick.reset();
+    histogramTasks.reset();
+    histogramPlugins.reset();
+    mapPluginSections.clear();
+    mapModuleSections.clear();
+  }
+
+  /** @return Returns the histogram of the duration of every tick. */
+  public LatencyHistogram getTickHistogram() {
+    return this.histogramTick;
+  }
+
+  /**
+   * @param limit The maximum amount of Modules to list.
+   * @param separator The String to place between lines.
+   * @return Returns a readable report of the tick durations, with the Modules with the highest p99
+   *     latency.
+   */
+  public String getReport(int limit, String separator) {
+    StringBuilder builder = new StringBuilder();
+    builder.append("Tick health (lag threshold: ");
+    builder.append(Settings.getInstance().getLagThreshold()).append("ms) ");
+    builder.append("[ticks / p50 / p99 / max]");
+    appendLine(builder, separator, "Tick", histogramTick);
+    appendLine(builder, separator, "TaskManager", histogramTasks);
+    appendLine(builder, separator, "PluginManager", histogramPlugins);
+    List<Map.Entry<String, Section>> listEntries = new ArrayList<>(mapModuleSections.entrySet());
+    Collections.sort(
+        listEntries,
+        new Comparator<Map.Entry<String, Section>>() {
+          @Override
+          public int compare(Map.Entry<String, Section> o1, Map.Entry<String, Section> o2) {
+            long p99First = o1.getValue().histogram.getPercentile(99.0);
+            long p99Second = o2.getValue().histogram.getPercentile(99.0);
+            return p99First < p99Second ? 1 : (p99First == p99Second ? 0 : -1);
+          }
+        });
+    int count = 0;
+    for (Map.Entry<String, Section> entry : listEntries) {
+      if (count++ == limit) {
+        break;
+      }
+      appendLine(builder, separator, "  " + entry.getKey(), entry.getValue().histogram);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Adds a section to the breakdown of the current tick.
+   *
+   * @param name The name of the section.
+   * @param nanos The duration of the section in nanoseconds.
+   */
+  private void addSection(String name, long nanos) {
+    int index = listSectionNames.size();
+    if (index == sectionNanos.length) {
+      sectionNanos = Arrays.copyOf(sectionNanos, index * 2);
+    }
+    listSectionNames.add(name);
+    sectionNanos[index] = nanos;
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Writes a lag-spike report to 'logs/'.
+   *
+   * @param lagSpike The lag-spike to report.
+   * @param listSamples The stack samples of the update thread taken during the lag-spike.
+   */
+  private void write(LagSpike lagSpike, List<StackTraceElement[]> listSamples) {
+    if (!DIRECTORY_REPORTS.exists() && !DIRECTORY_REPORTS.mkdirs()) {
+      errln("Failed to create directory: " + DIRECTORY_REPORTS.getPath());
+      return;
+    }
+    Date date = new Date();
+    String fileName =
+        "sledgehammer-lag-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(date) + ".txt";
+    File file = new File(DIRECTORY_REPORTS, fileName);
+    PrintWriter writer = null;
+    try {
+      writer = new PrintWriter(new FileWriter(file, false));
+      writer.println("# Written: " + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(date));
+      writer.println("Tick #" + lagSpike.sequence + " took " + toMillis(lagSpike.nanos) + "ms.");
+      writer.println();
+      writer.println("Breakdown:");
+      for (int index = 0; index < lagSpike.sectionNames.length; index++) {
+        String name = lagSpike.sectionNames[index];
+        writer.println("  " + name + ": " + toMillis(lagSpike.sectionNanos[index]) + "ms");
+      }
+      writer.println();
+      if (listSamples.isEmpty()) {
+        writer.println("No stack samples. (The tick ended before the watchdog sampled it)");
+      } else {
+        writer.println("Stack samples of the update thread (" + listSamples.size() + "):");
+        // Group identical samples, so that the stalled frame stands out.
+        List<StackTraceElement[]> listDistinct = new ArrayList<>();
+        List<Integer> listCounts = new ArrayList<>();
+        for (StackTraceElement[] sample : listSamples) {
+          int index = 0;
+          while (index < listDistinct.size() && !Arrays.equals(listDistinct.get(index), sample)) {
+            index++;
+          }
+          if (index == listDistinct.size()) {
+            listDistinct.add(sample);
+            listCounts.add(0);
+          }
+          listCounts.set(index, listCounts.get(index) + 1);
+        }
+        for (int index = 0; index < listDistinct.size(); index++) {
+          writer.println();
+          writer.println("  Sampled " + listCounts.get(index) + " time(s):");
+          for (StackTraceElement element : listDistinct.get(index)) {
+            writer.println("    at " + element);
+          }
+        }
+      }
+      errln(
+          "Tick took "
+              + toMillis(lagSpike.nanos)
+              + "ms. Lag-spike report written to "
+              + file.getPath());
+    } catch (IOException e) {
+      errln("Failed to write the lag-spike report.");
+      e.printStackTrace();
+    } finally {
+      if (writer != null) {
+        writer.close();
+      }
+    }
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param map The Map of Sections.
+   * @param prefix The prefix of the name of the Section in the breakdown of a tick.
+   * @param name The name of the Plugin or Module.
+   * @return Returns the Section for the name. If the Section does not exist, it is created.
+   */
+  private static Section getSection(Map<String, Section> map, String prefix, String name) {
+    Section section = map.get(name);
+    if (section == null) {
+      section = new Section(prefix + name);
+      map.put(name, section);
+    }
+    return section;
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Appends a line with the percentiles of a histogram to a report.
+   */
+  private static void appendLine(
+      StringBuilder builder, String separator, String name, LatencyHistogram histogram) {
+    builder.append(separator).append(name).append(": ");
+    builder.append(histogram.getCount()).append(" / ");
+    builder.append(toMillis(histogram.getPercentile(50.0))).append(" / ");
+    builder.append(toMillis(histogram.getPercentile(99.0))).append(" / ");
+    builder.append(toMillis(histogram.getMax()));
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param nanos The nanoseconds to convert.
+   * @return Returns the milliseconds, with 3 decimal places.
+   */
+  private static String toMillis(long nanos) {
+    return String.format("%.3f", nanos / 1000000.0);
+  }
+
+  /**
+   * The tick durations of a Plugin or Module. The name of the Section in the breakdown of a tick is
+   * built once, instead of every tick.
+   */
+  private static class Section {
+
+    final String name;
+    final LatencyHistogram histogram = new LatencyHistogram();
+
+    Section(String name) {
+      this.name = name;
+    }
+  }
+
+  /** The breakdown of a tick that took longer than the lag threshold. */
+  private static class LagSpike {
+
+    final long sequence;
+    final long nanos;
+    final String[] sectionNames;
+    final long[] sectionNanos;
+
+    LagSpike(long sequence, long nanos, String[] sectionNames, long[] sectionNanos) {
+      this.sequence = sequence;
+      this.nanos = nanos;
+      this.sectionNames = sectionNames;
+      this.sectionNanos = sectionNanos;
+    }
+  }
+
+  /**
+   * The watchdog samples the stack of the update thread when a tick runs past the lag threshold,
+   * and writes the lag-spike reports. Reports are written on this thread so that the update thread
+   * does not wait on disk I/O.
+   */
+  private class Watchdog implements Runnable {
+
+    /** The tick that was last sampled. */
+    private long sequenceSampled = -1L;
+    /** The stack samples of the tick that was last sampled. */
+    private List<StackTraceElement[]> listSamples = new ArrayList<>();
+    /** The last time in milliseconds a report was written. */
+    private long timeLastReport = 0L;
+
+    @Override
+    public void run() {
+      while (running) {
+        Settings settings = Settings.getInstance();
+        long threshold = settings.getLagThreshold() * 1000000L;
+        // Check the tick a few times per threshold, so that stalls are sampled while they happen.
+        long interval = threshold > 0L ? Math.max(threshold / 4L, 5000000L) : 1000000000L;
+        LockSupport.parkNanos(interval);
+        if (threshold > 0L) {
+          sample(threshold, settings.getLagSamples());
+        }
+        LagSpike lagSpike;
+        while ((lagSpike = queueLagSpikes.poll()) != null) {
+          long timeNow = System.currentTimeMillis();
+          if (timeNow - timeLastReport < REPORT_INTERVAL) {
+            continue;
+          }
+          timeLastReport = timeNow;
+          List<StackTraceElement[]> listSamplesSpike =
+              lagSpike.sequence == sequenceSampled
+                  ? listSamples
+                  : Collections.<StackTraceElement[]>emptyList();
+          write(lagSpike, listSamplesSpike);
+        }
+      }
+    }
+
+    /**
+     * Samples the stack of the update thread if the current tick is past the threshold, and has not
+     * been sampled.
+     *
+     * @param threshold The lag threshold in nanoseconds.
+     * @param samples The amount of stack samples to take.
+     */
+    private void sample(long threshold, int samples) {
+      long timeStarted = timeTickStarted;
+      long sequence = tickSequence;
+      Thread thread = threadTick;
+      if (timeStarted == 0L || thread == null || sequence == sequenceSampled) {
+        return;
+      }
+      if (System.nanoTime() - timeStarted < threshold) {
+        return;
+      }
+      sequenceSampled = sequence;
+      listSamples = new ArrayList<>();
+      for (int index = 0; index < samples; index++) {
+        // Stop sampling once the tick ends.
+        if (tickSequence != sequence || timeTickStarted == 0L) {
+          break;
+        }
+        listSamples.add(thread.getStackTrace());
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(SAMPLE_INTERVAL));
+      }
+    }
+  }
+}
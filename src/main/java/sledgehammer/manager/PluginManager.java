@@ -125,8 +125,11 @@ public class PluginManager extends Manager {
     // Compare it with the last time the method has been called, calculating
     // the delta.
     long delta = timeNow - timeThen;
+    HealthManager managerHealth = SledgeHammer.instance.getHealthManager();
     for (Plugin plugin : getPlugins()) {
+      long timeStarted = System.nanoTime();
       plugin.updateModules(delta);
+      managerHealth.recordPlugin(plugin, System.nanoTime() - timeStarted);
     }
     // Store the current time to compare for the next cycle.
     timeThen = timeNow;
@@ -265,6 +268,21 @@ public class PluginManager extends Manager {
     return (T) returned;
   }
 
+  /**
+   * @param name The String name of the Module.
+   * @return Returns a registered Module with the given String name. If no Module has the name
+   *     given, null is returned.
+   */
+  public Module getModule(String name) {
+    for (Plugin plugin : getPlugins()) {
+      Module module = plugin.getModule(name);
+      if (module != null) {
+        return module;
+      }
+    }
+    return null;
+  }
+
   /**
    * Sends a SendLua Object storing the Lua code compiled.
    *
@@ -0,0 +1,350 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+
+package sledgehammer.manager;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+import sledgehammer.Settings;
+import sledgehammer.SledgeHammer;
+import sledgehammer.command.CommandHandlerContainer;
+import sledgehammer.event.EventHandlerContainer;
+import sledgehammer.util.ClassUtil;
+import sledgehammer.util.HandlerProfile;
+import sledgehammer.util.LatencyHistogram;
+
+/**
+ * This manager profiles the latency of EventHandlers and CommandHandlers.
+ *
+ * <p>While enabled, a HandlerProfile is attached to every registered handler container, and each
+ * invocation is recorded into its latency histogram. While disabled, no profile is attached, and
+ * the handler containers invoke handlers without recording anything.
+ *
+ * <p>Handlers with a p99 latency above the configured budget are reported, and optionally
+ * disabled. The profile is written periodically to 'logs/sledgehammer-profile.txt', and can be
+ * viewed with '/sledgehammer profile'.
+ *
+ * @author Jab
+ */
+public class ProfileManager extends Manager {
+
+  public static final String NAME = "ProfileManager";
+  /** The File the profile is written to. */
+  private static final File FILE_PROFILE = new File("logs/sledgehammer-profile.txt");
+  /** The interval in milliseconds to check handlers against the latency budget. */
+  private static final long CHECK_INTERVAL = 5000L;
+
+  /** Flag for whether or not handlers are profiled. */
+  private volatile boolean enabled;
+  /** The last time in milliseconds that handlers were checked against the latency budget. */
+  private long timeLastCheck;
+  /** The last time in milliseconds that the profile was written. */
+  private long timeLastWrite;
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public void onLoad(boolean debug) {
+    enabled = Settings.getInstance().isProfilerEnabled();
+    timeLastCheck = timeLastWrite = System.currentTimeMillis();
+  }
+
+  @Override
+  public void onStart() {
+    if (enabled) {
+      apply();
+    }
+  }
+
+  @Override
+  public void onUpdate() {
+    if (!enabled) {
+      return;
+    }
+    long timeNow = System.currentTimeMillis();
+    if (timeNow - timeLastCheck >= CHECK_INTERVAL) {
+      timeLastCheck = timeNow;
+      checkBudgets();
+    }
+    long dumpInterval = Settings.getInstance().getProfilerDumpInterval() * 1000L;
+    if (dumpInterval > 0L && timeNow - timeLastWrite >= dumpInterval) {
+      timeLastWrite = timeNow;
+      write();
+    }
+  }
+
+  @Override
+  public void onShutDown() {
+    if (enabled) {
+      write();
+    }
+  }
+
+  /** @return Returns true if handlers are profiled. */
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  /**
+   * Sets whether or not handlers are profiled. Recorded data is kept when profiling is disabled,
+   * and continued when profiling is enabled again.
+   *
+   * @param flag The flag to set.
+   */
+  public void setEnabled(boolean flag) {
+    if (this.enabled == flag) {
+      return;
+    }
+    this.enabled = flag;
+    apply();
+  }
+
+  /**
+   * Attaches a profile to a EventHandlerContainer, if profiling is enabled.
+   *
+   * @param container The container to profile.
+   */
+  public void attach(EventHandlerContainer container) {
+    if (enabled && container.getProfile() == null) {
+      container.setProfile(new HandlerProfile(container, getName(container)));
+    }
+  }
+
+  /**
+   * Attaches a profile to a CommandHandlerContainer, if profiling is enabled.
+   *
+   * @param container The container to profile.
+   */
+  public void attach(CommandHandlerContainer container) {
+    if (enabled && container.getProfile() == null) {
+      container.setProfile(new HandlerProfile(container, getName(container)));
+    }
+  }
+
+  /** Clears the recorded data of every handler. */
+  public void reset() {
+    for (HandlerProfile profile : getProfiles()) {
+      profile.reset();
+    }
+  }
+
+  /**
+   * @param limit The maximum amount of handlers to list.
+   * @param separator The String to separate lines with.
+   * @return Returns a table of the profiled handlers, sorted by p99 latency, slowest first.
+   */
+  public String getReport(int limit, String separator) {
+    List<HandlerProfile> listProfiles = getProfiles();
+    Collections.sort(
+        listProfiles,
+        new Comparator<HandlerProfile>() {
+          @Override
+          public int compare(HandlerProfile o1, HandlerProfile o2) {
+            long p99First = o1.getHistogram().getPercentile(99.0);
+            long p99Second = o2.getHistogram().getPercentile(99.0);
+            return p99First < p99Second ? 1 : (p99First == p99Second ? 0 : -1);
+          }
+        });
+    StringBuilder builder = new StringBuilder();
+    builder.append("Handler profile (").append(listProfiles.size()).append(" handlers, ");
+    builder.append("budget: ").append(Settings.getInstance().getProfilerHandlerBudget());
+    builder.append("ms) [calls / p50 / p99 / max / errors / cancels]");
+    int count = 0;
+    for (HandlerProfile profile : listProfiles) {
+      if (count++ == limit) {
+        break;
+      }
+      LatencyHistogram histogram = profile.getHistogram();
+      builder.append(separator);
+      builder.append(profile.isFlagged() ? "! " : "  ").append(profile.getName()).append(": ");
+      builder.append(histogram.getCount()).append(" / ");
+      builder.append(toMillis(histogram.getPercentile(50.0))).append(" / ");
+      builder.append(toMillis(histogram.getPercentile(99.0))).append(" / ");
+      builder.append(toMillis(histogram.getMax())).append(" / ");
+      builder.append(profile.getExceptions()).append(" / ");
+      builder.append(profile.getCancellations());
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Writes the profile of every handler to 'logs/sledgehammer-profile.txt'.
+   *
+   * @return Returns true if the profile is written.
+   */
+  public boolean write() {
+    PrintWriter writer = null;
+    try {
+      File directory = FILE_PROFILE.getParentFile();
+      if (directory != null && !directory.exists() && !directory.mkdirs()) {
+        errln("Failed to create directory: " + directory.getPath());
+        return false;
+      }
+      writer = new PrintWriter(new FileWriter(FILE_PROFILE, false));
+      String date = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
+      writer.println("# Written: " + date);
+      writer.println(getReport(Integer.MAX_VALUE, System.getProperty("line.separator")));
+      return true;
+    } catch (IOException e) {
+      errln("Failed to write the handler profile.");
+      e.printStackTrace();
+      return false;
+    } finally {
+      if (writer != null) {
+        writer.close();
+      }
+    }
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Reports handlers with a p99 latency above the budget, and disables them if configured to.
+   */
+  private void checkBudgets() {
+    Settings settings = Settings.getInstance();
+    long budget = settings.getProfilerHandlerBudget() * 1000000L;
+    long samplesMinimum = settings.getProfilerMinimumSamples();
+    for (HandlerProfile profile : getProfiles()) {
+      LatencyHistogram histogram = profile.getHistogram();
+      if (profile.isFlagged() || histogram.getCount() < samplesMinimum) {
+        continue;
+      }
+      long p99 = histogram.getPercentile(99.0);
+      if (p99 <= budget) {
+        continue;
+      }
+      profile.setFlagged(true);
+      errln(
+          "Handler exceeds the latency budget: "
+              + profile.getName()
+              + " (p99: "
+              + toMillis(p99)
+              + "ms, budget: "
+              + settings.getProfilerHandlerBudget()
+              + "ms)");
+      if (settings.isProfilerDisablingSlowHandlers()) {
+        Object container = profile.getContainer();
+        if (container instanceof EventHandlerContainer) {
+          ((EventHandlerContainer) container).setEnabled(false);
+        } else if (container instanceof CommandHandlerContainer) {
+          ((CommandHandlerContainer) container).setEnabled(false);
+        }
+        errln("The handler is now disabled.");
+      }
+    }
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Attaches or detaches profiles for every registered handler container.
+   */
+  private void apply() {
+    EventManager managerEvent = SledgeHammer.instance.getEventManager();
+    for (EventHandlerContainer container : managerEvent.getAllEventHandlers()) {
+      if (enabled) {
+        attach(container);
+      } else {
+        container.setProfile(null);
+      }
+    }
+    for (CommandHandlerContainer container : managerEvent.getAllCommandHandlers()) {
+      if (enabled) {
+        attach(container);
+      } else {
+        container.setProfile(null);
+      }
+    }
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @return Returns the profiles of every registered handler container that is profiled.
+   */
+  private List<HandlerProfile> getProfiles() {
+    List<HandlerProfile> listProfiles = new ArrayList<>();
+    EventManager managerEvent = SledgeHammer.instance.getEventManager();
+    for (EventHandlerContainer container : managerEvent.getAllEventHandlers()) {
+      if (container.getProfile() != null) {
+        listProfiles.add(container.getProfile());
+      }
+    }
+    for (CommandHandlerContainer container : managerEvent.getAllCommandHandlers()) {
+      if (container.getProfile() != null) {
+        listProfiles.add(container.getProfile());
+      }
+    }
+    return listProfiles;
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param container The container to name.
+   * @return Returns the display name of the EventHandler.
+   */
+  private static String getName(EventHandlerContainer container) {
+    return ClassUtil.getClassName(container.getContainer())
+        + "."
+        + container.getMethod().getName()
+        + "("
+        + container.getEventClass().getSimpleName()
+        + ")";
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param container The container to name.
+   * @return Returns the display name of the CommandHandler.
+   */
+  private static String getName(CommandHandlerContainer container) {
+    return "/"
+        + container.getCommands()[0]
+        + " "
+        + ClassUtil.getClassName(container.getContainer())
+        + "."
+        + container.getMethod().getName();
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param nanos The nanoseconds to convert.
+   * @return Returns the milliseconds, with 3 decimal places.
+   */
+  private static String toMillis(long nanos) {
+    return String.format("%.3f", nanos / 1000000.0);
+  }
+}
@@ -20,75 +20,212 @@
 
 package sledgehammer.manager;
 
+import sledgehammer.Settings;
 import sledgehammer.SledgeHammer;
 import sledgehammer.plugin.Module;
+import sledgehammer.util.ManagedExecutor;
+import sledgehammer.util.TaskMetrics;
 import sledgehammer.util.TickTask;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.RejectedExecutionException;
 
-/** */
+/**
+ * This manager runs the TickTasks registered by Modules.
+ *
+ * <p>TickTasks are scheduled on a hierarchical timing wheel. The wheel has 4 levels of 256 slots,
+ * each level covering 256 times the range of the level below it. A TickTask is placed in the slot
+ * for the tick it is due, on the lowest level that covers it. Each tick only runs the TickTasks in
+ * the current slot of the lowest level, and every 256 ticks the TickTasks of the next slot of a
+ * higher level are moved down. TickTasks that are not due cost nothing on a tick.
+ *
+ * <p>Wall-clock TickTasks, (registered with 'runAt()' or 'runEvery()'), are kept in a queue ordered
+ * by the time they are due. The clock is read once at the start of each tick, and every time-based
+ * decision in that tick uses the same reading, (See: 'getTime()').
+ *
+ * <p>Registering and cancelling a TickTask is O(1), (O(log n) to register wall-clock TickTasks).
+ * The TickTasks of a Module are also linked together, so all of them can be unregistered at once
+ * with 'unregister(Module)'.
+ *
+ * <p>Due TickTasks are ran round-robin across Modules, one TickTask per Module at a time, within
+ * the per-tick budget set in the config. When the budget runs out, the remaining due TickTasks are
+ * carried over to the next tick, so that one Module's burst of TickTasks cannot starve the others.
+ * The execution time, deferrals, and overruns of each Module are recorded in TaskMetrics.
+ *
+ * @author Jab
+ */
 public class TaskManager extends Manager {
 
-  private Map<Module, List<TickTask>> mapTickTasks;
-  Map<Module, List<TickTask>> mapTickTasksTemporary;
-  private List<TickTask> listTasksRemove;
+  /** The amount of bits for the slot index of each level. */
+  private static final int SLOT_BITS = 8;
+  /** The amount of slots for each level. */
+  private static final int SLOTS = 1 << SLOT_BITS;
+  /** The mask for the slot index of each level. */
+  private static final int SLOT_MASK = SLOTS - 1;
+  /** The amount of levels of the wheel. */
+  private static final int LEVELS = 4;
+
+  /** The slots of each level of the wheel. Each slot is the sentinel of a linked list. */
+  private Entry[][] wheel;
+  /** The entries for each registered TickTask. */
+  private Map<TickTask, Entry> mapEntries;
+  /** The TickTasks of each Module. */
+  private Map<Module, ModuleTasks> mapModuleTasks;
+  /** The Modules with due TickTasks, in round-robin order. */
+  private ArrayDeque<ModuleTasks> queueReady;
+  /** The amount of ticks where the TickTasks ran past the budget. */
+  private long overrunTicks;
+  /** The wall-clock entries, ordered by the time they are due. Cancelled entries are skipped. */
+  private PriorityQueue<Entry> queueTimed;
+  /** The next tick to process. */
+  private long tick;
+  /**
+   * The monotonic time in milliseconds since the TaskManager loaded, read at each tick. This is
+   * volatile so that it can be read without the lock of the TaskManager.
+   */
+  private volatile long time;
+  /** The monotonic time in nanoseconds when the TaskManager loaded. */
+  private long timeLoaded;
 
   @Override
   public void onLoad(boolean bDebug) {
-    mapTickTasks = new HashMap<>();
-    mapTickTasksTemporary = new HashMap<>();
-    listTasksRemove = new ArrayList<>();
+    wheel = new Entry[LEVELS][SLOTS];
+    for (int level = 0; level < LEVELS; level++) {
+      for (int slot = 0; slot < SLOTS; slot++) {
+        wheel[level][slot] = Entry.createSentinel();
+      }
+    }
+    mapEntries = new IdentityHashMap<>();
+    mapModuleTasks = new HashMap<>();
+    queueReady = new ArrayDeque<>();
+    queueTimed =
+        new PriorityQueue<>(
+            16,
+            new Comparator<Entry>() {
+              @Override
+              public int compare(Entry o1, Entry o2) {
+                return o1.timeDue < o2.timeDue ? -1 : (o1.timeDue == o2.timeDue ? 0 : 1);
+              }
+            });
+    tick = 0L;
+    time = 0L;
+    timeLoaded = System.nanoTime();
   }
 
   @Override
-  public void onUpdate() {
-    if (mapTickTasks.size() > 0) {
-      // Copy the current map to avoid concurrence.
-      mapTickTasksTemporary.putAll(mapTickTasks);
-      // Go through each Module List.
-      for (Module module : mapTickTasksTemporary.keySet()) {
-        List<TickTask> listTasks = mapTickTasksTemporary.get(module);
-        // Check if the Module has any registered TickTasks.
-        if (listTasks != null) {
-          // Create a temporary list to avoid concurrence.
-          List<TickTask> listTasksTemporary = new ArrayList<>(listTasks);
-          for (TickTask tickTask : listTasksTemporary) {
-            // If the result of 'runTask()' is false, the TickTask is complete, and needs to be
-            // removed.
-            boolean remove;
-            try {
-              remove = !tickTask.runTask();
-            } catch (Exception e) {
-              remove = true;
-              stackTrace(e);
-            }
-            if (remove) {
-              listTasksRemove.add(tickTask);
-            }
-          }
-          // Remove any TickTasks that are flagged for removal.
-          if (listTasksRemove.size() > 0) {
-            listTasks.removeAll(listTasksRemove);
-            listTasksRemove.clear();
-          }
-          if (listTasks.isEmpty()) {
-            mapTickTasks.remove(module);
-          }
+  public synchronized void onUpdate() {
+    time = (System.nanoTime() - timeLoaded) / 1000000L;
+    if (mapEntries.isEmpty()) {
+      queueTimed.clear();
+      tick++;
+      return;
+    }
+    int index = (int) (tick & SLOT_MASK);
+    // Every time a level wraps around, move the entries of the next slot of the level above down.
+    for (int level = 1; index == 0 && level < LEVELS; level++) {
+      index = (int) ((tick >>> (level * SLOT_BITS)) & SLOT_MASK);
+      cascade(wheel[level][index]);
+    }
+    // Move the due entries to the ready queues of their Modules, so that TickTasks scheduled while
+    // running are not ran this tick.
+    Entry slot = wheel[0][(int) (tick & SLOT_MASK)];
+    Entry entry;
+    while ((entry = slot.next) != slot) {
+      Entry.unlink(entry);
+      ready(entry);
+    }
+    while ((entry = queueTimed.peek()) != null && entry.timeDue <= time) {
+      queueTimed.poll();
+      if (!entry.removed) {
+        ready(entry);
+      }
+    }
+    tick++;
+    long budget = Settings.getInstance().getTaskBudget() * 1000000L;
+    long timeDeadline = System.nanoTime() + budget;
+    boolean overrun = false;
+    ModuleTasks tasks;
+    while ((tasks = queueReady.peek()) != null) {
+      if (budget > 0L && System.nanoTime() >= timeDeadline) {
+        break;
+      }
+      queueReady.poll();
+      entry = tasks.ready.next;
+      // The due TickTasks of the Module may have been cancelled.
+      if (entry == tasks.ready) {
+        tasks.queued = false;
+        continue;
+      }
+      Entry.unlink(entry);
+      // Rotate the Module to the back of the queue if it has more due TickTasks.
+      if (tasks.ready.next != tasks.ready) {
+        queueReady.add(tasks);
+      } else {
+        tasks.queued = false;
+      }
+      TickTask tickTask = entry.tickTask;
+      // If the result of 'execute()' is false, the TickTask is complete, and needs to be removed.
+      boolean keep;
+      long timeStarted = System.nanoTime();
+      try {
+        keep = tickTask.execute();
+      } catch (Exception e) {
+        keep = false;
+        stackTrace(e);
+      }
+      long timeEnded = System.nanoTime();
+      tasks.metrics.record(timeEnded - timeStarted);
+      if (budget > 0L && timeEnded > timeDeadline && !overrun) {
+        overrun = true;
+        overrunTicks++;
+        tasks.metrics.recordOverrun();
+      }
+      // The TickTask may have been cancelled while running.
+      if (entry.removed) {
+        continue;
+      }
+      if (keep && entry.timed) {
+        // Skip the missed executions if the TickTask is behind by more than a period.
+        long period = tickTask.getPeriodMillis();
+        entry.timeDue += period;
+        if (entry.timeDue <= time) {
+          entry.timeDue = time + period;
         }
+        queueTimed.add(entry);
+      } else if (keep) {
+        entry.tickDue = tick + tickTask.getDelayTicksTimer();
+        schedule(entry);
+      } else {
+        remove(entry);
+      }
+    }
+    // Record the TickTasks carried over to the next tick.
+    for (ModuleTasks tasksDeferred : queueReady) {
+      int count = 0;
+      for (entry = tasksDeferred.ready.next; entry != tasksDeferred.ready; entry = entry.next) {
+        count++;
       }
-      mapTickTasksTemporary.clear();
+      tasksDeferred.metrics.recordDeferrals(count);
     }
   }
 
   @Override
-  public void onShutDown() {
-    for (Module module : mapTickTasks.keySet()) {
+  public synchronized void onShutDown() {
+    for (Module module : new ArrayList<>(mapModuleTasks.keySet())) {
       unregister(module);
     }
-    mapTickTasks.clear();
+    mapModuleTasks.clear();
+    queueReady.clear();
+    queueTimed.clear();
+    mapEntries.clear();
   }
 
   @Override
@@ -96,13 +233,31 @@ public class TaskManager extends Manager {
     return "TaskManager";
   }
 
-  public void unregister(Module module) {
-    List<TickTask> listTickTasks = mapTickTasks.get(module);
-    if (listTickTasks != null) {
-      for (TickTask tickTask : listTickTasks) {
+  /**
+   * Cancels and unregisters all TickTasks registered by a Module, and discards its TaskMetrics.
+   *
+   * @param module The Module to unregister.
+   */
+  public synchronized void unregister(Module module) {
+    ModuleTasks tasks = mapModuleTasks.remove(module);
+    if (tasks == null) {
+      return;
+    }
+    if (tasks.queued) {
+      queueReady.remove(tasks);
+      tasks.queued = false;
+    }
+    List<TickTask> listTickTasks = new ArrayList<>();
+    for (Entry entry = tasks.entries.nextModule; entry != tasks.entries; entry = entry.nextModule) {
+      listTickTasks.add(entry.tickTask);
+    }
+    for (TickTask tickTask : listTickTasks) {
+      // Cancelling the TickTask removes it from the TaskManager.
+      if (tickTask.isAlive()) {
         tickTask.cancel();
+      } else {
+        cancel(tickTask);
       }
-      listTickTasks.clear();
     }
   }
 
@@ -113,14 +268,332 @@ public class TaskManager extends Manager {
    * @param module The Module to register the TickTask.
    * @param tickTask The TickTask to register.
    */
-  public void register(Module module, TickTask tickTask) {
-    List<TickTask> list = mapTickTasks.get(module);
-    if (list == null) {
-      list = new ArrayList<>();
-      mapTickTasks.put(module, list);
+  public synchronized void register(Module module, TickTask tickTask) {
+    Entry entry = createEntry(module, tickTask);
+    if (entry != null) {
+      entry.tickDue = tick + tickTask.getDelayTicks();
+      schedule(entry);
+    }
+  }
+
+  /**
+   * Registers a wall-clock TickTask to the TaskManager. If the TickTask is already registered, the
+   * TickTask will not be registered.
+   *
+   * @param module The Module to register the TickTask.
+   * @param tickTask The TickTask to register.
+   * @param delay The delay in milliseconds from the start of the current tick to execute the
+   *     TickTask the first time.
+   */
+  public synchronized void registerTimed(Module module, TickTask tickTask, long delay) {
+    Entry entry = createEntry(module, tickTask);
+    if (entry != null) {
+      entry.timed = true;
+      entry.timeDue = time + delay;
+      queueTimed.add(entry);
+    }
+  }
+
+  /**
+   * Removes a TickTask from the TaskManager. This is called when a TickTask is cancelled.
+   *
+   * @param tickTask The TickTask to remove.
+   */
+  public synchronized void cancel(TickTask tickTask) {
+    Entry entry = mapEntries.get(tickTask);
+    if (entry != null) {
+      Entry.unlink(entry);
+      remove(entry);
+    }
+  }
+
+  /**
+   * Runs a task on the 'io' executor shared by AsyncTickTasks. The task is never ran on the calling
+   * thread.
+   *
+   * @param runnable The task to run.
+   * @throws RejectedExecutionException Thrown if the executor is full or shut down. The task is not
+   *     ran.
+   */
+  public void executeAsync(Runnable runnable) {
+    getAsyncExecutor().execute(runnable);
+  }
+
+  /** @return Returns the amount of tasks waiting for a worker thread. */
+  public int getAsyncQueueSize() {
+    return getAsyncExecutor().getQueueDepth();
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @return Returns the executor running the bodies of AsyncTickTasks.
+   */
+  private ManagedExecutor getAsyncExecutor() {
+    return SledgeHammer.instance.getExecutorManager().getExecutor(ExecutorManager.IO);
+  }
+
+  /**
+   * @return Returns the monotonic time in milliseconds since the TaskManager loaded, read at the
+   *     start of the current tick. This is only useful to measure time passed, and is not related
+   *     to the wall-clock date.
+   */
+  public long getTime() {
+    return this.time;
+  }
+
+  /** @return Returns the amount of registered TickTasks. */
+  public synchronized int getTaskCount() {
+    return mapEntries.size();
+  }
+
+  /**
+   * @param module The Module registering TickTasks.
+   * @return Returns the TaskMetrics of the Module. If the Module has no registered TickTasks, null
+   *     is returned.
+   */
+  public synchronized TaskMetrics getMetrics(Module module) {
+    ModuleTasks tasks = mapModuleTasks.get(module);
+    return tasks != null ? tasks.metrics : null;
+  }
+
+  /** @return Returns the amount of ticks where the TickTasks ran past the budget. */
+  public synchronized long getOverrunTicks() {
+    return this.overrunTicks;
+  }
+
+  /** Clears the TaskMetrics of every Module, and the overrun count. */
+  public synchronized void resetMetrics() {
+    for (ModuleTasks tasks : mapModuleTasks.values()) {
+      tasks.metrics.reset();
+    }
+    overrunTicks = 0L;
+  }
+
+  /**
+   * @param limit The maximum amount of Modules to list.
+   * @param separator The String to place between lines.
+   * @return Returns a readable report of the TaskMetrics of the Modules with the most execution
+   *     time.
+   */
+  public synchronized String getReport(int limit, String separator) {
+    List<TaskMetrics> listMetrics = new ArrayList<>();
+    for (ModuleTasks tasks : mapModuleTasks.values()) {
+      listMetrics.add(tasks.metrics);
+    }
+    Collections.sort(
+        listMetrics,
+        new Comparator<TaskMetrics>() {
+          @Override
+          public int compare(TaskMetrics o1, TaskMetrics o2) {
+            long timeFirst = o1.getTotalNanos();
+            long timeSecond = o2.getTotalNanos();
+            return timeFirst < timeSecond ? 1 : (timeFirst == timeSecond ? 0 : -1);
+          }
+        });
+    StringBuilder builder = new StringBuilder();
+    builder.append("Tasks (").append(mapEntries.size()).append(" tasks, ");
+    builder.append("budget: ").append(Settings.getInstance().getTaskBudget()).append("ms, ");
+    builder.append("overrun ticks: ").append(overrunTicks).append(") ");
+    builder.append("[runs / total ms / max ms / deferrals / overruns]");
+    int count = 0;
+    for (TaskMetrics metrics : listMetrics) {
+      if (count++ == limit) {
+        break;
+      }
+      builder.append(separator);
+      builder.append(metrics.getName()).append(": ");
+      builder.append(metrics.getExecutions()).append(" / ");
+      builder.append(toMillis(metrics.getTotalNanos())).append(" / ");
+      builder.append(toMillis(metrics.getMaxNanos())).append(" / ");
+      builder.append(metrics.getDeferrals()).append(" / ");
+      builder.append(metrics.getOverruns());
+    }
+    return builder.toString();
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Creates and registers a entry for a TickTask, without placing it to run.
+   *
+   * @param module The Module registering the TickTask.
+   * @param tickTask The TickTask to register.
+   * @return Returns the entry created. If the TickTask is already registered, null is returned.
+   */
+  private Entry createEntry(Module module, TickTask tickTask) {
+    if (mapEntries.containsKey(tickTask)) {
+      return null;
+    }
+    ModuleTasks tasks = mapModuleTasks.get(module);
+    if (tasks == null) {
+      tasks = new ModuleTasks(module);
+      mapModuleTasks.put(module, tasks);
+    }
+    Entry entry = new Entry(tasks, tickTask);
+    mapEntries.put(tickTask, entry);
+    Entry.linkModule(tasks.entries, entry);
+    return entry;
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Adds a due entry to the ready queue of its Module, and queues the Module if needed.
+   *
+   * @param entry The due entry.
+   */
+  private void ready(Entry entry) {
+    ModuleTasks tasks = entry.tasks;
+    Entry.link(tasks.ready, entry);
+    if (!tasks.queued) {
+      tasks.queued = true;
+      queueReady.add(tasks);
+    }
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Places a entry in the slot for the tick it is due, on the lowest level that covers it.
+   *
+   * @param entry The entry to place.
+   */
+  private void schedule(Entry entry) {
+    long delta = entry.tickDue - tick;
+    if (delta < 0L) {
+      // Overdue entries run on the next processed tick.
+      entry.tickDue = tick;
+      delta = 0L;
+    }
+    int level = 0;
+    while (level < LEVELS - 1 && delta >= (1L << ((level + 1) * SLOT_BITS))) {
+      level++;
+    }
+    int index = (int) ((entry.tickDue >>> (level * SLOT_BITS)) & SLOT_MASK);
+    Entry.link(wheel[level][index], entry);
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Moves the entries of a slot of a higher level down to the levels that now cover them.
+   *
+   * @param slot The sentinel of the slot to move.
+   */
+  private void cascade(Entry slot) {
+    Entry entry;
+    while ((entry = slot.next) != slot) {
+      Entry.unlink(entry);
+      schedule(entry);
+    }
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Removes a entry that is no longer on the wheel from the registry.
+   *
+   * @param entry The entry to remove.
+   */
+  private void remove(Entry entry) {
+    entry.removed = true;
+    mapEntries.remove(entry.tickTask);
+    Entry.unlinkModule(entry);
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param nanos The time in nanoseconds.
+   * @return Returns the time in milliseconds, to 2 decimal places.
+   */
+  private static String toMillis(long nanos) {
+    return String.format("%.2f", nanos / 1000000.0D);
+  }
+
+  /** The registered TickTasks, due TickTasks, and TaskMetrics of a Module. */
+  private static class ModuleTasks {
+
+    final TaskMetrics metrics;
+    /** The sentinel of the linked list of all entries of the Module. */
+    final Entry entries = Entry.createSentinel();
+    /** The sentinel of the linked list of due entries of the Module. */
+    final Entry ready = Entry.createSentinel();
+    /** Flag for when the Module is in the ready queue. */
+    boolean queued;
+
+    ModuleTasks(Module module) {
+      this.metrics = new TaskMetrics(module.getName());
     }
-    if (!list.contains(tickTask)) {
-      list.add(tickTask);
+  }
+
+  /**
+   * A registered TickTask. Entries are linked in two circular lists: the slot of the wheel or the
+   * ready queue they are placed in, and the TickTasks of their Module.
+   */
+  private static class Entry {
+
+    final ModuleTasks tasks;
+    final TickTask tickTask;
+    /** The tick the TickTask is due to execute. */
+    long tickDue;
+    /** The monotonic time in milliseconds a wall-clock TickTask is due to execute. */
+    long timeDue;
+    /** Flag for when the TickTask is scheduled on the wall-clock instead of in ticks. */
+    boolean timed;
+    /** Flag for when the entry is removed from the TaskManager. */
+    boolean removed;
+    Entry prev;
+    Entry next;
+    Entry prevModule;
+    Entry nextModule;
+
+    Entry(ModuleTasks tasks, TickTask tickTask) {
+      this.tasks = tasks;
+      this.tickTask = tickTask;
+    }
+
+    /** @return Returns a new empty list. */
+    static Entry createSentinel() {
+      Entry sentinel = new Entry(null, null);
+      sentinel.prev = sentinel.next = sentinel;
+      sentinel.prevModule = sentinel.nextModule = sentinel;
+      return sentinel;
+    }
+
+    /** Adds a entry to the end of a slot list. */
+    static void link(Entry sentinel, Entry entry) {
+      entry.prev = sentinel.prev;
+      entry.next = sentinel;
+      sentinel.prev.next = entry;
+      sentinel.prev = entry;
+    }
+
+    /** Removes a entry from its slot list, if it is in one. */
+    static void unlink(Entry entry) {
+      if (entry.next != null) {
+        entry.prev.next = entry.next;
+        entry.next.prev = entry.prev;
+        entry.prev = entry.next = null;
+      }
+    }
+
+    /** Adds a entry to the end of a Module list. */
+    static void linkModule(Entry sentinel, Entry entry) {
+      entry.prevModule = sentinel.prevModule;
+      entry.nextModule = sentinel;
+      sentinel.prevModule.nextModule = entry;
+      sentinel.prevModule = entry;
+    }
+
+    /** Removes a entry from its Module list, if it is in one. */
+    static void unlinkModule(Entry entry) {
+      if (entry.nextModule != null) {
+        entry.prevModule.nextModule = entry.nextModule;
+        entry.nextModule.prevModule = entry.prevModule;
+        entry.prevModule = entry.nextModule = null;
+      }
     }
   }
 }
@@ -20,16 +20,30 @@
 
 package sledgehammer.module.core;
 
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
 import java.util.Map;
 
 import sledgehammer.SledgeHammer;
 import sledgehammer.annotations.CommandHandler;
 import sledgehammer.enums.LogType;
 import sledgehammer.enums.Result;
+import sledgehammer.event.EventJournal;
 import sledgehammer.command.CommandListener;
 import sledgehammer.language.Language;
 import sledgehammer.language.LanguagePackage;
 import sledgehammer.lua.core.Player;
+import sledgehammer.database.MongoDatabase;
+import sledgehammer.database.transaction.MongoBulkWriter;
+import sledgehammer.database.transaction.MongoDatabaseTransactionWorker;
+import sledgehammer.database.transaction.MongoTransactionCoalescer;
+import sledgehammer.manager.EventManager;
+import sledgehammer.manager.ExecutorManager;
+import sledgehammer.manager.HealthManager;
+import sledgehammer.manager.ProfileManager;
+import sledgehammer.manager.TaskManager;
 import sledgehammer.util.ChatTags;
 import sledgehammer.command.Command;
 import sledgehammer.util.Response;
@@ -136,6 +150,252 @@ public class CoreCommandListener extends CommandListener {
         username + " looked up properties for player \"" + playerProperties.getUsername() + "\".");
   }
 
+  @CommandHandler(
+    command = "sledgehammer profile",
+    permission = "core.command.sledgehammer.profile"
+  )
+  private void onCommandSledgehammerProfile(Command c, Response r) {
+    ProfileManager managerProfile = SledgeHammer.instance.getProfileManager();
+    // The first argument is 'profile'.
+    String option = c.getArgumentCount() > 1 ? c.getArgument(1).toLowerCase() : "";
+    switch (option) {
+      case "on":
+        managerProfile.setEnabled(true);
+        r.set(Result.SUCCESS, "Handler profiling enabled.");
+        r.log(LogType.INFO, c.getPlayer().getUsername() + " enabled handler profiling.");
+        return;
+      case "off":
+        managerProfile.setEnabled(false);
+        r.set(Result.SUCCESS, "Handler profiling disabled.");
+        r.log(LogType.INFO, c.getPlayer().getUsername() + " disabled handler profiling.");
+        return;
+      case "reset":
+        managerProfile.reset();
+        r.set(Result.SUCCESS, "Handler profile reset.");
+        return;
+      case "write":
+        if (managerProfile.write()) {
+          r.set(Result.SUCCESS, "Handler profile written to logs/sledgehammer-profile.txt.");
+        } else {
+          r.set(Result.FAILURE, "Failed to write the handler profile.");
+        }
+        return;
+      case "":
+        if (!managerProfile.isEnabled()) {
+          r.set(
+              Result.FAILURE,
+              "Handler profiling is disabled. Use '/sledgehammer profile on' to enable it.");
+          return;
+        }
+        r.set(Result.SUCCESS, managerProfile.getReport(10, ChatTags.NEW_LINE + " "));
+        return;
+      default:
+        r.set(
+            Result.FAILURE,
+            getLanguagePackage()
+                .getString("tooltip_command_sledgehammer_profile", c.getPlayer().getLanguage()));
+    }
+  }
+
+  @CommandHandler(command = "sledgehammer tasks", permission = "core.command.sledgehammer.tasks")
+  private void onCommandSledgehammerTasks(Command c, Response r) {
+    TaskManager managerTask = SledgeHammer.instance.getTaskManager();
+    // The first argument is 'tasks'.
+    String option = c.getArgumentCount() > 1 ? c.getArgument(1).toLowerCase() : "";
+    switch (option) {
+      case "reset":
+        managerTask.resetMetrics();
+        r.set(Result.SUCCESS, "Task metrics reset.");
+        return;
+      case "":
+        r.set(Result.SUCCESS, managerTask.getReport(10, ChatTags.NEW_LINE + " "));
+        return;
+      default:
+        r.set(
+            Result.FAILURE,
+            getLanguagePackage()
+                .getString("tooltip_command_sledgehammer_tasks", c.getPlayer().getLanguage()));
+    }
+  }
+
+  @CommandHandler(command = "sledgehammer health", permission = "core.command.sledgehammer.health")
+  private void onCommandSledgehammerHealth(Command c, Response r) {
+    HealthManager managerHealth = SledgeHammer.instance.getHealthManager();
+    // The first argument is 'health'.
+    String option = c.getArgumentCount() > 1 ? c.getArgument(1).toLowerCase() : "";
+    switch (option) {
+      case "reset":
+        managerHealth.reset();
+        r.set(Result.SUCCESS, "Tick health reset.");
+        return;
+      case "":
+        r.set(Result.SUCCESS, managerHealth.getReport(10, ChatTags.NEW_LINE + " "));
+        return;
+      default:
+        r.set(
+            Result.FAILURE,
+            getLanguagePackage()
+                .getString("tooltip_command_sledgehammer_health", c.getPlayer().getLanguage()));
+    }
+  }
+
+  @CommandHandler(
+    command = "sledgehammer journal",
+    permission = "core.command.sledgehammer.journal"
+  )
+  private void onCommandSledgehammerJournal(Command c, Response r) {
+    EventManager managerEvent = SledgeHammer.instance.getEventManager();
+    // The first argument is 'journal'.
+    String option = c.getArgumentCount() > 1 ? c.getArgument(1).toLowerCase() : "";
+    EventJournal journal = managerEvent.getJournal();
+    switch (option) {
+      case "start":
+        String date = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        File file = new File("logs", "sledgehammer-journal-" + date + ".shj");
+        if (managerEvent.startJournal(file)) {
+          r.set(Result.SUCCESS, "Recording journal to " + file.getPath() + ".");
+          r.log(LogType.INFO, c.getPlayer().getUsername() + " started recording a journal.");
+        } else {
+          r.set(Result.FAILURE, "Failed to create the journal.");
+        }
+        return;
+      case "stop":
+        if (journal == null) {
+          r.set(Result.FAILURE, "No journal is recording.");
+          return;
+        }
+        managerEvent.stopJournal();
+        r.set(
+            Result.SUCCESS,
+            "Stopped recording journal. ("
+                + journal.getRecordCount()
+                + " records, "
+                + journal.getUnsupportedCount()
+                + " Events without a codec)");
+        r.log(LogType.INFO, c.getPlayer().getUsername() + " stopped recording a journal.");
+        return;
+      case "":
+        if (journal == null) {
+          r.set(Result.SUCCESS, "No journal is recording.");
+        } else {
+          r.set(
+              Result.SUCCESS,
+              "Recording journal to "
+                  + journal.getFile().getPath()
+                  + ". ("
+                  + journal.getRecordCount()
+                  + " records)");
+        }
+        return;
+      default:
+        r.set(
+            Result.FAILURE,
+            getLanguagePackage()
+                .getString("tooltip_command_sledgehammer_journal", c.getPlayer().getLanguage()));
+    }
+  }
+
+  @CommandHandler(
+    command = "sledgehammer executors",
+    permission = "core.command.sledgehammer.executors"
+  )
+  private void onCommandSledgehammerExecutors(Command c, Response r) {
+    ExecutorManager managerExecutor = SledgeHammer.instance.getExecutorManager();
+    // The first argument is 'executors'.
+    String option = c.getArgumentCount() > 1 ? c.getArgument(1).toLowerCase() : "";
+    switch (option) {
+      case "reset":
+        managerExecutor.reset();
+        r.set(Result.SUCCESS, "Executor metrics reset.");
+        return;
+      case "":
+        r.set(Result.SUCCESS, managerExecutor.getReport(ChatTags.NEW_LINE + " "));
+        return;
+      default:
+        r.set(
+            Result.FAILURE,
+            getLanguagePackage()
+                .getString(
+                    "tooltip_command_sledgehammer_executors", c.getPlayer().getLanguage()));
+    }
+  }
+
+  @CommandHandler(
+    command = "sledgehammer database",
+    permission = "core.command.sledgehammer.database"
+  )
+  private void onCommandSledgehammerDatabase(Command c, Response r) {
+    MongoDatabase database = SledgeHammer.instance.getDatabase();
+    List<MongoDatabaseTransactionWorker> listWorkers = database.getWorkers();
+    // The first argument is 'database'.
+    String option = c.getArgumentCount() > 1 ? c.getArgument(1).toLowerCase() : "";
+    switch (option) {
+      case "reset":
+        for (MongoDatabaseTransactionWorker worker : listWorkers) {
+          worker.getCoalescer().resetMetrics();
+          worker.getWriter().resetMetrics();
+        }
+        r.set(Result.SUCCESS, "Database metrics reset.");
+        return;
+      case "":
+        long received = 0L;
+        long written = 0L;
+        long roundTrips = 0L;
+        long operations = 0L;
+        long failures = 0L;
+        StringBuilder queued = new StringBuilder();
+        for (MongoDatabaseTransactionWorker worker : listWorkers) {
+          MongoTransactionCoalescer coalescer = worker.getCoalescer();
+          MongoBulkWriter writer = worker.getWriter();
+          received += coalescer.getReceivedCount();
+          written += coalescer.getWrittenCount();
+          roundTrips += writer.getRoundTrips();
+          operations += writer.getOperations();
+          failures += writer.getFailures();
+          if (queued.length() > 0) {
+            queued.append(", ");
+          }
+          queued.append(worker.getQueue().size());
+        }
+        String separator = ChatTags.NEW_LINE + " ";
+        r.set(
+            Result.SUCCESS,
+            "Database transactions"
+                + separator
+                + "Workers: "
+                + listWorkers.size()
+                + separator
+                + "Queued: "
+                + database.getTransactionQueueSize()
+                + " ("
+                + queued
+                + ")"
+                + separator
+                + "Received: "
+                + received
+                + separator
+                + "Written: "
+                + written
+                + separator
+                + "Coalescing ratio: "
+                + String.format("%.2f", written == 0L ? 1.0 : (double) received / written)
+                + separator
+                + "Round trips: "
+                + roundTrips
+                + " ("
+                + operations
+                + " operations, "
+                + failures
+                + " failed)");
+        return;
+      default:
+        r.set(
+            Result.FAILURE,
+            getLanguagePackage()
+                .getString("tooltip_command_sledgehammer_database", c.getPlayer().getLanguage()));
+    }
+  }
+
   public ModuleCore getModule() {
     return this.module;
   }
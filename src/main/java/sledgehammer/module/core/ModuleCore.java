@@ -26,6 +26,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import com.mongodb.DBCursor;
 
@@ -75,8 +76,6 @@ public class ModuleCore extends Module {
   private MongoCollection collectionPeriodicMessages;
   private SendPlayer sendPlayer;
   private LanguagePackage lang;
-  private long timeThenPeriodicMessages = 0L;
-  private long timeThenCheckAccountExpire = 0L;
   private long delayCheckAccountExpire = LONG_DAY;
   private SendLua sendLuaCore;
   private File fileCoreModule;
@@ -99,65 +98,75 @@ public class ModuleCore extends Module {
   }
 
   @Override
-  public void onUpdate(long delta) {
-    int delayPeriodicMessages = 60000;
-    // Grab the current time.
-    long timeNow = System.currentTimeMillis();
-    // If it has been a minute since the last check.
-    if (timeNow - timeThenPeriodicMessages > delayPeriodicMessages) {
-      // Go through each PeriodicMessage instance.
-      for (MongoPeriodicMessage message : listPeriodicMessages) {
-        // Update the list.
-        message.update();
-      }
-      // Set the time to reset the delta.
-      timeThenPeriodicMessages = timeNow;
-    }
-    int days = SledgeHammer.instance.getSettings().getAccountIdleExpireTime();
-    if (days > 0) {
-      if (timeNow - timeThenCheckAccountExpire > delayCheckAccountExpire) {
-        println("Checking for expired accounts (Inactive for over " + days + " days)");
-        List<String> exclusions = SledgeHammer.instance.getSettings().getExcludedIdleAccounts();
-        Map<String, Long> mapPlayers = SledgeHammer.instance.getDatabase().getAllMongoPlayers();
-        for (String username : mapPlayers.keySet()) {
-          boolean skip = false;
-          if (exclusions != null) {
-            for (String ex : exclusions) {
-              if (username.equalsIgnoreCase(ex)) {
-                skip = true;
-                break;
-              }
-            }
+  public void onStart() {
+    register(banCommandListener);
+    register(commandListener);
+    register(eventListener);
+    (new TickTask() {
+          @Override
+          public boolean run() {
+            updatePeriodicMessages();
+            return true;
           }
-          if (skip) {
-            continue;
+        })
+        .runEvery(this, LONG_MINUTE, TimeUnit.MILLISECONDS);
+    (new TickTask() {
+          @Override
+          public boolean run() {
+            removeExpiredAccounts();
+            return true;
           }
-          long lastConnection = mapPlayers.get(username);
-          long d = timeNow - lastConnection;
-          if (d > (LONG_DAY * days)) {
-            // delete account.
-            println(
-                "Account: \""
-                    + username
-                    + "\" has an expired account. ("
-                    + (d / LONG_DAY)
-                    + " days)");
-            ServerWorldDatabase.instance.removePlayer(username);
+        })
+        .runEvery(this, delayCheckAccountExpire, TimeUnit.MILLISECONDS);
+  }
+
+  /** Updates the PeriodicMessages. This is ran every minute. */
+  private void updatePeriodicMessages() {
+    // Go through each PeriodicMessage instance.
+    for (MongoPeriodicMessage message : listPeriodicMessages) {
+      // Update the list.
+      message.update();
+    }
+  }
+
+  /** Removes the accounts that have been inactive for too long. This is ran every day. */
+  private void removeExpiredAccounts() {
+    int days = SledgeHammer.instance.getSettings().getAccountIdleExpireTime();
+    if (days <= 0) {
+      return;
+    }
+    long timeNow = System.currentTimeMillis();
+    println("Checking for expired accounts (Inactive for over " + days + " days)");
+    List<String> exclusions = SledgeHammer.instance.getSettings().getExcludedIdleAccounts();
+    Map<String, Long> mapPlayers = SledgeHammer.instance.getDatabase().getAllMongoPlayers();
+    for (String username : mapPlayers.keySet()) {
+      boolean skip = false;
+      if (exclusions != null) {
+        for (String ex : exclusions) {
+          if (username.equalsIgnoreCase(ex)) {
+            skip = true;
+            break;
           }
         }
-        // Set the time to reset the delta.
-        timeThenCheckAccountExpire = timeNow;
+      }
+      if (skip) {
+        continue;
+      }
+      long lastConnection = mapPlayers.get(username);
+      long d = timeNow - lastConnection;
+      if (d > (LONG_DAY * days)) {
+        // delete account.
+        println(
+            "Account: \""
+                + username
+                + "\" has an expired account. ("
+                + (d / LONG_DAY)
+                + " days)");
+        ServerWorldDatabase.instance.removePlayer(username);
       }
     }
   }
 
-  @Override
-  public void onStart() {
-    register(banCommandListener);
-    register(commandListener);
-    register(eventListener);
-  }
-
   @Override
   public void onStop() {
     for (MongoPeriodicMessage message : listPeriodicMessages) {
@@ -229,32 +238,59 @@ public class ModuleCore extends Module {
       } else {
         channelId = getChatModule().getGlobalChatChannel().getUniqueId();
       }
-      Command command = new Command(raw);
+      final Command command = new Command(raw);
       command.setChannelId(channelId);
       command.setPlayer(event.getPlayer());
       command.debugPrint();
-      CommandEvent _event = SledgeHammer.instance.handleCommand(command);
-      ModuleChat moduleChat = getChatModule();
-      Player commander = event.getPlayer();
-      if (_event.isHandled()) {
-        ChatMessage message = getChatModule().createChatMessage(_event.getResponse().getResponse());
-        message.setPrintedTimestamp(false);
-        message.setOrigin(ChatMessage.ORIGIN_SERVER, false);
-        message.setChannelId(channelId, false);
-        commander.sendChatMessage(message);
-      } else {
-        ChatMessage message = createChatMessage("Unknown command: " + command.getCommand());
-        message.setPrintedTimestamp(false);
-        message.setOrigin(ChatMessage.ORIGIN_SERVER, false);
-        // Checks if the origin Channel is available.
-        // This can sometimes be affected by the command fired.
-        ChatChannel channel = getChatModule().getChatChannel(channelId);
-        if (channel == null) {
-          channel = moduleChat.getGlobalChatChannel();
-        }
-        message.setChannelId(channel.getUniqueId(), false);
-        commander.sendChatMessage(message);
+      final CommandEvent _event = SledgeHammer.instance.handleCommand(command);
+      final Player commander = event.getPlayer();
+      final UUID channelIdFinal = channelId;
+      // Asynchronous CommandHandlers complete the Response on a later tick.
+      _event.whenComplete(
+          new Runnable() {
+            @Override
+            public void run() {
+              sendCommandResponse(commander, command, _event, channelIdFinal);
+            }
+          });
+    }
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Sends the Response of a handled Command to the commanding Player.
+   *
+   * @param commander The Player that sent the Command.
+   * @param command The Command handled.
+   * @param _event The CommandEvent result.
+   * @param channelId The Unique ID of the ChatChannel the Command was sent from.
+   */
+  private void sendCommandResponse(
+      Player commander, Command command, CommandEvent _event, UUID channelId) {
+    // The Player may have left while a asynchronous CommandHandler was running.
+    if (!commander.isConnected()) {
+      return;
+    }
+    ModuleChat moduleChat = getChatModule();
+    if (_event.isHandled()) {
+      ChatMessage message = getChatModule().createChatMessage(_event.getResponse().getResponse());
+      message.setPrintedTimestamp(false);
+      message.setOrigin(ChatMessage.ORIGIN_SERVER, false);
+      message.setChannelId(channelId, false);
+      commander.sendChatMessage(message);
+    } else {
+      ChatMessage message = createChatMessage("Unknown command: " + command.getCommand());
+      message.setPrintedTimestamp(false);
+      message.setOrigin(ChatMessage.ORIGIN_SERVER, false);
+      // Checks if the origin Channel is available.
+      // This can sometimes be affected by the command fired.
+      ChatChannel channel = getChatModule().getChatChannel(channelId);
+      if (channel == null) {
+        channel = moduleChat.getGlobalChatChannel();
       }
+      message.setChannelId(channel.getUniqueId(), false);
+      commander.sendChatMessage(message);
     }
   }
 
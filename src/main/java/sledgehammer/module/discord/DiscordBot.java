@@ -44,6 +44,7 @@ import de.btobastian.javacord.entities.permissions.impl.ImplPermissionsBuilder;
 import de.btobastian.javacord.listener.message.MessageCreateListener;
 import sledgehammer.lua.chat.ChatChannel;
 import sledgehammer.lua.chat.ChatMessage;
+import sledgehammer.manager.ExecutorManager;
 import sledgehammer.plugin.Module;
 import sledgehammer.util.ChatTags;
 import sledgehammer.util.Printable;
@@ -123,7 +124,7 @@ public class DiscordBot extends Printable
 
   public void disconnect() {
     // Stops the dispatcher.
-    if (dispatcher != null && dispatcher.isAlive()) {
+    if (dispatcher != null) {
       dispatcher.setInactive();
     }
     api.disconnect();
@@ -221,9 +222,9 @@ public class DiscordBot extends Printable
     }
     // Set connection flag to true.
     connected = true;
-    // Initialize and run the Dispatcher.
+    // Initialize and run the Dispatcher on the Discord executor.
     dispatcher = new DiscordMessageDispatcher(this);
-    dispatcher.start();
+    module.getExecutor(ExecutorManager.DISCORD).execute(dispatcher);
     api.registerListener(this);
   }
 
@@ -35,10 +35,10 @@ import sledgehammer.interfaces.Listener;
 import sledgehammer.lua.chat.ChatChannel;
 import sledgehammer.lua.chat.ChatMessage;
 import sledgehammer.lua.core.Player;
+import sledgehammer.manager.ExecutorManager;
 import sledgehammer.util.ChatTags;
-import sledgehammer.command.Command;
-import sledgehammer.util.Response;
-import sledgehammer.util.TickTask;
+
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * TODO: Document.
@@ -60,7 +60,7 @@ public class DiscordEventListener implements Listener {
     setModule(module);
   }
 
-  @EventHandler(id = "core.discord.event.chatmessage")
+  @EventHandler(id = "core.discord.event.chatmessage", async = true)
   private void on(ChatMessageEvent event) {
     ChatMessage message = event.getMessage();
     ChatChannel chatChannel = event.getChatChannel();
@@ -100,54 +100,64 @@ public class DiscordEventListener implements Listener {
     }
   }
 
-  @EventHandler(id = "core.discord.event.log")
+  /**
+   * Relays ChatEvents to Discord. This is a monitor, so it runs after every other EventHandler. It
+   * is joined, so the update thread waits for it, as it reads the state of the Player.
+   *
+   * @param chatEvent The ChatEvent to relay.
+   */
+  @EventHandler(id = "core.discord.event.chat", monitor = true)
+  public void on(ChatEvent chatEvent) {
+    Player player = chatEvent.getPlayer();
+    DiscordBot bot = module.getBot();
+    if (chatEvent.isGlobal()) {
+      if (player.getProperty("muteglobal").equals("1")) return;
+      bot.say(
+          module.getPublicChannelName(),
+          false,
+          ChatTags.stripTags(chatEvent.getHeader() + chatEvent.getText(), false));
+    } else if (!chatEvent.getText().equalsIgnoreCase("ZzzZZZzzzz")) {
+      bot.say(
+          module.getConsoleChannelName(),
+          false,
+          "[Local]:" + ChatTags.stripTags(chatEvent.getHeader() + chatEvent.getText(), false));
+    }
+  }
+
+  /**
+   * Relays LogEvents to Discord. This runs off of the update thread, so only the message, the
+   * LogType, and the Player captured in the LogEvent are read, along with the class of the logged
+   * Event.
+   *
+   * @param logEntry The LogEvent to relay.
+   */
+  @EventHandler(id = "core.discord.event.log", async = true)
   public void on(LogEvent logEntry) {
-    Player player;
     Event event = logEntry.getEvent();
     DiscordBot bot = module.getBot();
-    // This event spams too much.
-    if (event instanceof PVPAttackEvent) {
+    // This event spams too much. ChatEvents are relayed when handled.
+    if (event instanceof PVPAttackEvent || event instanceof ChatEvent) {
       return;
     }
+    String loggedMessage = logEntry.getLogMessage();
     if (event instanceof CommandEvent) {
-      CommandEvent command = (CommandEvent) event;
-      Command com = command.getCommand();
-      Response r = command.getResponse();
-      player = com.getPlayer();
-      String loggedMessage = command.getResponse().getLogMessage();
-      if (loggedMessage == null) {
-        loggedMessage = "Issued command: " + com.getRaw();
-      }
-      if (r.getLogType() == LogType.STAFF) {
+      Player player = logEntry.getPlayer();
+      LogType logType = logEntry.getLogType();
+      if (logType == LogType.STAFF) {
         bot.staff(player.getUsername(), loggedMessage);
-      } else if (r.getLogType() == LogType.INFO) {
+      } else if (logType == LogType.INFO) {
         bot.info(false, loggedMessage);
-      } else if (r.getLogType() == LogType.WARN || r.getLogType() == LogType.ERROR) {
+      } else if (logType == LogType.WARN || logType == LogType.ERROR) {
         bot.warn(true, loggedMessage);
       }
-    } else if (event instanceof ChatEvent) {
-      ChatEvent chatEvent = (ChatEvent) event;
-      player = chatEvent.getPlayer();
-      if (chatEvent.isGlobal()) {
-        if (player.getProperty("muteglobal").equals("1")) return;
-        bot.say(
-            module.getPublicChannelName(),
-            false,
-            ChatTags.stripTags(chatEvent.getHeader() + chatEvent.getText(), false));
-      } else if (!chatEvent.getText().equalsIgnoreCase("ZzzZZZzzzz")) {
-        bot.say(
-            module.getConsoleChannelName(),
-            false,
-            "[Local]:" + ChatTags.stripTags(chatEvent.getHeader() + chatEvent.getText(), false));
-      }
     } else if (event instanceof CheaterEvent) {
-      bot.info(true, logEntry.getLogMessage());
+      bot.info(true, loggedMessage);
     } else {
-      bot.info(false, logEntry.getLogMessage());
+      bot.info(false, loggedMessage);
     }
   }
 
-  @EventHandler(id = "core.discord.event.throwable")
+  @EventHandler(id = "core.discord.event.throwable", monitor = true)
   public void on(ThrowableEvent event) {
     // Grab the current time in milli-seconds.
     long timeCurrent = System.currentTimeMillis();
@@ -157,21 +167,36 @@ public class DiscordEventListener implements Listener {
       timeSinceLastException = timeCurrent;
       final DiscordBot bot = module.getBot();
       if (bot.isConnected()) {
+        final String header =
+            event.isSummary()
+                ? "An error occurred "
+                    + event.getRepeats()
+                    + " more time(s) in the last "
+                    + (event.getDuration() / 1000L)
+                    + " second(s):"
+                : "An error occurred:";
         final String statementFinal = "```python\n " + event.printStackTrace() + "\n" + "```";
-        (new TickTask() {
-              @Override
-              public boolean run() {
-                try {
-                  Channel console = bot.getConsoleChannel();
-                  console.sendMessage("An error occurred:").get();
-                  console.sendMessage(statementFinal).get();
-                } catch (Exception e) {
-                  e.printStackTrace();
-                }
-                return false;
-              }
-            })
-            .runTaskLater(getModule(), 1);
+        // Wait on Discord off of the server's update thread.
+        try {
+          module
+              .getExecutor(ExecutorManager.DISCORD)
+              .execute(
+                  new Runnable() {
+                    @Override
+                    public void run() {
+                      try {
+                        Channel console = bot.getConsoleChannel();
+                        console.sendMessage(header).get();
+                        console.sendMessage(statementFinal).get();
+                      } catch (Exception e) {
+                        e.printStackTrace();
+                      }
+                    }
+                  });
+        } catch (RejectedExecutionException e) {
+          // Not thrown, as this would raise another ThrowableEvent.
+          module.errln("Failed to send the error to Discord: " + e.getMessage());
+        }
       }
     }
   }
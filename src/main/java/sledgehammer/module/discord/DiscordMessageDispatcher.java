@@ -30,7 +30,7 @@ import de.btobastian.javacord.entities.Channel;
  *
  * @author Jab
  */
-class DiscordMessageDispatcher extends Thread {
+class DiscordMessageDispatcher implements Runnable {
 
   /** The Module using this dispatcher. */
   private DiscordBot bot;
@@ -51,6 +51,7 @@ class DiscordMessageDispatcher extends Thread {
     this.bot = bot;
   }
 
+  @Override
   public void run() {
     // Set the active flag to true. The while loop uses this to know when to
     // stop.
@@ -113,7 +114,7 @@ class DiscordMessageDispatcher extends Thread {
     }
   }
 
-  /** Sets the active flag to false on the dispatcher. This stops the Thread. */
+  /** Sets the active flag to false on the dispatcher. This stops the dispatching loop. */
   public void setInactive() {
     active = false;
   }
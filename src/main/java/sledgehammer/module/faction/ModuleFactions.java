@@ -27,6 +27,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import com.mongodb.DBCursor;
 
@@ -50,6 +51,7 @@ import sledgehammer.lua.faction.FactionMember;
 import sledgehammer.plugin.MongoModule;
 import sledgehammer.util.ChatTags;
 import sledgehammer.util.Response;
+import sledgehammer.util.TickTask;
 
 /**
  * Module responsible for managing factions.
@@ -75,8 +77,6 @@ public class ModuleFactions extends MongoModule {
   private MongoCollection collectionFactionInvites;
 
   private LanguagePackage lang;
-  /** The last time the Module has updated. */
-  private long timeUpdatedLast = -1L;
   /** 1 Hour */
   private long timeUpdate = 3600000L;
   /** 3 Days */
@@ -115,20 +115,15 @@ public class ModuleFactions extends MongoModule {
   public void onStart() {
     register(factionsCommandListener);
     register(factionsEventHandler);
-  }
-
-  @Override
-  public void onUpdate(long delta) {
-    if (!isLoaded()) {
-      return;
-    }
-    // If it is time for another update check.
-    if (System.currentTimeMillis() - timeUpdatedLast > timeUpdate) {
-      // Process the invites.
-      removeExpiredInvites();
-      // Set the last time we updated to now.
-      timeUpdatedLast = System.currentTimeMillis();
-    }
+    // Process the invites every update interval.
+    (new TickTask() {
+          @Override
+          public boolean run() {
+            removeExpiredInvites();
+            return true;
+          }
+        })
+        .runEvery(this, timeUpdate, TimeUnit.MILLISECONDS);
   }
 
   @Override
@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import sledgehammer.language.LanguagePackage;
 import sledgehammer.npc.action.Action;
@@ -32,6 +33,7 @@ import sledgehammer.npc.action.ActionAttackCharacter;
 import sledgehammer.npc.action.ActionFollowTargetDirect;
 import sledgehammer.npc.action.ActionGrabItemOnGround;
 import sledgehammer.plugin.Module;
+import sledgehammer.util.TickTask;
 import zombie.characters.IsoGameCharacter;
 import zombie.characters.SurvivorDesc;
 import zombie.characters.SurvivorFactory;
@@ -50,8 +52,6 @@ public class ModuleNPC extends Module {
 
   /** Map storing Actions for NPCs. */
   private Map<String, Action> mapActions;
-  /** Long variable to measure update-tick deltas. */
-  private long timeThen;
   /** List of NPCs alive on the server. */
   private List<NPC> listNPCs;
   /** Debug flag for the Module. */
@@ -80,6 +80,15 @@ public class ModuleNPC extends Module {
   public void onStart() {
     register(commandListener);
     register(eventListener);
+    // Update the NPCs every 200ms.
+    (new TickTask() {
+          @Override
+          public boolean run() {
+            PacketHelper.updateNPCs(listNPCs);
+            return true;
+          }
+        })
+        .runEvery(this, 200L, TimeUnit.MILLISECONDS);
   }
 
   @Override
@@ -98,13 +107,6 @@ public class ModuleNPC extends Module {
     for (NPC npc : listDead) {
       listNPCs.remove(npc);
     }
-    long timeNow = System.currentTimeMillis();
-    // Update the NPCs every 200ms.
-    if (timeNow - timeThen > 200) {
-      // Set the last time updated to now.
-      timeThen = timeNow;
-      PacketHelper.updateNPCs(listNPCs);
-    }
   }
 
   @Override
@@ -27,6 +27,7 @@ import com.mongodb.DBCursor;
 
 import sledgehammer.SledgeHammer;
 import sledgehammer.database.MongoCollection;
+import sledgehammer.database.module.core.MongoPlayer;
 import sledgehammer.database.module.core.SledgehammerDatabase;
 import sledgehammer.database.module.permissions.MongoPermissionGroup;
 import sledgehammer.database.module.permissions.MongoPermissionUser;
@@ -1052,6 +1053,54 @@ public class ModulePermissions extends MongoModule {
   }
 
   public Response commandListPermissionUser(Player commander, String username) {
+    // Make sure the user-name given is valid.
+    if (username == null || username.isEmpty()) {
+      return commandListPermissionUser(commander, username, null);
+    }
+    // Grab the Player by using the name-fragment search method.
+    Player player = SledgeHammer.instance.getPlayerDirty(username);
+    // If the Player is null, then search offline for the Player.
+    if (player == null) {
+      // Search offline with the strict username search method.
+      player = SledgeHammer.instance.getOfflinePlayer(username);
+    }
+    return listPermissionUser(commander, username, player);
+  }
+
+  /**
+   * Lists the permissions of a PermissionUser, with the offline MongoPlayer for the user-name
+   * already queried. Online Players are still preferred, using the name-fragment search method.
+   *
+   * <p>(Note: This is to be called on the server's update thread)
+   *
+   * @param commander The commanding Player.
+   * @param username The user-name given.
+   * @param mongoPlayerOffline The MongoPlayer queried for the user-name. Null if none is stored.
+   * @return Returns the Response of the command.
+   */
+  public Response commandListPermissionUser(
+      Player commander, String username, MongoPlayer mongoPlayerOffline) {
+    Player player = null;
+    if (username != null && !username.isEmpty()) {
+      player = SledgeHammer.instance.getPlayerDirty(username);
+      if (player == null && mongoPlayerOffline != null) {
+        player = SledgeHammer.instance.getOfflinePlayer(mongoPlayerOffline);
+      }
+    }
+    return listPermissionUser(commander, username, player);
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Lists the permissions of the PermissionUser of a Player.
+   *
+   * @param commander The commanding Player.
+   * @param username The user-name given.
+   * @param player The Player resolved for the user-name. Null if no Player is found.
+   * @return Returns the Response of the command.
+   */
+  private Response listPermissionUser(Player commander, String username, Player player) {
     // The Response to return.
     Response response = new Response();
     // Grab the Language set by the Player.
@@ -1063,13 +1112,6 @@ public class ModulePermissions extends MongoModule {
     }
     // Pass this to the LanguagePackage to show the name passed when responding to the Player.
     EntryField fieldUsername = new EntryField("username", username);
-    // Grab the Player by using the name-fragment search method.
-    Player player = SledgeHammer.instance.getPlayerDirty(username);
-    // If the Player is null, then search offline for the Player.
-    if (player == null) {
-      // Search offline with the strict username search method.
-      player = SledgeHammer.instance.getOfflinePlayer(username);
-    }
     // If the Player is null, then no Player could be found using the given user-name.
     if (player == null) {
       response.set(Result.FAILURE, lang.getString("player_not_found", language, fieldUsername));
@@ -20,7 +20,9 @@
 
 package sledgehammer.module.permissions;
 
+import sledgehammer.SledgeHammer;
 import sledgehammer.annotations.CommandHandler;
+import sledgehammer.database.module.core.MongoPlayer;
 import sledgehammer.enums.Result;
 import sledgehammer.command.CommandListener;
 import sledgehammer.language.Language;
@@ -299,10 +301,11 @@ public class PermissionsCommandListener extends CommandListener {
       "permission user list",
       "permission u list"
     },
-    permission = "core.permissions.command.permissions.user.list"
+    permission = "core.permissions.command.permissions.user.list",
+    async = true
   )
-  public void onCommandPermissionsUserList(Command c, Response r) {
-    Player commander = c.getPlayer();
+  public void onCommandPermissionsUserList(Command c, final Response r) {
+    final Player commander = c.getPlayer();
     LanguagePackage lang = getLanguagePackage();
     Language language = commander.getLanguage();
     String[] args = Command.getSubArgs(c.getArguments(), 2);
@@ -310,8 +313,18 @@ public class PermissionsCommandListener extends CommandListener {
       r.set(Result.FAILURE, lang.getString("tooltip_command_permissions_user_list", language));
       return;
     }
-    String username = args[0];
-    r.set(module.commandListPermissionUser(commander, username));
+    final String username = args[0];
+    // Only the database query runs here. The Players and PermissionUsers are owned by the update
+    // thread, so the rest of the command runs there, before the Response is sent.
+    final MongoPlayer mongoPlayerOffline =
+        username.isEmpty() ? null : SledgeHammer.instance.getDatabase().findMongoPlayer(username);
+    SledgeHammer.instance.runOnMainThread(
+        new Runnable() {
+          @Override
+          public void run() {
+            r.set(module.commandListPermissionUser(commander, username, mongoPlayerOffline));
+          }
+        });
   }
 
   @CommandHandler(
@@ -20,6 +20,7 @@
 
 package sledgehammer.module.vanilla;
 
+import sledgehammer.SledgeHammer;
 import sledgehammer.annotations.EventHandler;
 import sledgehammer.event.LogEvent;
 import sledgehammer.interfaces.Listener;
@@ -35,14 +36,22 @@ class VanillaEventListener implements Listener {
   /** The String name of the Module. */
   public static final String NAME = "VanillaLogListener";
 
-  @EventHandler(id = "core.vanilla.event.log")
+  @EventHandler(id = "core.vanilla.event.log", monitor = true)
   public void on(LogEvent event) {
-    String message = event.getLogMessage();
-    boolean important = event.isImportant();
-    if (important) {
-      LoggerManager.getLogger("admin").write(message, "IMPORTANT");
-    } else {
-      LoggerManager.getLogger("admin").write(message);
-    }
+    final String message = event.getLogMessage();
+    final boolean important = event.isImportant();
+    // LogEvents are handled off of the update thread. The ZLogger is shared with the game, which
+    // writes to it from the update thread, so the write is handed back to it.
+    SledgeHammer.instance.runOnMainThread(
+        new Runnable() {
+          @Override
+          public void run() {
+            if (important) {
+              LoggerManager.getLogger("admin").write(message, "IMPORTANT");
+            } else {
+              LoggerManager.getLogger("admin").write(message);
+            }
+          }
+        });
   }
 }
@@ -22,6 +22,7 @@ package sledgehammer.npc.behavior;
 
 import java.util.List;
 
+import sledgehammer.SledgeHammer;
 import sledgehammer.npc.action.ActionAttackCharacter;
 import sledgehammer.npc.action.ActionGrabItemOnGround;
 import zombie.characters.IsoGameCharacter;
@@ -64,7 +65,8 @@ public class BehaviorSurvive extends Behavior {
   @Override
   public void update() {
     boolean foundJob = false;
-    long timeNow = System.currentTimeMillis();
+    // Use the time read once at the start of the tick, instead of reading the clock per NPC.
+    long timeNow = SledgeHammer.instance.getTaskManager().getTime();
     if (isAttackingZombie) {
       IsoGameCharacter target = getAttackTarget();
       if (target == null) {
@@ -81,10 +83,11 @@ public class BehaviorSurvive extends Behavior {
       }
     }
     long deltaNearbyZombieLookup = 1000L;
-    if (timeNow - timeThenNearbyZombieLookup >= deltaNearbyZombieLookup) {
+    if (listNearbyZombies == null
+        || timeNow - timeThenNearbyZombieLookup >= deltaNearbyZombieLookup) {
       listNearbyZombies = getNearestZombies(12);
       // Set the time field to check
-      timeThenNearbyZombieLookup = System.currentTimeMillis();
+      timeThenNearbyZombieLookup = timeNow;
     }
     if (isAttackingZombie) {
       IsoZombie target = getNearestZombie(listNearbyZombies);
@@ -33,8 +33,10 @@ import sledgehammer.lua.chat.ChatMessage;
 import sledgehammer.lua.core.Player;
 import sledgehammer.lua.core.send.SendLua;
 import sledgehammer.manager.EventManager;
+import sledgehammer.manager.ExecutorManager;
 import sledgehammer.manager.PluginManager;
 import sledgehammer.module.chat.ModuleChat;
+import sledgehammer.util.ManagedExecutor;
 import sledgehammer.util.Printable;
 
 /**
@@ -127,6 +129,8 @@ public abstract class Module extends Printable {
         println("Failed to safely stop module.");
         e.printStackTrace();
       }
+      // Make sure that no TickTasks registered by the Module run after it stops.
+      SledgeHammer.instance.getTaskManager().unregister(this);
     }
     loaded = false;
     return true;
@@ -428,6 +432,22 @@ public abstract class Module extends Printable {
     return SledgeHammer.instance.getEventManager();
   }
 
+  /**
+   * Modules should run work that does not belong on the server's update thread on one of the
+   * executors of the ExecutorManager, instead of creating threads of their own.
+   *
+   * @param name The name of the executor. (E.G: 'ExecutorManager.IO', 'ExecutorManager.COMPUTE')
+   * @return Returns the executor registered with the name given.
+   */
+  public ManagedExecutor getExecutor(String name) {
+    return SledgeHammer.instance.getExecutorManager().getExecutor(name);
+  }
+
+  /** @return Returns the ExecutorManager instance of the Sledgehammer engine. */
+  public ExecutorManager getExecutorManager() {
+    return SledgeHammer.instance.getExecutorManager();
+  }
+
   /** @return Returns the PluginManager instance of the Sledgehammer engine. */
   public PluginManager getModuleManager() {
     return SledgeHammer.instance.getPluginManager();
@@ -363,8 +363,11 @@ public class Plugin extends Printable {
    * @return Returns true if the Module given updates successfully.
    */
   public boolean updateModule(Module module, long delta) {
+    long timeStarted = System.nanoTime();
     try {
       module.updateModule(delta);
+      long nanos = System.nanoTime() - timeStarted;
+      SledgeHammer.instance.getHealthManager().recordModule(module, nanos);
       return true;
     } catch (Exception e) {
       errln("Failed to update Module: " + module.getModuleName());
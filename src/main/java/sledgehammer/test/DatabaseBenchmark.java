@@ -0,0 +1,333 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+package sledgehammer.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.MongoClient;
+import com.mongodb.MongoClientOptions;
+import com.mongodb.MongoClientURI;
+import com.mongodb.MongoException;
+
+import sledgehammer.database.MongoCollection;
+import sledgehammer.database.MongoDatabase;
+import sledgehammer.database.transaction.MongoBulkWriter;
+import sledgehammer.database.transaction.MongoDatabaseTransactionWorker;
+import sledgehammer.database.transaction.MongoTransactionCoalescer;
+import sledgehammer.util.ManagedExecutor;
+import sledgehammer.util.Printable;
+
+/**
+ * Benchmarks the throughput of the database workers against a MongoDB server, for each given
+ * amount of workers.
+ *
+ * <p>Each run upserts the same documents, spread across several collections, a number of times.
+ * The time is measured from the first transaction queued until every worker has drained its queue
+ * on shut down. The collections are dropped before and after each run.
+ *
+ * <p>Writes of the same document are coalesced by the workers, so the transactions queued per
+ * second mix coalescing into the scaling of the workers. Each run reports the transactions received
+ * and written, and the operations written per second. If each document is written more than once,
+ * every amount of workers is also ran with one write per document, where nothing is coalesced.
+ * When every run is done, the results are printed again as a table.
+ *
+ * <p>If the server cannot be reached, the benchmark exits with a status of 1 before any run.
+ *
+ * <p>Usage: DatabaseBenchmark [--url &lt;mongodb url&gt;] [--workers &lt;1,2,4,8&gt;] [--documents
+ * &lt;amount&gt;] [--writes &lt;amount per document&gt;]
+ *
+ * @author Jab
+ */
+public class DatabaseBenchmark extends Printable {
+
+  /** The name of the database the benchmark writes to. */
+  private static final String DATABASE_NAME = "sledgehammer_benchmark";
+  /** The amount of collections the documents are spread across. */
+  private static final int COLLECTIONS = 4;
+  /** The time in milliseconds to wait for the server before giving up. */
+  private static final int CONNECT_TIMEOUT = 5000;
+
+  private final String url;
+  private final int[] workerCounts;
+  private final int documents;
+  private final int writes;
+  /** The rows of the table of results, one for each run. */
+  private final List<String> listResults = new ArrayList<>();
+
+  /**
+   * Main constructor.
+   *
+   * @param url The URL of the MongoDB server.
+   * @param workerCounts The amounts of workers to benchmark.
+   * @param documents The amount of documents to write.
+   * @param writes The amount of times each document is written.
+   */
+  public DatabaseBenchmark(String url, int[] workerCounts, int documents, int writes) {
+    this.url = url;
+    this.workerCounts = workerCounts;
+    this.documents = documents;
+    this.writes = writes;
+  }
+
+  @Override
+  public String getName() {
+    return "DatabaseBenchmark";
+  }
+
+  /**
+   * Runs the benchmark for each amount of workers, and prints the results.
+   *
+   * @return Returns true if the server is reachable and the benchmark ran.
+   */
+  public boolean run() {
+    String error = ping();
+    if (error != null) {
+      errln("Could not reach the MongoDB server at " + url + ": " + error);
+      return false;
+    }
+    listResults.clear();
+    run(writes);
+    // Without coalescing, the scaling is of the workers alone.
+    if (writes > 1) {
+      run(1);
+    }
+    // The table is printed without the name of the benchmark, to be pasted as it is.
+    println("Results (" + url + ", " + documents + " documents):");
+    System.out.println(
+        "| Workers | Writes per document | Transactions/s | Operations/s | Scaling |");
+    System.out.println(
+        "|--------:|--------------------:|---------------:|-------------:|--------:|");
+    for (String result : listResults) {
+      System.out.println(result);
+    }
+    return true;
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @return Returns null if the server answers a ping. Otherwise, the reason it does not is
+   *     returned.
+   */
+  private String ping() {
+    MongoClient client = null;
+    try {
+      MongoClientOptions.Builder options =
+          MongoClientOptions.builder()
+              .serverSelectionTimeout(CONNECT_TIMEOUT)
+              .connectTimeout(CONNECT_TIMEOUT);
+      client = new MongoClient(new MongoClientURI(url, options));
+      client.getDB("admin").command("ping").throwOnError();
+      return null;
+    } catch (MongoException | IllegalArgumentException e) {
+      return e.getMessage();
+    } finally {
+      if (client != null) {
+        client.close();
+      }
+    }
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Runs the benchmark for each amount of workers, and prints the results.
+   *
+   * @param writes The amount of times each document is written.
+   */
+  private void run(int writes) {
+    println("Benchmarking " + url + " (" + documents + " documents x " + writes + " writes)");
+    double throughputFirst = 0.0;
+    for (int workerCount : workerCounts) {
+      double[] throughput = run(workerCount, writes);
+      if (throughputFirst == 0.0) {
+        throughputFirst = throughput[1];
+      }
+      String scaling =
+          String.format("%.2f", throughputFirst == 0.0 ? 0.0 : throughput[1] / throughputFirst)
+              + "x";
+      println("  Scaling (operations/s): " + scaling);
+      listResults.add(
+          "| "
+              + workerCount
+              + " | "
+              + writes
+              + " | "
+              + String.format("%.0f", throughput[0])
+              + " | "
+              + String.format("%.0f", throughput[1])
+              + " | "
+              + scaling
+              + " |");
+    }
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Runs the benchmark with an amount of workers.
+   *
+   * @param workerCount The amount of workers.
+   * @param writes The amount of times each document is written.
+   * @return Returns the transactions queued per second, and the operations written per second.
+   */
+  private double[] run(int workerCount, int writes) {
+    BenchmarkDatabase database = new BenchmarkDatabase(workerCount);
+    ManagedExecutor executor = new ManagedExecutor("benchmark-db", workerCount, 16);
+    database.connect(url, executor);
+    List<MongoCollection> listCollections = new ArrayList<>();
+    for (int index = 0; index < COLLECTIONS; index++) {
+      MongoCollection collection = database.createMongoCollection("benchmark_" + index);
+      collection.getDBCollection().drop();
+      listCollections.add(collection);
+    }
+    long transactions = (long) documents * writes;
+    long timeStarted = System.nanoTime();
+    for (int write = 0; write < writes; write++) {
+      for (int document = 0; document < documents; document++) {
+        MongoCollection collection = listCollections.get(document % COLLECTIONS);
+        BasicDBObject object = new BasicDBObject("id", "document-" + document);
+        object.put("write", write);
+        object.put("time", System.currentTimeMillis());
+        collection.upsert(object, "id", this);
+      }
+    }
+    // Shutting down waits for every worker to drain its queue.
+    database.shutDown();
+    long nanos = System.nanoTime() - timeStarted;
+    executor.shutdown();
+    long roundTrips = 0L;
+    long operations = 0L;
+    long failures = 0L;
+    long received = 0L;
+    long written = 0L;
+    for (MongoDatabaseTransactionWorker worker : database.getWorkers()) {
+      MongoBulkWriter writer = worker.getWriter();
+      roundTrips += writer.getRoundTrips();
+      operations += writer.getOperations();
+      failures += writer.getFailures();
+      MongoTransactionCoalescer coalescer = worker.getCoalescer();
+      received += coalescer.getReceivedCount();
+      written += coalescer.getWrittenCount();
+    }
+    long stored = 0L;
+    for (MongoCollection collection : listCollections) {
+      stored += collection.getDBCollection().count();
+      collection.getDBCollection().drop();
+    }
+    database.getClient().close();
+    double seconds = nanos / 1000000000.0;
+    double throughput = operations / seconds;
+    println(
+        "Workers: "
+            + workerCount
+            + ", Time: "
+            + String.format("%.1f", nanos / 1000000.0)
+            + " ms, Throughput: "
+            + String.format("%.0f", transactions / seconds)
+            + " transactions/s, "
+            + String.format("%.0f", throughput)
+            + " operations/s");
+    println(
+        "  Transactions: "
+            + transactions
+            + " queued, "
+            + received
+            + " received, "
+            + written
+            + " written after coalescing");
+    println(
+        "  Operations: "
+            + operations
+            + " in "
+            + roundTrips
+            + " round trips ("
+            + failures
+            + " failed), Documents stored: "
+            + stored
+            + "/"
+            + documents);
+    return new double[] {transactions / seconds, throughput};
+  }
+
+  public static void main(String[] args) {
+    String url = "mongodb://localhost:27017";
+    int[] workerCounts = new int[] {1, 2, 4, 8};
+    int documents = 10000;
+    int writes = 10;
+    for (int index = 0; index < args.length; index++) {
+      String arg = args[index];
+      if (index + 1 >= args.length) {
+        System.out.println("Missing value for argument: " + arg);
+        return;
+      }
+      String value = args[++index];
+      if (arg.equalsIgnoreCase("--url")) {
+        url = value;
+      } else if (arg.equalsIgnoreCase("--workers")) {
+        String[] split = value.split(",");
+        workerCounts = new int[split.length];
+        for (int i = 0; i < split.length; i++) {
+          workerCounts[i] = Integer.parseInt(split[i].trim());
+        }
+      } else if (arg.equalsIgnoreCase("--documents")) {
+        documents = Integer.parseInt(value);
+      } else if (arg.equalsIgnoreCase("--writes")) {
+        writes = Integer.parseInt(value);
+      } else {
+        System.out.println("Unknown argument: " + arg);
+        return;
+      }
+    }
+    if (!new DatabaseBenchmark(url, workerCounts, documents, writes).run()) {
+      System.exit(1);
+    }
+  }
+
+  /** A MongoDatabase writing to the benchmark database. */
+  private static class BenchmarkDatabase extends MongoDatabase {
+
+    /**
+     * Main constructor.
+     *
+     * @param workerCount The amount of workers writing transactions.
+     */
+    BenchmarkDatabase(int workerCount) {
+      super(workerCount);
+    }
+
+    @Override
+    public void onConnection(MongoClient client) {
+      setDatabase(client.getDB(DATABASE_NAME));
+    }
+
+    @Override
+    public void reset() {
+      // Nothing is cached.
+    }
+
+    @Override
+    public String getName() {
+      return "BenchmarkDatabase";
+    }
+  }
+}
@@ -0,0 +1,338 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+
+package sledgehammer.test;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * Benchmarks the ways an EventHandler method can be invoked, with no server dependencies.
+ *
+ * <p>Each path invokes the same listener method, set up the way the EventHandlerContainer sets it
+ * up: the Method is unreflected, the listener is bound, and the handle is adapted to the exact type
+ * of the call site. The paths compared are:
+ *
+ * <ul>
+ *   <li>'invokeWithArguments': The previous path, passing a shared argument array.
+ *   <li>'Method.invoke': Core reflection.
+ *   <li>'invokeExact (field)': A exact-typed handle in a non-final instance field.
+ *   <li>'invokeExact (final)': A exact-typed handle in a final instance field, as the container
+ *       now holds it.
+ *   <li>'invokeExact (static)': A exact-typed handle in a static final field, which the JIT treats
+ *       as a constant. This is the upper bound of handle invocation.
+ *   <li>'direct': A direct call of the listener method.
+ * </ul>
+ *
+ * <p>Usage: HandlerInvocationBenchmark [--rounds &lt;amount&gt;] [--operations &lt;amount per
+ * round&gt;]
+ *
+ * @author Jab
+ */
+public class HandlerInvocationBenchmark {
+
+  /** The amount of rounds ran before the measured rounds. */
+  private static final int WARMUP_ROUNDS = 5;
+
+  private static final MethodHandle INVOKER_STATIC = createInvoker(new BenchmarkListener());
+
+  private final int rounds;
+  private final int operations;
+
+  /**
+   * Main constructor.
+   *
+   * @param rounds The amount of measured rounds for each path.
+   * @param operations The amount of invocations in each round.
+   */
+  public HandlerInvocationBenchmark(int rounds, int operations) {
+    this.rounds = rounds;
+    this.operations = operations;
+  }
+
+  /**
+   * Runs the benchmark for each path, and prints the results.
+   *
+   * @throws Throwable Thrown if a invocation fails.
+   */
+  public void run() throws Throwable {
+    System.out.println(
+        "Benchmarking handler invocation ("
+            + rounds
+            + " rounds x "
+            + operations
+            + " operations, "
+            + System.getProperty("java.vm.name")
+            + " "
+            + System.getProperty("java.version")
+            + ")");
+    BenchmarkListener listener = new BenchmarkListener();
+    Method method = BenchmarkListener.class.getDeclaredMethod("on", BenchmarkEvent.class);
+    method.setAccessible(true);
+    Path[] paths =
+        new Path[] {
+          new ArgumentsPath(listener, method),
+          new ReflectionPath(listener, method),
+          new FieldPath(listener),
+          new FinalPath(listener),
+          new StaticPath(),
+          new DirectPath(listener)
+        };
+    BenchmarkEvent event = new BenchmarkEvent();
+    double baseline = 0.0;
+    for (Path path : paths) {
+      double nanos = measure(path, event);
+      if (baseline == 0.0) {
+        baseline = nanos;
+      }
+      System.out.println(
+          String.format(
+              "  %-22s %8.2f ns/op  (%.1fx the previous path)",
+              path.getName(), nanos, baseline / nanos));
+    }
+    // Reading the value keeps the invocations from being removed as dead code.
+    System.out.println("  (Event value: " + event.value + ")");
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param path The path to measure.
+   * @param event The Event to pass.
+   * @return Returns the median nanoseconds per invocation of the measured rounds.
+   * @throws Throwable Thrown if a invocation fails.
+   */
+  private double measure(Path path, BenchmarkEvent event) throws Throwable {
+    for (int round = 0; round < WARMUP_ROUNDS; round++) {
+      path.invoke(event, operations);
+    }
+    double[] results = new double[rounds];
+    for (int round = 0; round < rounds; round++) {
+      long timeStarted = System.nanoTime();
+      path.invoke(event, operations);
+      results[round] = (double) (System.nanoTime() - timeStarted) / operations;
+    }
+    Arrays.sort(results);
+    return results[rounds / 2];
+  }
+
+  public static void main(String[] args) throws Throwable {
+    int rounds = 10;
+    int operations = 10000000;
+    for (int index = 0; index < args.length; index++) {
+      String arg = args[index];
+      if (index + 1 >= args.length) {
+        System.out.println("Missing value for argument: " + arg);
+        return;
+      }
+      String value = args[++index];
+      if (arg.equalsIgnoreCase("--rounds")) {
+        rounds = Integer.parseInt(value);
+      } else if (arg.equalsIgnoreCase("--operations")) {
+        operations = Integer.parseInt(value);
+      } else {
+        System.out.println("Unknown argument: " + arg);
+        return;
+      }
+    }
+    new HandlerInvocationBenchmark(rounds, operations).run();
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Creates the invoker the same way the EventHandlerContainer does.
+   *
+   * @param listener The listener to bind.
+   * @return Returns the handle adapted to '(BenchmarkEvent)void'.
+   */
+  private static MethodHandle createInvoker(BenchmarkListener listener) {
+    try {
+      Method method = BenchmarkListener.class.getDeclaredMethod("on", BenchmarkEvent.class);
+      method.setAccessible(true);
+      MethodHandle handle = MethodHandles.lookup().unreflect(method).bindTo(listener);
+      return handle.asType(MethodType.methodType(void.class, BenchmarkEvent.class));
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** The Event passed to the listener. */
+  private static class BenchmarkEvent {
+    /** Each handler call depends on the last, so the calls cannot be merged by the JIT. */
+    long value;
+  }
+
+  /** The listener with the handler method. */
+  private static class BenchmarkListener {
+
+    /**
+     * (Private Method)
+     *
+     * @param event The Event to handle.
+     */
+    private void on(BenchmarkEvent event) {
+      event.value = event.value * 31L + 17L;
+    }
+  }
+
+  /** A way to invoke the handler method. */
+  private abstract static class Path {
+
+    private final String name;
+
+    /**
+     * Main constructor.
+     *
+     * @param name The name of the path.
+     */
+    Path(String name) {
+      this.name = name;
+    }
+
+    /** @return Returns the name of the path. */
+    String getName() {
+      return this.name;
+    }
+
+    /**
+     * Invokes the handler method a number of times.
+     *
+     * @param event The Event to pass.
+     * @param operations The amount of invocations.
+     * @throws Throwable Thrown if a invocation fails.
+     */
+    abstract void invoke(BenchmarkEvent event, int operations) throws Throwable;
+  }
+
+  /** The previous path, with a shared argument array. */
+  private static class ArgumentsPath extends Path {
+
+    private final MethodHandle methodHandle;
+    private final Object[] methodArgumentsCache;
+
+    ArgumentsPath(BenchmarkListener listener, Method method) throws IllegalAccessException {
+      super("invokeWithArguments");
+      this.methodHandle = MethodHandles.lookup().unreflect(method);
+      this.methodArgumentsCache = new Object[] {listener, null};
+    }
+
+    @Override
+    void invoke(BenchmarkEvent event, int operations) throws Throwable {
+      for (int index = 0; index < operations; index++) {
+        methodArgumentsCache[1] = event;
+        methodHandle.invokeWithArguments(methodArgumentsCache);
+        methodArgumentsCache[1] = null;
+      }
+    }
+  }
+
+  /** Core reflection. */
+  private static class ReflectionPath extends Path {
+
+    private final BenchmarkListener listener;
+    private final Method method;
+
+    ReflectionPath(BenchmarkListener listener, Method method) {
+      super("Method.invoke");
+      this.listener = listener;
+      this.method = method;
+    }
+
+    @Override
+    void invoke(BenchmarkEvent event, int operations) throws Throwable {
+      for (int index = 0; index < operations; index++) {
+        method.invoke(listener, event);
+      }
+    }
+  }
+
+  /** A exact-typed handle in a non-final instance field. */
+  private static class FieldPath extends Path {
+
+    private MethodHandle invoker;
+
+    FieldPath(BenchmarkListener listener) {
+      super("invokeExact (field)");
+      this.invoker = createInvoker(listener);
+    }
+
+    @Override
+    void invoke(BenchmarkEvent event, int operations) throws Throwable {
+      for (int index = 0; index < operations; index++) {
+        invoker.invokeExact(event);
+      }
+    }
+  }
+
+  /** A exact-typed handle in a final instance field. */
+  private static class FinalPath extends Path {
+
+    private final MethodHandle invoker;
+
+    FinalPath(BenchmarkListener listener) {
+      super("invokeExact (final)");
+      this.invoker = createInvoker(listener);
+    }
+
+    @Override
+    void invoke(BenchmarkEvent event, int operations) throws Throwable {
+      for (int index = 0; index < operations; index++) {
+        invoker.invokeExact(event);
+      }
+    }
+  }
+
+  /** A exact-typed handle in a static final field. */
+  private static class StaticPath extends Path {
+
+    StaticPath() {
+      super("invokeExact (static)");
+    }
+
+    @Override
+    void invoke(BenchmarkEvent event, int operations) throws Throwable {
+      for (int index = 0; index < operations; index++) {
+        INVOKER_STATIC.invokeExact(event);
+      }
+    }
+  }
+
+  /** A direct call. */
+  private static class DirectPath extends Path {
+
+    private final BenchmarkListener listener;
+
+    DirectPath(BenchmarkListener listener) {
+      super("direct");
+      this.listener = listener;
+    }
+
+    @Override
+    void invoke(BenchmarkEvent event, int operations) {
+      for (int index = 0; index < operations; index++) {
+        listener.on(event);
+      }
+    }
+  }
+}
@@ -0,0 +1,225 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+
+package sledgehammer.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import sledgehammer.SledgeHammer;
+import sledgehammer.command.Command;
+import sledgehammer.event.Event;
+import sledgehammer.event.EventJournal;
+import sledgehammer.util.LatencyHistogram;
+import sledgehammer.util.Printable;
+import zombie.core.Core;
+
+/**
+ * Replays a EventJournal into a headless SledgeHammer instance, to benchmark and regression-test
+ * Plug-ins against recorded traffic without the game server or a live network.
+ *
+ * <p>Records are replayed as fast as possible by default. With '--realtime', records are replayed
+ * at the speed they were recorded, optionally scaled with '--speed'.
+ *
+ * <p>Usage: JournalReplay &lt;journal file&gt; [--realtime] [--speed &lt;multiplier&gt;]
+ *
+ * @author Jab
+ */
+public class JournalReplay extends Printable {
+
+  private final File file;
+  private final boolean realtime;
+  private final double speed;
+  /** The amount of Events recorded without a JournalCodec, identified by class name. */
+  private final Map<String, Long> mapUnsupported = new TreeMap<>();
+  private long ticks;
+  private long events;
+  private long commands;
+
+  /**
+   * Main constructor.
+   *
+   * @param file The journal File to replay.
+   * @param realtime Flag to replay at the recorded speed.
+   * @param speed The multiplier of the recorded speed, when replaying at the recorded speed.
+   */
+  public JournalReplay(File file, boolean realtime, double speed) {
+    this.file = file;
+    this.realtime = realtime;
+    this.speed = speed;
+  }
+
+  @Override
+  public String getName() {
+    return "JournalReplay";
+  }
+
+  /** Initializes SledgeHammer headless, replays the journal, and prints a summary. */
+  public void run() {
+    Core.GameSaveWorld = "servertest";
+    SledgeHammer.instance = new SledgeHammer(true);
+    SledgeHammer.instance.init();
+    SledgeHammer.instance.getPluginManager().onLoad(true);
+    SledgeHammer.instance.start();
+    long timeStarted = System.nanoTime();
+    EventJournal.Reader reader = null;
+    try {
+      reader = new EventJournal.Reader(file);
+      EventJournal.Record record;
+      while ((record = reader.next()) != null) {
+        if (realtime) {
+          waitFor(timeStarted, record.getTime());
+        }
+        replay(record);
+      }
+    } catch (IOException e) {
+      errln("Failed to read the journal: " + file.getPath());
+      e.printStackTrace();
+    } finally {
+      if (reader != null) {
+        try {
+          reader.close();
+        } catch (IOException e) {
+          e.printStackTrace();
+        }
+      }
+    }
+    long nanos = System.nanoTime() - timeStarted;
+    printSummary(nanos);
+    SledgeHammer.instance.stop();
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Replays a record into the SledgeHammer instance.
+   *
+   * @param record The record to replay.
+   */
+  private void replay(EventJournal.Record record) {
+    switch (record.getType()) {
+      case EventJournal.TYPE_TICK:
+        ticks++;
+        SledgeHammer.instance.update();
+        break;
+      case EventJournal.TYPE_EVENT:
+        Event event = record.getEvent();
+        if (event == null) {
+          // The JournalCodec for the Event is not registered in this runtime.
+          addUnsupported(record.getClassName());
+          break;
+        }
+        events++;
+        SledgeHammer.instance.handle(event);
+        break;
+      case EventJournal.TYPE_UNSUPPORTED:
+        addUnsupported(record.getClassName());
+        break;
+      case EventJournal.TYPE_COMMAND:
+        commands++;
+        Command command = new Command(record.getRaw());
+        command.setPlayer(EventJournal.getPlayer(record.getUsername()));
+        SledgeHammer.instance.handleCommand(command);
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Waits until the time of a record, scaled by the speed, has passed since the replay started.
+   */
+  private void waitFor(long timeStarted, long timeRecord) {
+    long timeDue = timeStarted + (long) (timeRecord / speed);
+    long nanos;
+    while ((nanos = timeDue - System.nanoTime()) > 0L) {
+      try {
+        TimeUnit.NANOSECONDS.sleep(nanos);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  /** (Private Method) */
+  private void addUnsupported(String className) {
+    Long count = mapUnsupported.get(className);
+    mapUnsupported.put(className, count == null ? 1L : count + 1L);
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Prints the amount of records replayed, the throughput, and the tick durations.
+   *
+   * @param nanos The duration of the replay in nanoseconds.
+   */
+  private void printSummary(long nanos) {
+    double seconds = nanos / 1000000000.0;
+    long replayed = ticks + events + commands;
+    println("Replayed journal: " + file.getPath());
+    println("  Ticks: " + ticks + ", Events: " + events + ", Commands: " + commands);
+    println(
+        String.format(
+            "  Time: %.3fs (%.1f records/s)", seconds, seconds > 0 ? replayed / seconds : 0.0));
+    LatencyHistogram histogram = SledgeHammer.instance.getHealthManager().getTickHistogram();
+    println(
+        String.format(
+            "  Tick p50: %.3fms, p99: %.3fms, max: %.3fms",
+            histogram.getPercentile(50.0) / 1000000.0,
+            histogram.getPercentile(99.0) / 1000000.0,
+            histogram.getMax() / 1000000.0));
+    for (Map.Entry<String, Long> entry : mapUnsupported.entrySet()) {
+      println("  Not replayed (no JournalCodec): " + entry.getKey() + " x" + entry.getValue());
+    }
+  }
+
+  public static void main(String[] args) {
+    if (args.length == 0) {
+      System.out.println(
+          "Usage: JournalReplay <journal file> [--realtime] [--speed <multiplier>]");
+      return;
+    }
+    boolean realtime = false;
+    double speed = 1.0;
+    for (int index = 1; index < args.length; index++) {
+      String arg = args[index];
+      if (arg.equalsIgnoreCase("--realtime")) {
+        realtime = true;
+      } else if (arg.equalsIgnoreCase("--speed") && index + 1 < args.length) {
+        speed = Double.parseDouble(args[++index]);
+        if (speed <= 0.0) {
+          System.out.println("Speed must be greater than 0.");
+          return;
+        }
+      } else {
+        System.out.println("Unknown argument: " + arg);
+        return;
+      }
+    }
+    new JournalReplay(new File(args[0]), realtime, speed).run();
+  }
+}
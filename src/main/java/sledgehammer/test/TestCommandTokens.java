@@ -0,0 +1,128 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+
+package sledgehammer.test;
+
+import sledgehammer.command.CommandTokens;
+
+/**
+ * Tests the tokenizing rules of CommandTokens: whitespace, the '/' and '!' prefixes of the command
+ * name, double-quotes, escapes, and comparing tokens without case.
+ *
+ * @author Jab
+ */
+public class TestCommandTokens extends UnitTest {
+
+  @Override
+  public String getName() {
+    return "CommandTokens";
+  }
+
+  public void testSplitsOnWhitespace() {
+    CommandTokens tokens = CommandTokens.tokenize("/faction create myFaction");
+    checkArrayEquals(
+        new String[] {"faction", "create", "myFaction"}, tokens.toArray(0), "Tokens");
+    tokens = CommandTokens.tokenize("  /cmd   a\tb  ");
+    checkArrayEquals(new String[] {"cmd", "a", "b"}, tokens.toArray(0), "Runs of whitespace");
+  }
+
+  public void testEmptyInput() {
+    checkEquals(0, CommandTokens.tokenize("").size(), "Tokens of an empty String");
+    checkEquals(0, CommandTokens.tokenize("   ").size(), "Tokens of whitespace");
+    checkEquals(0, CommandTokens.tokenize("/").size(), "Tokens of a lone '/'");
+    checkEquals(0, CommandTokens.tokenize("/ ! /").size(), "Tokens of prefixes only");
+  }
+
+  public void testRemovesCommandPrefix() {
+    checkArrayEquals(
+        new String[] {"help"}, CommandTokens.tokenize("!help").toArray(0), "'!' prefix");
+    checkArrayEquals(
+        new String[] {"tp", "a"}, CommandTokens.tokenize("//tp a").toArray(0), "'//' prefix");
+    checkArrayEquals(
+        new String[] {"help"}, CommandTokens.tokenize("/ !help").toArray(0), "Mixed prefixes");
+    // Only the command name loses its prefix.
+    checkArrayEquals(
+        new String[] {"msg", "/x", "!y"},
+        CommandTokens.tokenize("/msg /x !y").toArray(0),
+        "Prefixes of arguments");
+  }
+
+  public void testQuotesGroupWhitespace() {
+    CommandTokens tokens = CommandTokens.tokenize("/msg \"Jab Doe\" hello");
+    checkArrayEquals(new String[] {"msg", "Jab Doe", "hello"}, tokens.toArray(0), "Tokens");
+    checkEquals(5, tokens.getOffset(1), "Offset of the quoted token, at its opening quote");
+    // Quotes inside a token are removed, and join the whitespace between them.
+    tokens = CommandTokens.tokenize("/say a\"b c\"d e");
+    checkArrayEquals(new String[] {"say", "ab cd", "e"}, tokens.toArray(0), "Inner quotes");
+    // An unclosed quote runs to the end of the input.
+    tokens = CommandTokens.tokenize("/msg \"a b");
+    checkArrayEquals(new String[] {"msg", "a b"}, tokens.toArray(0), "Unclosed quote");
+    tokens = CommandTokens.tokenize("/msg \"\" x");
+    checkArrayEquals(new String[] {"msg", "", "x"}, tokens.toArray(0), "Empty quotes");
+  }
+
+  public void testEscapes() {
+    CommandTokens tokens = CommandTokens.tokenize("/say \"a \\\"b\\\" c\" \\\\x");
+    checkArrayEquals(
+        new String[] {"say", "a \"b\" c", "\\x"}, tokens.toArray(0), "Escaped quotes");
+    // A backslash before anything else is kept.
+    tokens = CommandTokens.tokenize("/say a\\b c\\");
+    checkArrayEquals(new String[] {"say", "a\\b", "c\\"}, tokens.toArray(0), "Plain backslash");
+    // An escaped quote does not open a quoted section.
+    tokens = CommandTokens.tokenize("/say \\\"a b");
+    checkArrayEquals(new String[] {"say", "\"a", "b"}, tokens.toArray(0), "Escaped opening quote");
+  }
+
+  public void testEqualsLowerCase() {
+    CommandTokens tokens = CommandTokens.tokenize("/FaCtIoN \"CrE ate\"");
+    check(tokens.equalsLowerCase(0, "faction"), "Token 0 equals 'faction'");
+    check(!tokens.equalsLowerCase(0, "factio"), "Token 0 does not equal 'factio'");
+    check(!tokens.equalsLowerCase(0, "factions"), "Token 0 does not equal 'factions'");
+    check(tokens.equalsLowerCase(1, "cre ate"), "Quoted token 1 equals 'cre ate'");
+  }
+
+  public void testHashLowerCase() {
+    CommandTokens tokens = CommandTokens.tokenize("/FaCtIoN \"CrE ate\" x\\\"y");
+    checkEquals("faction".hashCode(), tokens.hashLowerCase(0), "Hash of token 0");
+    checkEquals("cre ate".hashCode(), tokens.hashLowerCase(1), "Hash of quoted token 1");
+    checkEquals("x\"y".hashCode(), tokens.hashLowerCase(2), "Hash of escaped token 2");
+  }
+
+  public void testToArray() {
+    CommandTokens tokens = CommandTokens.tokenize("/a b c");
+    checkArrayEquals(new String[] {"b", "c"}, tokens.toArray(1), "Arguments");
+    checkEquals(0, tokens.toArray(3).length, "Arguments past the end");
+    checkEquals("/a b c", tokens.getSource(), "Source");
+  }
+
+  public void testIndexOutOfBounds() {
+    CommandTokens tokens = CommandTokens.tokenize("/a");
+    try {
+      tokens.get(1);
+      throw new AssertionError("get(1) did not throw.");
+    } catch (IndexOutOfBoundsException e) {
+      // Expected.
+    }
+  }
+
+  public static void main(String[] args) {
+    runAll(new TestCommandTokens());
+  }
+}
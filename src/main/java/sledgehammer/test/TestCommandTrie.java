@@ -0,0 +1,224 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+
+package sledgehammer.test;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+import sledgehammer.annotations.CommandHandler;
+import sledgehammer.command.Command;
+import sledgehammer.command.CommandHandlerComparator;
+import sledgehammer.command.CommandHandlerContainer;
+import sledgehammer.command.CommandTokens;
+import sledgehammer.command.CommandTrie;
+import sledgehammer.interfaces.Listener;
+import sledgehammer.util.Response;
+
+/**
+ * Tests the matching rules of CommandTrie: the longest registered path wins, matching falls back
+ * towards the root until a path has an enabled handler, handlers are sorted by priority, and
+ * unregistering a Listener removes its handlers from every path.
+ *
+ * @author Jab
+ */
+public class TestCommandTrie extends UnitTest {
+
+  @Override
+  public String getName() {
+    return "CommandTrie";
+  }
+
+  public void testMatchesLongestPath() {
+    CommandTrie trie = new CommandTrie(new CommandHandlerComparator());
+    TestListener listener = new TestListener();
+    CommandHandlerContainer faction = listener.create("onFaction");
+    CommandHandlerContainer factionCreate = listener.create("onFactionCreate");
+    trie.register("faction", faction);
+    trie.register("faction create", factionCreate);
+    checkArrayEquals(
+        new Object[] {factionCreate}, match(trie, "/faction create myFaction"), "Longest path");
+    checkArrayEquals(new Object[] {faction}, match(trie, "/faction list"), "Shorter path");
+    checkArrayEquals(new Object[] {faction}, match(trie, "/faction"), "Path without arguments");
+    checkArrayEquals(new Object[] {factionCreate}, match(trie, "!FACTION Create"), "Case");
+    checkArrayEquals(new Object[] {factionCreate}, match(trie, "/\"faction\" create"), "Quotes");
+    check(match(trie, "/unknown") == null, "No match for an unknown command");
+    check(match(trie, "/create") == null, "No match for a child path at the root");
+    check(match(trie, "") == null, "No match for an empty command");
+  }
+
+  public void testFallsBackToEnabledHandler() {
+    CommandTrie trie = new CommandTrie(new CommandHandlerComparator());
+    TestListener listener = new TestListener();
+    CommandHandlerContainer faction = listener.create("onFaction");
+    CommandHandlerContainer factionCreate = listener.create("onFactionCreate");
+    trie.register("faction", faction);
+    trie.register("faction create", factionCreate);
+    factionCreate.setEnabled(false);
+    checkArrayEquals(
+        new Object[] {faction}, match(trie, "/faction create x"), "Disabled longest path");
+    faction.setEnabled(false);
+    check(match(trie, "/faction create x") == null, "No enabled handler on the path");
+    // A path without handlers of its own is passed over as well.
+    trie.register("a b c", listener.create("onFaction"));
+    check(match(trie, "/a b") == null, "Intermediate path without handlers");
+  }
+
+  public void testSortsByPriority() {
+    CommandTrie trie = new CommandTrie(new CommandHandlerComparator());
+    TestListener listener = new TestListener();
+    CommandHandlerContainer low = listener.create("onLow");
+    CommandHandlerContainer high = listener.create("onHigh");
+    CommandHandlerContainer normal = listener.create("onFaction");
+    trie.register("faction", low);
+    trie.register("faction", normal);
+    trie.register("faction", high);
+    checkArrayEquals(
+        new Object[] {high, normal, low}, trie.getContainers("faction"), "Priority order");
+    check(!trie.register("faction", high), "A second registration is refused");
+    checkEquals(3, trie.getContainers("faction").length, "Handlers after a second registration");
+  }
+
+  public void testNormalizesPaths() {
+    CommandTrie trie = new CommandTrie(new CommandHandlerComparator());
+    CommandHandlerContainer container = new TestListener().create("onFaction");
+    trie.register("  Faction   \"Create\" ", container);
+    checkArrayEquals(
+        new Object[] {container}, trie.getContainers("faction create"), "Normalized path");
+    checkEquals(0, trie.getContainers("faction").length, "Handlers of the parent path");
+    checkEquals(0, trie.getContainers("missing path").length, "Handlers of a missing path");
+    try {
+      trie.register("   ", container);
+      throw new AssertionError("An empty path did not throw.");
+    } catch (IllegalArgumentException e) {
+      // Expected.
+    }
+  }
+
+  public void testUnregistersListener() {
+    CommandTrie trie = new CommandTrie(new CommandHandlerComparator());
+    TestListener listener1 = new TestListener();
+    TestListener listener2 = new TestListener();
+    CommandHandlerContainer faction1 = listener1.create("onFaction");
+    CommandHandlerContainer factionCreate1 = listener1.create("onFactionCreate");
+    CommandHandlerContainer faction2 = listener2.create("onFaction");
+    trie.register("faction", faction1);
+    trie.register("f", faction1);
+    trie.register("faction create", factionCreate1);
+    trie.register("faction", faction2);
+    checkEquals(2, trie.unregister(listener1).size(), "Containers removed, each listed once");
+    checkArrayEquals(new Object[] {faction2}, trie.getContainers("faction"), "Kept handlers");
+    checkEquals(0, trie.getContainers("f").length, "Handlers of an alias");
+    checkArrayEquals(
+        new Object[] {faction2}, match(trie, "/faction create x"), "Match after unregistering");
+    checkEquals(0, trie.unregister(listener1).size(), "Containers removed a second time");
+  }
+
+  public void testHashCollisions() {
+    CommandTrie trie = new CommandTrie(new CommandHandlerComparator());
+    TestListener listener = new TestListener();
+    checkEquals("az".hashCode(), "b[".hashCode(), "Hash codes of the colliding tokens");
+    CommandHandlerContainer az = listener.create("onFaction");
+    CommandHandlerContainer bracket = listener.create("onFactionCreate");
+    trie.register("AZ", az);
+    trie.register("b[", bracket);
+    checkArrayEquals(new Object[] {az}, match(trie, "/az"), "Match of 'az'");
+    checkArrayEquals(new Object[] {bracket}, match(trie, "/B["), "Match of 'b['");
+    check(match(trie, "/ba") == null, "No match of a token with neither hash code");
+  }
+
+  public void testManyCommands() {
+    CommandTrie trie = new CommandTrie(new CommandHandlerComparator());
+    TestListener listener = new TestListener();
+    CommandHandlerContainer[] containers = new CommandHandlerContainer[500];
+    for (int index = 0; index < containers.length; index++) {
+      containers[index] = listener.create("onFaction");
+      trie.register("command" + index + " sub", containers[index]);
+    }
+    for (int index = 0; index < containers.length; index++) {
+      checkArrayEquals(
+          new Object[] {containers[index]},
+          match(trie, "/COMMAND" + index + " sub arg"),
+          "Match of command " + index);
+      check(match(trie, "/command" + index) == null, "No match of the parent " + index);
+    }
+    check(match(trie, "/command500 sub") == null, "No match of a missing command");
+    checkEquals(containers.length, trie.getCommandHandlers().size(), "Registered paths");
+  }
+
+  public void testListsAndClears() {
+    CommandTrie trie = new CommandTrie(new CommandHandlerComparator());
+    TestListener listener = new TestListener();
+    trie.register("b", listener.create("onFaction"));
+    trie.register("a c", listener.create("onFaction"));
+    trie.register("a", listener.create("onFaction"));
+    Map<String, CommandHandlerContainer[]> map = trie.getCommandHandlers();
+    checkArrayEquals(new Object[] {"a", "a c", "b"}, map.keySet().toArray(), "Sorted paths");
+    trie.clear();
+    checkEquals(0, trie.getCommandHandlers().size(), "Paths after clearing");
+    check(match(trie, "/a") == null, "No match after clearing");
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param trie The CommandTrie to match with.
+   * @param raw The raw command to match.
+   * @return Returns the matched handlers, or null.
+   */
+  private static CommandHandlerContainer[] match(CommandTrie trie, String raw) {
+    return trie.match(CommandTokens.tokenize(raw));
+  }
+
+  public static void main(String[] args) {
+    runAll(new TestCommandTrie());
+  }
+
+  /** A Listener with CommandHandlers to register. */
+  public static class TestListener implements Listener {
+
+    /**
+     * @param methodName The name of the CommandHandler method.
+     * @return Returns a new CommandHandlerContainer for the method.
+     */
+    CommandHandlerContainer create(String methodName) {
+      try {
+        Method method =
+            TestListener.class.getDeclaredMethod(methodName, Command.class, Response.class);
+        return new CommandHandlerContainer(
+            this, method, method.getAnnotation(CommandHandler.class));
+      } catch (NoSuchMethodException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    @CommandHandler(command = "faction")
+    public void onFaction(Command command, Response response) {}
+
+    @CommandHandler(command = "faction create")
+    public void onFactionCreate(Command command, Response response) {}
+
+    @CommandHandler(command = "faction", priority = -5)
+    public void onLow(Command command, Response response) {}
+
+    @CommandHandler(command = "faction", priority = 5)
+    public void onHigh(Command command, Response response) {}
+  }
+}
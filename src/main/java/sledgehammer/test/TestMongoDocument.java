@@ -0,0 +1,319 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+package sledgehammer.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+import sledgehammer.database.MongoCollection;
+import sledgehammer.database.document.MongoDocument;
+import sledgehammer.database.document.MongoDocumentElement;
+
+/**
+ * Tests the partial saves of MongoDocument: only the fields that changed since the last save are
+ * set, sub-documents are compared key by key, removed keys of sub-documents are unset by path,
+ * arrays are written whole, and a failed write or a changed identifier writes the whole document
+ * again.
+ *
+ * <p>The upserts are recorded by the MongoCollection instead of being written.
+ *
+ * @author Jab
+ */
+public class TestMongoDocument extends UnitTest {
+
+  @Override
+  public String getName() {
+    return "MongoDocument";
+  }
+
+  public void testFirstSaveWritesWholeDocument() {
+    TestDocument document = createDocument();
+    document.save();
+    checkUpsert(
+        document,
+        set("id", "1", "name", "a", "metadata", set("a", 1, "b", 1), "tags", list("x")),
+        null);
+    document.save();
+    check(document.collection.listSets.isEmpty(), "Nothing is written without changes");
+  }
+
+  public void testSubDocumentKeyChange() {
+    TestDocument document = createDocument();
+    document.save();
+    document.collection.clear();
+    // The sub-document is changed in place, after it was saved.
+    document.metadata.put("a", 2);
+    document.save();
+    checkUpsert(document, set("id", "1", "metadata.a", 2), null);
+    // A sub-document inside of a sub-document.
+    document.metadata.put("inner", set("x", 1));
+    document.save();
+    checkUpsert(document, set("id", "1", "metadata.inner", set("x", 1)), null);
+    ((DBObject) document.metadata.get("inner")).put("x", 2);
+    document.metadata.put("c", 1);
+    document.save();
+    checkUpsert(document, set("id", "1", "metadata.inner.x", 2, "metadata.c", 1), null);
+  }
+
+  public void testRemovedMetadataKeyUnsetByPath() {
+    TestDocument document = createDocument();
+    document.metadata.put("inner", set("x", 1, "y", 1));
+    document.save();
+    document.collection.clear();
+    document.metadata.removeField("b");
+    document.save();
+    checkUpsert(document, set("id", "1"), set("metadata.b", ""));
+    ((DBObject) document.metadata.get("inner")).removeField("y");
+    document.metadata.put("a", 2);
+    document.save();
+    checkUpsert(document, set("id", "1", "metadata.a", 2), set("metadata.inner.y", ""));
+  }
+
+  public void testArraysWrittenWhole() {
+    TestDocument document = createDocument();
+    document.save();
+    document.collection.clear();
+    // The array is changed in place, after it was saved.
+    document.tags.add("y");
+    document.save();
+    checkUpsert(document, set("id", "1", "tags", list("x", "y")), null);
+    // Sub-documents with keys that cannot be used in a path are written whole as well.
+    document.metadata.put("dotted", set("a.b", 1));
+    document.save();
+    checkUpsert(document, set("id", "1", "metadata.dotted", set("a.b", 1)), null);
+    ((DBObject) document.metadata.get("dotted")).put("a.b", 2);
+    document.save();
+    checkUpsert(document, set("id", "1", "metadata.dotted", set("a.b", 2)), null);
+  }
+
+  public void testIdentifierChange() {
+    TestDocument document = createDocument();
+    document.save();
+    document.collection.clear();
+    document.id = "2";
+    document.save();
+    checkUpsert(
+        document,
+        set("id", "2", "name", "a", "metadata", set("a", 1, "b", 1), "tags", list("x")),
+        null);
+    document.save();
+    check(document.collection.listSets.isEmpty(), "Nothing is written without changes");
+  }
+
+  public void testMarkWriteFailedRestoresUnsets() {
+    TestDocument document = createDocument();
+    TestElement element = new TestElement(document);
+    document.addEntry(element);
+    document.save();
+    document.collection.clear();
+    // Removing the entry saves the document, and unsets the entry.
+    document.removeEntry(element);
+    checkUpsert(document, set("id", "1"), set("element", ""));
+    document.markWriteFailed(set("element", ""));
+    document.save();
+    checkUpsert(
+        document,
+        set("id", "1", "name", "a", "metadata", set("a", 1, "b", 1), "tags", list("x")),
+        set("element", ""));
+    // A path inside of a field written whole is not unset, as Mongo rejects the conflict.
+    document.metadata.removeField("b");
+    document.save();
+    checkUpsert(document, set("id", "1"), set("metadata.b", ""));
+    document.markWriteFailed(set("metadata.b", ""));
+    document.save();
+    checkUpsert(
+        document, set("id", "1", "name", "a", "metadata", set("a", 1), "tags", list("x")), null);
+    // An entry added again after the failed write is not unset.
+    document.addEntry(element);
+    document.save();
+    document.collection.clear();
+    document.removeEntry(element);
+    checkUpsert(document, set("id", "1"), set("element", ""));
+    document.markWriteFailed(set("element", ""));
+    document.addEntry(element);
+    document.save();
+    checkUpsert(
+        document,
+        set(
+            "id",
+            "1",
+            "name",
+            "a",
+            "metadata",
+            set("a", 1),
+            "tags",
+            list("x"),
+            "element",
+            set("value", 1)),
+        null);
+  }
+
+  public void testMarkSavedAndMarkDirty() {
+    TestDocument document = createDocument();
+    document.markSaved(set("id", "1", "name", "a", "metadata", set("a", 1), "tags", list("x")));
+    document.save();
+    checkUpsert(document, set("id", "1", "metadata.b", 1), null);
+    document.markDirty("name");
+    document.save();
+    checkUpsert(document, set("id", "1", "name", "a"), null);
+    document.markDirty();
+    document.save();
+    checkUpsert(
+        document,
+        set("id", "1", "name", "a", "metadata", set("a", 1, "b", 1), "tags", list("x")),
+        null);
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @return Returns a new document with the identifier "1", that is not saved.
+   */
+  private static TestDocument createDocument() {
+    TestDocument document = new TestDocument(new RecordingCollection());
+    document.id = "1";
+    document.name = "a";
+    document.metadata.put("a", 1);
+    document.metadata.put("b", 1);
+    document.tags.add("x");
+    return document;
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Checks the only upsert recorded since the last check, and clears the recorded upserts.
+   *
+   * @param document The document saved.
+   * @param set The expected fields to set.
+   * @param unset The expected fields to unset. Null if none are expected.
+   */
+  private static void checkUpsert(TestDocument document, DBObject set, DBObject unset) {
+    RecordingCollection collection = document.collection;
+    checkEquals(1, collection.listSets.size(), "Upserts written");
+    checkEquals(set, collection.listSets.get(0), "Fields set");
+    checkEquals(unset, collection.listUnsets.get(0), "Fields unset");
+    collection.clear();
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param fieldsAndValues The names and values of the fields, in pairs.
+   * @return Returns a new BasicDBObject with the fields.
+   */
+  private static BasicDBObject set(Object... fieldsAndValues) {
+    BasicDBObject object = new BasicDBObject();
+    for (int index = 0; index < fieldsAndValues.length; index += 2) {
+      object.put((String) fieldsAndValues[index], fieldsAndValues[index + 1]);
+    }
+    return object;
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param values The values of the array.
+   * @return Returns a new List with the values.
+   */
+  private static List<Object> list(Object... values) {
+    List<Object> list = new ArrayList<>();
+    for (Object value : values) {
+      list.add(value);
+    }
+    return list;
+  }
+
+  public static void main(String[] args) {
+    runAll(new TestMongoDocument());
+  }
+
+  /** A MongoCollection that records the upserts instead of writing them. */
+  private static class RecordingCollection extends MongoCollection {
+
+    final List<DBObject> listSets = new ArrayList<>();
+    final List<DBObject> listUnsets = new ArrayList<>();
+
+    RecordingCollection() {
+      super(null, null);
+    }
+
+    @Override
+    public void upsert(DBObject object, DBObject unset, String field, Object lock) {
+      listSets.add(object);
+      listUnsets.add(unset);
+    }
+
+    /** Clears the recorded upserts. */
+    void clear() {
+      listSets.clear();
+      listUnsets.clear();
+    }
+  }
+
+  /** A document with a name, a sub-document, and an array. */
+  private static class TestDocument extends MongoDocument {
+
+    final RecordingCollection collection;
+    final BasicDBObject metadata = new BasicDBObject();
+    final List<String> tags = new ArrayList<>();
+    String id;
+    String name;
+
+    TestDocument(RecordingCollection collection) {
+      super(collection, "id");
+      this.collection = collection;
+    }
+
+    @Override
+    public void onLoad(DBObject object) {}
+
+    @Override
+    public void onSave(DBObject object) {
+      object.put("name", name);
+      object.put("metadata", metadata);
+      object.put("tags", tags);
+    }
+
+    @Override
+    public Object getFieldValue() {
+      return id;
+    }
+  }
+
+  /** An entry of a document. */
+  private static class TestElement extends MongoDocumentElement {
+
+    TestElement(MongoDocument document) {
+      super(document, "element");
+    }
+
+    @Override
+    public void onLoad(DBObject object) {}
+
+    @Override
+    public void onSave(DBObject object) {
+      object.put("value", 1);
+    }
+  }
+}
@@ -0,0 +1,290 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+package sledgehammer.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DB;
+import com.mongodb.DBObject;
+import com.mongodb.MongoClient;
+
+import sledgehammer.database.MongoCollection;
+import sledgehammer.database.transaction.MongoDocumentTransaction;
+import sledgehammer.database.transaction.MongoDocumentTransactionDelete;
+import sledgehammer.database.transaction.MongoDocumentTransactionUpsert;
+import sledgehammer.database.transaction.MongoTransactionCoalescer;
+
+/**
+ * Tests the merging rules of MongoTransactionCoalescer: the last write of each field wins, a delete
+ * supersedes the upserts before it, an upsert after a delete is written after it, upserts of a
+ * field and a path inside of it are not merged, and unknown transactions are written in place.
+ *
+ * <p>The collections are created from a MongoClient that is closed before the tests, as nothing
+ * is written.
+ *
+ * @author Jab
+ */
+public class TestMongoTransactionCoalescer extends UnitTest {
+
+  private final DB db;
+  private final MongoCollection players;
+  private final MongoCollection factions;
+
+  /** Main constructor. */
+  public TestMongoTransactionCoalescer() {
+    MongoClient client = new MongoClient();
+    client.close();
+    db = client.getDB("sledgehammer_test");
+    players = new MongoCollection(null, db.getCollection("players"));
+    factions = new MongoCollection(null, db.getCollection("factions"));
+  }
+
+  @Override
+  public String getName() {
+    return "MongoTransactionCoalescer";
+  }
+
+  public void testLastWriteWins() {
+    Object lock1 = new Object();
+    Object lock2 = new Object();
+    List<MongoDocumentTransaction> listMerged =
+        coalesce(
+            upsert(players, 1, set("name", "a", "x", 1, "y", 1), null, lock1),
+            upsert(players, 1, set("name", "b"), set("x", ""), lock2),
+            upsert(players, 1, set("x", 2), set("y", ""), lock2));
+    checkEquals(1, listMerged.size(), "Merged transactions");
+    MongoDocumentTransactionUpsert upsert = (MongoDocumentTransactionUpsert) listMerged.get(0);
+    checkEquals(set("id", 1, "name", "b", "x", 2), upsert.getObject(), "Fields set");
+    checkEquals(set("y", ""), upsert.getUnset(), "Fields unset");
+    check(upsert.getLock() == lock2, "The lock of the last upsert");
+    // A field set after it is unset is no longer unset.
+    listMerged =
+        coalesce(
+            upsert(players, 1, set("x", 1), set("y", ""), lock1),
+            upsert(players, 1, set("y", 2), null, lock1));
+    upsert = (MongoDocumentTransactionUpsert) listMerged.get(0);
+    checkEquals(set("id", 1, "x", 1, "y", 2), upsert.getObject(), "Fields set after unset");
+    check(upsert.getUnset() == null, "Nothing is unset");
+  }
+
+  public void testDeleteSupersedesUpserts() {
+    List<MongoDocumentTransaction> listMerged =
+        coalesce(
+            upsert(players, 1, set("x", 1), null, null),
+            upsert(players, 1, set("y", 1), set("z", ""), null),
+            delete(players, 1),
+            delete(players, 1));
+    checkEquals(1, listMerged.size(), "Merged transactions");
+    checkDelete(listMerged.get(0), players, 1);
+  }
+
+  public void testUpsertAfterDelete() {
+    List<MongoDocumentTransaction> listMerged =
+        coalesce(
+            upsert(players, 1, set("x", 1, "y", 1), null, null),
+            delete(players, 1),
+            upsert(players, 1, set("z", 1), set("y", ""), null),
+            upsert(players, 1, set("z", 2), null, null));
+    checkEquals(2, listMerged.size(), "Merged transactions");
+    checkDelete(listMerged.get(0), players, 1);
+    MongoDocumentTransactionUpsert upsert = (MongoDocumentTransactionUpsert) listMerged.get(1);
+    checkEquals(set("id", 1, "z", 2), upsert.getObject(), "Fields set since the delete");
+    checkEquals(set("y", ""), upsert.getUnset(), "Fields unset since the delete");
+  }
+
+  public void testPathConflicts() {
+    // A path inside of a pending field.
+    List<MongoDocumentTransaction> listMerged =
+        coalesce(
+            upsert(players, 1, set("metadata", set("a", 1)), null, null),
+            upsert(players, 1, set("metadata.b", 2), null, null));
+    checkEquals(2, listMerged.size(), "Path inside of a pending field");
+    checkUpsert(listMerged.get(0), set("id", 1, "metadata", set("a", 1)), null);
+    checkUpsert(listMerged.get(1), set("id", 1, "metadata.b", 2), null);
+    // A field containing a pending path, and a path inside of a pending unset.
+    listMerged =
+        coalesce(
+            upsert(players, 1, set("metadata.a", 1), null, null),
+            upsert(players, 1, set("x", 1), set("metadata", ""), null),
+            upsert(players, 1, set("metadata.b", 2), null, null));
+    checkEquals(3, listMerged.size(), "Parent and child paths");
+    checkUpsert(listMerged.get(0), set("id", 1, "metadata.a", 1), null);
+    checkUpsert(listMerged.get(1), set("id", 1, "x", 1), set("metadata", ""));
+    checkUpsert(listMerged.get(2), set("id", 1, "metadata.b", 2), null);
+    // Sibling paths, and fields sharing a prefix, are merged.
+    listMerged =
+        coalesce(
+            upsert(players, 1, set("metadata.a", 1), null, null),
+            upsert(players, 1, set("metadata.b", 2), set("metadataOld", ""), null));
+    checkEquals(1, listMerged.size(), "Sibling paths");
+    checkUpsert(
+        listMerged.get(0),
+        set("id", 1, "metadata.a", 1, "metadata.b", 2),
+        set("metadataOld", ""));
+  }
+
+  public void testBarrierOrdering() {
+    MongoDocumentTransaction barrier =
+        new MongoDocumentTransaction(players) {
+          @Override
+          public void run() {}
+        };
+    List<MongoDocumentTransaction> listMerged =
+        coalesce(
+            upsert(players, 1, set("x", 1), null, null),
+            upsert(factions, 1, set("x", 1), null, null),
+            upsert(players, 2, set("x", 1), null, null),
+            upsert(players, 1, set("x", 2), null, null),
+            barrier,
+            upsert(players, 2, set("x", 2), null, null),
+            delete(players, 1));
+    checkEquals(6, listMerged.size(), "Merged transactions");
+    // Documents are written in the order they are first seen, before the barrier.
+    checkUpsert(listMerged.get(0), set("id", 1, "x", 2), null);
+    check(listMerged.get(0).getMongoCollection() == players, "Collection of the first");
+    checkUpsert(listMerged.get(1), set("id", 1, "x", 1), null);
+    check(listMerged.get(1).getMongoCollection() == factions, "Collection of the second");
+    checkUpsert(listMerged.get(2), set("id", 2, "x", 1), null);
+    check(listMerged.get(3) == barrier, "The barrier is written in place");
+    // Nothing after the barrier is merged with what is before it.
+    checkUpsert(listMerged.get(4), set("id", 2, "x", 2), null);
+    checkDelete(listMerged.get(5), players, 1);
+  }
+
+  public void testCollectionsComparedByName() {
+    MongoCollection playersOther = new MongoCollection(null, db.getCollection("players"));
+    List<MongoDocumentTransaction> listMerged =
+        coalesce(
+            upsert(players, 1, set("x", 1), null, null),
+            upsert(playersOther, 1, set("y", 1), null, null));
+    checkEquals(1, listMerged.size(), "Merged transactions");
+    checkUpsert(listMerged.get(0), set("id", 1, "x", 1, "y", 1), null);
+  }
+
+  public void testMetrics() {
+    MongoTransactionCoalescer coalescer = new MongoTransactionCoalescer();
+    List<MongoDocumentTransaction> listMerged = new ArrayList<>();
+    coalescer.coalesce(
+        Arrays.<MongoDocumentTransaction>asList(
+            upsert(players, 1, set("x", 1), null, null),
+            upsert(players, 1, set("x", 2), null, null),
+            upsert(players, 2, set("x", 1), null, null),
+            delete(players, 2)),
+        listMerged);
+    checkEquals(4L, coalescer.getReceivedCount(), "Received");
+    checkEquals(2L, coalescer.getWrittenCount(), "Written");
+    checkEquals(2.0, coalescer.getCoalescingRatio(), "Coalescing ratio");
+    coalescer.resetMetrics();
+    checkEquals(1.0, coalescer.getCoalescingRatio(), "Coalescing ratio after reset");
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param transactions The transactions of a window.
+   * @return Returns the merged transactions of the window.
+   */
+  private static List<MongoDocumentTransaction> coalesce(
+      MongoDocumentTransaction... transactions) {
+    List<MongoDocumentTransaction> listMerged = new ArrayList<>();
+    new MongoTransactionCoalescer().coalesce(Arrays.asList(transactions), listMerged);
+    return listMerged;
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param collection The collection of the document.
+   * @param id The identifier of the document.
+   * @param object The fields to set, without the identifier.
+   * @param unset The fields to unset. Null if there are none.
+   * @param lock The lock of the upsert.
+   * @return Returns a new upsert of the document.
+   */
+  private static MongoDocumentTransactionUpsert upsert(
+      MongoCollection collection, int id, BasicDBObject object, DBObject unset, Object lock) {
+    BasicDBObject objectFull = new BasicDBObject("id", id);
+    objectFull.putAll((DBObject) object);
+    return new MongoDocumentTransactionUpsert(collection, objectFull, unset, "id", lock);
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param collection The collection of the document.
+   * @param id The identifier of the document.
+   * @return Returns a new delete of the document.
+   */
+  private static MongoDocumentTransactionDelete delete(MongoCollection collection, int id) {
+    return new MongoDocumentTransactionDelete(collection, "id", id);
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param fieldsAndValues The names and values of the fields, in pairs.
+   * @return Returns a new BasicDBObject with the fields.
+   */
+  private static BasicDBObject set(Object... fieldsAndValues) {
+    BasicDBObject object = new BasicDBObject();
+    for (int index = 0; index < fieldsAndValues.length; index += 2) {
+      object.put((String) fieldsAndValues[index], fieldsAndValues[index + 1]);
+    }
+    return object;
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param transaction The transaction to check.
+   * @param object The expected fields to set.
+   * @param unset The expected fields to unset. Null if none are expected.
+   */
+  private static void checkUpsert(
+      MongoDocumentTransaction transaction, DBObject object, DBObject unset) {
+    check(transaction instanceof MongoDocumentTransactionUpsert, "Upsert: " + transaction);
+    MongoDocumentTransactionUpsert upsert = (MongoDocumentTransactionUpsert) transaction;
+    checkEquals(object, upsert.getObject(), "Fields set");
+    checkEquals(unset, upsert.getUnset(), "Fields unset");
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param transaction The transaction to check.
+   * @param collection The expected collection.
+   * @param id The expected identifier of the document.
+   */
+  private static void checkDelete(
+      MongoDocumentTransaction transaction, MongoCollection collection, int id) {
+    check(transaction instanceof MongoDocumentTransactionDelete, "Delete: " + transaction);
+    MongoDocumentTransactionDelete delete = (MongoDocumentTransactionDelete) transaction;
+    check(delete.getMongoCollection() == collection, "Collection of the delete");
+    checkEquals("id", delete.getField(), "Field of the delete");
+    checkEquals(id, delete.getValue(), "Identifier of the delete");
+  }
+
+  public static void main(String[] args) {
+    runAll(new TestMongoTransactionCoalescer());
+  }
+}
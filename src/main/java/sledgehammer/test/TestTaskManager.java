@@ -0,0 +1,363 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+package sledgehammer.test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import sledgehammer.SledgeHammer;
+import sledgehammer.manager.TaskManager;
+import sledgehammer.plugin.Module;
+import sledgehammer.util.TickTask;
+
+/**
+ * Tests the timing wheel of the TaskManager: TickTasks run on the exact update they are due across
+ * the boundaries of the levels of the wheel and the cascades every 256 ticks, timer-tasks run
+ * every interval + 1 ticks as counted down by 'TickTask.runTask()', and cancelled or unregistered
+ * TickTasks are removed from every level.
+ *
+ * <p>Updates are counted from 1, so a TickTask registered after n updates with a delay of d ticks
+ * runs on update n + d + 1.
+ *
+ * @author Jab
+ */
+public class TestTaskManager extends UnitTest {
+
+  /** The TaskManager under test, installed on the SledgeHammer instance. */
+  private TaskManager manager;
+  /** The amount of times 'TaskManager.onUpdate()' has been called. */
+  private long updates;
+
+  @Override
+  public String getName() {
+    return "TaskManager";
+  }
+
+  public void testDelaysAcrossLevels() {
+    reset();
+    TestModule module = new TestModule("module");
+    int[] delays = new int[] {0, 1, 254, 255, 256, 257, 511, 512, 65535, 65536, 65537};
+    RecordingTask[] tasks = new RecordingTask[delays.length];
+    for (int index = 0; index < delays.length; index++) {
+      tasks[index] = new RecordingTask();
+      tasks[index].runTaskLater(module, delays[index]);
+    }
+    checkEquals(delays.length, manager.getTaskCount(), "Registered TickTasks");
+    update(65540);
+    for (int index = 0; index < delays.length; index++) {
+      checkEquals(
+          list(delays[index] + 1L), tasks[index].listUpdates, "Delay of " + delays[index]);
+    }
+    checkEquals(0, manager.getTaskCount(), "Registered TickTasks after running");
+  }
+
+  public void testDelaysFromEveryOffset() {
+    reset();
+    TestModule module = new TestModule("module");
+    // Register at offsets around the wraps of the first two levels, with delays that cross them.
+    long[] offsets = new long[] {1, 128, 255, 256, 257, 511, 65280, 65535, 65536};
+    int[] delays = new int[] {0, 1, 255, 256, 300, 65535, 65536, 70000};
+    List<RecordingTask> listTasks = new ArrayList<>();
+    List<Long> listExpected = new ArrayList<>();
+    for (long offset : offsets) {
+      update(offset - updates);
+      for (int delay : delays) {
+        RecordingTask task = new RecordingTask();
+        task.runTaskLater(module, delay);
+        listTasks.add(task);
+        listExpected.add(updates + delay + 1L);
+      }
+    }
+    update(65536 + 70001 - updates);
+    for (int index = 0; index < listTasks.size(); index++) {
+      checkEquals(
+          list(listExpected.get(index)), listTasks.get(index).listUpdates, "TickTask " + index);
+    }
+  }
+
+  public void testCascadeEvery256Ticks() {
+    reset();
+    TestModule module = new TestModule("module");
+    // Every delay from 256 to 1023 is placed on the second level, and is cascaded down to the
+    // first level on the wrap of the first level before it is due.
+    RecordingTask[] tasks = new RecordingTask[768];
+    for (int index = 0; index < tasks.length; index++) {
+      tasks[index] = new RecordingTask();
+      tasks[index].runTaskLater(module, 256 + index);
+    }
+    for (int wrap = 1; wrap <= 4; wrap++) {
+      update(256L * wrap - updates);
+      for (int index = 0; index < tasks.length; index++) {
+        long due = 256L + index + 1L;
+        checkEquals(
+            due <= updates ? list(due) : new ArrayList<Long>(),
+            tasks[index].listUpdates,
+            "Delay of " + (256 + index) + " after " + updates + " updates");
+      }
+    }
+    checkEquals(0, manager.getTaskCount(), "Registered TickTasks after running");
+  }
+
+  public void testRandomDelays() {
+    reset();
+    Random random = new Random(256L);
+    TestModule module = new TestModule("module");
+    List<RecordingTask> listTasks = new ArrayList<>();
+    List<Long> listExpected = new ArrayList<>();
+    for (int index = 0; index < 2000; index++) {
+      update(random.nextInt(64));
+      int delay = random.nextInt(4) == 0 ? random.nextInt(70000) : random.nextInt(600);
+      RecordingTask task = new RecordingTask();
+      task.runTaskLater(module, delay);
+      listTasks.add(task);
+      listExpected.add(updates + delay + 1L);
+    }
+    update(70000);
+    for (int index = 0; index < listTasks.size(); index++) {
+      checkEquals(
+          list(listExpected.get(index)), listTasks.get(index).listUpdates, "TickTask " + index);
+    }
+  }
+
+  public void testTimerMatchesRunTaskCountdown() {
+    reset();
+    TestModule module = new TestModule("module");
+    int[] intervals = new int[] {1, 2, 255, 256, 300};
+    int[] delays = new int[] {0, 3, 256};
+    for (int interval : intervals) {
+      for (int delay : delays) {
+        long registered = updates;
+        RecordingTask task = new RecordingTask();
+        task.runTaskTimer(module, delay, interval);
+        update(2000);
+        List<Long> listExpected = new ArrayList<>();
+        for (long update : countDown(delay, interval, 2000)) {
+          listExpected.add(registered + update);
+        }
+        checkEquals(
+            listExpected, task.listUpdates, "Timer of " + interval + " delayed by " + delay);
+        // Every interval of n ticks is ran every n + 1 ticks.
+        List<Long> listUpdates = task.listUpdates;
+        for (int index = 1; index < listUpdates.size(); index++) {
+          checkEquals(
+              interval + 1L,
+              listUpdates.get(index) - listUpdates.get(index - 1),
+              "Period of a timer of " + interval);
+        }
+        task.cancel();
+      }
+    }
+    checkEquals(0, manager.getTaskCount(), "Registered TickTasks after cancelling");
+  }
+
+  public void testCancelRemovesEntries() {
+    reset();
+    TestModule module = new TestModule("module");
+    // One TickTask on each of the first three levels, and a timer-task.
+    int[] delays = new int[] {10, 300, 70000};
+    RecordingTask[] tasks = new RecordingTask[delays.length];
+    for (int index = 0; index < delays.length; index++) {
+      tasks[index] = new RecordingTask();
+      tasks[index].runTaskLater(module, delays[index]);
+    }
+    RecordingTask timer = new RecordingTask();
+    timer.runTaskTimer(module, 5, 5);
+    checkEquals(4, manager.getTaskCount(), "Registered TickTasks");
+    update(5);
+    for (RecordingTask task : tasks) {
+      task.cancel();
+    }
+    timer.cancel();
+    checkEquals(0, manager.getTaskCount(), "Registered TickTasks after cancelling");
+    update(70005);
+    for (int index = 0; index < delays.length; index++) {
+      check(tasks[index].listUpdates.isEmpty(), "Cancelled TickTask with a delay ran");
+      check(!tasks[index].isAlive(), "Cancelled TickTask is alive");
+    }
+    check(timer.listUpdates.isEmpty(), "Cancelled timer-task ran");
+    // A cancelled TickTask can be registered again.
+    tasks[0].runTaskLater(module, 300);
+    long registered = updates;
+    update(301);
+    checkEquals(list(registered + 301L), tasks[0].listUpdates, "Registered again");
+  }
+
+  public void testCancelWhileDue() {
+    reset();
+    TestModule module = new TestModule("module");
+    final RecordingTask other = new RecordingTask();
+    RecordingTask canceller =
+        new RecordingTask() {
+          @Override
+          public boolean run() {
+            super.run();
+            // Cancel this timer-task, and a TickTask due on the same tick.
+            cancel();
+            other.cancel();
+            return true;
+          }
+        };
+    canceller.runTaskTimer(module, 300, 1);
+    other.runTaskLater(module, 300);
+    update(400);
+    checkEquals(list(301L), canceller.listUpdates, "Timer-task cancelling itself");
+    check(other.listUpdates.isEmpty(), "TickTask cancelled while due ran");
+    checkEquals(0, manager.getTaskCount(), "Registered TickTasks after cancelling");
+  }
+
+  public void testUnregisterRemovesEntries() {
+    reset();
+    TestModule module = new TestModule("module");
+    TestModule moduleOther = new TestModule("other");
+    int[] delays = new int[] {10, 300, 70000};
+    RecordingTask[] tasks = new RecordingTask[delays.length];
+    RecordingTask[] tasksOther = new RecordingTask[delays.length];
+    for (int index = 0; index < delays.length; index++) {
+      tasks[index] = new RecordingTask();
+      tasks[index].runTaskLater(module, delays[index]);
+      tasksOther[index] = new RecordingTask();
+      tasksOther[index].runTaskLater(moduleOther, delays[index]);
+    }
+    RecordingTask timer = new RecordingTask();
+    timer.runTaskTimer(module, 0, 1);
+    update(1);
+    checkEquals(7, manager.getTaskCount(), "Registered TickTasks");
+    check(manager.getMetrics(module) != null, "TaskMetrics of the Module");
+    manager.unregister(module);
+    checkEquals(3, manager.getTaskCount(), "Registered TickTasks after unregistering");
+    check(manager.getMetrics(module) == null, "TaskMetrics of the unregistered Module");
+    update(70001);
+    for (int index = 0; index < delays.length; index++) {
+      check(tasks[index].listUpdates.isEmpty(), "TickTask of the unregistered Module ran");
+      check(!tasks[index].isAlive(), "TickTask of the unregistered Module is alive");
+      checkEquals(
+          list(delays[index] + 1L), tasksOther[index].listUpdates, "TickTask of the other Module");
+    }
+    checkEquals(list(1L), timer.listUpdates, "Timer-task of the unregistered Module");
+    checkEquals(0, manager.getTaskCount(), "Registered TickTasks after running");
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Installs a new TaskManager on the SledgeHammer instance, to register TickTasks to.
+   */
+  private void reset() {
+    if (SledgeHammer.instance == null) {
+      SledgeHammer.instance = new SledgeHammer(true);
+    }
+    manager = new TaskManager();
+    manager.onLoad(false);
+    try {
+      Field field = SledgeHammer.class.getDeclaredField("managerTask");
+      field.setAccessible(true);
+      field.set(SledgeHammer.instance, manager);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException(e);
+    }
+    updates = 0L;
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param count The amount of times to update the TaskManager.
+   */
+  private void update(long count) {
+    for (long index = 0L; index < count; index++) {
+      updates++;
+      manager.onUpdate();
+    }
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Counts down a timer-task the way 'TickTask.runTask()' does when called once every update.
+   *
+   * @param delayTicksStart The delay in ticks to execute the timer-task the first time.
+   * @param delayTicksTimer The interval in ticks to execute the timer-task.
+   * @param count The amount of updates to count down.
+   * @return Returns the updates, from 1, that the timer-task executes on.
+   */
+  private static List<Long> countDown(int delayTicksStart, int delayTicksTimer, int count) {
+    List<Long> listUpdates = new ArrayList<>();
+    int delayTicks = delayTicksStart;
+    for (long update = 1L; update <= count; update++) {
+      if (delayTicks > 0) {
+        delayTicks--;
+      } else {
+        listUpdates.add(update);
+        delayTicks = delayTicksTimer;
+      }
+    }
+    return listUpdates;
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param update The update.
+   * @return Returns a List with the update.
+   */
+  private static List<Long> list(long update) {
+    List<Long> list = new ArrayList<>();
+    list.add(update);
+    return list;
+  }
+
+  public static void main(String[] args) {
+    runAll(new TestTaskManager());
+  }
+
+  /** A loaded Module to register TickTasks with. */
+  private static class TestModule extends Module {
+
+    private final String name;
+
+    TestModule(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public boolean isLoaded() {
+      return true;
+    }
+  }
+
+  /** A TickTask that records the updates it runs on. */
+  private class RecordingTask extends TickTask {
+
+    final List<Long> listUpdates = new ArrayList<>();
+
+    @Override
+    public boolean run() {
+      listUpdates.add(updates);
+      return true;
+    }
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+
+package sledgehammer.test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * UnitTest is the base for tests of code that does not need a running server. Every public method
+ * with no parameters, whose name starts with 'test', is ran in the order of its name. A test fails
+ * if it throws, and the checks throw an AssertionError with a description of the failure.
+ *
+ * <p>Unlike TestModule, nothing of Sledgehammer is initialized, so the tests can run from any main
+ * method.
+ *
+ * @author Jab
+ */
+public abstract class UnitTest {
+
+  /** @return Returns the name of the test, as printed in the results. */
+  public abstract String getName();
+
+  /**
+   * Runs every test method, and prints the result of each.
+   *
+   * @return Returns the amount of tests that failed.
+   */
+  public int run() {
+    List<Method> listMethods = new ArrayList<>();
+    for (Method method : getClass().getMethods()) {
+      if (method.getName().startsWith("test")
+          && method.getParameterTypes().length == 0
+          && !Modifier.isStatic(method.getModifiers())) {
+        listMethods.add(method);
+      }
+    }
+    Collections.sort(
+        listMethods,
+        new Comparator<Method>() {
+          @Override
+          public int compare(Method method1, Method method2) {
+            return method1.getName().compareTo(method2.getName());
+          }
+        });
+    int failures = 0;
+    for (Method method : listMethods) {
+      try {
+        method.invoke(this);
+        System.out.println("[" + getName() + "] Passed: " + method.getName());
+      } catch (InvocationTargetException e) {
+        failures++;
+        System.out.println("[" + getName() + "] Failed: " + method.getName());
+        e.getCause().printStackTrace(System.out);
+      } catch (IllegalAccessException e) {
+        failures++;
+        System.out.println("[" + getName() + "] Failed: " + method.getName());
+        e.printStackTrace(System.out);
+      }
+    }
+    System.out.println(
+        "["
+            + getName()
+            + "] "
+            + (listMethods.size() - failures)
+            + "/"
+            + listMethods.size()
+            + " tests passed.");
+    return failures;
+  }
+
+  /**
+   * Runs the tests, and exits with a status of 1 if any of them failed.
+   *
+   * @param tests The tests to run.
+   */
+  public static void runAll(UnitTest... tests) {
+    int failures = 0;
+    for (UnitTest test : tests) {
+      failures += test.run();
+    }
+    System.exit(failures == 0 ? 0 : 1);
+  }
+
+  /**
+   * @param condition The condition to check.
+   * @param message The description of the check.
+   * @throws AssertionError Thrown if the condition is false.
+   */
+  protected static void check(boolean condition, String message) {
+    if (!condition) {
+      throw new AssertionError(message);
+    }
+  }
+
+  /**
+   * @param expected The expected value.
+   * @param actual The actual value.
+   * @param message The description of the check.
+   * @throws AssertionError Thrown if the values are not equal.
+   */
+  protected static void checkEquals(Object expected, Object actual, String message) {
+    if (expected == null ? actual != null : !expected.equals(actual)) {
+      throw new AssertionError(message + " (expected: " + expected + ", actual: " + actual + ")");
+    }
+  }
+
+  /**
+   * @param expected The expected values.
+   * @param actual The actual values.
+   * @param message The description of the check.
+   * @throws AssertionError Thrown if the arrays are not equal.
+   */
+  protected static void checkArrayEquals(Object[] expected, Object[] actual, String message) {
+    if (!Arrays.equals(expected, actual)) {
+      throw new AssertionError(
+          message
+              + " (expected: "
+              + Arrays.toString(expected)
+              + ", actual: "
+              + Arrays.toString(actual)
+              + ")");
+    }
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+
+package sledgehammer.util;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import sledgehammer.SledgeHammer;
+import sledgehammer.plugin.Module;
+
+/**
+ * A TickTask that runs its body on the TaskManager's worker pool instead of the server's update
+ * thread. Use this for work that blocks, (E.G: database lookups or file I/O), so that the work does
+ * not stall the tick.
+ *
+ * <p>The body of an AsyncTickTask must not change the state of the server. Results are handed back
+ * to the update thread with 'runOnMainThread(runnable)', and are ran during the next tick.
+ *
+ * <p>When the AsyncTickTask is cancelled, or the Module that registered it is unloaded, bodies that
+ * have not started are skipped, and continuations that have not ran are dropped. If a timer-task's
+ * body is still running when the timer is due again, that execution is skipped.
+ *
+ * @author Jab
+ */
+public abstract class AsyncTickTask extends TickTask {
+
+  /** Incremented every time the AsyncTickTask is cancelled, to invalidate pending work. */
+  private volatile int generation = 0;
+  /** Flag for when a body of the AsyncTickTask is running or waiting for a worker thread. */
+  private volatile boolean running = false;
+  /** Flag for when a timer-task's body has returned false. */
+  private volatile boolean stopped = false;
+
+  @Override
+  public String getName() {
+    String name = getClass().getSimpleName();
+    if (name.isEmpty()) {
+      name = "Anonymous AsyncTickTask";
+    }
+    return name;
+  }
+
+  @Override
+  public final boolean run() {
+    if (stopped) {
+      stopped = false;
+      return false;
+    }
+    if (!running) {
+      running = true;
+      final Module module = getModule();
+      final int generation = this.generation;
+      try {
+        SledgeHammer.instance
+            .getTaskManager()
+            .executeAsync(
+                new Runnable() {
+                  @Override
+                  public void run() {
+                    try {
+                      if (isValid(module, generation) && !runAsync()) {
+                        stopped = true;
+                      }
+                    } catch (Exception e) {
+                      stopped = true;
+                      stackTrace(e);
+                    } finally {
+                      running = false;
+                    }
+                  }
+                });
+      } catch (RejectedExecutionException e) {
+        // The body is skipped. A timer-task tries again when it is next due.
+        running = false;
+        errln("Skipped the body of " + getName() + ": " + e.getMessage());
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void cancel() {
+    generation++;
+    // A one-time AsyncTickTask is no longer alive once its body is handed to the worker pool.
+    if (isAlive()) {
+      super.cancel();
+    }
+  }
+
+  /**
+   * Posts a continuation to run on the server's update thread during the next tick. The
+   * continuation is dropped if the AsyncTickTask is cancelled, or its Module is unloaded, before it
+   * runs.
+   *
+   * <p>This should be called from 'runAsync()'.
+   *
+   * @param runnable The continuation to run.
+   */
+  protected void runOnMainThread(final Runnable runnable) {
+    if (runnable == null) {
+      throw new IllegalArgumentException("Runnable given is null.");
+    }
+    final Module module = getModule();
+    final int generation = this.generation;
+    SledgeHammer.instance.runOnMainThread(
+        new Runnable() {
+          @Override
+          public void run() {
+            if (isValid(module, generation)) {
+              runnable.run();
+            }
+          }
+        });
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param module The Module that registered the AsyncTickTask when the work was posted.
+   * @param generation The generation of the AsyncTickTask when the work was posted.
+   * @return Returns true if the work posted is still wanted.
+   */
+  private boolean isValid(Module module, int generation) {
+    return this.generation == generation && module != null && module.isLoaded();
+  }
+
+  /**
+   * The execution method for the AsyncTickTask implementation. This is ran on a worker thread.
+   *
+   * @return The only importance of returning a boolean is for timer-tasks. If true is returned, the
+   *     timer will keep running. If false is returned, the AsyncTickTask will be unregistered from
+   *     the TaskManager when it is next due.
+   */
+  public abstract boolean runAsync();
+}
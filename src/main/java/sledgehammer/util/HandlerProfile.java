@@ -0,0 +1,130 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+
+package sledgehammer.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HandlerProfile stores the latency histogram and the invocation, exception, and cancellation
+ * counts for a EventHandler or CommandHandler. Profiles are attached to the handler containers by
+ * the ProfileManager while profiling is enabled.
+ *
+ * @author Jab
+ */
+public class HandlerProfile {
+
+  private final LatencyHistogram histogram = new LatencyHistogram();
+  private final AtomicLong exceptions = new AtomicLong();
+  private final AtomicLong cancellations = new AtomicLong();
+  /** The handler container being profiled. */
+  private final Object container;
+  /** The display name of the handler. */
+  private final String name;
+  /** Flag for whether or not the handler has exceeded the budget since the last reset. */
+  private volatile boolean flagged;
+
+  /**
+   * Main constructor.
+   *
+   * @param container The handler container being profiled.
+   * @param name The display name of the handler.
+   */
+  public HandlerProfile(Object container, String name) {
+    this.container = container;
+    this.name = name;
+  }
+
+  /**
+   * Records a invocation of the handler.
+   *
+   * @param nanos The duration of the invocation in nanoseconds.
+   */
+  public void record(long nanos) {
+    histogram.record(nanos);
+  }
+
+  /** Records a invocation of the handler that threw. */
+  public void recordException() {
+    exceptions.incrementAndGet();
+  }
+
+  /**
+   * Records a invocation of the handler that cancelled the Event, or handled the Command.
+   */
+  public void recordCancellation() {
+    cancellations.incrementAndGet();
+  }
+
+  /** Clears all recorded data. */
+  public void reset() {
+    histogram.reset();
+    exceptions.set(0L);
+    cancellations.set(0L);
+    flagged = false;
+  }
+
+  /** @return Returns the latency histogram of the handler. */
+  public LatencyHistogram getHistogram() {
+    return this.histogram;
+  }
+
+  /** @return Returns the amount of invocations of the handler. */
+  public long getInvocations() {
+    return histogram.getCount();
+  }
+
+  /** @return Returns the amount of invocations of the handler that threw. */
+  public long getExceptions() {
+    return exceptions.get();
+  }
+
+  /**
+   * @return Returns the amount of invocations of the handler that cancelled the Event, or handled
+   *     the Command.
+   */
+  public long getCancellations() {
+    return cancellations.get();
+  }
+
+  /** @return Returns the handler container being profiled. */
+  public Object getContainer() {
+    return this.container;
+  }
+
+  /** @return Returns the display name of the handler. */
+  public String getName() {
+    return this.name;
+  }
+
+  /** @return Returns true if the handler has exceeded the budget since the last reset. */
+  public boolean isFlagged() {
+    return this.flagged;
+  }
+
+  /**
+   * Sets whether or not the handler has exceeded the budget since the last reset.
+   *
+   * @param flag The flag to set.
+   */
+  public void setFlagged(boolean flag) {
+    this.flagged = flag;
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+
+package sledgehammer.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LatencyHistogram records durations in nanoseconds into log-linear buckets, in the style of HDR
+ * histograms. Each power of 2 is split into 16 linear sub-buckets, so any recorded value is
+ * reported within ~6% of its true value, with a fixed memory footprint and no allocation when
+ * recording.
+ *
+ * <p>Recording is thread-safe, and does not lock.
+ *
+ * @author Jab
+ */
+public class LatencyHistogram {
+
+  /** The amount of bits used for the linear sub-buckets of each power of 2. */
+  private static final int SUB_BUCKET_BITS = 4;
+  /** The amount of linear sub-buckets for each power of 2. */
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  /** The total amount of buckets, covering every positive long value. */
+  private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong total = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Records a duration.
+   *
+   * @param nanos The duration in nanoseconds. Negative values are recorded as 0.
+   */
+  public void record(long nanos) {
+    if (nanos < 0L) {
+      nanos = 0L;
+    }
+    counts.incrementAndGet(getBucket(nanos));
+    count.incrementAndGet();
+    total.addAndGet(nanos);
+    long maxCurrent;
+    while (nanos > (maxCurrent = max.get())) {
+      if (max.compareAndSet(maxCurrent, nanos)) {
+        break;
+      }
+    }
+  }
+
+  /**
+   * @param percentile The percentile to calculate. (0.0 - 100.0)
+   * @return Returns the duration in nanoseconds at or below which the percentile given of recorded
+   *     durations fall. If nothing is recorded, 0 is returned.
+   */
+  public long getPercentile(double percentile) {
+    long count = getCount();
+    if (count == 0L) {
+      return 0L;
+    }
+    long target = (long) Math.ceil((percentile / 100.0) * count);
+    if (target < 1L) {
+      target = 1L;
+    }
+    long seen = 0L;
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      seen += counts.get(bucket);
+      if (seen >= target) {
+        return Math.min(getBucketMaximum(bucket), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  /** @return Returns the amount of recorded durations. */
+  public long getCount() {
+    return count.get();
+  }
+
+  /** @return Returns the longest recorded duration in nanoseconds. */
+  public long getMax() {
+    return max.get();
+  }
+
+  /** @return Returns the mean of recorded durations in nanoseconds. */
+  public long getMean() {
+    long count = getCount();
+    return count == 0L ? 0L : total.get() / count;
+  }
+
+  /** Clears all recorded durations. */
+  public void reset() {
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      counts.set(bucket, 0L);
+    }
+    count.set(0L);
+    total.set(0L);
+    max.set(0L);
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param value The non-negative value.
+   * @return Returns the bucket index for the value.
+   */
+  private static int getBucket(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int shift = exponent - SUB_BUCKET_BITS;
+    int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+    return (shift + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param bucket The bucket index.
+   * @return Returns the largest value that is recorded into the bucket.
+   */
+  private static long getBucketMaximum(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = bucket / SUB_BUCKETS - 1;
+    long subBucket = bucket % SUB_BUCKETS;
+    long lower = (SUB_BUCKETS + subBucket) << shift;
+    return lower + (1L << shift) - 1L;
+  }
+}
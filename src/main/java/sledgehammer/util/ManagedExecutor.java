@@ -0,0 +1,257 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+
+package sledgehammer.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ManagedExecutor is a named, bounded thread pool that records how it is used. The time each task
+ * waits in the queue and the time it takes to run are recorded into histograms, and the depth of
+ * the queue, the amount of active threads, and the amount of overflowed and rejected tasks can be
+ * read at any time.
+ *
+ * <p>A task is never ran on the submitting thread, as the submitting thread may be the main thread
+ * holding a lock. If the queue is full, the task is placed in an overflow queue of the same
+ * capacity, which the pool threads move back into the queue after each task they run. If the
+ * overflow queue is also full, or the executor is shut down, the task is counted as rejected, and a
+ * RejectedExecutionException is thrown to the submitting thread, so that the caller can undo any
+ * state it set for the task.
+ *
+ * <p>ManagedExecutors are created and shut down by the ExecutorManager.
+ *
+ * @author Jab
+ */
+public class ManagedExecutor extends ThreadPoolExecutor {
+
+  /** The name of the executor. */
+  private final String name;
+  /** The time tasks wait in the queue before running. */
+  private final LatencyHistogram histogramWait = new LatencyHistogram();
+  /** The time tasks take to run. */
+  private final LatencyHistogram histogramRun = new LatencyHistogram();
+  /** The tasks that did not fit in the queue, waiting for a pool thread to queue them. */
+  private final ConcurrentLinkedDeque<Runnable> dequeOverflow = new ConcurrentLinkedDeque<>();
+  /** The amount of tasks in the overflow deque. */
+  private final AtomicInteger overflowSize = new AtomicInteger();
+  /** The amount of tasks the overflow deque can hold. */
+  private final int overflowCapacity;
+  /** The amount of tasks placed in the overflow deque because the queue was full. */
+  private final AtomicLong overflowed = new AtomicLong();
+  /** The amount of tasks rejected because both queues were full, or the executor was shut down. */
+  private final AtomicLong rejected = new AtomicLong();
+
+  /**
+   * Main constructor.
+   *
+   * @param name The name of the executor. Threads are named 'SledgeHammer-[name]-[index]'.
+   * @param threadCount The amount of threads in the pool.
+   * @param capacity The amount of tasks the queue can hold.
+   */
+  public ManagedExecutor(String name, int threadCount, int capacity) {
+    super(
+        threadCount,
+        threadCount,
+        0L,
+        TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<Runnable>(capacity),
+        createThreadFactory(name),
+        new OverflowRejectedExecutionHandler());
+    this.name = name;
+    this.overflowCapacity = capacity;
+  }
+
+  @Override
+  public void execute(Runnable runnable) {
+    if (runnable == null) {
+      throw new NullPointerException("Runnable given is null.");
+    }
+    super.execute(new TimedTask(runnable));
+  }
+
+  @Override
+  protected void afterExecute(Runnable runnable, Throwable throwable) {
+    super.afterExecute(runnable, throwable);
+    drainOverflow();
+  }
+
+  @Override
+  public String toString() {
+    return name
+        + ": threads = "
+        + getActiveCount()
+        + "/"
+        + getMaximumPoolSize()
+        + ", queued = "
+        + getQueue().size()
+        + ", completed = "
+        + getCompletedTaskCount()
+        + ", overflowed = "
+        + getOverflowCount()
+        + ", rejected = "
+        + getRejectedCount();
+  }
+
+  /** @return Returns the name of the executor. */
+  public String getName() {
+    return this.name;
+  }
+
+  /** @return Returns the amount of tasks waiting in the queue and the overflow queue. */
+  public int getQueueDepth() {
+    return getQueue().size() + overflowSize.get();
+  }
+
+  /** @return Returns the amount of tasks placed in the overflow queue as the queue was full. */
+  public long getOverflowCount() {
+    return this.overflowed.get();
+  }
+
+  /**
+   * @return Returns the amount of tasks rejected because both queues were full, or the executor
+   *     was shut down.
+   */
+  public long getRejectedCount() {
+    return this.rejected.get();
+  }
+
+  /** @return Returns the histogram of the time tasks wait in the queue before running. */
+  public LatencyHistogram getWaitHistogram() {
+    return this.histogramWait;
+  }
+
+  /** @return Returns the histogram of the time tasks take to run. */
+  public LatencyHistogram getRunHistogram() {
+    return this.histogramRun;
+  }
+
+  /** Clears the recorded latencies and the overflowed and rejected counts. */
+  public void resetMetrics() {
+    histogramWait.reset();
+    histogramRun.reset();
+    overflowed.set(0L);
+    rejected.set(0L);
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Moves tasks from the overflow deque into the queue, in order, until the queue is full.
+   */
+  private void drainOverflow() {
+    Runnable runnable;
+    while ((runnable = dequeOverflow.pollFirst()) != null) {
+      if (!getQueue().offer(runnable)) {
+        dequeOverflow.offerFirst(runnable);
+        return;
+      }
+      overflowSize.decrementAndGet();
+    }
+  }
+
+  /**
+   * (Private Method)
+   *
+   * <p>Places a task that did not fit in the queue in the overflow deque, or rejects it if the
+   * overflow deque is full or the executor is shut down.
+   *
+   * @param runnable The task rejected by the queue.
+   * @throws RejectedExecutionException Thrown if the task is rejected.
+   */
+  private void overflow(Runnable runnable) {
+    if (isShutdown()) {
+      rejected.incrementAndGet();
+      throw new RejectedExecutionException("Executor '" + name + "' is shut down.");
+    }
+    if (overflowSize.incrementAndGet() > overflowCapacity) {
+      overflowSize.decrementAndGet();
+      rejected.incrementAndGet();
+      throw new RejectedExecutionException("Executor '" + name + "' is full.");
+    }
+    overflowed.incrementAndGet();
+    dequeOverflow.offerLast(runnable);
+    // The pool threads may have emptied the queue before the task was added.
+    drainOverflow();
+  }
+
+  /**
+   * (Private Method)
+   *
+   * @param name The name of the executor.
+   * @return Returns a ThreadFactory creating named daemon threads.
+   */
+  private static ThreadFactory createThreadFactory(final String name) {
+    final AtomicInteger threadCount = new AtomicInteger();
+    return new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread =
+            new Thread(runnable, "SledgeHammer-" + name + "-" + threadCount.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+      }
+    };
+  }
+
+  /** Wraps a task to record the time it waits, and the time it runs. */
+  private class TimedTask implements Runnable {
+
+    private final Runnable runnable;
+    private final long timeSubmitted;
+
+    /**
+     * Main constructor.
+     *
+     * @param runnable The task to run.
+     */
+    TimedTask(Runnable runnable) {
+      this.runnable = runnable;
+      this.timeSubmitted = System.nanoTime();
+    }
+
+    @Override
+    public void run() {
+      long timeStarted = System.nanoTime();
+      histogramWait.record(timeStarted - timeSubmitted);
+      try {
+        runnable.run();
+      } finally {
+        histogramRun.record(System.nanoTime() - timeStarted);
+      }
+    }
+  }
+
+  /** Passes tasks that cannot be queued to the overflow deque of the executor. */
+  private static class OverflowRejectedExecutionHandler implements RejectedExecutionHandler {
+
+    @Override
+    public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+      ((ManagedExecutor) executor).overflow(runnable);
+    }
+  }
+}
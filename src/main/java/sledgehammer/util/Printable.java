@@ -103,10 +103,15 @@ public abstract class Printable {
   }
 
   public synchronized void stackTrace(Throwable throwable) {
-    errln(ThrowableEvent.getStackTrace(throwable));
-    // Send to the EventManagerOld for ExceptionListeners to handle.
-    if (SledgeHammer.instance != null) {
-      SledgeHammer.instance.handle(throwable);
+    if (SledgeHammer.instance == null || SledgeHammer.instance.getEventManager() == null) {
+      errln(ThrowableEvent.getStackTrace(throwable));
+      return;
+    }
+    // Send to the EventManager for ExceptionListeners to handle. Suppressed repeats are not
+    // printed, and are summarized by the EventManager instead.
+    ThrowableEvent event = SledgeHammer.instance.handleThrown(throwable);
+    if (event != null) {
+      errln(event.printStackTrace());
     }
   }
 
@@ -0,0 +1,118 @@
+/*
+ * This file is part of Sledgehammer.
+ *
+ *    Sledgehammer is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Sledgehammer is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with Sledgehammer. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *    Sledgehammer is free to use and modify, ONLY for non-official third-party servers
+ *    not affiliated with TheIndieStone, or it's immediate affiliates, or contractors.
+ */
+
+package sledgehammer.util;
+
+/**
+ * TaskMetrics stores the execution time, deferral, and overrun counts of the TickTasks registered
+ * by a Module. Metrics are recorded by the TaskManager on the server's update thread.
+ *
+ * @author Jab
+ */
+public class TaskMetrics {
+
+  /** The display name of the Module. */
+  private final String name;
+  /** The amount of TickTasks executed. */
+  private long executions;
+  /** The total execution time in nanoseconds. */
+  private long nanosTotal;
+  /** The longest execution time in nanoseconds. */
+  private long nanosMax;
+  /** The amount of times a due TickTask was carried over to the next tick. */
+  private long deferrals;
+  /** The amount of times a TickTask ran past the end of the tick's budget. */
+  private long overruns;
+
+  /**
+   * Main constructor.
+   *
+   * @param name The display name of the Module.
+   */
+  public TaskMetrics(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Records the execution of a TickTask.
+   *
+   * @param nanos The duration of the execution in nanoseconds.
+   */
+  public void record(long nanos) {
+    executions++;
+    nanosTotal += nanos;
+    if (nanos > nanosMax) {
+      nanosMax = nanos;
+    }
+  }
+
+  /**
+   * Records due TickTasks that are carried over to the next tick.
+   *
+   * @param count The amount of TickTasks carried over.
+   */
+  public void recordDeferrals(int count) {
+    deferrals += count;
+  }
+
+  /** Records a TickTask that ran past the end of the tick's budget. */
+  public void recordOverrun() {
+    overruns++;
+  }
+
+  /** Clears all recorded data. */
+  public void reset() {
+    executions = 0L;
+    nanosTotal = 0L;
+    nanosMax = 0L;
+    deferrals = 0L;
+    overruns = 0L;
+  }
+
+  /** @return Returns the display name of the Module. */
+  public String getName() {
+    return this.name;
+  }
+
+  /** @return Returns the amount of TickTasks executed. */
+  public long getExecutions() {
+    return this.executions;
+  }
+
+  /** @return Returns the total execution time in nanoseconds. */
+  public long getTotalNanos() {
+    return this.nanosTotal;
+  }
+
+  /** @return Returns the longest execution time in nanoseconds. */
+  public long getMaxNanos() {
+    return this.nanosMax;
+  }
+
+  /** @return Returns the amount of times a due TickTask was carried over to the next tick. */
+  public long getDeferrals() {
+    return this.deferrals;
+  }
+
+  /** @return Returns the amount of times a TickTask ran past the end of the tick's budget. */
+  public long getOverruns() {
+    return this.overruns;
+  }
+}
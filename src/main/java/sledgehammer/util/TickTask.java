@@ -20,6 +20,8 @@
 
 package sledgehammer.util;
 
+import java.util.concurrent.TimeUnit;
+
 import sledgehammer.SledgeHammer;
 import sledgehammer.plugin.Module;
 
@@ -32,6 +34,9 @@ import sledgehammer.plugin.Module;
 public abstract class TickTask extends Printable {
 
   private TaskType type;
+  private Module module;
+  /** The interval in milliseconds of a wall-clock timer-task. 0 if the TickTask counts ticks. */
+  private long periodMillis = 0L;
   private int delayTicksTimer = 1;
   private int delayTicks = 0;
   private boolean alive = false;
@@ -64,6 +69,22 @@ public abstract class TickTask extends Printable {
       delayTicks--;
       return true;
     }
+    return execute();
+  }
+
+  /**
+   * Executes the TickTask implementation without counting down its delay. This is called by the
+   * TaskManager when the TickTask is due.
+   *
+   * <p>If the TickTask is a timer-task and an Exception is thrown, then the TickTask is cancelled.
+   *
+   * @return Returns true if the task is a timer-task and has successfully ran. If false is
+   *     returned, the TickTask is unregistered from the TaskManager.
+   */
+  public boolean execute() {
+    if (!isAlive()) {
+      return false;
+    }
     // Initially set to return true if the task is a timer-task.
     boolean returned = type == TaskType.TIMER;
     try {
@@ -85,7 +106,6 @@ public abstract class TickTask extends Printable {
     catch (Exception e) {
       returned = false;
       stackTrace(e);
-      SledgeHammer.instance.handle(e);
     }
     // Set the flag for being alive. This flag is synonymous with the returned boolean value.
     this.alive = returned;
@@ -116,6 +136,8 @@ public abstract class TickTask extends Printable {
     this.alive = true;
     this.type = TaskType.ONCE;
     // @formatter:on
+    this.periodMillis = 0L;
+    this.module = module;
     SledgeHammer.instance.getTaskManager().register(module, this);
   }
 
@@ -143,6 +165,8 @@ public abstract class TickTask extends Printable {
     this.alive = true;
     this.type = TaskType.ONCE;
     // @formatter:on
+    this.periodMillis = 0L;
+    this.module = module;
     SledgeHammer.instance.getTaskManager().register(module, this);
   }
 
@@ -178,9 +202,99 @@ public abstract class TickTask extends Printable {
     this.type = TaskType.TIMER;
     this.alive = true;
     // @formatter:on
+    this.periodMillis = 0L;
+    this.module = module;
     SledgeHammer.instance.getTaskManager().register(module, this);
   }
 
+  /**
+   * Registers and runs the TickTask as a one-time operation, at a time on the wall-clock. If the
+   * time has passed, the TickTask runs on the next tick.
+   *
+   * <p>Throws an IllegalArgumentException if the following occurs: - The Module provided is null or
+   * not loaded.
+   *
+   * <p>Throws an IllegalStateException if the following occurs: - The TickTask is already running.
+   *
+   * @param module The Module to register the TickTask to the TaskManager.
+   * @param time The time in milliseconds since the epoch to execute the TickTask.
+   */
+  public void runAt(Module module, long time) {
+    if (module == null || !module.isLoaded()) {
+      throw new IllegalArgumentException("Module provided is null or isn't loaded.");
+    }
+    if (isAlive()) {
+      throw new IllegalStateException("TickTask is already running.");
+    }
+    // @formatter:off
+    this.delayTicksTimer = 0;
+    this.delayTicks = 0;
+    this.alive = true;
+    this.type = TaskType.ONCE;
+    // @formatter:on
+    this.periodMillis = 0L;
+    this.module = module;
+    long delay = Math.max(0L, time - System.currentTimeMillis());
+    SledgeHammer.instance.getTaskManager().registerTimed(module, this, delay);
+  }
+
+  /**
+   * Registers and runs the TickTask as a wall-clock timed operation, starting on the next tick.
+   *
+   * @param module The Module to register the TickTask to the TaskManager.
+   * @param period The interval to execute the TickTask.
+   * @param unit The TimeUnit of the period.
+   * @see #runEvery(Module, long, long, TimeUnit)
+   */
+  public void runEvery(Module module, long period, TimeUnit unit) {
+    runEvery(module, 0L, period, unit);
+  }
+
+  /**
+   * Registers and runs the TickTask as a wall-clock timed operation. Wall-clock timer-tasks run on
+   * the first tick after they are due, measured with the TaskManager's clock. If the TickTask falls
+   * behind by more than a period, the missed executions are skipped.
+   *
+   * <p>Throws an IllegalArgumentException if the following occurs: - The Module provided is null or
+   * not loaded. - The delay argument is less than 0. - The period argument is less than 1
+   * millisecond.
+   *
+   * <p>Throws an IllegalStateException if the following occurs: - The TickTask is already running.
+   *
+   * @param module The Module to register the TickTask to the TaskManager.
+   * @param delay The delay to execute the TickTask the first time.
+   * @param period The interval to execute the TickTask.
+   * @param unit The TimeUnit of the delay and the period.
+   */
+  public void runEvery(Module module, long delay, long period, TimeUnit unit) {
+    if (module == null || !module.isLoaded()) {
+      throw new IllegalArgumentException("Module provided is null or isn't loaded.");
+    }
+    if (isAlive()) {
+      throw new IllegalStateException("TickTask is already running.");
+    }
+    if (unit == null) {
+      throw new IllegalArgumentException("TimeUnit given is null.");
+    }
+    long delayMillis = unit.toMillis(delay);
+    long periodMillis = unit.toMillis(period);
+    if (delayMillis < 0L) {
+      throw new IllegalArgumentException("delay cannot be less than 0.");
+    }
+    if (periodMillis <= 0L) {
+      throw new IllegalArgumentException("period cannot be less than 1 millisecond.");
+    }
+    // @formatter:off
+    this.delayTicks = 0;
+    this.delayTicksTimer = 0;
+    this.type = TaskType.TIMER;
+    this.alive = true;
+    // @formatter:on
+    this.periodMillis = periodMillis;
+    this.module = module;
+    SledgeHammer.instance.getTaskManager().registerTimed(module, this, delayMillis);
+  }
+
   /**
    * Cancels the TickTask.
    *
@@ -196,6 +310,35 @@ public abstract class TickTask extends Printable {
     this.delayTicks = 0;
     this.delayTicksTimer = 0;
     // @formatter:on
+    SledgeHammer.instance.getTaskManager().cancel(this);
+  }
+
+  /** @return Returns the delay in ticks before the TickTask is next executed. */
+  public int getDelayTicks() {
+    return this.delayTicks;
+  }
+
+  /** @return Returns the interval in ticks between executions of a timer-task. */
+  public int getDelayTicksTimer() {
+    return this.delayTicksTimer;
+  }
+
+  /**
+   * @return Returns the interval in milliseconds of a wall-clock timer-task. If 0 is returned, the
+   *     TickTask is scheduled in ticks.
+   */
+  public long getPeriodMillis() {
+    return this.periodMillis;
+  }
+
+  /** @return Returns the Module the TickTask was last registered by. */
+  public Module getModule() {
+    return this.module;
+  }
+
+  /** @return Returns the nature of the TickTask's assignment to the TaskManager. */
+  public TaskType getType() {
+    return this.type;
   }
 
   /** @return Returns true if the TickTask is used by the TaskManager. */